@@ -0,0 +1,50 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.benchmarks;
+
+import org.jose4j.jwa.AlgorithmFactoryFactory;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Set;
+
+/**
+ * Runs the benchmarks matching the regular expression given as the first argument (all of them, if there isn't one)
+ * with the GC profiler, so that the allocation rate and bytes allocated per operation are reported
+ * along with the throughput. JWS is benchmarked with every algorithm registered in
+ * {@link AlgorithmFactoryFactory} that's available on the running JVM.
+ */
+public class BenchmarkRunner
+{
+    public static void main(String... args) throws RunnerException
+    {
+        String include = args.length > 0 ? args[0] : ".*";
+
+        Set<String> jwsAlgorithms = AlgorithmFactoryFactory.getInstance().getJwsAlgorithmFactory().getSupportedAlgorithms();
+
+        Options options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .param("signatureAlgorithm", jwsAlgorithms.toArray(new String[jwsAlgorithms.size()]))
+                .build();
+
+        new Runner(options).run();
+    }
+}
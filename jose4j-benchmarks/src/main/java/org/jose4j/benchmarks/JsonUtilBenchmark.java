@@ -0,0 +1,82 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.benchmarks;
+
+import org.jose4j.json.JsonUtil;
+import org.jose4j.json.LazyJsonObject;
+import org.jose4j.lang.JoseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing and serializing the JSON of typical JOSE headers and JWT claims.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonUtilBenchmark
+{
+    private static final String HEADER = "{\"alg\":\"RS256\",\"kid\":\"2022-09-01\",\"typ\":\"JWT\"}";
+
+    private String claimsJson;
+    private Map<String, Object> claims;
+
+    @Setup
+    public void setup() throws JoseException
+    {
+        claimsJson = Payloads.claimsJson();
+        claims = JsonUtil.parseJson(claimsJson);
+    }
+
+    @Benchmark
+    public Map<String, Object> parseHeader() throws JoseException
+    {
+        return JsonUtil.parseJson(HEADER);
+    }
+
+    @Benchmark
+    public Map<String, Object> parseClaims() throws JoseException
+    {
+        return JsonUtil.parseJson(claimsJson);
+    }
+
+    @Benchmark
+    public Object indexClaimsAndGetSubject()
+    {
+        return LazyJsonObject.index(claimsJson).get("sub");
+    }
+
+    @Benchmark
+    public String serializeClaims()
+    {
+        return JsonUtil.toJson(claims);
+    }
+}
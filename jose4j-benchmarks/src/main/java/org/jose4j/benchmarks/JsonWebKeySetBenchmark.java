@@ -0,0 +1,102 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.benchmarks;
+
+import org.jose4j.jwk.EllipticCurveJsonWebKey;
+import org.jose4j.jwk.JsonWebKey;
+import org.jose4j.jwk.JsonWebKeySet;
+import org.jose4j.jwk.RsaJsonWebKey;
+import org.jose4j.keys.EcKeyUtil;
+import org.jose4j.keys.EllipticCurves;
+import org.jose4j.keys.RsaKeyUtil;
+import org.jose4j.lang.JoseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.KeyPair;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing JWK Sets of various sizes, like those fetched from a jwks_uri, and finding a key in them by its ID.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonWebKeySetBenchmark
+{
+    @Param({"2", "20", "200", "2000"})
+    public int keyCount;
+
+    private String json;
+    private JsonWebKeySet jwks;
+    private String lastKid;
+
+    @Setup
+    public void setup() throws JoseException
+    {
+        KeyPair[] rsaKeyPairs = new KeyPair[4];
+        KeyPair[] ecKeyPairs = new KeyPair[4];
+        for (int i = 0; i < rsaKeyPairs.length; i++)
+        {
+            rsaKeyPairs[i] = new RsaKeyUtil().generateKeyPair(2048);
+            ecKeyPairs[i] = new EcKeyUtil().generateKeyPair(EllipticCurves.P256);
+        }
+
+        List<JsonWebKey> keys = new ArrayList<>();
+        for (int i = 0; i < keyCount; i++)
+        {
+            JsonWebKey jwk = i % 2 == 0
+                    ? new RsaJsonWebKey((RSAPublicKey) rsaKeyPairs[i % rsaKeyPairs.length].getPublic())
+                    : new EllipticCurveJsonWebKey((ECPublicKey) ecKeyPairs[i % ecKeyPairs.length].getPublic());
+            lastKid = "key-" + i;
+            jwk.setKeyId(lastKid);
+            jwk.setUse("sig");
+            keys.add(jwk);
+        }
+
+        jwks = new JsonWebKeySet(keys);
+        json = jwks.toJson();
+    }
+
+    @Benchmark
+    public JsonWebKeySet parse() throws JoseException
+    {
+        return new JsonWebKeySet(json);
+    }
+
+    @Benchmark
+    public JsonWebKey findByKeyId()
+    {
+        return jwks.findJsonWebKey(lastKid, null, null, null);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.benchmarks;
+
+import org.jose4j.jwa.AlgorithmConstraints;
+import org.jose4j.jwe.JsonWebEncryption;
+import org.jose4j.lang.JoseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encrypting and decrypting a JWE across every pair of key management and content encryption algorithms.
+ * That's a lot of combinations so narrowing them down with {@code -p keyManagement=... -p contentEncryption=...}
+ * is often a good idea.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class JweBenchmark
+{
+    @Param({"RSA1_5", "RSA-OAEP", "RSA-OAEP-256", "ECDH-ES", "ECDH-ES+A128KW", "ECDH-ES+A192KW", "ECDH-ES+A256KW",
+            "A128KW", "A192KW", "A256KW", "A128GCMKW", "A192GCMKW", "A256GCMKW",
+            "PBES2-HS256+A128KW", "PBES2-HS384+A192KW", "PBES2-HS512+A256KW", "dir"})
+    public String keyManagement;
+
+    @Param({"A128CBC-HS256", "A192CBC-HS384", "A256CBC-HS512", "A128GCM", "A192GCM", "A256GCM"})
+    public String contentEncryption;
+
+    private Keys keys;
+    private String payload;
+    private String compactSerialization;
+
+    @Setup
+    public void setup() throws JoseException
+    {
+        keys = Keys.forJwe(keyManagement, contentEncryption);
+        payload = Payloads.claimsJson();
+        compactSerialization = encrypt();
+    }
+
+    @Benchmark
+    public String encrypt() throws JoseException
+    {
+        JsonWebEncryption jwe = new JsonWebEncryption();
+        jwe.setAlgorithmConstraints(AlgorithmConstraints.NO_CONSTRAINTS);
+        jwe.setContentEncryptionAlgorithmConstraints(AlgorithmConstraints.NO_CONSTRAINTS);
+        jwe.setAlgorithmHeaderValue(keyManagement);
+        jwe.setEncryptionMethodHeaderParameter(contentEncryption);
+        jwe.setPayload(payload);
+        jwe.setKey(keys.getEncryptionKey());
+        return jwe.getCompactSerialization();
+    }
+
+    @Benchmark
+    public String decrypt() throws JoseException
+    {
+        JsonWebEncryption jwe = new JsonWebEncryption();
+        jwe.setAlgorithmConstraints(AlgorithmConstraints.NO_CONSTRAINTS);
+        jwe.setContentEncryptionAlgorithmConstraints(AlgorithmConstraints.NO_CONSTRAINTS);
+        jwe.setCompactSerialization(compactSerialization);
+        jwe.setKey(keys.getDecryptionKey());
+        return jwe.getPayload();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.benchmarks;
+
+import org.jose4j.jwa.AlgorithmConstraints;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.lang.JoseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signing and verifying a JWS. The default parameters are the standard algorithms that are available
+ * on recent JVMs without any additional providers, {@link BenchmarkRunner} substitutes every algorithm
+ * that's registered and available.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwsBenchmark
+{
+    @Param({"none", "HS256", "HS384", "HS512", "RS256", "RS384", "RS512", "PS256", "PS384", "PS512",
+            "ES256", "ES384", "ES512", "EdDSA"})
+    public String signatureAlgorithm;
+
+    private Keys keys;
+    private String payload;
+    private String compactSerialization;
+
+    @Setup
+    public void setup() throws JoseException
+    {
+        keys = Keys.forJws(signatureAlgorithm);
+        payload = Payloads.claimsJson();
+        compactSerialization = sign();
+    }
+
+    @Benchmark
+    public String sign() throws JoseException
+    {
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setAlgorithmConstraints(AlgorithmConstraints.NO_CONSTRAINTS);
+        jws.setAlgorithmHeaderValue(signatureAlgorithm);
+        jws.setKeyIdHeaderValue("k1");
+        jws.setPayload(payload);
+        jws.setKey(keys.getSigningKey());
+        return jws.getCompactSerialization();
+    }
+
+    @Benchmark
+    public boolean verify() throws JoseException
+    {
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setAlgorithmConstraints(AlgorithmConstraints.NO_CONSTRAINTS);
+        jws.setCompactSerialization(compactSerialization);
+        jws.setKey(keys.getVerificationKey());
+        return jws.verifySignature();
+    }
+
+    @Benchmark
+    public String verifyAndGetPayload() throws JoseException
+    {
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setAlgorithmConstraints(AlgorithmConstraints.NO_CONSTRAINTS);
+        jws.setCompactSerialization(compactSerialization);
+        jws.setKey(keys.getVerificationKey());
+        return jws.getPayload();
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.benchmarks;
+
+import org.jose4j.jca.ProviderContext;
+import org.jose4j.jca.SignatureVerifierPool;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwt.consumer.InvalidJwtException;
+import org.jose4j.jwt.consumer.JwtConsumer;
+import org.jose4j.jwt.consumer.JwtConsumerBuilder;
+import org.jose4j.lang.JoseException;
+import org.jose4j.mac.MacCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Processing a signed JWT with a typical set of claims through a {@link JwtConsumer} that validates the issuer,
+ * audience and time based claims. Variants cover the optional caches and lazy claims parsing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtConsumerBenchmark
+{
+    @Param({"HS256", "RS256", "ES256"})
+    public String algorithm;
+
+    private String jwt;
+    private JwtConsumer consumer;
+    private JwtConsumer lazyClaimsConsumer;
+    private JwtConsumer pooledConsumer;
+    private JwtConsumer verifiedJwtCacheConsumer;
+
+    @Setup
+    public void setup() throws JoseException
+    {
+        Keys keys = Keys.forJws(algorithm);
+
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setAlgorithmHeaderValue(algorithm);
+        jws.setKeyIdHeaderValue("k1");
+        jws.setPayload(Payloads.claimsJson());
+        jws.setKey(keys.getSigningKey());
+        jwt = jws.getCompactSerialization();
+
+        consumer = builder(keys).build();
+        lazyClaimsConsumer = builder(keys).setLazyClaimsParsing().build();
+
+        ProviderContext providerContext = new ProviderContext();
+        providerContext.setMacCache(new MacCache());
+        providerContext.setSignatureVerifierPool(new SignatureVerifierPool());
+        pooledConsumer = builder(keys).setJwsProviderContext(providerContext).build();
+
+        verifiedJwtCacheConsumer = builder(keys).setVerifiedJwtCache(1000, 300).build();
+    }
+
+    private JwtConsumerBuilder builder(Keys keys)
+    {
+        return new JwtConsumerBuilder()
+                .setVerificationKey(keys.getVerificationKey())
+                .setExpectedIssuer(Payloads.ISSUER)
+                .setExpectedAudience(Payloads.AUDIENCE)
+                .setRequireExpirationTime()
+                .setRequireSubject()
+                .setRequireJwtId()
+                .setAllowedClockSkewInSeconds(30);
+    }
+
+    @Benchmark
+    public JwtClaims process() throws InvalidJwtException
+    {
+        return consumer.processToClaims(jwt);
+    }
+
+    @Benchmark
+    public JwtClaims processWithLazyClaims() throws InvalidJwtException
+    {
+        return lazyClaimsConsumer.processToClaims(jwt);
+    }
+
+    @Benchmark
+    public JwtClaims processWithPooledCrypto() throws InvalidJwtException
+    {
+        return pooledConsumer.processToClaims(jwt);
+    }
+
+    @Benchmark
+    public JwtClaims processWithVerifiedJwtCache() throws InvalidJwtException
+    {
+        return verifiedJwtCacheConsumer.processToClaims(jwt);
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.benchmarks;
+
+import org.jose4j.jwe.ContentEncryptionAlgorithmIdentifiers;
+import org.jose4j.jwe.KeyManagementAlgorithmIdentifiers;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jwk.OctetKeyPairJsonWebKey;
+import org.jose4j.keys.AesKey;
+import org.jose4j.keys.EcKeyUtil;
+import org.jose4j.keys.EdDsaKeyUtil;
+import org.jose4j.keys.EllipticCurves;
+import org.jose4j.keys.HmacKey;
+import org.jose4j.keys.PbkdfKey;
+import org.jose4j.keys.RsaKeyUtil;
+import org.jose4j.lang.ByteUtil;
+import org.jose4j.lang.JoseException;
+
+import java.security.Key;
+import java.security.KeyPair;
+
+/**
+ * Generates keys suitable for the various algorithms that are benchmarked.
+ */
+final class Keys
+{
+    private final Key signingOrEncryptionKey;
+    private final Key verificationOrDecryptionKey;
+
+    private Keys(Key key)
+    {
+        this(key, key);
+    }
+
+    private Keys(Key signingOrEncryptionKey, Key verificationOrDecryptionKey)
+    {
+        this.signingOrEncryptionKey = signingOrEncryptionKey;
+        this.verificationOrDecryptionKey = verificationOrDecryptionKey;
+    }
+
+    private Keys(KeyPair keyPair, boolean privateKeyFirst)
+    {
+        this(privateKeyFirst ? keyPair.getPrivate() : keyPair.getPublic(), privateKeyFirst ? keyPair.getPublic() : keyPair.getPrivate());
+    }
+
+    Key getSigningKey()
+    {
+        return signingOrEncryptionKey;
+    }
+
+    Key getVerificationKey()
+    {
+        return verificationOrDecryptionKey;
+    }
+
+    Key getEncryptionKey()
+    {
+        return signingOrEncryptionKey;
+    }
+
+    Key getDecryptionKey()
+    {
+        return verificationOrDecryptionKey;
+    }
+
+    static Keys forJws(String alg) throws JoseException
+    {
+        switch (alg)
+        {
+            case AlgorithmIdentifiers.NONE:
+                return new Keys(null);
+            case AlgorithmIdentifiers.HMAC_SHA256:
+                return new Keys(new HmacKey(ByteUtil.randomBytes(32)));
+            case AlgorithmIdentifiers.HMAC_SHA384:
+                return new Keys(new HmacKey(ByteUtil.randomBytes(48)));
+            case AlgorithmIdentifiers.HMAC_SHA512:
+                return new Keys(new HmacKey(ByteUtil.randomBytes(64)));
+            case AlgorithmIdentifiers.RSA_USING_SHA256:
+            case AlgorithmIdentifiers.RSA_USING_SHA384:
+            case AlgorithmIdentifiers.RSA_USING_SHA512:
+            case AlgorithmIdentifiers.RSA_PSS_USING_SHA256:
+            case AlgorithmIdentifiers.RSA_PSS_USING_SHA384:
+            case AlgorithmIdentifiers.RSA_PSS_USING_SHA512:
+                return new Keys(rsa(), true);
+            case AlgorithmIdentifiers.ECDSA_USING_P256_CURVE_AND_SHA256:
+                return new Keys(new EcKeyUtil().generateKeyPair(EllipticCurves.P256), true);
+            case AlgorithmIdentifiers.ECDSA_USING_P384_CURVE_AND_SHA384:
+                return new Keys(new EcKeyUtil().generateKeyPair(EllipticCurves.P384), true);
+            case AlgorithmIdentifiers.ECDSA_USING_P521_CURVE_AND_SHA512:
+                return new Keys(new EcKeyUtil().generateKeyPair(EllipticCurves.P521), true);
+            case AlgorithmIdentifiers.ECDSA_USING_SECP256K1_CURVE_AND_SHA256:
+                return new Keys(new EcKeyUtil().generateKeyPair(EllipticCurves.SECP256K1), true);
+            case AlgorithmIdentifiers.EDDSA:
+                return new Keys(new EdDsaKeyUtil().generateKeyPair(OctetKeyPairJsonWebKey.SUBTYPE_ED25519), true);
+            default:
+                throw new IllegalArgumentException("No keys for JWS algorithm " + alg);
+        }
+    }
+
+    static Keys forJwe(String alg, String enc) throws JoseException
+    {
+        switch (alg)
+        {
+            case KeyManagementAlgorithmIdentifiers.RSA1_5:
+            case KeyManagementAlgorithmIdentifiers.RSA_OAEP:
+            case KeyManagementAlgorithmIdentifiers.RSA_OAEP_256:
+                return new Keys(rsa(), false);
+            case KeyManagementAlgorithmIdentifiers.ECDH_ES:
+            case KeyManagementAlgorithmIdentifiers.ECDH_ES_A128KW:
+            case KeyManagementAlgorithmIdentifiers.ECDH_ES_A192KW:
+            case KeyManagementAlgorithmIdentifiers.ECDH_ES_A256KW:
+                return new Keys(new EcKeyUtil().generateKeyPair(EllipticCurves.P256), false);
+            case KeyManagementAlgorithmIdentifiers.A128KW:
+            case KeyManagementAlgorithmIdentifiers.A128GCMKW:
+                return new Keys(new AesKey(ByteUtil.randomBytes(16)));
+            case KeyManagementAlgorithmIdentifiers.A192KW:
+            case KeyManagementAlgorithmIdentifiers.A192GCMKW:
+                return new Keys(new AesKey(ByteUtil.randomBytes(24)));
+            case KeyManagementAlgorithmIdentifiers.A256KW:
+            case KeyManagementAlgorithmIdentifiers.A256GCMKW:
+                return new Keys(new AesKey(ByteUtil.randomBytes(32)));
+            case KeyManagementAlgorithmIdentifiers.PBES2_HS256_A128KW:
+            case KeyManagementAlgorithmIdentifiers.PBES2_HS384_A192KW:
+            case KeyManagementAlgorithmIdentifiers.PBES2_HS512_A256KW:
+                return new Keys(new PbkdfKey("correct horse battery staple"));
+            case KeyManagementAlgorithmIdentifiers.DIRECT:
+                return new Keys(new AesKey(ByteUtil.randomBytes(contentEncryptionKeyLength(enc))));
+            default:
+                throw new IllegalArgumentException("No keys for JWE algorithm " + alg);
+        }
+    }
+
+    private static int contentEncryptionKeyLength(String enc)
+    {
+        switch (enc)
+        {
+            case ContentEncryptionAlgorithmIdentifiers.AES_128_CBC_HMAC_SHA_256:
+                return 32;
+            case ContentEncryptionAlgorithmIdentifiers.AES_192_CBC_HMAC_SHA_384:
+                return 48;
+            case ContentEncryptionAlgorithmIdentifiers.AES_256_CBC_HMAC_SHA_512:
+                return 64;
+            case ContentEncryptionAlgorithmIdentifiers.AES_128_GCM:
+                return 16;
+            case ContentEncryptionAlgorithmIdentifiers.AES_192_GCM:
+                return 24;
+            case ContentEncryptionAlgorithmIdentifiers.AES_256_GCM:
+                return 32;
+            default:
+                throw new IllegalArgumentException("Unknown content encryption algorithm " + enc);
+        }
+    }
+
+    private static KeyPair rsa() throws JoseException
+    {
+        return new RsaKeyUtil().generateKeyPair(2048);
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.benchmarks;
+
+import org.jose4j.jwt.JwtClaims;
+
+/**
+ * Typical content for the benchmarks.
+ */
+final class Payloads
+{
+    static final String ISSUER = "https://idp.example.com";
+    static final String AUDIENCE = "https://api.example.com";
+
+    private Payloads()
+    {
+    }
+
+    static JwtClaims claims()
+    {
+        JwtClaims claims = new JwtClaims();
+        claims.setIssuer(ISSUER);
+        claims.setSubject("248289761001");
+        claims.setAudience(AUDIENCE, "https://other.example.com");
+        claims.setExpirationTimeMinutesInTheFuture(60 * 24 * 365);
+        claims.setIssuedAtToNow();
+        claims.setNotBeforeMinutesInThePast(1);
+        claims.setGeneratedJwtId();
+        claims.setStringClaim("scope", "openid profile email read:orders write:orders");
+        claims.setStringClaim("client_id", "s6BhdRkqt3");
+        claims.setStringClaim("email", "janedoe@example.com");
+        claims.setStringListClaim("groups", "admins", "developers", "on-call");
+        return claims;
+    }
+
+    static String claimsJson()
+    {
+        return claims().toJson();
+    }
+}
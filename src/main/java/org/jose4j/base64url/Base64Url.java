@@ -23,7 +23,12 @@ import org.jose4j.lang.StringUtil;
  */
 public class Base64Url
 {
-    private Base64 base64urlCodec;
+    private static final byte NON_ASCII = (byte) 0x80;
+
+    // the codec keeps no state between calls so one instance can serve all the static methods
+    private static final Base64Url SHARED = new Base64Url();
+
+    private final Base64 base64urlCodec;
 
     public Base64Url()
     {
@@ -43,7 +48,39 @@ public class Base64Url
 
     public byte[] base64UrlDecode(String encodedValue)
     {
-        return base64urlCodec.decode(encodedValue);
+        if (encodedValue == null)
+        {
+            return null;
+        }
+
+        byte[] bytes = Base64UrlFastPath.decode(encodedValue, 0, encodedValue.length());
+        return (bytes != null) ? bytes : base64urlCodec.decode(encodedValue);
+    }
+
+    /**
+     * Decodes the base64url characters in a region of the given string without
+     * first copying that region out into a substring.
+     * @param encodedValue the string containing the base64url encoded value
+     * @param offset the index of the first character of the encoded value
+     * @param length the number of characters in the encoded value
+     * @return the decoded bytes
+     */
+    public byte[] base64UrlDecode(String encodedValue, int offset, int length)
+    {
+        byte[] bytes = Base64UrlFastPath.decode(encodedValue, offset, length);
+        if (bytes != null)
+        {
+            return bytes;
+        }
+
+        byte[] encodedBytes = new byte[length];
+        for (int i = 0; i < length; i++)
+        {
+            char c = encodedValue.charAt(offset + i);
+            // anything outside of ASCII is skipped by the decoder just like its UTF-8 bytes would be
+            encodedBytes[i] = (c < 0x80) ? (byte) c : NON_ASCII;
+        }
+        return base64urlCodec.decode(encodedBytes);
     }
 
     public String base64UrlEncodeUtf8ByteRepresentation(String value)
@@ -57,14 +94,26 @@ public class Base64Url
         return base64UrlEncode(bytes);
     }
 
+    /**
+     * Encodes a region of the given bytes without first copying it out into its own array.
+     * @param bytes the array holding the bytes to encode
+     * @param offset the index of the first byte to encode
+     * @param length the number of bytes to encode
+     * @return the base64url encoded value
+     */
+    public String base64UrlEncode(byte[] bytes, int offset, int length)
+    {
+        return Base64UrlFastPath.encode(bytes, offset, length);
+    }
+
     public String base64UrlEncode(byte[] bytes)
     {
-        return base64urlCodec.encodeToString(bytes);
+        return (bytes != null) ? Base64UrlFastPath.encode(bytes) : base64urlCodec.encodeToString(bytes);
     }
 
     private static Base64Url getOne()
     {
-        return new Base64Url();
+        return SHARED;
     }
 
     public static String decodeToUtf8String(String encodedValue)
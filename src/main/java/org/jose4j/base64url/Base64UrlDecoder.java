@@ -0,0 +1,203 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.base64url;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * An incremental, strict base64url decoder that can be given its input a piece at a time, with pieces split
+ * anywhere, and that writes into buffers supplied by the caller. Up to three characters that can't yet be decoded
+ * are carried over from one call to the next and {@link #finish(byte[], int)} decodes whatever is left at the end.
+ * Anything other than the 64 characters of the base64url alphabet, including padding and whitespace,
+ * is rejected with an {@code IllegalArgumentException}.
+ * <p>
+ * An instance holds the state of one decoding and isn't thread safe. It can be reused after finishing or {@link #reset()}.
+ */
+public class Base64UrlDecoder
+{
+    static final byte[] DECODE_TABLE = new byte[128];
+    static
+    {
+        Arrays.fill(DECODE_TABLE, (byte) -1);
+        for (int i = 0; i < Base64UrlEncoder.ALPHABET.length; i++)
+        {
+            DECODE_TABLE[Base64UrlEncoder.ALPHABET[i]] = (byte) i;
+        }
+    }
+
+    private int pending;
+    private int pendingCount;
+
+    /**
+     * @param charLength the number of characters passed to one of the decode methods
+     * @return the most bytes that call can produce, given what's being carried over from earlier calls
+     */
+    public int maxDecodedLength(int charLength)
+    {
+        return (int) (((long) pendingCount + charLength) / 4 * 3);
+    }
+
+    /**
+     * Decodes ASCII bytes.
+     * @return the number of bytes written to {@code dst}
+     * @throws IllegalArgumentException if there's a character outside of the base64url alphabet
+     */
+    public int decode(byte[] src, int off, int len, byte[] dst, int dstOff)
+    {
+        int p = dstOff;
+        for (int i = off, end = off + len; i < end; i++)
+        {
+            int c = src[i];
+            int v = c >= 0 ? DECODE_TABLE[c] : -1;
+            if (v < 0)
+            {
+                throw invalid(c & 0xff);
+            }
+            pending = (pending << 6) | v;
+            if (++pendingCount == 4)
+            {
+                dst[p++] = (byte) (pending >>> 16);
+                dst[p++] = (byte) (pending >>> 8);
+                dst[p++] = (byte) pending;
+                pending = 0;
+                pendingCount = 0;
+            }
+        }
+        return p - dstOff;
+    }
+
+    /**
+     * Decodes characters.
+     * @return the number of bytes written to {@code dst}
+     * @throws IllegalArgumentException if there's a character outside of the base64url alphabet
+     */
+    public int decode(CharSequence src, int off, int len, byte[] dst, int dstOff)
+    {
+        int p = dstOff;
+        for (int i = off, end = off + len; i < end; i++)
+        {
+            char c = src.charAt(i);
+            int v = c < 128 ? DECODE_TABLE[c] : -1;
+            if (v < 0)
+            {
+                throw invalid(c);
+            }
+            pending = (pending << 6) | v;
+            if (++pendingCount == 4)
+            {
+                dst[p++] = (byte) (pending >>> 16);
+                dst[p++] = (byte) (pending >>> 8);
+                dst[p++] = (byte) pending;
+                pending = 0;
+                pendingCount = 0;
+            }
+        }
+        return p - dstOff;
+    }
+
+    /**
+     * Decodes as much of the remaining ASCII bytes of {@code src} as there's room for in {@code dst}.
+     * Progress is only guaranteed when {@code dst} has room for at least 3 bytes.
+     * @throws IllegalArgumentException if there's a character outside of the base64url alphabet
+     */
+    public void decode(ByteBuffer src, ByteBuffer dst)
+    {
+        if (src.hasArray() && dst.hasArray())
+        {
+            int len = Math.min(src.remaining(), maxInputFor(dst.remaining()));
+            int written = decode(src.array(), src.arrayOffset() + src.position(), len, dst.array(), dst.arrayOffset() + dst.position());
+            src.position(src.position() + len);
+            dst.position(dst.position() + written);
+            return;
+        }
+
+        byte[] in = new byte[Math.min(src.remaining(), 4 * 1024)];
+        byte[] out = new byte[maxDecodedLength(in.length)];
+        while (src.hasRemaining())
+        {
+            int len = Math.min(Math.min(src.remaining(), in.length), maxInputFor(dst.remaining()));
+            if (len == 0)
+            {
+                break;
+            }
+            src.get(in, 0, len);
+            dst.put(out, 0, decode(in, 0, len, out, 0));
+        }
+    }
+
+    /**
+     * Decodes whatever has been carried over. It writes at most 2 bytes.
+     * @return the number of bytes written to {@code dst}
+     * @throws IllegalArgumentException if a single character was left over, which can't be a valid encoding
+     */
+    public int finish(byte[] dst, int dstOff)
+    {
+        int p = dstOff;
+        try
+        {
+            if (pendingCount == 1)
+            {
+                throw new IllegalArgumentException("A single base64url character can't be decoded.");
+            }
+            else if (pendingCount == 2)
+            {
+                dst[p++] = (byte) (pending >>> 4);
+            }
+            else if (pendingCount == 3)
+            {
+                dst[p++] = (byte) (pending >>> 10);
+                dst[p++] = (byte) (pending >>> 2);
+            }
+        }
+        finally
+        {
+            reset();
+        }
+        return p - dstOff;
+    }
+
+    /**
+     * Decodes whatever has been carried over into {@code dst}, which needs room for up to 2 bytes.
+     * @throws IllegalArgumentException if a single character was left over, which can't be a valid encoding
+     */
+    public void finish(ByteBuffer dst)
+    {
+        byte[] last = new byte[2];
+        dst.put(last, 0, finish(last, 0));
+    }
+
+    /**
+     * Discards anything carried over from earlier calls.
+     */
+    public void reset()
+    {
+        pending = 0;
+        pendingCount = 0;
+    }
+
+    private int maxInputFor(int decodedRoom)
+    {
+        long chars = (long) decodedRoom / 3 * 4 + 3 - pendingCount;
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE, chars));
+    }
+
+    private static IllegalArgumentException invalid(int c)
+    {
+        return new IllegalArgumentException("Invalid base64url character 0x" + Integer.toHexString(c) + ".");
+    }
+}
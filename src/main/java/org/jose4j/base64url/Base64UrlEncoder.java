@@ -0,0 +1,249 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.base64url;
+
+import java.nio.ByteBuffer;
+
+/**
+ * An incremental, unpadded base64url encoder that can be given its input a piece at a time, with pieces split
+ * anywhere, and that writes into buffers supplied by the caller. Up to two bytes of input that can't yet be encoded
+ * are carried over from one call to the next and {@link #finish(byte[], int)} encodes whatever is left at the end.
+ * <p>
+ * An instance holds the state of one encoding and isn't thread safe. It can be reused after finishing or {@link #reset()}.
+ */
+public class Base64UrlEncoder
+{
+    static final byte[] ALPHABET = {
+            'A', 'B', 'C', 'D', 'E', 'F', 'G', 'H', 'I', 'J', 'K', 'L', 'M', 'N', 'O', 'P',
+            'Q', 'R', 'S', 'T', 'U', 'V', 'W', 'X', 'Y', 'Z', 'a', 'b', 'c', 'd', 'e', 'f',
+            'g', 'h', 'i', 'j', 'k', 'l', 'm', 'n', 'o', 'p', 'q', 'r', 's', 't', 'u', 'v',
+            'w', 'x', 'y', 'z', '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', '-', '_'
+    };
+
+    private int pending;
+    private int pendingCount;
+
+    /**
+     * @param byteLength the number of bytes
+     * @return the number of characters in the unpadded base64url encoding of that many bytes
+     */
+    public static int encodedLength(int byteLength)
+    {
+        return (int) (((long) byteLength * 4 + 2) / 3);
+    }
+
+    /**
+     * @param byteLength the number of bytes about to be passed to one of the encode methods
+     * @return the most characters that call can produce, given what's being carried over from earlier calls
+     */
+    public int maxEncodedLength(int byteLength)
+    {
+        return (int) (((long) pendingCount + byteLength) / 3 * 4);
+    }
+
+    /**
+     * Encodes bytes into ASCII bytes.
+     * @return the number of bytes written to {@code dst}
+     */
+    public int encode(byte[] src, int off, int len, byte[] dst, int dstOff)
+    {
+        int end = off + len;
+        int i = off;
+        int p = dstOff;
+
+        if (pendingCount > 0)
+        {
+            while (pendingCount < 3 && i < end)
+            {
+                pending = (pending << 8) | (src[i++] & 0xff);
+                pendingCount++;
+            }
+
+            if (pendingCount < 3)
+            {
+                return 0;
+            }
+
+            dst[p++] = ALPHABET[(pending >>> 18) & 0x3f];
+            dst[p++] = ALPHABET[(pending >>> 12) & 0x3f];
+            dst[p++] = ALPHABET[(pending >>> 6) & 0x3f];
+            dst[p++] = ALPHABET[pending & 0x3f];
+            pending = 0;
+            pendingCount = 0;
+        }
+
+        while (end - i >= 3)
+        {
+            int v = (src[i] & 0xff) << 16 | (src[i + 1] & 0xff) << 8 | (src[i + 2] & 0xff);
+            i += 3;
+            dst[p++] = ALPHABET[v >>> 18];
+            dst[p++] = ALPHABET[(v >>> 12) & 0x3f];
+            dst[p++] = ALPHABET[(v >>> 6) & 0x3f];
+            dst[p++] = ALPHABET[v & 0x3f];
+        }
+
+        while (i < end)
+        {
+            pending = (pending << 8) | (src[i++] & 0xff);
+            pendingCount++;
+        }
+
+        return p - dstOff;
+    }
+
+    /**
+     * Encodes bytes into characters.
+     * @return the number of characters written to {@code dst}
+     */
+    public int encode(byte[] src, int off, int len, char[] dst, int dstOff)
+    {
+        int end = off + len;
+        int i = off;
+        int p = dstOff;
+
+        if (pendingCount > 0)
+        {
+            while (pendingCount < 3 && i < end)
+            {
+                pending = (pending << 8) | (src[i++] & 0xff);
+                pendingCount++;
+            }
+
+            if (pendingCount < 3)
+            {
+                return 0;
+            }
+
+            dst[p++] = (char) ALPHABET[(pending >>> 18) & 0x3f];
+            dst[p++] = (char) ALPHABET[(pending >>> 12) & 0x3f];
+            dst[p++] = (char) ALPHABET[(pending >>> 6) & 0x3f];
+            dst[p++] = (char) ALPHABET[pending & 0x3f];
+            pending = 0;
+            pendingCount = 0;
+        }
+
+        while (end - i >= 3)
+        {
+            int v = (src[i] & 0xff) << 16 | (src[i + 1] & 0xff) << 8 | (src[i + 2] & 0xff);
+            i += 3;
+            dst[p++] = (char) ALPHABET[v >>> 18];
+            dst[p++] = (char) ALPHABET[(v >>> 12) & 0x3f];
+            dst[p++] = (char) ALPHABET[(v >>> 6) & 0x3f];
+            dst[p++] = (char) ALPHABET[v & 0x3f];
+        }
+
+        while (i < end)
+        {
+            pending = (pending << 8) | (src[i++] & 0xff);
+            pendingCount++;
+        }
+
+        return p - dstOff;
+    }
+
+    /**
+     * Encodes as much of the remaining bytes of {@code src} as there's room for in {@code dst}, as ASCII bytes.
+     * Progress is only guaranteed when {@code dst} has room for at least 4 bytes.
+     */
+    public void encode(ByteBuffer src, ByteBuffer dst)
+    {
+        if (src.hasArray() && dst.hasArray())
+        {
+            int len = Math.min(src.remaining(), maxInputFor(dst.remaining()));
+            int written = encode(src.array(), src.arrayOffset() + src.position(), len, dst.array(), dst.arrayOffset() + dst.position());
+            src.position(src.position() + len);
+            dst.position(dst.position() + written);
+            return;
+        }
+
+        byte[] in = new byte[Math.min(src.remaining(), 3 * 1024)];
+        byte[] out = new byte[maxEncodedLength(in.length)];
+        while (src.hasRemaining())
+        {
+            int len = Math.min(Math.min(src.remaining(), in.length), maxInputFor(dst.remaining()));
+            if (len == 0)
+            {
+                break;
+            }
+            src.get(in, 0, len);
+            dst.put(out, 0, encode(in, 0, len, out, 0));
+        }
+    }
+
+    /**
+     * Encodes whatever has been carried over, as ASCII bytes. It writes at most 3 bytes.
+     * @return the number of bytes written to {@code dst}
+     */
+    public int finish(byte[] dst, int dstOff)
+    {
+        int p = dstOff;
+        if (pendingCount == 1)
+        {
+            int v = pending << 4;
+            dst[p++] = ALPHABET[(v >>> 6) & 0x3f];
+            dst[p++] = ALPHABET[v & 0x3f];
+        }
+        else if (pendingCount == 2)
+        {
+            int v = pending << 2;
+            dst[p++] = ALPHABET[(v >>> 12) & 0x3f];
+            dst[p++] = ALPHABET[(v >>> 6) & 0x3f];
+            dst[p++] = ALPHABET[v & 0x3f];
+        }
+        reset();
+        return p - dstOff;
+    }
+
+    /**
+     * Encodes whatever has been carried over, as characters. It writes at most 3 characters.
+     * @return the number of characters written to {@code dst}
+     */
+    public int finish(char[] dst, int dstOff)
+    {
+        byte[] last = new byte[3];
+        int length = finish(last, 0);
+        for (int i = 0; i < length; i++)
+        {
+            dst[dstOff + i] = (char) last[i];
+        }
+        return length;
+    }
+
+    /**
+     * Encodes whatever has been carried over into {@code dst}, which needs room for up to 3 bytes.
+     */
+    public void finish(ByteBuffer dst)
+    {
+        byte[] last = new byte[3];
+        dst.put(last, 0, finish(last, 0));
+    }
+
+    /**
+     * Discards anything carried over from earlier calls.
+     */
+    public void reset()
+    {
+        pending = 0;
+        pendingCount = 0;
+    }
+
+    private int maxInputFor(int encodedRoom)
+    {
+        long bytes = (long) encodedRoom / 4 * 3 + 2 - pendingCount;
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE, bytes));
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.base64url;
+
+/**
+ * Table driven base64url encoding and decoding that computes the exact size of its output up front and
+ * writes it in a single pass, without the buffer management of the general purpose codec. It's meant for the
+ * short values that make up most of JOSE, like headers, signatures, IVs and authentication tags.
+ * <p>
+ * Decoding only takes this path when every character is in the base64url alphabet. Anything else, like
+ * padding, whitespace or characters of the standard base64 alphabet, gets null back so that the caller can
+ * fall back to the general purpose codec and keep its handling of those inputs exactly as it's always been.
+ */
+final class Base64UrlFastPath
+{
+    private static final byte[] ALPHABET = Base64UrlEncoder.ALPHABET;
+    private static final byte[] DECODE_TABLE = Base64UrlDecoder.DECODE_TABLE;
+
+    private Base64UrlFastPath()
+    {
+    }
+
+    static String encode(byte[] bytes)
+    {
+        return encode(bytes, 0, bytes.length);
+    }
+
+    static String encode(byte[] bytes, int offset, int length)
+    {
+        char[] chars = new char[Base64UrlEncoder.encodedLength(length)];
+        int p = 0;
+        int i = offset;
+        for (int end = offset + length - length % 3; i < end; i += 3)
+        {
+            int v = (bytes[i] & 0xff) << 16 | (bytes[i + 1] & 0xff) << 8 | (bytes[i + 2] & 0xff);
+            chars[p++] = (char) ALPHABET[v >>> 18];
+            chars[p++] = (char) ALPHABET[(v >>> 12) & 0x3f];
+            chars[p++] = (char) ALPHABET[(v >>> 6) & 0x3f];
+            chars[p++] = (char) ALPHABET[v & 0x3f];
+        }
+
+        int remaining = offset + length - i;
+        if (remaining == 1)
+        {
+            int v = (bytes[i] & 0xff) << 4;
+            chars[p++] = (char) ALPHABET[v >>> 6];
+            chars[p] = (char) ALPHABET[v & 0x3f];
+        }
+        else if (remaining == 2)
+        {
+            int v = ((bytes[i] & 0xff) << 8 | (bytes[i + 1] & 0xff)) << 2;
+            chars[p++] = (char) ALPHABET[v >>> 12];
+            chars[p++] = (char) ALPHABET[(v >>> 6) & 0x3f];
+            chars[p] = (char) ALPHABET[v & 0x3f];
+        }
+
+        return new String(chars);
+    }
+
+    /**
+     * @return the decoded bytes or null, if there's anything other than base64url characters in the region
+     */
+    static byte[] decode(CharSequence encoded, int offset, int length)
+    {
+        int remainder = length & 3;
+        // like the general purpose codec, a single dangling character doesn't contribute anything
+        int decodedLength = (length >>> 2) * 3 + (remainder == 0 ? 0 : remainder - 1);
+        byte[] bytes = new byte[decodedLength];
+
+        int p = 0;
+        int i = offset;
+        for (int end = offset + length - remainder; i < end; i += 4)
+        {
+            int a = value(encoded.charAt(i));
+            int b = value(encoded.charAt(i + 1));
+            int c = value(encoded.charAt(i + 2));
+            int d = value(encoded.charAt(i + 3));
+            if ((a | b | c | d) < 0)
+            {
+                return null;
+            }
+
+            int v = a << 18 | b << 12 | c << 6 | d;
+            bytes[p++] = (byte) (v >>> 16);
+            bytes[p++] = (byte) (v >>> 8);
+            bytes[p++] = (byte) v;
+        }
+
+        int v = 0;
+        for (int end = offset + length; i < end; i++)
+        {
+            int value = value(encoded.charAt(i));
+            if (value < 0)
+            {
+                return null;
+            }
+            v = v << 6 | value;
+        }
+
+        if (remainder == 2)
+        {
+            bytes[p] = (byte) (v >>> 4);
+        }
+        else if (remainder == 3)
+        {
+            bytes[p++] = (byte) (v >>> 10);
+            bytes[p] = (byte) (v >>> 2);
+        }
+
+        return bytes;
+    }
+
+    private static int value(char c)
+    {
+        return c < 128 ? DECODE_TABLE[c] : -1;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.base64url;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads the decoding of the unpadded base64url encoded ASCII read from an underlying stream, without ever holding
+ * more than a small buffer of it. Anything other than the characters of the base64url alphabet in the underlying stream
+ * results in an {@code IOException}.
+ */
+public class Base64UrlInputStream extends FilterInputStream
+{
+    private static final int INPUT_CHUNK_LENGTH = 4 * 1024;
+
+    private final Base64UrlDecoder decoder = new Base64UrlDecoder();
+    private final byte[] encoded = new byte[INPUT_CHUNK_LENGTH];
+    private final byte[] decoded = new byte[INPUT_CHUNK_LENGTH / 4 * 3 + 3];
+    private int position;
+    private int limit;
+    private boolean eof;
+
+    public Base64UrlInputStream(InputStream in)
+    {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        byte[] b = new byte[1];
+        int read = read(b, 0, 1);
+        return read == -1 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+        if (len == 0)
+        {
+            return 0;
+        }
+
+        while (position == limit)
+        {
+            if (eof)
+            {
+                return -1;
+            }
+            fill();
+        }
+
+        int length = Math.min(len, limit - position);
+        System.arraycopy(decoded, position, b, off, length);
+        position += length;
+        return length;
+    }
+
+    @Override
+    public long skip(long n) throws IOException
+    {
+        long skipped = 0;
+        byte[] b = new byte[512];
+        while (skipped < n)
+        {
+            int read = read(b, 0, (int) Math.min(b.length, n - skipped));
+            if (read == -1)
+            {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available()
+    {
+        return limit - position;
+    }
+
+    @Override
+    public boolean markSupported()
+    {
+        return false;
+    }
+
+    @Override
+    public void mark(int readlimit)
+    {
+    }
+
+    @Override
+    public void reset() throws IOException
+    {
+        throw new IOException("mark/reset not supported");
+    }
+
+    private void fill() throws IOException
+    {
+        position = 0;
+        limit = 0;
+        int read = in.read(encoded);
+        try
+        {
+            if (read == -1)
+            {
+                eof = true;
+                limit = decoder.finish(decoded, 0);
+            }
+            else
+            {
+                limit = decoder.decode(encoded, 0, read, decoded, 0);
+            }
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.base64url;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes the unpadded base64url encoding, as ASCII, of what's written to it to an underlying stream, without ever
+ * holding more than a small buffer of it.
+ * Call {@link #finish()} to write the end of the encoding and leave the underlying stream open, or {@link #close()}
+ * to do that and close it.
+ */
+public class Base64UrlOutputStream extends FilterOutputStream
+{
+    private static final int INPUT_CHUNK_LENGTH = 3 * 1024;
+
+    private final Base64UrlEncoder encoder = new Base64UrlEncoder();
+    private final byte[] buffer = new byte[INPUT_CHUNK_LENGTH / 3 * 4 + 4];
+    private boolean finished;
+
+    public Base64UrlOutputStream(OutputStream out)
+    {
+        super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException
+    {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException
+    {
+        if (finished)
+        {
+            throw new IOException("The base64url encoding has already been finished.");
+        }
+
+        while (len > 0)
+        {
+            int length = Math.min(len, INPUT_CHUNK_LENGTH);
+            int encoded = encoder.encode(b, off, length, buffer, 0);
+            out.write(buffer, 0, encoded);
+            off += length;
+            len -= length;
+        }
+    }
+
+    /**
+     * Writes the end of the encoding, and flushes, without closing the underlying stream.
+     * Nothing more can be written after this.
+     */
+    public void finish() throws IOException
+    {
+        if (!finished)
+        {
+            finished = true;
+            out.write(buffer, 0, encoder.finish(buffer, 0));
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            finish();
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+}
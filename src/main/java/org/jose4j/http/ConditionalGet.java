@@ -0,0 +1,36 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.http;
+
+import java.io.IOException;
+
+/**
+ * A {@link SimpleGet} that can also make conditional HTTP GET requests, which lets the caller avoid downloading
+ * and processing content that hasn't changed since it was last retrieved.
+ */
+public interface ConditionalGet extends SimpleGet
+{
+    /**
+     * Make a conditional HTTP GET request using the validators from an earlier response. If the content hasn't changed
+     * the returned response has a 304 (Not Modified) status code and no body.
+     * @param location the HTTP(S) URL
+     * @param etag the value of the ETag header of the earlier response, sent as If-None-Match, or null
+     * @param lastModified the value of the Last-Modified header of the earlier response, sent as If-Modified-Since, or null
+     * @return a SimpleResponse object representing the result of the HTTP GET request
+     * @throws IOException if a problem occurs with the request
+     */
+    public SimpleResponse get(String location, String etag, String lastModified) throws IOException;
+}
@@ -42,9 +42,9 @@ import java.util.Map;
 /**
  *  An implantation of SimpleGet (used by {@link org.jose4j.jwk.HttpsJwks}) that
  *  uses {@link java.net.URL} and {@link javax.net.ssl.HttpsURLConnection} to make
- *  basic HTTP GET requests. 
+ *  basic HTTP GET requests, including conditional ones.
  */
-public class Get implements SimpleGet
+public class Get implements ConditionalGet
 {
     private static final long MAX_RETRY_WAIT = 8000;
 
@@ -62,8 +62,15 @@ public class Get implements SimpleGet
 
     @Override
     public SimpleResponse get(String location) throws IOException
+    {
+        return get(location, null, null);
+    }
+
+    @Override
+    public SimpleResponse get(String location, String etag, String lastModified) throws IOException
     {
         int attempts = 0;
+        boolean conditional = etag != null || lastModified != null;
         log.debug("HTTP GET of {}", location);
         URL url = new URL(location);
         while (true)
@@ -74,6 +81,14 @@ public class Get implements SimpleGet
                 urlConnection.setConnectTimeout(connectTimeout);
                 urlConnection.setReadTimeout(readTimeout);
                 preventHttpCaching(urlConnection);
+                if (etag != null)
+                {
+                    urlConnection.setRequestProperty("If-None-Match", etag);
+                }
+                if (lastModified != null)
+                {
+                    urlConnection.setRequestProperty("If-Modified-Since", lastModified);
+                }
 
                 setUpTls(urlConnection);
 
@@ -81,6 +96,13 @@ public class Get implements SimpleGet
                 int code = httpUrlConnection.getResponseCode();
                 String msg = httpUrlConnection.getResponseMessage();
 
+                if (conditional && code == HttpURLConnection.HTTP_NOT_MODIFIED)
+                {
+                    SimpleResponse simpleResponse = new Response(code, msg, httpUrlConnection.getHeaderFields(), null);
+                    log.debug("HTTP GET of {} returned {}", url, simpleResponse);
+                    return simpleResponse;
+                }
+
                 if (code != HttpURLConnection.HTTP_OK)
                 {
                     throw new IOException("Non 200 status code ("+ code + " " + msg +") returned from " + url);
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.instrumentation;
+
+/**
+ * Receives a callback after each instrumented operation, which can be bridged to a metrics library to see where
+ * time is spent and find slow keys and algorithms. Register an implementation
+ * with {@link InstrumentationRegistry#setInstrumentation(Instrumentation)}.
+ * <p>
+ * Implementations are called on the thread that did the operation, so they need to be thread safe and quick, and
+ * they must not throw exceptions.
+ * <p>
+ * What the {@code algorithm} and {@code detail} are depends on the operation:
+ * <ul>
+ *     <li>{@link Operation#SIGN} and {@link Operation#VERIFY}: the "alg" and "kid" header values of the JWS</li>
+ *     <li>{@link Operation#ENCRYPT} and {@link Operation#DECRYPT}: the "alg" and "enc" header values of the JWE</li>
+ *     <li>{@link Operation#RESOLVE_KEY}: the "alg" and "kid" header values of the JWS or JWE the key is for</li>
+ *     <li>{@link Operation#REFRESH_JWKS}: null and the location of the JWKS</li>
+ *     <li>{@link Operation#VALIDATE}: null and the class name of the validator</li>
+ * </ul>
+ * Any of them might be null if the header isn't present.
+ */
+public interface Instrumentation
+{
+    /**
+     * The error code used when there isn't one.
+     */
+    int NO_ERROR_CODE = 0;
+
+    /**
+     * An implementation that does nothing, which is the default.
+     */
+    Instrumentation NO_OP = new Instrumentation()
+    {
+        @Override
+        public void record(Operation operation, String algorithm, String detail, long durationNanos, Outcome outcome, int errorCode)
+        {
+        }
+    };
+
+    /**
+     * Records an instrumented operation.
+     * @param operation what was done
+     * @param algorithm the algorithm, if there is one
+     * @param detail more about what was done
+     * @param durationNanos how long it took, in nanoseconds
+     * @param outcome how it turned out
+     * @param errorCode for {@link Operation#VALIDATE}, the code from {@link org.jose4j.jwt.consumer.ErrorCodes}
+     * of the error, if there was one, otherwise {@link #NO_ERROR_CODE}
+     */
+    void record(Operation operation, String algorithm, String detail, long durationNanos, Outcome outcome, int errorCode);
+}
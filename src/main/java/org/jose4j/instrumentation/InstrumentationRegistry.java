@@ -0,0 +1,124 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.instrumentation;
+
+import org.jose4j.jwx.HeaderParameterNames;
+import org.jose4j.jwx.Headers;
+
+/**
+ * Holds the {@link Instrumentation} that instrumented operations are reported to and has the helpers that the
+ * library uses to time them. While no instrumentation is set, which is the default, the helpers do nothing more than a
+ * volatile read and don't allocate or read the clock.
+ * <p>
+ * Instrumented code looks like:
+ * <pre>
+ *     long start = InstrumentationRegistry.start();
+ *     Outcome outcome = Outcome.ERROR;
+ *     try
+ *     {
+ *         ... do the work ...
+ *         outcome = Outcome.SUCCESS;
+ *     }
+ *     finally
+ *     {
+ *         InstrumentationRegistry.record(Operation.SIGN, algorithm, detail, start, outcome, Instrumentation.NO_ERROR_CODE);
+ *     }
+ * </pre>
+ */
+public final class InstrumentationRegistry
+{
+    static final long NOT_STARTED = Long.MIN_VALUE;
+
+    private static volatile Instrumentation instrumentation = Instrumentation.NO_OP;
+
+    private InstrumentationRegistry()
+    {
+    }
+
+    /**
+     * Sets the instrumentation that all subsequent operations are reported to.
+     * @param instrumentation the instrumentation or null to go back to the no-op default
+     */
+    public static void setInstrumentation(Instrumentation instrumentation)
+    {
+        InstrumentationRegistry.instrumentation = (instrumentation == null) ? Instrumentation.NO_OP : instrumentation;
+    }
+
+    public static Instrumentation getInstrumentation()
+    {
+        return instrumentation;
+    }
+
+    public static boolean isEnabled()
+    {
+        return instrumentation != Instrumentation.NO_OP;
+    }
+
+    /**
+     * Marks the start of an operation.
+     * @return the value to pass to {@code record} when the operation is done
+     */
+    public static long start()
+    {
+        return isEnabled() ? System.nanoTime() : NOT_STARTED;
+    }
+
+    /**
+     * Reports an operation, if it was started while instrumentation was enabled.
+     * @param operation what was done
+     * @param algorithm the algorithm
+     * @param detail more about what was done
+     * @param start the value returned by {@link #start()}
+     * @param outcome how it turned out
+     * @param errorCode the error code or {@link Instrumentation#NO_ERROR_CODE}
+     */
+    public static void record(Operation operation, String algorithm, String detail, long start, Outcome outcome, int errorCode)
+    {
+        if (start != NOT_STARTED)
+        {
+            long duration = System.nanoTime() - start;
+            instrumentation.record(operation, algorithm, detail, duration, outcome, errorCode);
+        }
+    }
+
+    /**
+     * Reports an operation on a JWS or JWE, if it was started while instrumentation was enabled, taking
+     * the algorithm and detail from the headers. Header values are only looked at when needed and values that aren't
+     * strings are reported as null.
+     * @param operation what was done
+     * @param headers the headers of the JWS or JWE
+     * @param detailHeaderName the name of the header whose value is the detail
+     * @param start the value returned by {@link #start()}
+     * @param outcome how it turned out
+     */
+    public static void record(Operation operation, Headers headers, String detailHeaderName, long start, Outcome outcome)
+    {
+        if (start != NOT_STARTED)
+        {
+            long duration = System.nanoTime() - start;
+            String algorithm = stringHeader(headers, HeaderParameterNames.ALGORITHM);
+            String detail = stringHeader(headers, detailHeaderName);
+            instrumentation.record(operation, algorithm, detail, duration, outcome, Instrumentation.NO_ERROR_CODE);
+        }
+    }
+
+    private static String stringHeader(Headers headers, String name)
+    {
+        Object value = headers.getObjectHeaderValue(name);
+        return (value instanceof String) ? (String) value : null;
+    }
+}
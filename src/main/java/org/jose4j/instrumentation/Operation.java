@@ -0,0 +1,59 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.instrumentation;
+
+/**
+ * The operations that are reported to {@link Instrumentation}.
+ */
+public enum Operation
+{
+    /**
+     * Computing a JWS signature.
+     */
+    SIGN,
+
+    /**
+     * Verifying a JWS signature.
+     */
+    VERIFY,
+
+    /**
+     * Producing the compact serialization of a JWE, including key management and content encryption.
+     */
+    ENCRYPT,
+
+    /**
+     * Decrypting a JWE, including key management and content decryption.
+     */
+    DECRYPT,
+
+    /**
+     * A {@code JwtConsumer} calling its {@link org.jose4j.keys.resolvers.VerificationKeyResolver}
+     * or {@link org.jose4j.keys.resolvers.DecryptionKeyResolver}.
+     */
+    RESOLVE_KEY,
+
+    /**
+     * An {@link org.jose4j.jwk.HttpsJwks} fetching the JWKS from its location.
+     */
+    REFRESH_JWKS,
+
+    /**
+     * A {@code JwtConsumer} running one of its {@link org.jose4j.jwt.consumer.ErrorCodeValidator}s.
+     */
+    VALIDATE
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.instrumentation;
+
+/**
+ * How an instrumented operation turned out.
+ */
+public enum Outcome
+{
+    /**
+     * The operation completed and, for verification or validation, passed.
+     */
+    SUCCESS,
+
+    /**
+     * The operation completed but the signature was invalid or the validator returned an error.
+     */
+    FAILURE,
+
+    /**
+     * The operation threw an exception.
+     */
+    ERROR
+}
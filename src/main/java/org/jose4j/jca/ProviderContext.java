@@ -15,6 +15,8 @@
  */
 package org.jose4j.jca;
 
+import org.jose4j.mac.MacCache;
+
 import java.security.SecureRandom;
 import java.security.spec.AlgorithmParameterSpec;
 
@@ -50,6 +52,8 @@ import java.security.spec.AlgorithmParameterSpec;
 public class ProviderContext
 {
     private SecureRandom secureRandom;
+    private MacCache macCache;
+    private SignatureVerifierPool signatureVerifierPool;
     private Context suppliedKeyProviderContext = new Context();
     private Context generalProviderContext = new Context();
 
@@ -94,6 +98,50 @@ public class ProviderContext
         this.secureRandom = secureRandom;
     }
 
+    /**
+     * Gets the cache of initialized {@code Mac} objects used for HMAC verification and
+     * AES_CBC_HMAC_SHA2 content encryption.
+     *
+     * @return the MacCache or {@code null}, the default, when no caching is done.
+     */
+    public MacCache getMacCache()
+    {
+        return macCache;
+    }
+
+    /**
+     * Sets a cache of initialized {@code Mac} objects to use for HMAC verification and
+     * AES_CBC_HMAC_SHA2 content encryption, which avoids getting and initializing a new {@code Mac}
+     * for each operation when the same keys are used over and over again.
+     *
+     * @param macCache the MacCache to use or {@code null} for no caching.
+     */
+    public void setMacCache(MacCache macCache)
+    {
+        this.macCache = macCache;
+    }
+
+    /**
+     * Gets the pool of initialized {@code Signature} objects used for RSA, ECDSA and EdDSA signature verification.
+     *
+     * @return the SignatureVerifierPool or {@code null}, the default, when no pooling is done.
+     */
+    public SignatureVerifierPool getSignatureVerifierPool()
+    {
+        return signatureVerifierPool;
+    }
+
+    /**
+     * Sets a pool of initialized {@code Signature} objects to use for RSA, ECDSA and EdDSA signature verification,
+     * which avoids getting a new {@code Signature} and initializing it with the public key for each verification.
+     *
+     * @param signatureVerifierPool the SignatureVerifierPool to use or {@code null} for no pooling.
+     */
+    public void setSignatureVerifierPool(SignatureVerifierPool signatureVerifierPool)
+    {
+        this.signatureVerifierPool = signatureVerifierPool;
+    }
+
     /**
      * Allows for a provider to be named for various operations.
      * Not all operations are relevant in any particular JOSE context.
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jca;
+
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded pool of {@link Signature} objects that have already been initialized for verification.
+ * Initializing a {@code Signature} for verify involves the provider processing the public key
+ * (and doing precomputation for RSA and EC keys), which is wasted work when the same keys are used
+ * to verify over and over again. After a successful call to {@code verify()} a {@code Signature} is
+ * back in the state it was in right after {@code initVerify} so it can be returned to this pool and used again.
+ * <p>
+ * Entries are keyed by the JWS algorithm, the JCA provider, any signature algorithm override and
+ * the identity of the public key. At most {@code maxKeys} distinct keys are kept, with the least recently
+ * used one evicted beyond that, and at most {@code maxIdlePerKey} idle instances are held for each key.
+ * <p>
+ * Pooling is enabled by setting an instance of this class on a {@link ProviderContext}
+ * with {@link ProviderContext#setSignatureVerifierPool(SignatureVerifierPool)}. This class is thread safe and one
+ * instance can be shared by any number of {@code ProviderContext}s.
+ */
+public class SignatureVerifierPool
+{
+    public static final int DEFAULT_MAX_KEYS = 64;
+    public static final int DEFAULT_MAX_IDLE_PER_KEY = 8;
+
+    private final int maxIdlePerKey;
+    private final Map<PoolKey, ArrayDeque<Signature>> pool;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public SignatureVerifierPool()
+    {
+        this(DEFAULT_MAX_KEYS, DEFAULT_MAX_IDLE_PER_KEY);
+    }
+
+    /**
+     * @param maxKeys the maximum number of distinct keys (algorithm, provider, public key) for which verifiers are pooled
+     * @param maxIdlePerKey the maximum number of idle verifiers held for each key
+     */
+    public SignatureVerifierPool(final int maxKeys, int maxIdlePerKey)
+    {
+        if (maxKeys < 1 || maxIdlePerKey < 1)
+        {
+            throw new IllegalArgumentException("maxKeys and maxIdlePerKey must be at least 1 but were " + maxKeys + " and " + maxIdlePerKey);
+        }
+
+        this.maxIdlePerKey = maxIdlePerKey;
+        this.pool = new LinkedHashMap<PoolKey, ArrayDeque<Signature>>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<PoolKey, ArrayDeque<Signature>> eldest)
+            {
+                boolean remove = size() > maxKeys;
+                if (remove)
+                {
+                    evictions.incrementAndGet();
+                }
+                return remove;
+            }
+        };
+    }
+
+    /**
+     * Takes an initialized verifier out of the pool.
+     * @param poolKey identifies the algorithm, provider and key
+     * @return a {@code Signature} ready to verify with the key or null, if there isn't one in the pool
+     */
+    public Signature acquire(PoolKey poolKey)
+    {
+        Signature signature = null;
+        synchronized (pool)
+        {
+            ArrayDeque<Signature> idle = pool.get(poolKey);
+            if (idle != null)
+            {
+                signature = idle.pollFirst();
+            }
+        }
+
+        (signature == null ? misses : hits).incrementAndGet();
+        return signature;
+    }
+
+    /**
+     * Puts a verifier back into the pool. It must have been initialized for verify with the key of the
+     * {@code poolKey} and have either not been used since or had its last use end with a call to {@code verify()}
+     * that returned normally.
+     * @param poolKey identifies the algorithm, provider and key
+     * @param signature the verifier
+     */
+    public void release(PoolKey poolKey, Signature signature)
+    {
+        synchronized (pool)
+        {
+            ArrayDeque<Signature> idle = pool.get(poolKey);
+            if (idle == null)
+            {
+                idle = new ArrayDeque<>();
+                pool.put(poolKey, idle);
+            }
+
+            if (idle.size() < maxIdlePerKey)
+            {
+                idle.addFirst(signature);
+            }
+        }
+    }
+
+    /**
+     * Removes all pooled verifiers.
+     */
+    public void clear()
+    {
+        synchronized (pool)
+        {
+            pool.clear();
+        }
+    }
+
+    /**
+     * @return the number of times a pooled verifier was available
+     */
+    public long getHitCount()
+    {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of times a pooled verifier wasn't available and a new one had to be initialized
+     */
+    public long getMissCount()
+    {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of keys whose verifiers were evicted from the pool to stay within its bounds
+     */
+    public long getEvictionCount()
+    {
+        return evictions.get();
+    }
+
+    /**
+     * Identifies pooled verifiers by the JWS algorithm, the JCA provider, any signature algorithm override and
+     * the identity of the public key.
+     */
+    public static class PoolKey
+    {
+        private final Object algorithm;
+        private final String provider;
+        private final Object algorithmOverride;
+        private final PublicKey publicKey;
+        private final int hashCode;
+
+        /**
+         * @param algorithm the JWS algorithm object (compared by identity)
+         * @param provider the name of the JCA provider or null
+         * @param algorithmOverride the signature algorithm override or null (compared by identity)
+         * @param publicKey the public key (compared by identity)
+         */
+        public PoolKey(Object algorithm, String provider, Object algorithmOverride, PublicKey publicKey)
+        {
+            this.algorithm = algorithm;
+            this.provider = provider;
+            this.algorithmOverride = algorithmOverride;
+            this.publicKey = publicKey;
+
+            int h = System.identityHashCode(algorithm);
+            h = 31 * h + (provider == null ? 0 : provider.hashCode());
+            h = 31 * h + System.identityHashCode(algorithmOverride);
+            h = 31 * h + System.identityHashCode(publicKey);
+            this.hashCode = h;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+
+            if (!(o instanceof PoolKey))
+            {
+                return false;
+            }
+
+            PoolKey that = (PoolKey) o;
+            return algorithm == that.algorithm
+                    && publicKey == that.publicKey
+                    && algorithmOverride == that.algorithmOverride
+                    && (provider == null ? that.provider == null : provider.equals(that.provider));
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hashCode;
+        }
+    }
+}
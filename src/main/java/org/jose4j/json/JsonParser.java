@@ -0,0 +1,548 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.json;
+
+import org.jose4j.lang.JoseException;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A single pass JSON parser that works directly on the characters of a string, which replaces the JFlex generated
+ * lexer and parser from json-simple for the small documents that JOSE headers and JWT claims are.
+ * <p>
+ * It accepts the same input as the json-simple parser did and produces the same values: objects
+ * as {@link JsonUtil.DupeKeyDisallowingLinkedHashMap}, arrays as {@link ArrayList}, integers as {@link Long} (or
+ * {@link BigInteger}, if too big for a long), other numbers as {@link Double}, and strings, booleans and null.
+ * That includes json-simple's leniency about commas and colons, which it skips over wherever they appear
+ * between the members of an object or the elements of an array, and about leading zeros on numbers.
+ * A backslash that doesn't start a valid escape sequence is taken literally, as it was with json-simple.
+ * The one deliberate difference is that an unterminated string after the end of the document is an error
+ * rather than being ignored.
+ * <p>
+ * Commonly used JOSE header and JWT claim names are interned, so that the keys of the parsed maps don't
+ * each need their own string.
+ */
+class JsonParser
+{
+    private static final int EOF = 0;
+    private static final int LEFT_BRACE = 1;
+    private static final int RIGHT_BRACE = 2;
+    private static final int LEFT_SQUARE = 3;
+    private static final int RIGHT_SQUARE = 4;
+    private static final int COMMA = 5;
+    private static final int COLON = 6;
+    private static final int STRING = 7;
+    private static final int VALUE = 8;
+
+    private static final String[] COMMON_NAMES = {
+            // JOSE header parameters
+            "alg", "enc", "zip", "kid", "typ", "cty", "crit", "jku", "jwk", "x5u", "x5c", "x5t", "x5t#S256",
+            "epk", "apu", "apv", "iv", "tag", "p2s", "p2c", "b64",
+            // JWT claims
+            "iss", "sub", "aud", "exp", "nbf", "iat", "jti",
+            // JWK parameters
+            "kty", "use", "key_ops", "keys", "crv", "x", "y", "d", "n", "e", "p", "q", "dp", "dq", "qi", "k",
+    };
+
+    private static final int INTERN_TABLE_MASK = 127;
+    private static final String[] INTERN_TABLE = new String[INTERN_TABLE_MASK + 1];
+
+    static
+    {
+        for (String name : COMMON_NAMES)
+        {
+            int i = name.hashCode() & INTERN_TABLE_MASK;
+            while (INTERN_TABLE[i] != null)
+            {
+                i = (i + 1) & INTERN_TABLE_MASK;
+            }
+            INTERN_TABLE[i] = name.intern();
+        }
+    }
+
+    private final String s;
+    private final int length;
+    private int pos;
+
+    private int tokenType;
+    private Object tokenValue;
+
+    JsonParser(String s)
+    {
+        this.s = s;
+        this.length = s.length();
+    }
+
+    /**
+     * Parses the whole document.
+     * @return the value of the document
+     * @throws JoseException if the document is not valid JSON
+     */
+    Object parse() throws JoseException
+    {
+        Object result;
+        switch (nextToken())
+        {
+            case STRING:
+            case VALUE:
+                result = tokenValue;
+                break;
+            case LEFT_BRACE:
+                result = parseContainers(new JsonUtil.DupeKeyDisallowingLinkedHashMap());
+                break;
+            case LEFT_SQUARE:
+                result = parseContainers(new ArrayList<>());
+                break;
+            default:
+                throw unexpectedToken();
+        }
+
+        if (nextToken() != EOF)
+        {
+            throw unexpectedToken();
+        }
+
+        return result;
+    }
+
+    /**
+     * Fills in the given container, and any nested in it, using an explicit stack rather than recursion
+     * so that deeply nested input can't exhaust the call stack.
+     */
+    @SuppressWarnings("unchecked")
+    private Object parseContainers(Object root) throws JoseException
+    {
+        Object[] stack = new Object[8];
+        int depth = 0;
+        stack[depth++] = root;
+
+        while (depth > 0)
+        {
+            Object container = stack[depth - 1];
+            Object child = null;
+            int type = nextToken();
+
+            if (container instanceof Map)
+            {
+                Map<String, Object> map = (Map<String, Object>) container;
+                if (type == COMMA)
+                {
+                    continue;
+                }
+                else if (type == RIGHT_BRACE)
+                {
+                    depth--;
+                    continue;
+                }
+                else if (type != STRING)
+                {
+                    throw unexpectedToken();
+                }
+
+                String key = (String) tokenValue;
+                do
+                {
+                    type = nextToken();
+                }
+                while (type == COLON);
+
+                switch (type)
+                {
+                    case STRING:
+                    case VALUE:
+                        map.put(key, tokenValue);
+                        break;
+                    case LEFT_BRACE:
+                        child = new JsonUtil.DupeKeyDisallowingLinkedHashMap();
+                        map.put(key, child);
+                        break;
+                    case LEFT_SQUARE:
+                        child = new ArrayList<>();
+                        map.put(key, child);
+                        break;
+                    default:
+                        throw unexpectedToken();
+                }
+            }
+            else
+            {
+                List<Object> list = (List<Object>) container;
+                switch (type)
+                {
+                    case COMMA:
+                        break;
+                    case STRING:
+                    case VALUE:
+                        list.add(tokenValue);
+                        break;
+                    case RIGHT_SQUARE:
+                        depth--;
+                        break;
+                    case LEFT_BRACE:
+                        child = new JsonUtil.DupeKeyDisallowingLinkedHashMap();
+                        list.add(child);
+                        break;
+                    case LEFT_SQUARE:
+                        child = new ArrayList<>();
+                        list.add(child);
+                        break;
+                    default:
+                        throw unexpectedToken();
+                }
+            }
+
+            if (child != null)
+            {
+                if (depth == stack.length)
+                {
+                    stack = Arrays.copyOf(stack, depth * 2);
+                }
+                stack[depth++] = child;
+            }
+        }
+
+        return root;
+    }
+
+    private int nextToken() throws JoseException
+    {
+        tokenValue = null;
+        while (pos < length)
+        {
+            char c = s.charAt(pos);
+            if (c == ' ' || c == '\t' || c == '\n' || c == '\r')
+            {
+                pos++;
+                continue;
+            }
+
+            switch (c)
+            {
+                case '{':
+                    pos++;
+                    return tokenType = LEFT_BRACE;
+                case '}':
+                    pos++;
+                    return tokenType = RIGHT_BRACE;
+                case '[':
+                    pos++;
+                    return tokenType = LEFT_SQUARE;
+                case ']':
+                    pos++;
+                    return tokenType = RIGHT_SQUARE;
+                case ',':
+                    pos++;
+                    return tokenType = COMMA;
+                case ':':
+                    pos++;
+                    return tokenType = COLON;
+                case '"':
+                    tokenValue = readString();
+                    return tokenType = STRING;
+                case 't':
+                    readLiteral("true");
+                    tokenValue = Boolean.TRUE;
+                    return tokenType = VALUE;
+                case 'f':
+                    readLiteral("false");
+                    tokenValue = Boolean.FALSE;
+                    return tokenType = VALUE;
+                case 'n':
+                    readLiteral("null");
+                    return tokenType = VALUE;
+                default:
+                    if (c == '-' || (c >= '0' && c <= '9'))
+                    {
+                        tokenValue = readNumber();
+                        return tokenType = VALUE;
+                    }
+                    throw unexpectedCharacter();
+            }
+        }
+
+        return tokenType = EOF;
+    }
+
+    private String readString() throws JoseException
+    {
+        int start = ++pos;
+        while (pos < length)
+        {
+            char c = s.charAt(pos);
+            if (c == '"')
+            {
+                pos++;
+                return intern(start, pos - 1);
+            }
+            else if (c == '\\')
+            {
+                return readEscapedString(start);
+            }
+            pos++;
+        }
+
+        throw new JoseException("Unterminated string starting at position " + (start - 1) + ".");
+    }
+
+    private String readEscapedString(int start) throws JoseException
+    {
+        StringBuilder sb = new StringBuilder((pos - start) + 16);
+        sb.append(s, start, pos);
+
+        while (pos < length)
+        {
+            char c = s.charAt(pos++);
+            if (c == '"')
+            {
+                return sb.toString();
+            }
+            else if (c != '\\')
+            {
+                sb.append(c);
+                continue;
+            }
+
+            if (pos >= length)
+            {
+                break;
+            }
+
+            char escaped = s.charAt(pos++);
+            switch (escaped)
+            {
+                case '"':
+                case '\\':
+                case '/':
+                    sb.append(escaped);
+                    break;
+                case 'b':
+                    sb.append('\b');
+                    break;
+                case 'f':
+                    sb.append('\f');
+                    break;
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'u':
+                    int ch = pos + 4 <= length ? hexQuad(pos) : -1;
+                    if (ch != -1)
+                    {
+                        sb.append((char) ch);
+                        pos += 4;
+                    }
+                    else
+                    {
+                        sb.append('\\');
+                        pos--;
+                    }
+                    break;
+                default:
+                    // not a recognized escape so the backslash is taken literally, like json-simple did
+                    sb.append('\\');
+                    pos--;
+            }
+        }
+
+        throw new JoseException("Unterminated string starting at position " + (start - 1) + ".");
+    }
+
+    private int hexQuad(int offset)
+    {
+        int value = 0;
+        for (int i = offset; i < offset + 4; i++)
+        {
+            int digit = hexValue(s.charAt(i));
+            if (digit == -1)
+            {
+                return -1;
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    static int hexValue(char c)
+    {
+        if (c >= '0' && c <= '9')
+        {
+            return c - '0';
+        }
+        else if (c >= 'a' && c <= 'f')
+        {
+            return c - 'a' + 10;
+        }
+        else if (c >= 'A' && c <= 'F')
+        {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private String intern(int start, int end)
+    {
+        int len = end - start;
+        if (len <= 8)
+        {
+            int h = 0;
+            for (int i = start; i < end; i++)
+            {
+                h = 31 * h + s.charAt(i);
+            }
+
+            int i = h & INTERN_TABLE_MASK;
+            String candidate;
+            while ((candidate = INTERN_TABLE[i]) != null)
+            {
+                if (candidate.length() == len && s.regionMatches(start, candidate, 0, len))
+                {
+                    return candidate;
+                }
+                i = (i + 1) & INTERN_TABLE_MASK;
+            }
+        }
+        return s.substring(start, end);
+    }
+
+    private Object readNumber() throws JoseException
+    {
+        int start = pos;
+        if (s.charAt(pos) == '-')
+        {
+            pos++;
+        }
+
+        int digitsStart = pos;
+        skipDigits();
+        if (pos == digitsStart)
+        {
+            // a lone minus sign
+            pos = start;
+            throw unexpectedCharacter();
+        }
+
+        boolean isInteger = true;
+        if (pos + 1 < length && s.charAt(pos) == '.' && isDigit(s.charAt(pos + 1)))
+        {
+            pos++;
+            skipDigits();
+            isInteger = false;
+        }
+
+        if (pos < length && (s.charAt(pos) == 'e' || s.charAt(pos) == 'E'))
+        {
+            int exponentStart = pos;
+            pos++;
+            if (pos < length && (s.charAt(pos) == '+' || s.charAt(pos) == '-'))
+            {
+                pos++;
+            }
+
+            if (pos < length && isDigit(s.charAt(pos)))
+            {
+                skipDigits();
+                isInteger = false;
+            }
+            else
+            {
+                // not an exponent so the number ends before the 'e'
+                pos = exponentStart;
+            }
+        }
+
+        if (!isInteger)
+        {
+            return Double.valueOf(s.substring(start, pos));
+        }
+
+        int digits = pos - digitsStart;
+        if (digits <= 18)
+        {
+            long value = 0;
+            for (int i = digitsStart; i < pos; i++)
+            {
+                value = value * 10 + (s.charAt(i) - '0');
+            }
+            return digitsStart == start ? value : -value;
+        }
+
+        String text = s.substring(start, pos);
+        try
+        {
+            return Long.valueOf(text);
+        }
+        catch (NumberFormatException e)
+        {
+            return new BigInteger(text);
+        }
+    }
+
+    private void skipDigits()
+    {
+        while (pos < length && isDigit(s.charAt(pos)))
+        {
+            pos++;
+        }
+    }
+
+    private boolean isDigit(char c)
+    {
+        return c >= '0' && c <= '9';
+    }
+
+    private void readLiteral(String literal) throws JoseException
+    {
+        if (!s.startsWith(literal, pos))
+        {
+            throw unexpectedCharacter();
+        }
+        pos += literal.length();
+    }
+
+    private JoseException unexpectedCharacter()
+    {
+        return new JoseException("Unexpected character (" + s.charAt(pos) + ") at position " + pos + ".");
+    }
+
+    private JoseException unexpectedToken()
+    {
+        String token;
+        switch (tokenType)
+        {
+            case EOF:
+                token = "END OF FILE";
+                break;
+            case STRING:
+            case VALUE:
+                token = "VALUE(" + tokenValue + ")";
+                break;
+            default:
+                token = "'" + "?{}[],:".charAt(tokenType) + "'";
+        }
+        return new JoseException("Unexpected token " + token + " at position " + pos + ".");
+    }
+}
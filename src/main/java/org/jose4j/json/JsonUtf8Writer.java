@@ -0,0 +1,374 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.json;
+
+import org.jose4j.json.internal.json_simple.JSONAware;
+import org.jose4j.json.internal.json_simple.JSONStreamAware;
+import org.jose4j.json.internal.json_simple.JSONValue;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Writes JSON straight into a growable UTF-8 byte buffer, rather than building up strings, so that
+ * a header or claims set can go from a map to base64url without passing through intermediate strings and byte arrays.
+ * Strings, integers, booleans, maps and collections are written directly. Anything else is written
+ * however {@link JsonUtil#toJson(Map)} would write it.
+ * The bytes produced are exactly the UTF-8 encoding of what {@link JsonUtil#toJson(Map)} produces for the same map.
+ * <p>
+ * A writer can be reused after {@link #reset()}. {@link #acquire()} hands out one that's kept for each thread.
+ * A writer isn't thread safe.
+ */
+public class JsonUtf8Writer
+{
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] HEX = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'};
+
+    private static final ThreadLocal<JsonUtf8Writer> THREAD_WRITER = new ThreadLocal<JsonUtf8Writer>()
+    {
+        @Override
+        protected JsonUtf8Writer initialValue()
+        {
+            return new JsonUtf8Writer(true);
+        }
+    };
+
+    private final boolean threadWriter;
+    private boolean inUse;
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private int size;
+
+    public JsonUtf8Writer()
+    {
+        this(false);
+    }
+
+    private JsonUtf8Writer(boolean threadWriter)
+    {
+        this.threadWriter = threadWriter;
+    }
+
+    /**
+     * Gets the writer kept for this thread, empty and ready to use, which saves growing a new buffer for every
+     * serialization. It needs to be given back with {@link #release()} once what's been written has been used.
+     * A new writer is returned instead if this thread's writer is already in use.
+     * @return an empty writer
+     */
+    public static JsonUtf8Writer acquire()
+    {
+        JsonUtf8Writer writer = THREAD_WRITER.get();
+        if (writer.inUse)
+        {
+            return new JsonUtf8Writer();
+        }
+        writer.inUse = true;
+        writer.reset();
+        return writer;
+    }
+
+    /**
+     * Gives a writer from {@link #acquire()} back. The writer shouldn't be used after this.
+     */
+    public void release()
+    {
+        if (threadWriter)
+        {
+            if (buffer.length > MAX_RETAINED_CAPACITY)
+            {
+                buffer = new byte[INITIAL_CAPACITY];
+            }
+            inUse = false;
+        }
+    }
+
+    /**
+     * Empties the writer, keeping its buffer.
+     */
+    public void reset()
+    {
+        size = 0;
+    }
+
+    /**
+     * Writes a JSON object.
+     * @param map the members of the object
+     * @return this writer
+     */
+    public JsonUtf8Writer write(Map<String, ?> map)
+    {
+        writeValue(map);
+        return this;
+    }
+
+    /**
+     * @return the buffer holding the JSON, of which the first {@link #size()} bytes are in use
+     */
+    public byte[] getBuffer()
+    {
+        return buffer;
+    }
+
+    /**
+     * @return the number of bytes written
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @return a copy of the bytes written
+     */
+    public byte[] toByteArray()
+    {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    private void writeValue(Object value)
+    {
+        if (value == null)
+        {
+            writeBytes(NULL);
+        }
+        else if (value instanceof String)
+        {
+            writeQuoted((String) value);
+        }
+        else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte)
+        {
+            writeLong(((Number) value).longValue());
+        }
+        else if (value instanceof Boolean)
+        {
+            writeBytes((Boolean) value ? TRUE : FALSE);
+        }
+        else if (value instanceof JSONStreamAware || value instanceof JSONAware)
+        {
+            writeChars(JSONValue.toJSONString(value));
+        }
+        else if (value instanceof Map)
+        {
+            writeMap((Map<?, ?>) value);
+        }
+        else if (value instanceof Collection)
+        {
+            writeCollection((Collection<?>) value);
+        }
+        else
+        {
+            writeChars(JSONValue.toJSONString(value));
+        }
+    }
+
+    private void writeMap(Map<?, ?> map)
+    {
+        ensureCapacity(1);
+        buffer[size++] = '{';
+        boolean first = true;
+        for (Map.Entry<?, ?> entry : map.entrySet())
+        {
+            if (!first)
+            {
+                ensureCapacity(1);
+                buffer[size++] = ',';
+            }
+            first = false;
+            writeQuoted(String.valueOf(entry.getKey()));
+            ensureCapacity(1);
+            buffer[size++] = ':';
+            writeValue(entry.getValue());
+        }
+        ensureCapacity(1);
+        buffer[size++] = '}';
+    }
+
+    private void writeCollection(Collection<?> collection)
+    {
+        ensureCapacity(1);
+        buffer[size++] = '[';
+        boolean first = true;
+        for (Object value : collection)
+        {
+            if (!first)
+            {
+                ensureCapacity(1);
+                buffer[size++] = ',';
+            }
+            first = false;
+            writeValue(value);
+        }
+        ensureCapacity(1);
+        buffer[size++] = ']';
+    }
+
+    private void writeLong(long value)
+    {
+        if (value == Long.MIN_VALUE)
+        {
+            writeChars(Long.toString(value));
+            return;
+        }
+
+        ensureCapacity(20);
+        if (value < 0)
+        {
+            buffer[size++] = '-';
+            value = -value;
+        }
+
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10)
+        {
+            digits++;
+        }
+        int p = size + digits;
+        do
+        {
+            buffer[--p] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        while (value != 0);
+        size += digits;
+    }
+
+    private void writeQuoted(String s)
+    {
+        ensureCapacity(1);
+        buffer[size++] = '"';
+        int length = s.length();
+        for (int i = 0; i < length; i++)
+        {
+            char c = s.charAt(i);
+            // the same escaping as JSONValue.escape
+            switch (c)
+            {
+                case '"':
+                    writeEscape('"');
+                    break;
+                case '\\':
+                    writeEscape('\\');
+                    break;
+                case '\b':
+                    writeEscape('b');
+                    break;
+                case '\f':
+                    writeEscape('f');
+                    break;
+                case '\n':
+                    writeEscape('n');
+                    break;
+                case '\r':
+                    writeEscape('r');
+                    break;
+                case '\t':
+                    writeEscape('t');
+                    break;
+                default:
+                    if (c <= '\u001F' || (c >= '\u007F' && c <= '\u009F') || (c >= '\u2000' && c <= '\u20FF'))
+                    {
+                        ensureCapacity(6);
+                        buffer[size++] = '\\';
+                        buffer[size++] = 'u';
+                        buffer[size++] = HEX[(c >>> 12) & 0xf];
+                        buffer[size++] = HEX[(c >>> 8) & 0xf];
+                        buffer[size++] = HEX[(c >>> 4) & 0xf];
+                        buffer[size++] = HEX[c & 0xf];
+                    }
+                    else
+                    {
+                        i = writeChar(s, i, c, length);
+                    }
+            }
+        }
+        ensureCapacity(1);
+        buffer[size++] = '"';
+    }
+
+    private void writeEscape(char c)
+    {
+        ensureCapacity(2);
+        buffer[size++] = '\\';
+        buffer[size++] = (byte) c;
+    }
+
+    private void writeChars(String s)
+    {
+        int length = s.length();
+        for (int i = 0; i < length; i++)
+        {
+            i = writeChar(s, i, s.charAt(i), length);
+        }
+    }
+
+    /**
+     * Writes the UTF-8 encoding of the character at {@code i}, which, for a surrogate pair, takes in the next one too.
+     * An unpaired surrogate is written as '?', just like {@code String.getBytes} does.
+     * @return the index of the last character written
+     */
+    private int writeChar(String s, int i, char c, int length)
+    {
+        ensureCapacity(4);
+        if (c < 0x80)
+        {
+            buffer[size++] = (byte) c;
+        }
+        else if (c < 0x800)
+        {
+            buffer[size++] = (byte) (0xc0 | (c >>> 6));
+            buffer[size++] = (byte) (0x80 | (c & 0x3f));
+        }
+        else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1)))
+        {
+            int cp = Character.toCodePoint(c, s.charAt(++i));
+            buffer[size++] = (byte) (0xf0 | (cp >>> 18));
+            buffer[size++] = (byte) (0x80 | ((cp >>> 12) & 0x3f));
+            buffer[size++] = (byte) (0x80 | ((cp >>> 6) & 0x3f));
+            buffer[size++] = (byte) (0x80 | (cp & 0x3f));
+        }
+        else if (Character.isSurrogate(c))
+        {
+            buffer[size++] = '?';
+        }
+        else
+        {
+            buffer[size++] = (byte) (0xe0 | (c >>> 12));
+            buffer[size++] = (byte) (0x80 | ((c >>> 6) & 0x3f));
+            buffer[size++] = (byte) (0x80 | (c & 0x3f));
+        }
+        return i;
+    }
+
+    private void writeBytes(byte[] bytes)
+    {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+    }
+
+    private void ensureCapacity(int needed)
+    {
+        if (size + needed > buffer.length)
+        {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + needed));
+        }
+    }
+}
@@ -16,11 +16,7 @@
 
 package org.jose4j.json;
 
-import org.jose4j.json.internal.json_simple.parser.ContainerFactory;
-import org.jose4j.json.internal.json_simple.parser.JSONParser;
 import org.jose4j.json.internal.json_simple.JSONValue;
-
-import org.jose4j.json.internal.json_simple.parser.ParseException;
 import org.jose4j.lang.JoseException;
 
 
@@ -38,44 +34,51 @@ import java.util.*;
  * like not escaping forward slashes. There’s some risk in this but moving to a new/different processor
  * in the future isn’t really made particularly more difficult by this (as long as this class is the touch point
  * for JSON processing).
+ *
+ * Parsing has since moved from the json-simple parser to {@link JsonParser}, which is quite a bit faster
+ * and allocates much less for the small documents that JOSE deals with.
  */
 public class JsonUtil
 {
-    private static final ContainerFactory CONTAINER_FACTORY = new ContainerFactory()
+    public static Map<String,Object> parseJson(String jsonString) throws JoseException
     {
-        public List creatArrayContainer()
+        Object parsed;
+        try
+        {
+            parsed = new JsonParser(jsonString).parse();
+        }
+        catch (JoseException | IllegalArgumentException e)
         {
-            return new ArrayList<Object>();
+            throw new JoseException("Parsing error: " + e, e);
         }
 
-        public Map createObjectContainer()
+        if (parsed == null)
         {
-            return new DupeKeyDisallowingLinkedHashMap();
+            throw new JoseException("Parsing returned null");
         }
-    };
 
-    public static Map<String,Object> parseJson(String jsonString) throws JoseException
-    {
         try
         {
-            JSONParser parser = new JSONParser();
-            Object parsed = parser.parse(jsonString, CONTAINER_FACTORY);
-            if (parsed == null)
-            {
-                throw new JoseException("Parsing returned null");
-            }
             return (Map) parsed;
         }
-        catch (ParseException | IllegalArgumentException e)
-        {
-            throw new JoseException("Parsing error: " + e, e);
-        }
         catch (ClassCastException e)
         {
             throw new JoseException("Expecting a JSON object at the root but " + e, e);
         }
     }
 
+    static Object parseJsonValue(String jsonString) throws JoseException
+    {
+        try
+        {
+            return new JsonParser(jsonString).parse();
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new JoseException("Parsing error: " + e, e);
+        }
+    }
+
     public static String toJson(Map<String,?> map)
     {
         return JSONValue.toJSONString(map);
@@ -0,0 +1,608 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.json;
+
+import org.jose4j.lang.JoseException;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A JSON object that has been indexed, in a single pass, into the names of its members and the offsets
+ * of their values, with each value only decoded when it's first asked for. This avoids building the whole object
+ * when only a few of its members are going to be looked at.
+ * <p>
+ * Indexing checks the syntax of the entire document and rejects duplicate member names at any depth, so
+ * a document that can be indexed will also parse successfully with {@link JsonUtil#parseJson(String)} and the values
+ * decoded here are the same as those that it would produce.
+ */
+public class LazyJsonObject
+{
+    private static final int MAX_DEPTH = 256;
+
+    private final String json;
+    private final String[] names;
+    private final int[] valueStarts;
+    private final int[] valueEnds;
+    private final Object[] values;
+    private final boolean[] decoded;
+    private final int size;
+
+    private LazyJsonObject(String json, String[] names, int[] valueStarts, int[] valueEnds, int size)
+    {
+        this.json = json;
+        this.names = names;
+        this.valueStarts = valueStarts;
+        this.valueEnds = valueEnds;
+        this.size = size;
+        this.values = new Object[size];
+        this.decoded = new boolean[size];
+    }
+
+    /**
+     * Indexes the given JSON object.
+     * @param json the JSON text of an object
+     * @return the indexed object or null, if the text isn't a strictly well-formed JSON object with unique member names,
+     * in which case {@link JsonUtil#parseJson(String)} should be used to parse it or produce the appropriate error
+     */
+    public static LazyJsonObject index(String json)
+    {
+        try
+        {
+            return new Indexer(json).indexObject();
+        }
+        catch (NotIndexableException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * @return the number of members
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean containsKey(String name)
+    {
+        return indexOf(name) != -1;
+    }
+
+    /**
+     * Gets the value of a member, decoding it if it hasn't already been.
+     * @param name the name of the member
+     * @return the value or null, if there's no such member or its value is null
+     */
+    public Object get(String name)
+    {
+        int i = indexOf(name);
+        return i == -1 ? null : getValue(i);
+    }
+
+    /**
+     * Decodes all the members into a map.
+     * @return a new map of the members, in the order they appear in the JSON
+     */
+    public Map<String, Object> toMap()
+    {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++)
+        {
+            map.put(names[i], getValue(i));
+        }
+        return map;
+    }
+
+    public String getJson()
+    {
+        return json;
+    }
+
+    private int indexOf(String name)
+    {
+        for (int i = 0; i < size; i++)
+        {
+            if (names[i].equals(name))
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private Object getValue(int i)
+    {
+        if (!decoded[i])
+        {
+            values[i] = decodeValue(valueStarts[i], valueEnds[i]);
+            decoded[i] = true;
+        }
+        return values[i];
+    }
+
+    private Object decodeValue(int start, int end)
+    {
+        char c = json.charAt(start);
+        switch (c)
+        {
+            case '"':
+                return hasEscapes(start, end) ? parseValue(start, end) : json.substring(start + 1, end - 1);
+            case 't':
+                return Boolean.TRUE;
+            case 'f':
+                return Boolean.FALSE;
+            case 'n':
+                return null;
+            case '{':
+            case '[':
+                return parseValue(start, end);
+            default:
+                if (end - start < 19 && isPlainInteger(start, end))
+                {
+                    return Long.parseLong(json.substring(start, end));
+                }
+                return parseValue(start, end);
+        }
+    }
+
+    private boolean hasEscapes(int start, int end)
+    {
+        for (int i = start; i < end; i++)
+        {
+            if (json.charAt(i) == '\\')
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isPlainInteger(int start, int end)
+    {
+        for (int i = start; i < end; i++)
+        {
+            char c = json.charAt(i);
+            if (c == '.' || c == 'e' || c == 'E')
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Object parseValue(int start, int end)
+    {
+        try
+        {
+            return JsonUtil.parseJsonValue(json.substring(start, end));
+        }
+        catch (JoseException e)
+        {
+            // the syntax was already checked when indexing so this shouldn't happen
+            throw new IllegalStateException("Unable to decode JSON value " + json.substring(start, end), e);
+        }
+    }
+
+    private static class NotIndexableException extends Exception
+    {
+        private static final long serialVersionUID = 1L;
+
+        private NotIndexableException()
+        {
+            super(null, null, false, false);
+        }
+
+        /**
+         * Only ever thrown as a single preallocated instance to fall back to the full parser, so there's no stack to walk.
+         */
+        @Override
+        public synchronized Throwable fillInStackTrace()
+        {
+            return this;
+        }
+    }
+
+    private static class Indexer
+    {
+        private static final NotIndexableException NOT_INDEXABLE = new NotIndexableException();
+
+        private final String s;
+        private final int length;
+        private int pos;
+
+        private Indexer(String s)
+        {
+            this.s = s;
+            this.length = s.length();
+        }
+
+        private LazyJsonObject indexObject() throws NotIndexableException
+        {
+            String[] names = new String[8];
+            int[] starts = new int[8];
+            int[] ends = new int[8];
+            int count = 0;
+            Set<String> seen = new HashSet<>();
+
+            skipWhitespace();
+            expect('{');
+            skipWhitespace();
+            if (peek() == '}')
+            {
+                pos++;
+            }
+            else
+            {
+                while (true)
+                {
+                    skipWhitespace();
+                    String name = readString();
+                    if (!seen.add(name))
+                    {
+                        throw NOT_INDEXABLE;
+                    }
+                    skipWhitespace();
+                    expect(':');
+                    skipWhitespace();
+                    int start = pos;
+                    skipValue(1);
+
+                    if (count == names.length)
+                    {
+                        int newLength = count * 2;
+                        names = Arrays.copyOf(names, newLength);
+                        starts = Arrays.copyOf(starts, newLength);
+                        ends = Arrays.copyOf(ends, newLength);
+                    }
+                    names[count] = name;
+                    starts[count] = start;
+                    ends[count] = pos;
+                    count++;
+
+                    skipWhitespace();
+                    char c = next();
+                    if (c == '}')
+                    {
+                        break;
+                    }
+                    else if (c != ',')
+                    {
+                        throw NOT_INDEXABLE;
+                    }
+                }
+            }
+
+            skipWhitespace();
+            if (pos != length)
+            {
+                throw NOT_INDEXABLE;
+            }
+
+            return new LazyJsonObject(s, names, starts, ends, count);
+        }
+
+        private void skipValue(int depth) throws NotIndexableException
+        {
+            if (depth > MAX_DEPTH)
+            {
+                throw NOT_INDEXABLE;
+            }
+
+            char c = peek();
+            switch (c)
+            {
+                case '"':
+                    skipString();
+                    break;
+                case '{':
+                    skipObject(depth);
+                    break;
+                case '[':
+                    skipArray(depth);
+                    break;
+                case 't':
+                    expectLiteral("true");
+                    break;
+                case 'f':
+                    expectLiteral("false");
+                    break;
+                case 'n':
+                    expectLiteral("null");
+                    break;
+                default:
+                    skipNumber();
+            }
+        }
+
+        private void skipObject(int depth) throws NotIndexableException
+        {
+            pos++;
+            skipWhitespace();
+            if (peek() == '}')
+            {
+                pos++;
+                return;
+            }
+
+            Set<String> seen = new HashSet<>();
+            while (true)
+            {
+                skipWhitespace();
+                if (!seen.add(readString()))
+                {
+                    throw NOT_INDEXABLE;
+                }
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+                skipValue(depth + 1);
+                skipWhitespace();
+                char c = next();
+                if (c == '}')
+                {
+                    return;
+                }
+                else if (c != ',')
+                {
+                    throw NOT_INDEXABLE;
+                }
+            }
+        }
+
+        private void skipArray(int depth) throws NotIndexableException
+        {
+            pos++;
+            skipWhitespace();
+            if (peek() == ']')
+            {
+                pos++;
+                return;
+            }
+
+            while (true)
+            {
+                skipWhitespace();
+                skipValue(depth + 1);
+                skipWhitespace();
+                char c = next();
+                if (c == ']')
+                {
+                    return;
+                }
+                else if (c != ',')
+                {
+                    throw NOT_INDEXABLE;
+                }
+            }
+        }
+
+        private void skipNumber() throws NotIndexableException
+        {
+            if (peek() == '-')
+            {
+                pos++;
+            }
+
+            char c = next();
+            if (c == '0')
+            {
+                if (pos < length && isDigit(s.charAt(pos)))
+                {
+                    throw NOT_INDEXABLE;
+                }
+            }
+            else if (isDigit(c))
+            {
+                skipDigits();
+            }
+            else
+            {
+                throw NOT_INDEXABLE;
+            }
+
+            if (pos < length && s.charAt(pos) == '.')
+            {
+                pos++;
+                requireDigits();
+            }
+
+            if (pos < length && (s.charAt(pos) == 'e' || s.charAt(pos) == 'E'))
+            {
+                pos++;
+                if (pos < length && (s.charAt(pos) == '+' || s.charAt(pos) == '-'))
+                {
+                    pos++;
+                }
+                requireDigits();
+            }
+        }
+
+        private void requireDigits() throws NotIndexableException
+        {
+            if (!isDigit(next()))
+            {
+                throw NOT_INDEXABLE;
+            }
+            skipDigits();
+        }
+
+        private void skipDigits()
+        {
+            while (pos < length && isDigit(s.charAt(pos)))
+            {
+                pos++;
+            }
+        }
+
+        private boolean isDigit(char c)
+        {
+            return c >= '0' && c <= '9';
+        }
+
+        private String readString() throws NotIndexableException
+        {
+            int start = pos;
+            boolean escaped = skipString();
+            if (!escaped)
+            {
+                return s.substring(start + 1, pos - 1);
+            }
+
+            StringBuilder sb = new StringBuilder(pos - start);
+            for (int i = start + 1; i < pos - 1; i++)
+            {
+                char c = s.charAt(i);
+                if (c == '\\')
+                {
+                    c = s.charAt(++i);
+                    switch (c)
+                    {
+                        case 'b':
+                            sb.append('\b');
+                            break;
+                        case 'f':
+                            sb.append('\f');
+                            break;
+                        case 'n':
+                            sb.append('\n');
+                            break;
+                        case 'r':
+                            sb.append('\r');
+                            break;
+                        case 't':
+                            sb.append('\t');
+                            break;
+                        case 'u':
+                            sb.append((char) Integer.parseInt(s.substring(i + 1, i + 5), 16));
+                            i += 4;
+                            break;
+                        default:
+                            sb.append(c);
+                    }
+                }
+                else
+                {
+                    sb.append(c);
+                }
+            }
+            return sb.toString();
+        }
+
+        /**
+         * @return true if the string contains any escapes
+         */
+        private boolean skipString() throws NotIndexableException
+        {
+            expect('"');
+            boolean escaped = false;
+            while (true)
+            {
+                char c = next();
+                if (c == '"')
+                {
+                    return escaped;
+                }
+                else if (c == '\\')
+                {
+                    escaped = true;
+                    c = next();
+                    switch (c)
+                    {
+                        case '"':
+                        case '\\':
+                        case '/':
+                        case 'b':
+                        case 'f':
+                        case 'n':
+                        case 'r':
+                        case 't':
+                            break;
+                        case 'u':
+                            for (int i = 0; i < 4; i++)
+                            {
+                                if (JsonParser.hexValue(next()) == -1)
+                                {
+                                    throw NOT_INDEXABLE;
+                                }
+                            }
+                            break;
+                        default:
+                            throw NOT_INDEXABLE;
+                    }
+                }
+                else if (c < 0x20)
+                {
+                    throw NOT_INDEXABLE;
+                }
+            }
+        }
+
+        private void expectLiteral(String literal) throws NotIndexableException
+        {
+            if (!s.startsWith(literal, pos))
+            {
+                throw NOT_INDEXABLE;
+            }
+            pos += literal.length();
+        }
+
+        private void expect(char expected) throws NotIndexableException
+        {
+            if (next() != expected)
+            {
+                throw NOT_INDEXABLE;
+            }
+        }
+
+        private char peek() throws NotIndexableException
+        {
+            if (pos >= length)
+            {
+                throw NOT_INDEXABLE;
+            }
+            return s.charAt(pos);
+        }
+
+        private char next() throws NotIndexableException
+        {
+            char c = peek();
+            pos++;
+            return c;
+        }
+
+        private void skipWhitespace()
+        {
+            while (pos < length)
+            {
+                char c = s.charAt(pos);
+                if (c == ' ' || c == '\t' || c == '\n' || c == '\r')
+                {
+                    pos++;
+                }
+                else
+                {
+                    break;
+                }
+            }
+        }
+    }
+}
@@ -26,23 +26,30 @@ import org.jose4j.keys.KeyPersuasion;
 import org.jose4j.lang.ByteUtil;
 import org.jose4j.lang.IntegrityException;
 import org.jose4j.lang.JoseException;
+import org.jose4j.mac.MacCache;
 import org.jose4j.mac.MacUtil;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
 import javax.crypto.spec.IvParameterSpec;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.Key;
+import java.util.Arrays;
 
 /**
  */
-public class AesCbcHmacSha2ContentEncryptionAlgorithm extends AlgorithmInfo implements ContentEncryptionAlgorithm
+public class AesCbcHmacSha2ContentEncryptionAlgorithm extends AlgorithmInfo implements StreamingContentEncryptionAlgorithm
 {
     public static final int IV_BYTE_LENGTH = 16;
 
+    private static final int CHUNK_LENGTH = 16 * 1024;
+
     private final String hmacJavaAlgorithm;
     private final int tagTruncationLength;
     private final ContentEncryptionKeyDescriptor contentEncryptionKeyDescriptor;
@@ -86,41 +93,38 @@ public class AesCbcHmacSha2ContentEncryptionAlgorithm extends AlgorithmInfo impl
 
     ContentEncryptionParts encrypt(byte[] plaintext, byte[] aad, byte[] key, byte[] iv, Headers headers, ProviderContext providerContext) throws JoseException
     {
-        Key hmacKey = new HmacKey(ByteUtil.leftHalf(key));
-        Key encryptionKey = new AesKey(ByteUtil.rightHalf(key));
-        final String cipherProvider = ContentEncryptionHelp.getCipherProvider(headers, providerContext);
-        Cipher cipher = CipherUtil.getCipher(getJavaAlgorithm(), cipherProvider);
+        Cipher cipher = getInitializedCipher(Cipher.ENCRYPT_MODE, key, iv, headers, providerContext);
+        Mac mac = getInitializedMac(aad, key, iv, headers, providerContext, providerContext.getMacCache());
 
+        // the ciphertext is MACed a chunk at a time as it's produced, while it's still in cache,
+        // rather than by concatenating all of the authentication tag input after the fact
+        byte[] cipherText = new byte[cipher.getOutputSize(plaintext.length)];
+        int cipherTextLength = 0;
         try
         {
-            cipher.init(Cipher.ENCRYPT_MODE, encryptionKey, new IvParameterSpec(iv));
+            for (int offset = 0; offset < plaintext.length; offset += CHUNK_LENGTH)
+            {
+                int length = Math.min(CHUNK_LENGTH, plaintext.length - offset);
+                int produced = cipher.update(plaintext, offset, length, cipherText, cipherTextLength);
+                mac.update(cipherText, cipherTextLength, produced);
+                cipherTextLength += produced;
+            }
+            int produced = cipher.doFinal(cipherText, cipherTextLength);
+            mac.update(cipherText, cipherTextLength, produced);
+            cipherTextLength += produced;
         }
-        catch (InvalidKeyException e)
-        {
-            throw new JoseException("Invalid key for " + getJavaAlgorithm(), e);
-        }
-        catch (InvalidAlgorithmParameterException e)
+        catch (IllegalBlockSizeException | BadPaddingException | ShortBufferException e)
         {
             throw new JoseException(e.toString(), e);
         }
 
-        byte[] cipherText;
-        try
+        if (cipherTextLength != cipherText.length)
         {
-            cipherText = cipher.doFinal(plaintext);
+            cipherText = ByteUtil.subArray(cipherText, 0, cipherTextLength);
         }
-        catch (IllegalBlockSizeException | BadPaddingException e)
-        {
-            throw new JoseException(e.toString(), e);
-        }
-
-        final String macProvider = ContentEncryptionHelp.getMacProvider(headers, providerContext);
-        Mac mac = MacUtil.getInitializedMac(getHmacJavaAlgorithm(), hmacKey, macProvider);
 
-        byte[] al = getAdditionalAuthenticatedDataLengthBytes(aad);
-
-        byte[] authenticationTagInput = ByteUtil.concat(aad, iv, cipherText, al);
-        byte[] authenticationTag = mac.doFinal(authenticationTagInput);
+        mac.update(getAdditionalAuthenticatedDataLengthBytes(aad));
+        byte[] authenticationTag = mac.doFinal();
         authenticationTag = ByteUtil.subArray(authenticationTag, 0, getTagTruncationLength()); // truncate it
 
         return new ContentEncryptionParts(iv, cipherText, authenticationTag);
@@ -128,31 +132,76 @@ public class AesCbcHmacSha2ContentEncryptionAlgorithm extends AlgorithmInfo impl
 
     public byte[] decrypt(ContentEncryptionParts contentEncryptionParts, byte[] aad, byte[] contentEncryptionKey, Headers headers, ProviderContext providerContext) throws JoseException
     {
-        String cipherProvider = ContentEncryptionHelp.getCipherProvider(headers, providerContext);
-        String macProvider = ContentEncryptionHelp.getMacProvider(headers, providerContext);
-
         byte[] iv = contentEncryptionParts.getIv();
         byte[] ciphertext = contentEncryptionParts.getCiphertext();
         byte[] authenticationTag = contentEncryptionParts.getAuthenticationTag();
-        byte[] al = getAdditionalAuthenticatedDataLengthBytes(aad);
-        byte[] authenticationTagInput = ByteUtil.concat(aad, iv, ciphertext, al);
-        Key hmacKey = new HmacKey(ByteUtil.leftHalf(contentEncryptionKey));
-        Mac mac = MacUtil.getInitializedMac(getHmacJavaAlgorithm(), hmacKey, macProvider);
-        byte[] calculatedAuthenticationTag = mac.doFinal(authenticationTagInput);
-        calculatedAuthenticationTag = ByteUtil.subArray(calculatedAuthenticationTag, 0, getTagTruncationLength()); // truncate it
-        boolean tagMatch = ByteUtil.secureEquals(authenticationTag, calculatedAuthenticationTag);
-        if (!tagMatch)
+
+        Cipher cipher = getInitializedCipher(Cipher.DECRYPT_MODE, contentEncryptionKey, iv, headers, providerContext);
+        Mac mac = getInitializedMac(aad, contentEncryptionKey, iv, headers, providerContext, providerContext.getMacCache());
+
+        // each chunk of ciphertext is MACed and decrypted in the same pass, but the last block, which holds the
+        // padding, isn't decrypted until the authentication tag has been checked so that nothing about the padding
+        // of a modified ciphertext is revealed and no plaintext is returned from one
+        byte[] plaintext = new byte[ciphertext.length];
+        int plaintextLength = 0;
+        int bulkLength = Math.max(0, ciphertext.length - IV_BYTE_LENGTH);
+        try
+        {
+            for (int offset = 0; offset < bulkLength; offset += CHUNK_LENGTH)
+            {
+                int length = Math.min(CHUNK_LENGTH, bulkLength - offset);
+                mac.update(ciphertext, offset, length);
+                plaintextLength += cipher.update(ciphertext, offset, length, plaintext, plaintextLength);
+            }
+            mac.update(ciphertext, bulkLength, ciphertext.length - bulkLength);
+            mac.update(getAdditionalAuthenticatedDataLengthBytes(aad));
+
+            if (!checkAuthenticationTag(mac, authenticationTag))
+            {
+                Arrays.fill(plaintext, (byte) 0);
+                throw integrityException(authenticationTag);
+            }
+
+            plaintextLength += cipher.doFinal(ciphertext, bulkLength, ciphertext.length - bulkLength, plaintext, plaintextLength);
+        }
+        catch (IllegalBlockSizeException | BadPaddingException | ShortBufferException e)
         {
-            Base64Url base64Url = new Base64Url();
-            String encTag = base64Url.base64UrlEncode(authenticationTag);
-            throw new IntegrityException("Authentication tag check failed. Message=" + encTag);
+            throw new JoseException(e.toString(), e);
         }
 
-        Key encryptionKey = new AesKey(ByteUtil.rightHalf(contentEncryptionKey));
+        return plaintextLength == plaintext.length ? plaintext : ByteUtil.subArray(plaintext, 0, plaintextLength);
+    }
+
+    public int getIvByteLength()
+    {
+        return IV_BYTE_LENGTH;
+    }
+
+    public ContentEncryptingOutputStream encrypt(OutputStream ciphertext, byte[] aad, byte[] contentEncryptionKey, byte[] iv,
+                                                 Headers headers, ProviderContext providerContext) throws JoseException
+    {
+        Cipher cipher = getInitializedCipher(Cipher.ENCRYPT_MODE, contentEncryptionKey, iv, headers, providerContext);
+        // a Mac from the per-thread cache can't be held across writes that might be interleaved with other operations
+        Mac mac = getInitializedMac(aad, contentEncryptionKey, iv, headers, providerContext, null);
+        return new EncryptingOutputStream(ciphertext, cipher, mac, getAdditionalAuthenticatedDataLengthBytes(aad));
+    }
+
+    public ContentDecryptingOutputStream decrypt(OutputStream plaintext, byte[] aad, byte[] contentEncryptionKey, byte[] iv,
+                                                 Headers headers, ProviderContext providerContext) throws JoseException
+    {
+        Cipher cipher = getInitializedCipher(Cipher.DECRYPT_MODE, contentEncryptionKey, iv, headers, providerContext);
+        Mac mac = getInitializedMac(aad, contentEncryptionKey, iv, headers, providerContext, null);
+        return new DecryptingOutputStream(plaintext, cipher, mac, getAdditionalAuthenticatedDataLengthBytes(aad));
+    }
+
+    private Cipher getInitializedCipher(int mode, byte[] key, byte[] iv, Headers headers, ProviderContext providerContext) throws JoseException
+    {
+        Key encryptionKey = new AesKey(ByteUtil.rightHalf(key));
+        String cipherProvider = ContentEncryptionHelp.getCipherProvider(headers, providerContext);
         Cipher cipher = CipherUtil.getCipher(getJavaAlgorithm(), cipherProvider);
         try
         {
-            cipher.init(Cipher.DECRYPT_MODE, encryptionKey, new IvParameterSpec(iv));
+            cipher.init(mode, encryptionKey, new IvParameterSpec(iv));
         }
         catch (InvalidKeyException e)
         {
@@ -162,15 +211,35 @@ public class AesCbcHmacSha2ContentEncryptionAlgorithm extends AlgorithmInfo impl
         {
             throw new JoseException(e.toString(), e);
         }
+        return cipher;
+    }
 
-        try
-        {
-            return cipher.doFinal(ciphertext);
-        }
-        catch (IllegalBlockSizeException | BadPaddingException e)
-        {
-            throw new JoseException(e.toString(), e);
-        }
+    /**
+     * @return a Mac that's been given the AAD and IV, which are the start of the authentication tag input
+     */
+    private Mac getInitializedMac(byte[] aad, byte[] key, byte[] iv, Headers headers, ProviderContext providerContext, MacCache macCache)
+            throws JoseException
+    {
+        Key hmacKey = new HmacKey(ByteUtil.leftHalf(key));
+        String macProvider = ContentEncryptionHelp.getMacProvider(headers, providerContext);
+        Mac mac = MacUtil.getInitializedMac(getHmacJavaAlgorithm(), hmacKey, macProvider, macCache);
+        mac.update(aad);
+        mac.update(iv);
+        return mac;
+    }
+
+    private boolean checkAuthenticationTag(Mac mac, byte[] authenticationTag)
+    {
+        byte[] calculatedAuthenticationTag = mac.doFinal();
+        calculatedAuthenticationTag = ByteUtil.subArray(calculatedAuthenticationTag, 0, getTagTruncationLength()); // truncate it
+        return ByteUtil.secureEquals(authenticationTag, calculatedAuthenticationTag);
+    }
+
+    private IntegrityException integrityException(byte[] authenticationTag)
+    {
+        Base64Url base64Url = new Base64Url();
+        String encTag = base64Url.base64UrlEncode(authenticationTag);
+        return new IntegrityException("Authentication tag check failed. Message=" + encTag);
     }
 
     private byte[] getAdditionalAuthenticatedDataLengthBytes(byte[] additionalAuthenticatedData)
@@ -189,6 +258,133 @@ public class AesCbcHmacSha2ContentEncryptionAlgorithm extends AlgorithmInfo impl
         return CipherStrengthSupport.isAvailable(getJavaAlgorithm(), aesByteKeyLength);
     }
 
+    private class EncryptingOutputStream extends ContentEncryptingOutputStream
+    {
+        private final OutputStream ciphertext;
+        private final Cipher cipher;
+        private final Mac mac;
+        private final byte[] al;
+        private final byte[] buffer;
+
+        private EncryptingOutputStream(OutputStream ciphertext, Cipher cipher, Mac mac, byte[] al)
+        {
+            this.ciphertext = ciphertext;
+            this.cipher = cipher;
+            this.mac = mac;
+            this.al = al;
+            this.buffer = new byte[cipher.getOutputSize(CHUNK_LENGTH)];
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException
+        {
+            try
+            {
+                for (int offset = off; offset < off + len; offset += CHUNK_LENGTH)
+                {
+                    int length = Math.min(CHUNK_LENGTH, off + len - offset);
+                    int produced = cipher.update(b, offset, length, buffer, 0);
+                    mac.update(buffer, 0, produced);
+                    ciphertext.write(buffer, 0, produced);
+                }
+            }
+            catch (ShortBufferException e)
+            {
+                throw new IOException(e.toString(), e);
+            }
+        }
+
+        @Override
+        public byte[] finish() throws JoseException, IOException
+        {
+            byte[] last;
+            try
+            {
+                last = cipher.doFinal();
+            }
+            catch (IllegalBlockSizeException | BadPaddingException e)
+            {
+                throw new JoseException(e.toString(), e);
+            }
+            mac.update(last);
+            ciphertext.write(last);
+            mac.update(al);
+            return ByteUtil.subArray(mac.doFinal(), 0, getTagTruncationLength()); // truncate it
+        }
+    }
+
+    private class DecryptingOutputStream extends ContentDecryptingOutputStream
+    {
+        private final OutputStream plaintext;
+        private final Cipher cipher;
+        private final Mac mac;
+        private final byte[] al;
+        private final byte[] pending = new byte[CHUNK_LENGTH + IV_BYTE_LENGTH];
+        private int pendingLength;
+        private final byte[] buffer;
+
+        private DecryptingOutputStream(OutputStream plaintext, Cipher cipher, Mac mac, byte[] al)
+        {
+            this.plaintext = plaintext;
+            this.cipher = cipher;
+            this.mac = mac;
+            this.al = al;
+            this.buffer = new byte[cipher.getOutputSize(pending.length)];
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException
+        {
+            while (len > 0)
+            {
+                int length = Math.min(len, pending.length - pendingLength);
+                System.arraycopy(b, off, pending, pendingLength, length);
+                pendingLength += length;
+                off += length;
+                len -= length;
+
+                if (pendingLength == pending.length)
+                {
+                    // the last block is always held back so that it, and its padding, is only decrypted
+                    // after the authentication tag has been checked
+                    int bulkLength = pendingLength - IV_BYTE_LENGTH;
+                    mac.update(pending, 0, bulkLength);
+                    try
+                    {
+                        int produced = cipher.update(pending, 0, bulkLength, buffer, 0);
+                        plaintext.write(buffer, 0, produced);
+                    }
+                    catch (ShortBufferException e)
+                    {
+                        throw new IOException(e.toString(), e);
+                    }
+                    System.arraycopy(pending, bulkLength, pending, 0, IV_BYTE_LENGTH);
+                    pendingLength = IV_BYTE_LENGTH;
+                }
+            }
+        }
+
+        @Override
+        public void finish(byte[] authenticationTag) throws JoseException, IOException
+        {
+            mac.update(pending, 0, pendingLength);
+            mac.update(al);
+            if (!checkAuthenticationTag(mac, authenticationTag))
+            {
+                throw integrityException(authenticationTag);
+            }
+
+            try
+            {
+                plaintext.write(cipher.doFinal(pending, 0, pendingLength));
+            }
+            catch (IllegalBlockSizeException | BadPaddingException e)
+            {
+                throw new JoseException(e.toString(), e);
+            }
+        }
+    }
+
     public static class Aes128CbcHmacSha256
             extends AesCbcHmacSha2ContentEncryptionAlgorithm
             implements ContentEncryptionAlgorithm
@@ -24,10 +24,16 @@ import org.jose4j.keys.KeyPersuasion;
 import org.jose4j.lang.ByteUtil;
 import org.jose4j.lang.JoseException;
 
+import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
+import javax.crypto.IllegalBlockSizeException;
+import java.io.IOException;
+import java.io.OutputStream;
+
 /**
  *
  */
-public class AesGcmContentEncryptionAlgorithm extends AlgorithmInfo implements ContentEncryptionAlgorithm
+public class AesGcmContentEncryptionAlgorithm extends AlgorithmInfo implements StreamingContentEncryptionAlgorithm
 {
     private static final int IV_BYTE_LENGTH = 12;
     private static final int TAG_BYTE_LENGTH = 16;
@@ -79,6 +85,41 @@ public class AesGcmContentEncryptionAlgorithm extends AlgorithmInfo implements C
         return simpleAeadCipher.decrypt(cek, iv, ciphertext, tag, aad, cipherProvider);
     }
 
+    public int getIvByteLength()
+    {
+        return IV_BYTE_LENGTH;
+    }
+
+    public ContentEncryptingOutputStream encrypt(OutputStream ciphertext, byte[] aad, byte[] contentEncryptionKey, byte[] iv,
+                                                 Headers headers, ProviderContext providerContext) throws JoseException
+    {
+        Cipher cipher = getInitialisedCipher(Cipher.ENCRYPT_MODE, aad, contentEncryptionKey, iv, headers, providerContext);
+        return new EncryptingOutputStream(ciphertext, cipher);
+    }
+
+    /**
+     * Note that the JCA's GCM decryption holds onto all of the ciphertext until the authentication tag has been checked,
+     * so the decrypting stream this returns won't write any plaintext until it's finished.
+     */
+    public ContentDecryptingOutputStream decrypt(OutputStream plaintext, byte[] aad, byte[] contentEncryptionKey, byte[] iv,
+                                                 Headers headers, ProviderContext providerContext) throws JoseException
+    {
+        Cipher cipher = getInitialisedCipher(Cipher.DECRYPT_MODE, aad, contentEncryptionKey, iv, headers, providerContext);
+        return new DecryptingOutputStream(plaintext, cipher);
+    }
+
+    private Cipher getInitialisedCipher(int mode, byte[] aad, byte[] contentEncryptionKey, byte[] iv, Headers headers, ProviderContext providerContext)
+            throws JoseException
+    {
+        String cipherProvider = ContentEncryptionHelp.getCipherProvider(headers, providerContext);
+        Cipher cipher = simpleAeadCipher.getInitialisedCipher(new AesKey(contentEncryptionKey), iv, mode, cipherProvider);
+        if (aad != null && aad.length > 0)
+        {
+            cipher.updateAAD(aad);
+        }
+        return cipher;
+    }
+
     @Override
     public boolean isAvailable()
     {
@@ -86,6 +127,81 @@ public class AesGcmContentEncryptionAlgorithm extends AlgorithmInfo implements C
         return simpleAeadCipher.isAvailable(log, keyByteLength, IV_BYTE_LENGTH, getAlgorithmIdentifier());
     }
 
+    private static class EncryptingOutputStream extends ContentEncryptingOutputStream
+    {
+        private final OutputStream ciphertext;
+        private final Cipher cipher;
+
+        private EncryptingOutputStream(OutputStream ciphertext, Cipher cipher)
+        {
+            this.ciphertext = ciphertext;
+            this.cipher = cipher;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException
+        {
+            byte[] produced = cipher.update(b, off, len);
+            if (produced != null)
+            {
+                ciphertext.write(produced);
+            }
+        }
+
+        @Override
+        public byte[] finish() throws JoseException, IOException
+        {
+            byte[] last;
+            try
+            {
+                last = cipher.doFinal();
+            }
+            catch (IllegalBlockSizeException | BadPaddingException e)
+            {
+                throw new JoseException(e.toString(), e);
+            }
+
+            int tagIndex = last.length - TAG_BYTE_LENGTH;
+            ciphertext.write(last, 0, tagIndex);
+            return ByteUtil.subArray(last, tagIndex, TAG_BYTE_LENGTH);
+        }
+    }
+
+    private static class DecryptingOutputStream extends ContentDecryptingOutputStream
+    {
+        private final OutputStream plaintext;
+        private final Cipher cipher;
+
+        private DecryptingOutputStream(OutputStream plaintext, Cipher cipher)
+        {
+            this.plaintext = plaintext;
+            this.cipher = cipher;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException
+        {
+            byte[] produced = cipher.update(b, off, len);
+            if (produced != null)
+            {
+                plaintext.write(produced);
+            }
+        }
+
+        @Override
+        public void finish(byte[] authenticationTag) throws JoseException, IOException
+        {
+            try
+            {
+                plaintext.write(cipher.doFinal(authenticationTag));
+            }
+            catch (IllegalBlockSizeException | BadPaddingException e)
+            {
+                throw new JoseException(e.toString(), e);
+            }
+        }
+    }
+
     public static class Aes256Gcm extends AesGcmContentEncryptionAlgorithm
     {
         public Aes256Gcm()
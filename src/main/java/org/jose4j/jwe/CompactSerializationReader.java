@@ -0,0 +1,141 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwe;
+
+import org.jose4j.base64url.Base64UrlDecoder;
+import org.jose4j.lang.JoseException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Reads the period separated parts of a compact serialization from a stream, one at a time, so that the
+ * ciphertext of a JWE can be decoded and decrypted without ever holding all of it.
+ */
+class CompactSerializationReader
+{
+    private static final int MAX_PART_LENGTH = 64 * 1024;
+
+    private final InputStream in;
+    private final int expectedParts;
+    private final byte[] buffer = new byte[8192];
+    private int position;
+    private int limit;
+    private int partsRead;
+
+    CompactSerializationReader(InputStream in, int expectedParts)
+    {
+        this.in = in;
+        this.expectedParts = expectedParts;
+    }
+
+    /**
+     * Reads the next part, which isn't expected to be large, as a string.
+     * @return the base64url encoded part
+     */
+    String readPart() throws IOException, JoseException
+    {
+        StringBuilder sb = new StringBuilder();
+        int b;
+        while ((b = next()) != -1 && b != '.')
+        {
+            if (sb.length() == MAX_PART_LENGTH)
+            {
+                throw new JoseException("Part " + partsRead + " of the compact serialization is longer than " + MAX_PART_LENGTH + " characters.");
+            }
+            sb.append((char) b);
+        }
+        endPart(b);
+        return sb.toString();
+    }
+
+    /**
+     * Reads the next part and decodes it, a buffer at a time, into the given stream.
+     * @param decoded where to write the decoded bytes
+     * @return the number of base64url characters in the part
+     */
+    long decodePart(OutputStream decoded) throws IOException, JoseException
+    {
+        Base64UrlDecoder decoder = new Base64UrlDecoder();
+        byte[] out = new byte[decoder.maxDecodedLength(buffer.length) + 3];
+        long length = 0;
+        int terminator = -1;
+        try
+        {
+            while (fill())
+            {
+                int end = position;
+                while (end < limit && buffer[end] != '.')
+                {
+                    end++;
+                }
+
+                int count = end - position;
+                decoded.write(out, 0, decoder.decode(buffer, position, count, out, 0));
+                length += count;
+                position = end;
+                if (end < limit)
+                {
+                    terminator = '.';
+                    position++;
+                    break;
+                }
+            }
+            decoded.write(out, 0, decoder.finish(out, 0));
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new JoseException("Part " + partsRead + " of the compact serialization isn't base64url encoded: " + e.getMessage());
+        }
+        endPart(terminator);
+        return length;
+    }
+
+    private void endPart(int terminator) throws JoseException
+    {
+        partsRead++;
+        boolean last = partsRead == expectedParts;
+        if ((terminator == '.') == last)
+        {
+            throw new JoseException("A JWE Compact Serialization must have exactly " + expectedParts + " parts separated by period ('.') characters");
+        }
+    }
+
+    private int next() throws IOException
+    {
+        return fill() ? buffer[position++] & 0xff : -1;
+    }
+
+    /**
+     * @return true if there's something in the buffer, reading more into it if needed, or false at the end of the stream
+     */
+    private boolean fill() throws IOException
+    {
+        if (position == limit)
+        {
+            limit = in.read(buffer);
+            position = 0;
+            if (limit <= 0)
+            {
+                limit = 0;
+                return false;
+            }
+        }
+        return true;
+    }
+}
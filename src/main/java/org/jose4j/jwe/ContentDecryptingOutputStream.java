@@ -0,0 +1,50 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwe;
+
+import org.jose4j.lang.JoseException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A stream that the ciphertext is written to and that writes the plaintext to an underlying stream.
+ * Closing it doesn't close the underlying stream.
+ * <p>
+ * Depending on the algorithm, some of the plaintext may be written to the underlying stream before the authentication tag
+ * has been checked, so none of it should be trusted or acted on unless {@link #finish(byte[])} returns normally.
+ * @see StreamingContentEncryptionAlgorithm
+ */
+public abstract class ContentDecryptingOutputStream extends OutputStream
+{
+    @Override
+    public void write(int b) throws IOException
+    {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public abstract void write(byte[] b, int off, int len) throws IOException;
+
+    /**
+     * Checks the authentication tag and writes the last of the plaintext to the underlying stream.
+     * @param authenticationTag the authentication tag
+     * @throws JoseException if the authentication tag doesn't match or the decryption can't otherwise be completed
+     * @throws IOException if the plaintext can't be written
+     */
+    public abstract void finish(byte[] authenticationTag) throws JoseException, IOException;
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwe;
+
+import org.jose4j.lang.JoseException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A stream that the plaintext is written to and that writes the ciphertext to an underlying stream.
+ * Closing it doesn't close the underlying stream.
+ * @see StreamingContentEncryptionAlgorithm
+ */
+public abstract class ContentEncryptingOutputStream extends OutputStream
+{
+    @Override
+    public void write(int b) throws IOException
+    {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public abstract void write(byte[] b, int off, int len) throws IOException;
+
+    /**
+     * Writes the last of the ciphertext to the underlying stream.
+     * @return the authentication tag
+     * @throws JoseException if the encryption can't be completed
+     * @throws IOException if the ciphertext can't be written
+     */
+    public abstract byte[] finish() throws JoseException, IOException;
+}
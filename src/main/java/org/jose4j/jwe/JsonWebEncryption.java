@@ -17,10 +17,15 @@
 package org.jose4j.jwe;
 
 import org.jose4j.base64url.Base64Url;
+import org.jose4j.base64url.Base64UrlOutputStream;
+import org.jose4j.instrumentation.InstrumentationRegistry;
+import org.jose4j.instrumentation.Operation;
+import org.jose4j.instrumentation.Outcome;
 import org.jose4j.jwa.AlgorithmConstraints;
 import org.jose4j.jwa.AlgorithmFactory;
 import org.jose4j.jwa.AlgorithmFactoryFactory;
 import org.jose4j.jwa.CryptoPrimitive;
+import org.jose4j.jwx.CompactSerializationParts;
 import org.jose4j.jwx.CompactSerializer;
 import org.jose4j.jwx.HeaderParameterNames;
 import org.jose4j.jwx.Headers;
@@ -35,6 +40,12 @@ import org.jose4j.zip.CompressionAlgorithmIdentifiers;
 
 import javax.crypto.Cipher;
 import javax.crypto.KeyAgreement;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.security.Key;
 
 /**
@@ -42,6 +53,7 @@ import java.security.Key;
 public class JsonWebEncryption extends JsonWebStructure
 {
 	public static final short COMPACT_SERIALIZATION_PARTS = 5;
+    private static final int STREAMING_BUFFER_LENGTH = 16 * 1024;
     private static final AlgorithmConstraints BLOCK_RSA1_5 =
             new AlgorithmConstraints(AlgorithmConstraints.ConstraintType.BLOCK, KeyManagementAlgorithmIdentifiers.RSA1_5);
 
@@ -203,6 +215,25 @@ public class JsonWebEncryption extends JsonWebStructure
         setIntegrity(tag);
     }
 
+    @Override
+    protected void setCompactSerializationParts(CompactSerializationParts parts) throws JoseException
+    {
+        if (parts.size() != COMPACT_SERIALIZATION_PARTS)
+        {
+            throw new JoseException("A JWE Compact Serialization must have exactly " + COMPACT_SERIALIZATION_PARTS + " parts separated by period ('.') characters");
+        }
+
+        String cs = parts.getCompactSerialization();
+        setEncodedHeader(parts.get(0));
+        encryptedKey = base64url.base64UrlDecode(cs, parts.start(1), parts.length(1));
+        setIv(base64url.base64UrlDecode(cs, parts.start(2), parts.length(2)));
+        checkNotEmptyPart(parts, 3, "Encoded JWE Ciphertext");
+        ciphertext = base64url.base64UrlDecode(cs, parts.start(3), parts.length(3));
+        checkNotEmptyPart(parts, 4, "Encoded JWE Authentication Tag");
+        byte[] tag = base64url.base64UrlDecode(cs, parts.start(4), parts.length(4));
+        setIntegrity(tag);
+    }
+
     /**
      * Create, initialize and return the {@link CryptoPrimitive} that
      * this JWE instance will use for agreement or decryption of the content encryption key.
@@ -236,6 +267,21 @@ public class JsonWebEncryption extends JsonWebStructure
     }
 
     private void decrypt() throws JoseException
+    {
+        long start = InstrumentationRegistry.start();
+        Outcome outcome = Outcome.ERROR;
+        try
+        {
+            decryptContent();
+            outcome = Outcome.SUCCESS;
+        }
+        finally
+        {
+            InstrumentationRegistry.record(Operation.DECRYPT, getHeaders(), HeaderParameterNames.ENCRYPTION_METHOD, start, outcome);
+        }
+    }
+
+    private void decryptContent() throws JoseException
     {
         KeyManagementAlgorithm keyManagementModeAlg = getKeyManagementModeAlgorithm();
         ContentEncryptionAlgorithm contentEncryptionAlg = getContentEncryptionAlgorithm();
@@ -310,6 +356,22 @@ public class JsonWebEncryption extends JsonWebStructure
     }
 
     public String getCompactSerialization() throws JoseException
+    {
+        long start = InstrumentationRegistry.start();
+        Outcome outcome = Outcome.ERROR;
+        try
+        {
+            String compactSerialization = encrypt();
+            outcome = Outcome.SUCCESS;
+            return compactSerialization;
+        }
+        finally
+        {
+            InstrumentationRegistry.record(Operation.ENCRYPT, getHeaders(), HeaderParameterNames.ENCRYPTION_METHOD, start, outcome);
+        }
+    }
+
+    private String encrypt() throws JoseException
     {
         KeyManagementAlgorithm keyManagementModeAlg = getKeyManagementModeAlgorithm();
         ContentEncryptionAlgorithm contentEncryptionAlg = getContentEncryptionAlgorithm();
@@ -352,6 +414,187 @@ public class JsonWebEncryption extends JsonWebStructure
         return CompactSerializer.serialize(getEncodedHeader(), encodedEncryptedKey, encodedIv, encodedCiphertext, encodedTag);
     }
 
+    /**
+     * Encrypts the plaintext read from one stream and writes the compact serialization of the JWE to another,
+     * a piece at a time, so that content too big to hold in memory can be encrypted. Any plaintext set on this
+     * object isn't used. Neither stream is closed.
+     * <p>
+     * The content encryption algorithm must be a {@link StreamingContentEncryptionAlgorithm}, which all the built in ones
+     * are, and compression isn't supported.
+     * @param plaintext the stream to read the plaintext from
+     * @param compactSerialization the stream to write the compact serialization to
+     * @throws JoseException if the content can't be encrypted
+     * @throws IOException if reading or writing one of the streams fails
+     */
+    public void encrypt(InputStream plaintext, OutputStream compactSerialization) throws JoseException, IOException
+    {
+        long start = InstrumentationRegistry.start();
+        Outcome outcome = Outcome.ERROR;
+        try
+        {
+            encryptStreaming(plaintext, compactSerialization);
+            outcome = Outcome.SUCCESS;
+        }
+        finally
+        {
+            InstrumentationRegistry.record(Operation.ENCRYPT, getHeaders(), HeaderParameterNames.ENCRYPTION_METHOD, start, outcome);
+        }
+    }
+
+    /**
+     * Encrypts in the same way as {@link #encrypt(InputStream, OutputStream)} but with channels.
+     * @param plaintext the channel to read the plaintext from
+     * @param compactSerialization the channel to write the compact serialization to
+     * @throws JoseException if the content can't be encrypted
+     * @throws IOException if reading or writing one of the channels fails
+     */
+    public void encrypt(ReadableByteChannel plaintext, WritableByteChannel compactSerialization) throws JoseException, IOException
+    {
+        encrypt(Channels.newInputStream(plaintext), Channels.newOutputStream(compactSerialization));
+    }
+
+    /**
+     * Reads the compact serialization of a JWE from one stream and writes the decrypted plaintext to another,
+     * a piece at a time, so that content too big to hold in memory can be decrypted. The key, and any constraints,
+     * need to be set on this object beforehand. Neither stream is closed.
+     * <p>
+     * Some of the plaintext can be written before the authentication tag at the end of the JWE has been checked, so none
+     * of it should be trusted or acted on unless this method returns normally.
+     * The content encryption algorithm must be a {@link StreamingContentEncryptionAlgorithm}, which all the built in ones
+     * are, and compression isn't supported.
+     * @param compactSerialization the stream to read the compact serialization from
+     * @param plaintext the stream to write the plaintext to
+     * @throws JoseException if the JWE is invalid or can't be decrypted
+     * @throws IOException if reading or writing one of the streams fails
+     */
+    public void decrypt(InputStream compactSerialization, OutputStream plaintext) throws JoseException, IOException
+    {
+        long start = InstrumentationRegistry.start();
+        Outcome outcome = Outcome.ERROR;
+        try
+        {
+            decryptStreaming(compactSerialization, plaintext);
+            outcome = Outcome.SUCCESS;
+        }
+        finally
+        {
+            InstrumentationRegistry.record(Operation.DECRYPT, getHeaders(), HeaderParameterNames.ENCRYPTION_METHOD, start, outcome);
+        }
+    }
+
+    /**
+     * Decrypts in the same way as {@link #decrypt(InputStream, OutputStream)} but with channels.
+     * @param compactSerialization the channel to read the compact serialization from
+     * @param plaintext the channel to write the plaintext to
+     * @throws JoseException if the JWE is invalid or can't be decrypted
+     * @throws IOException if reading or writing one of the channels fails
+     */
+    public void decrypt(ReadableByteChannel compactSerialization, WritableByteChannel plaintext) throws JoseException, IOException
+    {
+        decrypt(Channels.newInputStream(compactSerialization), Channels.newOutputStream(plaintext));
+    }
+
+    private void encryptStreaming(InputStream plaintext, OutputStream out) throws JoseException, IOException
+    {
+        checkNoCompressionForStreaming();
+        KeyManagementAlgorithm keyManagementModeAlg = getKeyManagementModeAlgorithm();
+        StreamingContentEncryptionAlgorithm contentEncryptionAlg = getStreamingContentEncryptionAlgorithm();
+
+        ContentEncryptionKeyDescriptor contentEncryptionKeyDesc = contentEncryptionAlg.getContentEncryptionKeyDescriptor();
+        Key managementKey = getKey();
+        if (isDoKeyValidation())
+        {
+            keyManagementModeAlg.validateEncryptionKey(managementKey, contentEncryptionAlg);
+        }
+
+        ContentEncryptionKeys contentEncryptionKeys = keyManagementModeAlg.manageForEncrypt(managementKey, contentEncryptionKeyDesc, getHeaders(), contentEncryptionKey, getProviderCtx());
+        setContentEncryptionKey(contentEncryptionKeys.getContentEncryptionKey());
+        encryptedKey = contentEncryptionKeys.getEncryptedKey();
+
+        byte[] aad = getEncodedHeaderAsciiBytesForAdditionalAuthenticatedData();
+        byte[] contentEncryptionKey = contentEncryptionKeys.getContentEncryptionKey();
+        checkCek(contentEncryptionAlg, contentEncryptionKeyDesc, contentEncryptionKey);
+
+        byte[] iv = InitializationVectorHelp.iv(contentEncryptionAlg.getIvByteLength(), getIv(), getProviderCtx().getSecureRandom());
+        setIv(iv);
+
+        out.write(aad);
+        out.write('.');
+        out.write(StringUtil.getBytesAscii(base64url.base64UrlEncode(encryptedKey)));
+        out.write('.');
+        out.write(StringUtil.getBytesAscii(base64url.base64UrlEncode(iv)));
+        out.write('.');
+
+        Base64UrlOutputStream encodedCiphertext = new Base64UrlOutputStream(out);
+        ContentEncryptingOutputStream encrypting = contentEncryptionAlg.encrypt(encodedCiphertext, aad, contentEncryptionKey, iv, getHeaders(), getProviderCtx());
+        byte[] buffer = new byte[STREAMING_BUFFER_LENGTH];
+        int read;
+        while ((read = plaintext.read(buffer)) != -1)
+        {
+            encrypting.write(buffer, 0, read);
+        }
+        byte[] authenticationTag = encrypting.finish();
+        encodedCiphertext.finish();
+        setIntegrity(authenticationTag);
+
+        out.write('.');
+        out.write(StringUtil.getBytesAscii(base64url.base64UrlEncode(authenticationTag)));
+        out.flush();
+    }
+
+    private void decryptStreaming(InputStream in, OutputStream plaintext) throws JoseException, IOException
+    {
+        CompactSerializationReader reader = new CompactSerializationReader(in, COMPACT_SERIALIZATION_PARTS);
+        setEncodedHeader(reader.readPart());
+        encryptedKey = base64url.base64UrlDecode(reader.readPart());
+        setEncodedIv(reader.readPart());
+
+        checkNoCompressionForStreaming();
+        KeyManagementAlgorithm keyManagementModeAlg = getKeyManagementModeAlgorithm();
+        StreamingContentEncryptionAlgorithm contentEncryptionAlg = getStreamingContentEncryptionAlgorithm();
+        ContentEncryptionKeyDescriptor contentEncryptionKeyDesc = contentEncryptionAlg.getContentEncryptionKeyDescriptor();
+
+        checkCrit();
+
+        CryptoPrimitive cryptoPrimitive = (decryptingPrimitive == null) ? createDecryptingPrimitive() : decryptingPrimitive;
+        Key cek = keyManagementModeAlg.manageForDecrypt(cryptoPrimitive, getEncryptedKey(), contentEncryptionKeyDesc, getHeaders(), getProviderCtx());
+        byte[] rawCek = cek.getEncoded();
+        checkCek(contentEncryptionAlg, contentEncryptionKeyDesc, rawCek);
+
+        byte[] aad = getEncodedHeaderAsciiBytesForAdditionalAuthenticatedData();
+        ContentDecryptingOutputStream decrypting = contentEncryptionAlg.decrypt(plaintext, aad, rawCek, iv, getHeaders(), getProviderCtx());
+        if (reader.decodePart(decrypting) == 0)
+        {
+            throw new JoseException("The Encoded JWE Ciphertext cannot be empty.");
+        }
+
+        String encodedAuthenticationTag = reader.readPart();
+        checkNotEmptyPart(encodedAuthenticationTag, "Encoded JWE Authentication Tag");
+        byte[] authenticationTag = base64url.base64UrlDecode(encodedAuthenticationTag);
+        setIntegrity(authenticationTag);
+
+        decrypting.finish(authenticationTag);
+        plaintext.flush();
+    }
+
+    private StreamingContentEncryptionAlgorithm getStreamingContentEncryptionAlgorithm() throws InvalidAlgorithmException
+    {
+        ContentEncryptionAlgorithm contentEncryptionAlg = getContentEncryptionAlgorithm();
+        if (!(contentEncryptionAlg instanceof StreamingContentEncryptionAlgorithm))
+        {
+            throw new InvalidAlgorithmException(contentEncryptionAlg.getAlgorithmIdentifier() + " content encryption doesn't support streaming.");
+        }
+        return (StreamingContentEncryptionAlgorithm) contentEncryptionAlg;
+    }
+
+    private void checkNoCompressionForStreaming() throws JoseException
+    {
+        if (getCompressionAlgorithmHeaderParameter() != null)
+        {
+            throw new JoseException("Compression (" + HeaderParameterNames.ZIP + ") isn't supported with streaming encryption or decryption.");
+        }
+    }
+
     public byte[] getContentEncryptionKey()
     {
         return contentEncryptionKey;
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwe;
+
+import org.jose4j.jca.ProviderContext;
+import org.jose4j.jwx.Headers;
+import org.jose4j.lang.JoseException;
+
+import java.io.OutputStream;
+
+/**
+ * A content encryption algorithm that can also encrypt and decrypt content a piece at a time, which is what
+ * allows {@link JsonWebEncryption#encrypt(java.io.InputStream, java.io.OutputStream)} and
+ * {@link JsonWebEncryption#decrypt(java.io.InputStream, java.io.OutputStream)} to work on content that's
+ * too big to hold in memory.
+ */
+public interface StreamingContentEncryptionAlgorithm extends ContentEncryptionAlgorithm
+{
+    /**
+     * @return the length in bytes of the initialization vector the algorithm uses
+     */
+    int getIvByteLength();
+
+    /**
+     * @param ciphertext where the ciphertext gets written as the plaintext is written to the returned stream
+     * @param aad the additional authenticated data
+     * @param contentEncryptionKey the content encryption key
+     * @param iv the initialization vector
+     * @param headers the JWE headers
+     * @param providerContext the JCA provider context
+     * @return a stream to write the plaintext to
+     * @throws JoseException if the cipher can't be initialized
+     */
+    ContentEncryptingOutputStream encrypt(OutputStream ciphertext, byte[] aad, byte[] contentEncryptionKey, byte[] iv,
+                                          Headers headers, ProviderContext providerContext) throws JoseException;
+
+    /**
+     * @param plaintext where the plaintext gets written as the ciphertext is written to the returned stream
+     * @param aad the additional authenticated data
+     * @param contentEncryptionKey the content encryption key
+     * @param iv the initialization vector
+     * @param headers the JWE headers
+     * @param providerContext the JCA provider context
+     * @return a stream to write the ciphertext to
+     * @throws JoseException if the cipher can't be initialized
+     */
+    ContentDecryptingOutputStream decrypt(OutputStream plaintext, byte[] aad, byte[] contentEncryptionKey, byte[] iv,
+                                          Headers headers, ProviderContext providerContext) throws JoseException;
+}
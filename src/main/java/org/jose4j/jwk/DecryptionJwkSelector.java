@@ -39,12 +39,32 @@ public class DecryptionJwkSelector
         return jsonWebKeys.isEmpty() ? null : jsonWebKeys.get(0);
     }
 
+    public JsonWebKey select(JsonWebEncryption jwe, JsonWebKeyIndex index) throws JoseException
+    {
+        List<JsonWebKey> jsonWebKeys = selectList(jwe, index);
+        return jsonWebKeys.isEmpty() ? null : jsonWebKeys.get(0);
+    }
+
     public List<JsonWebKey> selectList(JsonWebEncryption jwe, Collection<JsonWebKey> keys) throws JoseException
     {
         SimpleJwkFilter filter = SelectorSupport.filterForInboundEncrypted(jwe);
         return filter.filter(keys);
     }
 
+    /**
+     * Selects the same keys as {@link #selectList(JsonWebEncryption, Collection)} would from the indexed list of keys
+     * but only looks at those keys that the index says could match.
+     * @param jwe the JWE
+     * @param index the index of the keys
+     * @return the selected keys
+     * @throws JoseException if the algorithm of the JWE isn't supported
+     */
+    public List<JsonWebKey> selectList(JsonWebEncryption jwe, JsonWebKeyIndex index) throws JoseException
+    {
+        SimpleJwkFilter filter = SelectorSupport.filterForInboundEncrypted(jwe);
+        return index.filter(filter, jwe);
+    }
+
     public JsonWebKey attemptDecryptDisambiguate(JsonWebEncryption jwe, List<JsonWebKey> jsonWebKeys)
     {
         for (JsonWebKey jwk : jsonWebKeys)
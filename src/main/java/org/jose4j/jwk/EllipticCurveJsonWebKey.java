@@ -22,6 +22,7 @@ import org.jose4j.lang.InvalidKeyException;
 import org.jose4j.lang.JoseException;
 
 import java.math.BigInteger;
+import java.security.PublicKey;
 import java.security.interfaces.ECPrivateKey;
 import java.security.interfaces.ECPublicKey;
 import java.security.spec.ECParameterSpec;
@@ -69,18 +70,31 @@ public class EllipticCurveJsonWebKey extends PublicJsonWebKey
             throw new InvalidKeyException("\"" + curveName + "\" is an unknown or unsupported value for the \"crv\" parameter.");
         }
 
-        BigInteger x = getBigIntFromBase64UrlEncodedParam(params, X_MEMBER_NAME, true);
+        boolean hasPrivate = params.containsKey(PRIVATE_KEY_MEMBER_NAME);
+        String cacheKey = hasPrivate ? null : PublicKeyCache.cacheKey(jcaProvider, KEY_TYPE, curveName,
+                getString(params, X_MEMBER_NAME), getString(params, Y_MEMBER_NAME));
+        PublicKey cachedKey = PublicKeyCache.get(cacheKey);
+        if (cachedKey != null)
+        {
+            key = cachedKey;
+            checkForBareKeyCertMismatch();
+        }
+        else
+        {
+            BigInteger x = getBigIntFromBase64UrlEncodedParam(params, X_MEMBER_NAME, true);
 
-        BigInteger y =  getBigIntFromBase64UrlEncodedParam(params, Y_MEMBER_NAME, true);
+            BigInteger y =  getBigIntFromBase64UrlEncodedParam(params, Y_MEMBER_NAME, true);
 
-        EcKeyUtil keyUtil = new EcKeyUtil(jcaProvider, null);
-        key = keyUtil.publicKey(x, y, curve);
-        checkForBareKeyCertMismatch();
+            EcKeyUtil keyUtil = new EcKeyUtil(jcaProvider, null);
+            key = keyUtil.publicKey(x, y, curve);
+            checkForBareKeyCertMismatch();
+            PublicKeyCache.put(cacheKey, getPublicKey());
 
-        if (params.containsKey(PRIVATE_KEY_MEMBER_NAME))
-        {
-            BigInteger d = getBigIntFromBase64UrlEncodedParam(params, PRIVATE_KEY_MEMBER_NAME, false);
-            privateKey = keyUtil.privateKey(d, curve);
+            if (hasPrivate)
+            {
+                BigInteger d = getBigIntFromBase64UrlEncodedParam(params, PRIVATE_KEY_MEMBER_NAME, false);
+                privateKey = keyUtil.privateKey(d, curve);
+            }
         }
 
         removeFromOtherParams(CURVE_MEMBER_NAME, X_MEMBER_NAME, Y_MEMBER_NAME, PRIVATE_KEY_MEMBER_NAME);
@@ -15,24 +15,36 @@
  */
 package org.jose4j.jwk;
 
+import org.jose4j.http.ConditionalGet;
 import org.jose4j.http.Get;
 import org.jose4j.http.SimpleGet;
 import org.jose4j.http.SimpleResponse;
+import org.jose4j.instrumentation.Instrumentation;
+import org.jose4j.instrumentation.InstrumentationRegistry;
+import org.jose4j.instrumentation.Operation;
+import org.jose4j.instrumentation.Outcome;
 import org.jose4j.lang.ExceptionHelp;
 import org.jose4j.lang.JoseException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.net.HttpURLConnection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Represents a set of JSON Web Keys (typically public keys) published at an HTTPS URI.
  * Keys will be retrieved from the given location and cached based on the cache directive
- * headers and/or the {@link #setDefaultCacheDuration(long)}.
+ * headers and/or the {@link #setDefaultCacheDuration(long)}. When the {@code SimpleGet} in use is also
+ * a {@link ConditionalGet}, as the default one is, and the response had an ETag or Last-Modified header, refreshes are made
+ * as conditional requests and a 304 (Not Modified) response just extends the life of the cached keys.
  * The keys are cached per {@code HttpsJwks} instance so your application will need to keep using
  * the same instance, however is appropriate for that application, to get the benefit of the caching.
  * This class, when used with {@code HttpsJwksVerificationKeyResolver}, can help facilitate the consuming side of
@@ -50,13 +62,22 @@ public class HttpsJwks
     private volatile SimpleGet simpleHttpGet = new Get();
     private volatile long retainCacheOnErrorDurationMills = 0;
 
-    private volatile Cache cache = new Cache(Collections.<JsonWebKey>emptyList(), 0);
+    private volatile Cache cache = new Cache(Collections.<JsonWebKey>emptyList(), 0, null, null);
 
     // used to stop multiple threads from refreshing in parallel
     private final ReentrantLock refreshLock = new ReentrantLock();
     
     private long refreshReprieveThreshold = 300L;
 
+    private static final long BACKGROUND_RETRY_DELAY_MILLS = 30000L;
+
+    // guards the background refresh state
+    private final Object backgroundRefreshLock = new Object();
+    private volatile ScheduledExecutorService backgroundRefreshScheduler;
+    private ScheduledFuture<?> backgroundRefreshFuture;
+    private double refreshAheadFraction;
+    private double refreshJitterFraction;
+
     /**
      * Create a new HttpsJwks that cab be used to retrieve JWKs from the given location.
      * @param location the HTTPS URI of the JSON Web Key Set
@@ -128,6 +149,126 @@ public class HttpsJwks
         this.refreshReprieveThreshold = refreshReprieveThreshold;
     }
 
+    /**
+     * Turns on background refreshing, where the keys are reloaded from the JWKS endpoint on the given scheduler
+     * some time before the cache expires rather than on a request thread after it has. So long as the endpoint stays
+     * available, {@link #getJsonWebKeys()} then always returns the current cached keys without waiting on the network.
+     * An initial load is started right away.
+     * <p>
+     * Each refresh is scheduled at {@code cacheLife * (1 - refreshAheadFraction - random * jitterFraction)}
+     * after the keys were loaded, where {@code random} is between 0 and 1, so that many instances started at the same
+     * time don't all refresh together. A failed background refresh is retried after 30 seconds, or after
+     * the retain cache on error duration if one is set, while the cached keys stay in use until they expire. If the cache
+     * does expire, because background refreshes have kept failing, {@code getJsonWebKeys()} falls back to refreshing
+     * on the request thread.
+     * <p>
+     * The scheduler is not shut down by this class.
+     * @param scheduler the scheduler to run refreshes on
+     * @param refreshAheadFraction the fraction of the cache life before expiry to refresh at, between 0 and 1
+     * @param jitterFraction the fraction of the cache life up to which the refresh is randomly moved earlier, at least
+     * 0 and less than {@code 1 - refreshAheadFraction}
+     */
+    public void setBackgroundRefresh(ScheduledExecutorService scheduler, double refreshAheadFraction, double jitterFraction)
+    {
+        if (scheduler == null)
+        {
+            throw new IllegalArgumentException("A scheduler is required for background refresh.");
+        }
+        if (!(refreshAheadFraction > 0 && refreshAheadFraction < 1) || !(jitterFraction >= 0 && refreshAheadFraction + jitterFraction < 1))
+        {
+            throw new IllegalArgumentException("Invalid refreshAheadFraction " + refreshAheadFraction + " and/or jitterFraction "
+                    + jitterFraction + "; both must be non-negative, refreshAheadFraction must be more than 0 and their sum less than 1.");
+        }
+
+        synchronized (backgroundRefreshLock)
+        {
+            cancelBackgroundRefresh();
+            this.backgroundRefreshScheduler = scheduler;
+            this.refreshAheadFraction = refreshAheadFraction;
+            this.refreshJitterFraction = jitterFraction;
+            backgroundRefreshFuture = scheduler.schedule(new BackgroundRefresh(), 0, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Turns off background refreshing and cancels any pending background refresh.
+     */
+    public void stopBackgroundRefresh()
+    {
+        synchronized (backgroundRefreshLock)
+        {
+            cancelBackgroundRefresh();
+            backgroundRefreshScheduler = null;
+        }
+    }
+
+    private void cancelBackgroundRefresh()
+    {
+        if (backgroundRefreshFuture != null)
+        {
+            backgroundRefreshFuture.cancel(false);
+            backgroundRefreshFuture = null;
+        }
+    }
+
+    private void scheduleBackgroundRefresh(long delay)
+    {
+        synchronized (backgroundRefreshLock)
+        {
+            if (backgroundRefreshScheduler != null)
+            {
+                cancelBackgroundRefresh();
+                log.debug("Scheduling background refresh of JWKS from {} in {} mills", location, delay);
+                backgroundRefreshFuture = backgroundRefreshScheduler.schedule(new BackgroundRefresh(), delay, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void scheduleBackgroundRefreshAfterLoad(long cacheLifeMills)
+    {
+        if (backgroundRefreshScheduler != null)
+        {
+            scheduleBackgroundRefresh(backgroundRefreshDelay(cacheLifeMills, ThreadLocalRandom.current().nextDouble()));
+        }
+    }
+
+    private void scheduleBackgroundRefreshAfterReprieve(long cacheLifeMills, long sinceLoadMills)
+    {
+        if (backgroundRefreshScheduler != null)
+        {
+            long delay = backgroundRefreshDelay(cacheLifeMills, ThreadLocalRandom.current().nextDouble()) - sinceLoadMills;
+            scheduleBackgroundRefresh(Math.max(delay, refreshReprieveThreshold));
+        }
+    }
+
+    long backgroundRefreshDelay(long cacheLifeMills, double random)
+    {
+        long delay;
+        synchronized (backgroundRefreshLock)
+        {
+            delay = (long) (cacheLifeMills * (1 - refreshAheadFraction - random * refreshJitterFraction));
+        }
+        return Math.max(delay, refreshReprieveThreshold);
+    }
+
+    private class BackgroundRefresh implements Runnable
+    {
+        @Override
+        public void run()
+        {
+            try
+            {
+                refresh();
+            }
+            catch (Exception e)
+            {
+                long delay = retainCacheOnErrorDurationMills > 0 ? retainCacheOnErrorDurationMills : BACKGROUND_RETRY_DELAY_MILLS;
+                log.info("Background refresh of JWKS content from {} failed because of {} so will try again in {} seconds", location, ExceptionHelp.toStringWithCauses(e), delay/1000L);
+                scheduleBackgroundRefresh(delay);
+            }
+        }
+    }
+
     /**
      * Gets the JSON Web Keys from the JWKS endpoint location or from local cache, if appropriate.
      * @return a list of JsonWebKeys
@@ -165,7 +306,7 @@ public class HttpsJwks
         {
             if (retainCacheOnErrorDurationMills > 0 && !c.keys.isEmpty())
             {
-                cache = c = new Cache(c.keys, now + retainCacheOnErrorDurationMills);
+                c.renew(now + retainCacheOnErrorDurationMills, c.etag, c.lastModified);
                 log.info("Because of {} unable to refresh JWKS content from {} so will continue to use cached keys for more {} seconds until about {} -> {}", ExceptionHelp.toStringWithCauses(e), location, retainCacheOnErrorDurationMills/1000L, new Date(c.exp), c.keys);
             }
             else
@@ -181,6 +322,39 @@ public class HttpsJwks
     }
 
 
+    /**
+     * Gets the JSON Web Keys from the local cache, if they can be used, without ever making a request to the JWKS endpoint.
+     * @return the cached keys or null, if they've expired (or were never loaded) and another thread isn't already
+     * refreshing them, in which case {@link #getJsonWebKeys()} would block on a request
+     */
+    public List<JsonWebKey> getCachedJsonWebKeys()
+    {
+        Cache c = cache;
+        if (c.exp > System.currentTimeMillis() || (refreshLock.isLocked() && !c.keys.isEmpty()))
+        {
+            return c.keys;
+        }
+        return null;
+    }
+
+    /**
+     * Gets an index of the JSON Web Keys currently in the cache, which is built once for each set of
+     * cached keys. Unlike {@link #getJsonWebKeys()} this never makes a request to the JWKS endpoint.
+     * @return the index of the cached keys, which might be empty
+     */
+    public JsonWebKeyIndex getJsonWebKeyIndex()
+    {
+        Cache c = cache;
+        JsonWebKeyIndex index = c.index;
+        if (index == null)
+        {
+            // racing threads might each build one but they're equivalent
+            index = new JsonWebKeyIndex(c.keys);
+            c.index = index;
+        }
+        return index;
+    }
+
     /**
      * Forces a refresh of the cached JWKs from the JWKS endpoint.  With slight caveat/optimization that if the cache
      * age is less than {@code refreshReprieveThreshold} it will not actually force a refresh but use the cache instead.
@@ -192,27 +366,70 @@ public class HttpsJwks
         refreshLock.lock();
         try
         {
-            long last = System.currentTimeMillis() - cache.created;
+            Cache c = cache;
+            long last = System.currentTimeMillis() - c.created;
 
-            if (last < refreshReprieveThreshold && !cache.keys.isEmpty())
+            if (last < refreshReprieveThreshold && !c.keys.isEmpty())
             {
                 log.debug("NOT refreshing/loading JWKS from {} because it just happened {} mills ago", location, last);
+                // background refresh might have been turned on since that load, which then didn't schedule one
+                scheduleBackgroundRefreshAfterReprieve(c.exp - c.created, last);
             }
             else
             {
                 log.debug("Refreshing/loading JWKS from {}", location);
-                SimpleResponse simpleResponse = simpleHttpGet.get(location);
-                JsonWebKeySet jwks = new JsonWebKeySet(simpleResponse.getBody());
-                List<JsonWebKey> keys = jwks.getJsonWebKeys();
-                long cacheLife = getCacheLife(simpleResponse);
-                if (cacheLife <= 0)
+                long start = InstrumentationRegistry.start();
+                Outcome outcome = Outcome.ERROR;
+                try
                 {
-                    log.debug("Will use default cache duration of {} seconds for content from {}", defaultCacheDuration, location);
-                    cacheLife = defaultCacheDuration;
+                    Cache current = cache;
+                    SimpleGet get = simpleHttpGet;
+                    boolean conditional = get instanceof ConditionalGet && !current.keys.isEmpty()
+                            && (current.etag != null || current.lastModified != null);
+                    SimpleResponse simpleResponse = conditional
+                            ? ((ConditionalGet) get).get(location, current.etag, current.lastModified)
+                            : get.get(location);
+
+                    List<JsonWebKey> keys = null;
+                    String etag = getFirstHeaderValue(simpleResponse, "etag");
+                    String lastModified = getFirstHeaderValue(simpleResponse, "last-modified");
+                    boolean notModified = conditional && simpleResponse.getStatusCode() == HttpURLConnection.HTTP_NOT_MODIFIED;
+                    if (notModified)
+                    {
+                        log.debug("JWKS content from {} has not been modified so will keep using the cached keys", location);
+                        etag = (etag == null) ? current.etag : etag;
+                        lastModified = (lastModified == null) ? current.lastModified : lastModified;
+                    }
+                    else
+                    {
+                        JsonWebKeySet jwks = new JsonWebKeySet(simpleResponse.getBody());
+                        keys = jwks.getJsonWebKeys();
+                    }
+                    long cacheLife = getCacheLife(simpleResponse);
+                    if (cacheLife <= 0)
+                    {
+                        log.debug("Will use default cache duration of {} seconds for content from {}", defaultCacheDuration, location);
+                        cacheLife = defaultCacheDuration;
+                    }
+                    long exp = System.currentTimeMillis() + (cacheLife * 1000L);
+                    if (notModified)
+                    {
+                        // same keys, so the parsed keys and their index carry on with a new expiry
+                        current.renew(exp, etag, lastModified);
+                        log.debug("Unmodified JWKS content from {} will be cached for {} seconds until about {}", location, cacheLife, new Date(exp));
+                    }
+                    else
+                    {
+                        log.debug("Updated JWKS content from {} will be cached for {} seconds until about {} -> {}", location, cacheLife, new Date(exp), keys);
+                        cache = new Cache(keys, exp, etag, lastModified);
+                    }
+                    outcome = Outcome.SUCCESS;
+                    scheduleBackgroundRefreshAfterLoad(cacheLife * 1000L);
+                }
+                finally
+                {
+                    InstrumentationRegistry.record(Operation.REFRESH_JWKS, null, location, start, outcome, Instrumentation.NO_ERROR_CODE);
                 }
-                long exp = System.currentTimeMillis() + (cacheLife * 1000L);
-                log.debug("Updated JWKS content from {} will be cached for {} seconds until about {} -> {}", location, cacheLife, new Date(exp), keys);
-                cache = new Cache(keys, exp);
             }
         } 
         finally
@@ -249,6 +466,12 @@ public class HttpsJwks
         return  (values == null) ? Collections.<String>emptyList() : values;
     }
 
+    private static String getFirstHeaderValue(SimpleResponse response, String headerName)
+    {
+        List<String> values = getHeaderValues(response, headerName);
+        return values.isEmpty() ? null : values.get(0);
+    }
+
     static long getExpires(SimpleResponse response)
     {
         return getDateHeaderValue(response, "expires", 0);
@@ -295,13 +518,29 @@ public class HttpsJwks
     private static class Cache
     {
         private final List<JsonWebKey> keys;
-        private final long exp;
-        private final long created = System.currentTimeMillis();
+        private volatile long exp;
+        private volatile long created = System.currentTimeMillis();
+        private volatile String etag;
+        private volatile String lastModified;
+        private volatile JsonWebKeyIndex index;
 
-        private Cache(List<JsonWebKey> keys, long exp)
+        private Cache(List<JsonWebKey> keys, long exp, String etag, String lastModified)
         {
             this.keys = keys;
             this.exp = exp;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        /**
+         * Extends the life of the same keys, which is only done while holding the refresh lock.
+         */
+        private void renew(long exp, String etag, String lastModified)
+        {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.created = System.currentTimeMillis();
+            this.exp = exp;
         }
     }
 }
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwk;
+
+import org.jose4j.jwx.JsonWebStructure;
+import org.jose4j.lang.JoseException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable index of a set of JSON Web Keys by key ID ("kid"), key type ("kty") and X.509 certificate
+ * thumbprints ("x5t" and "x5t#S256"), with any thumbprints that would be derived from the certificate chain ("x5c")
+ * computed up front. This lets {@link VerificationJwkSelector} and {@link DecryptionJwkSelector} narrow the keys
+ * to consider with hash lookups rather than going through all of them, which matters for
+ * large sets. The usual filtering is then applied to the narrowed keys, so the selected keys and their
+ * order are exactly the same as they'd be when selecting from the whole list.
+ * <p>
+ * The index is built from a snapshot of the list, which should not be changed afterwards.
+ */
+public class JsonWebKeyIndex
+{
+    private static final int[] NONE = new int[0];
+
+    private final List<JsonWebKey> jsonWebKeys;
+    private final JsonWebKey[] keys;
+    private final Map<JsonWebKey, String[]> thumbs = new IdentityHashMap<>();
+
+    private final Map<String, int[]> byKid;
+    private final Map<String, int[]> byKty;
+    private final Map<String, int[]> byX5t;
+    private final Map<String, int[]> byX5tS256;
+    private final int[] withoutX5t;
+    private final int[] withoutX5tS256;
+
+    public JsonWebKeyIndex(List<JsonWebKey> jsonWebKeys)
+    {
+        this.jsonWebKeys = jsonWebKeys;
+        this.keys = jsonWebKeys.toArray(new JsonWebKey[jsonWebKeys.size()]);
+
+        Map<String, List<Integer>> kids = new HashMap<>();
+        Map<String, List<Integer>> ktys = new HashMap<>();
+        Map<String, List<Integer>> x5ts = new HashMap<>();
+        Map<String, List<Integer>> x5tS256s = new HashMap<>();
+        List<Integer> noX5t = new ArrayList<>();
+        List<Integer> noX5tS256 = new ArrayList<>();
+
+        for (int i = 0; i < keys.length; i++)
+        {
+            JsonWebKey jwk = keys[i];
+            String[] keyThumbs = new String[2];
+            if (jwk instanceof PublicJsonWebKey)
+            {
+                PublicJsonWebKey publicJwk = (PublicJsonWebKey) jwk;
+                keyThumbs[0] = publicJwk.getX509CertificateSha1Thumbprint(true);
+                keyThumbs[1] = publicJwk.getX509CertificateSha256Thumbprint(true);
+            }
+            thumbs.put(jwk, keyThumbs);
+
+            add(kids, jwk.getKeyId(), i);
+            add(ktys, jwk.getKeyType(), i);
+            add(x5ts, keyThumbs[0], i);
+            add(x5tS256s, keyThumbs[1], i);
+            if (keyThumbs[0] == null)
+            {
+                noX5t.add(i);
+            }
+            if (keyThumbs[1] == null)
+            {
+                noX5tS256.add(i);
+            }
+        }
+
+        byKid = toArrays(kids);
+        byKty = toArrays(ktys);
+        byX5t = toArrays(x5ts);
+        byX5tS256 = toArrays(x5tS256s);
+        withoutX5t = toArray(noX5t);
+        withoutX5tS256 = toArray(noX5tS256);
+    }
+
+    /**
+     * @return the list of keys that was indexed
+     */
+    public List<JsonWebKey> getJsonWebKeys()
+    {
+        return jsonWebKeys;
+    }
+
+    /**
+     * Applies the filter to only those keys that could match the headers of the given JWS or JWE.
+     * @param filter the filter for the JWS or JWE, which must require its key type and any key ID
+     * and accept keys that match or omit any thumbprints
+     * @param jwx the JWS or JWE
+     * @return the keys that pass the filter, in the order they are in the list
+     * @throws JoseException if the algorithm of the JWS or JWE isn't supported
+     */
+    List<JsonWebKey> filter(SimpleJwkFilter filter, JsonWebStructure jwx) throws JoseException
+    {
+        String kid = jwx.getKeyIdHeaderValue();
+        int[] candidates = (kid != null) ? lookup(byKid, kid) : lookup(byKty, jwx.getAlgorithmNoConstraintCheck().getKeyType());
+
+        String x5t = jwx.getX509CertSha1ThumbprintHeaderValue();
+        if (x5t != null && candidates.length > 1)
+        {
+            candidates = smaller(candidates, lookup(byX5t, x5t), withoutX5t);
+        }
+
+        String x5tS256 = jwx.getX509CertSha256ThumbprintHeaderValue();
+        if (x5tS256 != null && candidates.length > 1)
+        {
+            candidates = smaller(candidates, lookup(byX5tS256, x5tS256), withoutX5tS256);
+        }
+
+        List<JsonWebKey> candidateKeys = new ArrayList<>(candidates.length);
+        for (int i : candidates)
+        {
+            candidateKeys.add(keys[i]);
+        }
+        return filter.filter(candidateKeys, thumbs);
+    }
+
+    private static int[] smaller(int[] candidates, int[] matching, int[] omitting)
+    {
+        if (matching.length + omitting.length >= candidates.length)
+        {
+            return candidates;
+        }
+
+        // merge the two sorted lists of positions to keep the keys in order
+        int[] merged = new int[matching.length + omitting.length];
+        int m = 0, o = 0, i = 0;
+        while (m < matching.length || o < omitting.length)
+        {
+            if (o == omitting.length || (m < matching.length && matching[m] < omitting[o]))
+            {
+                merged[i++] = matching[m++];
+            }
+            else
+            {
+                merged[i++] = omitting[o++];
+            }
+        }
+        return merged;
+    }
+
+    private static int[] lookup(Map<String, int[]> index, String value)
+    {
+        int[] positions = index.get(value);
+        return positions == null ? NONE : positions;
+    }
+
+    private static void add(Map<String, List<Integer>> index, String value, int position)
+    {
+        if (value != null)
+        {
+            List<Integer> positions = index.get(value);
+            if (positions == null)
+            {
+                positions = new ArrayList<>(1);
+                index.put(value, positions);
+            }
+            positions.add(position);
+        }
+    }
+
+    private static Map<String, int[]> toArrays(Map<String, List<Integer>> index)
+    {
+        Map<String, int[]> arrays = new HashMap<>();
+        for (Map.Entry<String, List<Integer>> entry : index.entrySet())
+        {
+            arrays.put(entry.getKey(), toArray(entry.getValue()));
+        }
+        return arrays;
+    }
+
+    private static int[] toArray(List<Integer> positions)
+    {
+        int[] array = new int[positions.size()];
+        for (int i = 0; i < array.length; i++)
+        {
+            array[i] = positions.get(i);
+        }
+        return array;
+    }
+}
@@ -77,12 +77,23 @@ public class OctetKeyPairJsonWebKey extends PublicJsonWebKey
             }
 
             String encodedX = getString(params, PUBLIC_KEY_MEMBER_NAME, true);
-            byte[] x = Base64Url.decode(encodedX);
-            key = keyUtil.publicKey(x, subtype);
+            boolean hasPrivate = params.containsKey(PRIVATE_KEY_MEMBER_NAME);
+            String cacheKey = hasPrivate ? null : PublicKeyCache.cacheKey(jcaProvider, KEY_TYPE, subtype, encodedX);
+            PublicKey cachedKey = PublicKeyCache.get(cacheKey);
+            if (cachedKey != null)
+            {
+                key = cachedKey;
+            }
+            else
+            {
+                byte[] x = Base64Url.decode(encodedX);
+                key = keyUtil.publicKey(x, subtype);
+                PublicKeyCache.put(cacheKey, getPublicKey());
+            }
 
             checkForBareKeyCertMismatch();
 
-            if (params.containsKey(PRIVATE_KEY_MEMBER_NAME))
+            if (hasPrivate)
             {
                 String encodedD = getString(params, PRIVATE_KEY_MEMBER_NAME, false);
                 byte[] d = Base64Url.decode(encodedD);
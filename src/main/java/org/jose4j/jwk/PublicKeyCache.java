@@ -0,0 +1,192 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwk;
+
+import java.security.PublicKey;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A process wide, bounded cache of the public key objects created when parsing JSON Web Keys, so that parsing
+ * the same key again, like when a JWKS is refreshed or the same "jwk" header is seen on many JWSs, skips decoding the
+ * key parameters and having the JCA provider build the key. Reusing the same key object also lets
+ * state tied to its identity, like that in a {@link org.jose4j.jca.SignatureVerifierPool}, carry over.
+ * <p>
+ * Keys are cached by the JWK members that the RFC 7638 thumbprint is computed over (e.g. "kty", "n" and "e" for RSA),
+ * along with the JCA provider, so a cached key is only used for a JWK that would produce an identical key. Only
+ * public keys are cached; JWKs with private key parameters are always parsed in full.
+ * <p>
+ * The cache is enabled by default with room for {@value #DEFAULT_MAX_ENTRIES} keys, with the least recently used
+ * key evicted beyond that. It can be resized or disabled with {@link #setMaxEntries(int)}.
+ */
+public final class PublicKeyCache
+{
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+
+    private static volatile int maxEntries = DEFAULT_MAX_ENTRIES;
+
+    private static final Map<String, PublicKey> keys = new LinkedHashMap<String, PublicKey>(16, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PublicKey> eldest)
+        {
+            return size() > maxEntries;
+        }
+    };
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+
+    private PublicKeyCache()
+    {
+    }
+
+    /**
+     * Sets the maximum number of keys to cache, evicting the least recently used ones if there are already more.
+     * @param maxEntries the maximum number of keys or 0 to disable the cache
+     */
+    public static void setMaxEntries(int maxEntries)
+    {
+        if (maxEntries < 0)
+        {
+            throw new IllegalArgumentException("maxEntries can't be negative but was " + maxEntries);
+        }
+
+        synchronized (keys)
+        {
+            PublicKeyCache.maxEntries = maxEntries;
+            while (keys.size() > maxEntries)
+            {
+                keys.remove(keys.keySet().iterator().next());
+            }
+        }
+    }
+
+    public static int getMaxEntries()
+    {
+        return maxEntries;
+    }
+
+    /**
+     * Removes all keys from the cache.
+     */
+    public static void clear()
+    {
+        synchronized (keys)
+        {
+            keys.clear();
+        }
+    }
+
+    /**
+     * @return the number of keys in the cache
+     */
+    public static int size()
+    {
+        synchronized (keys)
+        {
+            return keys.size();
+        }
+    }
+
+    /**
+     * @return the number of times a cached key was used
+     */
+    public static long getHitCount()
+    {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of times a key wasn't in the cache and had to be created
+     */
+    public static long getMissCount()
+    {
+        return misses.get();
+    }
+
+    /**
+     * Builds the cache key from the JCA provider and the thumbprint members of a JWK. Each value is
+     * prefixed with its length so that different sets of values can't produce the same key.
+     */
+    static String cacheKey(String jcaProvider, String... members)
+    {
+        if (maxEntries == 0)
+        {
+            return null;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        append(sb, jcaProvider);
+        for (String member : members)
+        {
+            if (member == null)
+            {
+                return null;
+            }
+            append(sb, member);
+        }
+        return sb.toString();
+    }
+
+    private static void append(StringBuilder sb, String value)
+    {
+        if (value == null)
+        {
+            sb.append('-');
+        }
+        else
+        {
+            sb.append(value.length()).append(':').append(value);
+        }
+    }
+
+    /**
+     * @param cacheKey the key from {@link #cacheKey(String, String...)}, which might be null
+     * @return the cached public key or null
+     */
+    static PublicKey get(String cacheKey)
+    {
+        if (cacheKey == null)
+        {
+            return null;
+        }
+
+        PublicKey publicKey;
+        synchronized (keys)
+        {
+            publicKey = keys.get(cacheKey);
+        }
+        (publicKey == null ? misses : hits).incrementAndGet();
+        return publicKey;
+    }
+
+    static void put(String cacheKey, PublicKey publicKey)
+    {
+        if (cacheKey != null)
+        {
+            synchronized (keys)
+            {
+                if (maxEntries > 0)
+                {
+                    keys.put(cacheKey, publicKey);
+                }
+            }
+        }
+    }
+}
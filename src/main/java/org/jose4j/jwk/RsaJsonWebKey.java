@@ -20,6 +20,7 @@ import org.jose4j.keys.RsaKeyUtil;
 import org.jose4j.lang.JoseException;
 
 import java.math.BigInteger;
+import java.security.PublicKey;
 import java.security.interfaces.RSAPrivateCrtKey;
 import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
@@ -63,30 +64,43 @@ public class RsaJsonWebKey extends PublicJsonWebKey
     {
         super(params, jcaProvider);
 
-        BigInteger modulus = getBigIntFromBase64UrlEncodedParam(params, MODULUS_MEMBER_NAME, true);
+        boolean hasPrivate = params.containsKey(PRIVATE_EXPONENT_MEMBER_NAME);
+        String cacheKey = hasPrivate ? null : PublicKeyCache.cacheKey(jcaProvider, KEY_TYPE,
+                getString(params, MODULUS_MEMBER_NAME), getString(params, EXPONENT_MEMBER_NAME));
+        PublicKey cachedKey = PublicKeyCache.get(cacheKey);
+        if (cachedKey != null)
+        {
+            key = cachedKey;
+            checkForBareKeyCertMismatch();
+        }
+        else
+        {
+            BigInteger modulus = getBigIntFromBase64UrlEncodedParam(params, MODULUS_MEMBER_NAME, true);
 
-        BigInteger publicExponent = getBigIntFromBase64UrlEncodedParam(params, EXPONENT_MEMBER_NAME, true);
+            BigInteger publicExponent = getBigIntFromBase64UrlEncodedParam(params, EXPONENT_MEMBER_NAME, true);
 
-        RsaKeyUtil rsaKeyUtil = new RsaKeyUtil(jcaProvider, null);
-        key = rsaKeyUtil.publicKey(modulus, publicExponent);
-        checkForBareKeyCertMismatch();
+            RsaKeyUtil rsaKeyUtil = new RsaKeyUtil(jcaProvider, null);
+            key = rsaKeyUtil.publicKey(modulus, publicExponent);
+            checkForBareKeyCertMismatch();
+            PublicKeyCache.put(cacheKey, getPublicKey());
 
-        if (params.containsKey(PRIVATE_EXPONENT_MEMBER_NAME))
-        {
-            BigInteger d = getBigIntFromBase64UrlEncodedParam(params, PRIVATE_EXPONENT_MEMBER_NAME, false);
-
-            if (params.containsKey(FIRST_PRIME_FACTOR_MEMBER_NAME))
-            {
-                BigInteger p = getBigIntFromBase64UrlEncodedParam(params, FIRST_PRIME_FACTOR_MEMBER_NAME, false);
-                BigInteger q = getBigIntFromBase64UrlEncodedParam(params, SECOND_PRIME_FACTOR_MEMBER_NAME, false);
-                BigInteger dp = getBigIntFromBase64UrlEncodedParam(params, FIRST_FACTOR_CRT_EXPONENT_MEMBER_NAME, false);
-                BigInteger dq = getBigIntFromBase64UrlEncodedParam(params, SECOND_FACTOR_CRT_EXPONENT_MEMBER_NAME, false);
-                BigInteger qi = getBigIntFromBase64UrlEncodedParam(params, FIRST_CRT_COEFFICIENT_MEMBER_NAME, false);
-                privateKey = rsaKeyUtil.privateKey(modulus, publicExponent, d, p, q, dp, dq, qi);
-            }
-            else
+            if (hasPrivate)
             {
-                privateKey = rsaKeyUtil.privateKey(modulus, d);
+                BigInteger d = getBigIntFromBase64UrlEncodedParam(params, PRIVATE_EXPONENT_MEMBER_NAME, false);
+
+                if (params.containsKey(FIRST_PRIME_FACTOR_MEMBER_NAME))
+                {
+                    BigInteger p = getBigIntFromBase64UrlEncodedParam(params, FIRST_PRIME_FACTOR_MEMBER_NAME, false);
+                    BigInteger q = getBigIntFromBase64UrlEncodedParam(params, SECOND_PRIME_FACTOR_MEMBER_NAME, false);
+                    BigInteger dp = getBigIntFromBase64UrlEncodedParam(params, FIRST_FACTOR_CRT_EXPONENT_MEMBER_NAME, false);
+                    BigInteger dq = getBigIntFromBase64UrlEncodedParam(params, SECOND_FACTOR_CRT_EXPONENT_MEMBER_NAME, false);
+                    BigInteger qi = getBigIntFromBase64UrlEncodedParam(params, FIRST_CRT_COEFFICIENT_MEMBER_NAME, false);
+                    privateKey = rsaKeyUtil.privateKey(modulus, publicExponent, d, p, q, dp, dq, qi);
+                }
+                else
+                {
+                    privateKey = rsaKeyUtil.privateKey(modulus, d);
+                }
             }
         }
 
@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  *
@@ -91,6 +92,15 @@ public class SimpleJwkFilter
     }
 
     public List<JsonWebKey> filter(Collection<JsonWebKey> jsonWebKeys)
+    {
+        return filter(jsonWebKeys, null);
+    }
+
+    /**
+     * @param precomputedThumbs the thumbprints of the keys, derived from the certificate chain when not present,
+     * or null to get them from the keys
+     */
+    List<JsonWebKey> filter(Collection<JsonWebKey> jsonWebKeys, Map<JsonWebKey, String[]> precomputedThumbs)
     {
         List<JsonWebKey> filtered = new ArrayList<>();
         for (JsonWebKey jwk : jsonWebKeys)
@@ -99,7 +109,9 @@ public class SimpleJwkFilter
             match &= isMatch(kty, jwk.getKeyType());
             match &= isMatch(use, jwk.getUse());
             match &= isMatch(alg, jwk.getAlgorithm());
-            String[] thumbs = getThumbs(jwk, allowThumbsFallbackDeriveFromX5c);
+            String[] thumbs = (precomputedThumbs != null && allowThumbsFallbackDeriveFromX5c && (x5t != null || x5tS256 != null))
+                    ? precomputedThumbs.get(jwk)
+                    : getThumbs(jwk, allowThumbsFallbackDeriveFromX5c);
             match &= isMatch(x5t, thumbs[0]);
             match &= isMatch(x5tS256, thumbs[1]);
             match &= crv == null || crv.meetsCriteria(getCrv(jwk));
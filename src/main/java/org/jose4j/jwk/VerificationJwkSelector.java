@@ -36,11 +36,34 @@ public class VerificationJwkSelector
         return jsonWebKeys.isEmpty() ? null : jsonWebKeys.get(0);
     }
 
+    public JsonWebKey select(JsonWebSignature jws, JsonWebKeyIndex index) throws JoseException
+    {
+        List<JsonWebKey> jsonWebKeys = selectList(jws, index);
+        return jsonWebKeys.isEmpty() ? null : jsonWebKeys.get(0);
+    }
+
     public List<JsonWebKey> selectList(JsonWebSignature jws, Collection<JsonWebKey> keys) throws JoseException
     {
         SimpleJwkFilter filter = SelectorSupport.filterForInboundSigned(jws);
-        List<JsonWebKey> filtered = filter.filter(keys);
+        return narrow(jws, filter, filter.filter(keys));
+    }
+
+    /**
+     * Selects the same keys as {@link #selectList(JsonWebSignature, Collection)} would from the indexed list of keys
+     * but only looks at those keys that the index says could match.
+     * @param jws the JWS
+     * @param index the index of the keys
+     * @return the selected keys
+     * @throws JoseException if the algorithm of the JWS isn't supported
+     */
+    public List<JsonWebKey> selectList(JsonWebSignature jws, JsonWebKeyIndex index) throws JoseException
+    {
+        SimpleJwkFilter filter = SelectorSupport.filterForInboundSigned(jws);
+        return narrow(jws, filter, index.filter(filter, jws));
+    }
 
+    private List<JsonWebKey> narrow(JsonWebSignature jws, SimpleJwkFilter filter, List<JsonWebKey> filtered) throws JoseException
+    {
         if (hasMoreThanOne(filtered))
         {
             filter.setAlg(jws.getAlgorithmHeaderValue(), SimpleJwkFilter.OMITTED_OKAY);
@@ -71,7 +94,16 @@ public class VerificationJwkSelector
 
     public JsonWebKey selectWithVerifySignatureDisambiguate(JsonWebSignature jws, Collection<JsonWebKey> keys) throws JoseException
     {
-        List<JsonWebKey> jsonWebKeys = selectList(jws, keys);
+        return verifySignatureDisambiguate(jws, selectList(jws, keys));
+    }
+
+    public JsonWebKey selectWithVerifySignatureDisambiguate(JsonWebSignature jws, JsonWebKeyIndex index) throws JoseException
+    {
+        return verifySignatureDisambiguate(jws, selectList(jws, index));
+    }
+
+    private JsonWebKey verifySignatureDisambiguate(JsonWebSignature jws, List<JsonWebKey> jsonWebKeys) throws JoseException
+    {
         if (jsonWebKeys.isEmpty())
         {
             return null;
@@ -17,6 +17,7 @@
 package org.jose4j.jws;
 
 import org.jose4j.jca.ProviderContext;
+import org.jose4j.jca.SignatureVerifierPool;
 import org.jose4j.jwa.AlgorithmInfo;
 import org.jose4j.jwa.CryptoPrimitive;
 import org.jose4j.keys.KeyPersuasion;
@@ -53,6 +54,12 @@ public abstract class BaseSignatureAlgorithm extends AlgorithmInfo implements Js
     @Override
     public boolean verifySignature(byte[] signatureBytes, Key key, byte[] securedInputBytes, ProviderContext providerContext) throws JoseException
     {
+        SignatureVerifierPool verifierPool = providerContext.getSignatureVerifierPool();
+        if (verifierPool != null && key instanceof PublicKey)
+        {
+            return verifySignatureWithPool(verifierPool, signatureBytes, (PublicKey) key, securedInputBytes, providerContext);
+        }
+
         Signature signature = getSignature(providerContext);
         initForVerify(signature, key);
         try
@@ -67,6 +74,35 @@ public abstract class BaseSignatureAlgorithm extends AlgorithmInfo implements Js
         }
     }
 
+    private boolean verifySignatureWithPool(SignatureVerifierPool verifierPool, byte[] signatureBytes, PublicKey key,
+                                            byte[] securedInputBytes, ProviderContext providerContext) throws JoseException
+    {
+        ProviderContext.Context suppliedKeyProviderContext = providerContext.getSuppliedKeyProviderContext();
+        SignatureVerifierPool.PoolKey poolKey = new SignatureVerifierPool.PoolKey(this,
+                suppliedKeyProviderContext.getSignatureProvider(), suppliedKeyProviderContext.getSignatureAlgorithmOverride(), key);
+
+        Signature signature = verifierPool.acquire(poolKey);
+        if (signature == null)
+        {
+            signature = getSignature(providerContext);
+            initForVerify(signature, key);
+        }
+
+        try
+        {
+            signature.update(securedInputBytes);
+            boolean verified = signature.verify(signatureBytes);
+            // only a verify that returns normally is guaranteed to reset the Signature for reuse
+            verifierPool.release(poolKey, signature);
+            return verified;
+        }
+        catch (SignatureException e)
+        {
+            if (log.isDebugEnabled()) {log.debug("Problem verifying " + getAlgorithmIdentifier() + " signature: " + ExceptionHelp.toStringWithCauses(e));}
+            return false;
+        }
+    }
+
     @Override
     public CryptoPrimitive prepareForSign(Key key, ProviderContext providerContext) throws JoseException
     {
@@ -25,6 +25,7 @@ import org.jose4j.keys.KeyPersuasion;
 import org.jose4j.lang.ByteUtil;
 import org.jose4j.lang.InvalidKeyException;
 import org.jose4j.lang.JoseException;
+import org.jose4j.mac.MacCache;
 import org.jose4j.mac.MacUtil;
 
 import javax.crypto.Mac;
@@ -54,7 +55,7 @@ public class HmacUsingShaAlgorithm extends AlgorithmInfo implements JsonWebSigna
             throw new InvalidKeyException(key.getClass() + " cannot be used for HMAC verification.");
         }
 
-        Mac mac = getMacInstance(key, providerContext);
+        Mac mac = getMacInstance(key, providerContext, providerContext.getMacCache());
         byte[] calculatedSigature = mac.doFinal(securedInputBytes);
 
         return ByteUtil.secureEquals(signatureBytes, calculatedSigature);
@@ -63,7 +64,8 @@ public class HmacUsingShaAlgorithm extends AlgorithmInfo implements JsonWebSigna
     @Override
     public CryptoPrimitive prepareForSign(Key key, ProviderContext providerContext) throws JoseException
     {
-        Mac mac = getMacInstance(key, providerContext);
+        // not from the cache as the Mac is handed out and can outlive this call
+        Mac mac = getMacInstance(key, providerContext, null);
         return new CryptoPrimitive(mac);
     }
 
@@ -73,10 +75,10 @@ public class HmacUsingShaAlgorithm extends AlgorithmInfo implements JsonWebSigna
         return mac.doFinal(securedInputBytes);
     }
 
-    private Mac getMacInstance(Key key, ProviderContext providerContext) throws JoseException
+    private Mac getMacInstance(Key key, ProviderContext providerContext, MacCache macCache) throws JoseException
     {
         String macProvider = providerContext.getSuppliedKeyProviderContext().getMacProvider();
-        return MacUtil.getInitializedMac(getJavaAlgorithm(), key, macProvider);
+        return MacUtil.getInitializedMac(getJavaAlgorithm(), key, macProvider, macCache);
     }
 
     void validateKey(Key key) throws InvalidKeyException
@@ -16,10 +16,15 @@
 
 package org.jose4j.jws;
 
+import org.jose4j.instrumentation.InstrumentationRegistry;
+import org.jose4j.instrumentation.Operation;
+import org.jose4j.instrumentation.Outcome;
+import org.jose4j.jca.ProviderContext;
 import org.jose4j.jwa.AlgorithmConstraints;
 import org.jose4j.jwa.AlgorithmFactory;
 import org.jose4j.jwa.AlgorithmFactoryFactory;
 import org.jose4j.jwa.CryptoPrimitive;
+import org.jose4j.jwx.CompactSerializationParts;
 import org.jose4j.jwx.CompactSerializer;
 import org.jose4j.jwx.HeaderParameterNames;
 import org.jose4j.jwx.JsonWebStructure;
@@ -46,6 +51,7 @@ public class JsonWebSignature extends JsonWebStructure
     private byte[] payloadBytes;
     private String payloadCharEncoding = StringUtil.UTF_8;
     private String encodedPayload;
+    private CompactSerializationParts encodedPayloadSource;
 
     private Boolean validSignature;
     private CryptoPrimitive signingPrimitive;
@@ -68,6 +74,7 @@ public class JsonWebSignature extends JsonWebStructure
     {
         this.payloadBytes = StringUtil.getBytesUnchecked(payload, payloadCharEncoding);
         this.encodedPayload = null;
+        this.encodedPayloadSource = null;
     }
 
     /**
@@ -125,6 +132,30 @@ public class JsonWebSignature extends JsonWebStructure
         setSignature(base64url.base64UrlDecode(parts[2]));
     }
 
+    @Override
+    protected void setCompactSerializationParts(CompactSerializationParts parts) throws JoseException
+    {
+        if (parts.size() != COMPACT_SERIALIZATION_PARTS)
+        {
+            throw new JoseException("A JWS Compact Serialization must have exactly "+COMPACT_SERIALIZATION_PARTS+" parts separated by period ('.') characters");
+        }
+
+        String cs = parts.getCompactSerialization();
+        setEncodedHeader(parts.get(0));
+        if (isRfc7797UnencodedPayload())
+        {
+            setPayload(parts.get(1));
+        }
+        else
+        {
+            this.payloadBytes = base64url.base64UrlDecode(cs, parts.start(1), parts.length(1));
+            this.encodedPayload = null;
+            this.encodedPayloadSource = parts;
+        }
+
+        setSignature(base64url.base64UrlDecode(cs, parts.start(2), parts.length(2)));
+    }
+
     /**
      * <p>
      * Sign and produce the JWS Compact Serialization.
@@ -213,10 +244,20 @@ public class JsonWebSignature extends JsonWebStructure
      */
     public void sign() throws JoseException
     {
-        CryptoPrimitive cryptoPrimitive = (signingPrimitive == null) ? createSigningPrimitive() : signingPrimitive;
-        byte[] inputBytes = getSigningInputBytes();
-        byte[] signatureBytes = getAlgorithm().sign(cryptoPrimitive, inputBytes);
-        setSignature(signatureBytes);
+        long start = InstrumentationRegistry.start();
+        Outcome outcome = Outcome.ERROR;
+        try
+        {
+            CryptoPrimitive cryptoPrimitive = (signingPrimitive == null) ? createSigningPrimitive() : signingPrimitive;
+            byte[] inputBytes = getSigningInputBytes();
+            byte[] signatureBytes = getAlgorithm().sign(cryptoPrimitive, inputBytes);
+            setSignature(signatureBytes);
+            outcome = Outcome.SUCCESS;
+        }
+        finally
+        {
+            InstrumentationRegistry.record(Operation.SIGN, getHeaders(), HeaderParameterNames.KEY_ID, start, outcome);
+        }
     }
 
     @Override
@@ -240,10 +281,20 @@ public class JsonWebSignature extends JsonWebStructure
         }
         if (validSignature == null)
         {
-            checkCrit();
-            byte[] signatureBytes = getSignature();
-            byte[] inputBytes = getSigningInputBytes();
-            validSignature = algorithm.verifySignature(signatureBytes, verificationKey, inputBytes, getProviderCtx());
+            long start = InstrumentationRegistry.start();
+            Outcome outcome = Outcome.ERROR;
+            try
+            {
+                checkCrit();
+                byte[] signatureBytes = getSignature();
+                byte[] inputBytes = getSigningInputBytes();
+                validSignature = algorithm.verifySignature(signatureBytes, verificationKey, inputBytes, getProviderCtx());
+                outcome = validSignature ? Outcome.SUCCESS : Outcome.FAILURE;
+            }
+            finally
+            {
+                InstrumentationRegistry.record(Operation.VERIFY, getHeaders(), HeaderParameterNames.KEY_ID, start, outcome);
+            }
         }
 
         return validSignature;
@@ -303,6 +354,12 @@ public class JsonWebSignature extends JsonWebStructure
 
         if (!isRfc7797UnencodedPayload())
         {
+            byte[] signingInputBytes = getSigningInputBytesFromCompactSerialization();
+            if (signingInputBytes != null)
+            {
+                return signingInputBytes;
+            }
+
             String signingInputString = CompactSerializer.serialize(getEncodedHeader(), getEncodedPayload());
             return StringUtil.getBytesAscii(signingInputString);
         }
@@ -323,12 +380,58 @@ public class JsonWebSignature extends JsonWebStructure
         }
     }
 
+    /**
+     * When this JWS came from a compact serialization and neither the header nor the payload have
+     * been changed since, the signing input is exactly the characters before the second period.
+     * Reading them straight out of the original string avoids rebuilding and re-encoding
+     * the header and payload.
+     * @return the ASCII bytes of the signing input or null, if they can't be taken from the compact serialization
+     */
+    private byte[] getSigningInputBytesFromCompactSerialization()
+    {
+        CompactSerializationParts parts = encodedPayloadSource;
+        if (parts == null)
+        {
+            return null;
+        }
+
+        String cs = parts.getCompactSerialization();
+        String encodedHeader = getEncodedHeader();
+        int headerLength = parts.length(0);
+        if (encodedHeader.length() != headerLength || !cs.regionMatches(0, encodedHeader, 0, headerLength))
+        {
+            return null;
+        }
+
+        int length = parts.end(1);
+        byte[] signingInputBytes = new byte[length];
+        for (int i = 0; i < length; i++)
+        {
+            char c = cs.charAt(i);
+            if (c >= 0x80)
+            {
+                // leave anything non-ASCII to the regular encoding path
+                return null;
+            }
+            signingInputBytes[i] = (byte) c;
+        }
+        return signingInputBytes;
+    }
+
     protected boolean isRfc7797UnencodedPayload()
     {
         Object b64 = headers.getObjectHeaderValue(HeaderParameterNames.BASE64URL_ENCODE_PAYLOAD);
         return (b64 != null && b64 instanceof Boolean && !(Boolean)b64);
     }
 
+    /**
+     * @return the provider context for a {@link JwsProducer} that uses this JWS as its template
+     */
+    ProviderContext getProducerProviderContext()
+    {
+        return getProviderCtx();
+    }
+
 
     /**
      * Gets the JWS payload as a string.
@@ -397,6 +500,7 @@ public class JsonWebSignature extends JsonWebStructure
     public void setEncodedPayload(String encodedPayload)
     {
         this.encodedPayload = encodedPayload;
+        this.encodedPayloadSource = null;
         this.payloadBytes = base64url.base64UrlDecode(encodedPayload);
     }
 
@@ -406,6 +510,10 @@ public class JsonWebSignature extends JsonWebStructure
      */
     public String getEncodedPayload()
     {
+        if (encodedPayload == null && encodedPayloadSource != null)
+        {
+            encodedPayload = encodedPayloadSource.get(1);
+        }
         return (encodedPayload != null) ? encodedPayload : base64url.base64UrlEncode(payloadBytes);
     }
 
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jws;
+
+import org.jose4j.base64url.Base64UrlEncoder;
+import org.jose4j.instrumentation.InstrumentationRegistry;
+import org.jose4j.instrumentation.Operation;
+import org.jose4j.instrumentation.Outcome;
+import org.jose4j.jca.ProviderContext;
+import org.jose4j.jwa.CryptoPrimitive;
+import org.jose4j.jwx.HeaderParameterNames;
+import org.jose4j.jwx.Headers;
+import org.jose4j.lang.JoseException;
+import org.jose4j.lang.StringUtil;
+
+import java.security.Key;
+
+/**
+ * Produces JWS compact serializations, over and over again, with the same key, algorithm and header.
+ * The header is encoded and the key checked just once, when the producer is created, and each thread
+ * that uses the producer keeps its own {@link java.security.Signature} or {@link javax.crypto.Mac},
+ * initialized with the key, for all of its signing. This makes it a good deal cheaper than setting up
+ * a new {@link JsonWebSignature} for every token when minting lots of them.
+ * <p>
+ * The producer is configured from a template {@code JsonWebSignature} that has the key, the header values
+ * (including the algorithm) and, optionally, the provider context and algorithm constraints set on it
+ * but no payload. The template is read when the producer is created and changes to it afterwards have no effect,
+ * except to its {@code ProviderContext}, which shouldn't be changed.
+ * <p>
+ * A JWT is produced with {@code producer.produce(jwtClaims.toJsonBytes())}.
+ * <p>
+ * A producer is thread safe and is meant to be long lived.
+ * The RFC 7797 unencoded payload option isn't supported.
+ */
+public class JwsProducer
+{
+    private final Headers headers = new Headers();
+    private final byte[] encodedHeader;
+    private final String payloadCharEncoding;
+    private final JsonWebSignatureAlgorithm algorithm;
+    private final Key key;
+    private final ProviderContext providerContext;
+
+    private final ThreadLocal<CryptoPrimitive> signingPrimitives = new ThreadLocal<>();
+
+    /**
+     * @param template a JWS with the key and header for the JWSs to produce
+     * @throws JoseException if the algorithm isn't allowed or available, the key isn't valid for it, or the template
+     * asks for an unencoded payload
+     */
+    public JwsProducer(JsonWebSignature template) throws JoseException
+    {
+        if (template.isRfc7797UnencodedPayload())
+        {
+            throw new JoseException("The RFC 7797 unencoded payload option isn't supported by " + getClass().getSimpleName());
+        }
+
+        algorithm = template.getAlgorithm();
+        key = template.getKey();
+        if (template.isDoKeyValidation())
+        {
+            algorithm.validateSigningKey(key);
+        }
+        providerContext = template.getProducerProviderContext();
+        payloadCharEncoding = template.getPayloadCharEncoding();
+
+        headers.setFullHeaderAsJsonString(template.getHeaders().getFullHeaderAsJsonString());
+        encodedHeader = StringUtil.getBytesAscii(headers.getEncodedHeader());
+
+        // fails fast on a key that can't be used and leaves a primitive ready for the creating thread
+        signingPrimitives.set(algorithm.prepareForSign(key, providerContext));
+    }
+
+    /**
+     * Produces a JWS of the given payload, encoded with the template's payload character encoding, which is UTF-8 by default.
+     * @param payload the payload
+     * @return the JWS compact serialization
+     * @throws JoseException if an error condition is encountered during the signing process
+     */
+    public String produce(String payload) throws JoseException
+    {
+        return produce(StringUtil.getBytesUnchecked(payload, payloadCharEncoding));
+    }
+
+    /**
+     * Produces a JWS of the given payload.
+     * @param payloadBytes the payload
+     * @return the JWS compact serialization
+     * @throws JoseException if an error condition is encountered during the signing process
+     */
+    public String produce(byte[] payloadBytes) throws JoseException
+    {
+        long start = InstrumentationRegistry.start();
+        Outcome outcome = Outcome.ERROR;
+        try
+        {
+            Base64UrlEncoder encoder = new Base64UrlEncoder();
+
+            int headerLength = encodedHeader.length;
+            int signingInputLength = headerLength + 1 + Base64UrlEncoder.encodedLength(payloadBytes.length);
+            byte[] signingInput = new byte[signingInputLength];
+            System.arraycopy(encodedHeader, 0, signingInput, 0, headerLength);
+            signingInput[headerLength] = '.';
+            int position = headerLength + 1;
+            position += encoder.encode(payloadBytes, 0, payloadBytes.length, signingInput, position);
+            encoder.finish(signingInput, position);
+
+            byte[] signature = sign(signingInput);
+
+            char[] compactSerialization = new char[signingInputLength + 1 + Base64UrlEncoder.encodedLength(signature.length)];
+            for (int i = 0; i < signingInputLength; i++)
+            {
+                compactSerialization[i] = (char) signingInput[i];
+            }
+            compactSerialization[signingInputLength] = '.';
+            position = signingInputLength + 1;
+            position += encoder.encode(signature, 0, signature.length, compactSerialization, position);
+            encoder.finish(compactSerialization, position);
+
+            outcome = Outcome.SUCCESS;
+            return new String(compactSerialization);
+        }
+        finally
+        {
+            InstrumentationRegistry.record(Operation.SIGN, headers, HeaderParameterNames.KEY_ID, start, outcome);
+        }
+    }
+
+    /**
+     * @return the algorithm identifier from the header
+     */
+    public String getAlgorithmHeaderValue()
+    {
+        return headers.getStringHeaderValue(HeaderParameterNames.ALGORITHM);
+    }
+
+    /**
+     * @return the encoded header that every JWS from this producer starts with
+     */
+    public String getEncodedHeader()
+    {
+        return headers.getEncodedHeader();
+    }
+
+    private byte[] sign(byte[] signingInput) throws JoseException
+    {
+        CryptoPrimitive signingPrimitive = signingPrimitives.get();
+        if (signingPrimitive == null)
+        {
+            signingPrimitive = algorithm.prepareForSign(key, providerContext);
+        }
+
+        // a primitive is only put back after signing succeeds, which leaves it reset and ready to sign again
+        signingPrimitives.remove();
+        byte[] signature = algorithm.sign(signingPrimitive, signingInput);
+        signingPrimitives.set(signingPrimitive);
+        return signature;
+    }
+}
@@ -17,7 +17,9 @@
 package org.jose4j.jwt;
 
 import org.jose4j.base64url.Base64Url;
+import org.jose4j.json.JsonUtf8Writer;
 import org.jose4j.json.JsonUtil;
+import org.jose4j.json.LazyJsonObject;
 import org.jose4j.jwt.consumer.ErrorCodeValidator;
 import org.jose4j.jwt.consumer.ErrorCodes;
 import org.jose4j.jwt.consumer.InvalidJwtException;
@@ -34,6 +36,7 @@ import java.util.*;
 public class JwtClaims
 {
     private Map<String, Object> claimsMap;
+    private LazyJsonObject lazyClaims;
     private String rawJson;
 
     public JwtClaims()
@@ -41,9 +44,18 @@ public class JwtClaims
         claimsMap = new LinkedHashMap<>();
     }
 
-    private JwtClaims(String jsonClaims, JwtContext jwtContext) throws InvalidJwtException
+    private JwtClaims(String jsonClaims, JwtContext jwtContext, boolean lazy) throws InvalidJwtException
     {
         rawJson = jsonClaims;
+        if (lazy)
+        {
+            lazyClaims = LazyJsonObject.index(jsonClaims);
+            if (lazyClaims != null)
+            {
+                return;
+            }
+        }
+
         try
         {
             Map<String, Object> parsed = JsonUtil.parseJson(jsonClaims);
@@ -59,12 +71,37 @@ public class JwtClaims
 
     public static JwtClaims parse(String jsonClaims, JwtContext jwtContext) throws InvalidJwtException
     {
-        return new JwtClaims(jsonClaims, jwtContext);
+        return new JwtClaims(jsonClaims, jwtContext, false);
     }
 
     public static JwtClaims parse(String jsonClaims) throws InvalidJwtException
     {
-        return new JwtClaims(jsonClaims, null);
+        return new JwtClaims(jsonClaims, null, false);
+    }
+
+    /**
+     * Parses the claims JSON lazily. The JSON is checked and indexed up front, with the same
+     * rejection of invalid JSON and duplicate member names as {@link #parse(String, JwtContext)}, but
+     * individual claim values are only decoded when they are accessed and the full map of claims is only built
+     * when it's asked for, by {@link #getClaimsMap()} or {@link #flattenClaims()} for example, or when the claims are modified.
+     * @param jsonClaims the JSON of the JWT Claims Set
+     * @param jwtContext the context of the JWT being processed, which is included in any exception, or null
+     * @return the claims
+     * @throws InvalidJwtException if the JSON can't be parsed
+     */
+    public static JwtClaims parseLazily(String jsonClaims, JwtContext jwtContext) throws InvalidJwtException
+    {
+        return new JwtClaims(jsonClaims, jwtContext, true);
+    }
+
+    private Map<String, Object> claims()
+    {
+        if (lazyClaims != null)
+        {
+            claimsMap = lazyClaims.toMap();
+            lazyClaims = null;
+        }
+        return claimsMap;
     }
 
     public String getIssuer() throws MalformedClaimException
@@ -74,7 +111,7 @@ public class JwtClaims
 
     public void setIssuer(String issuer)
     {
-        claimsMap.put(ReservedClaimNames.ISSUER, issuer);
+        claims().put(ReservedClaimNames.ISSUER, issuer);
     }
 
     public String getSubject()  throws MalformedClaimException
@@ -84,12 +121,12 @@ public class JwtClaims
 
     public void setSubject(String subject)
     {
-        claimsMap.put(ReservedClaimNames.SUBJECT, subject);
+        claims().put(ReservedClaimNames.SUBJECT, subject);
     }
 
     public void setAudience(String audience)
     {
-        claimsMap.put(ReservedClaimNames.AUDIENCE, audience);
+        claims().put(ReservedClaimNames.AUDIENCE, audience);
     }
 
     public void setAudience(String... audience)
@@ -105,7 +142,7 @@ public class JwtClaims
         }
         else
         {
-            claimsMap.put(ReservedClaimNames.AUDIENCE, audiences);
+            claims().put(ReservedClaimNames.AUDIENCE, audiences);
         }
     }
 
@@ -127,7 +164,7 @@ public class JwtClaims
      */
     public List<String> getAudience() throws MalformedClaimException
     {
-        Object audienceObject = claimsMap.get(ReservedClaimNames.AUDIENCE);
+        Object audienceObject = getClaimValue(ReservedClaimNames.AUDIENCE);
 
         if (audienceObject instanceof String)
         {
@@ -224,7 +261,7 @@ public class JwtClaims
 
     public void setJwtId(String jwtId)
     {
-        claimsMap.put(ReservedClaimNames.JWT_ID, jwtId);
+        claims().put(ReservedClaimNames.JWT_ID, jwtId);
     }
 
     public void setGeneratedJwtId(int numberOfBytes)
@@ -241,12 +278,12 @@ public class JwtClaims
 
     public void unsetClaim(String claimName)
     {
-        claimsMap.remove(claimName);
+        claims().remove(claimName);
     }
 
     public <T> T getClaimValue(String claimName, Class<T> type) throws MalformedClaimException
     {
-        Object o = claimsMap.get(claimName);
+        Object o = getClaimValue(claimName);
         try
         {
             return type.cast(o);
@@ -259,7 +296,7 @@ public class JwtClaims
 
     public Object getClaimValue(String claimName)
     {
-        return claimsMap.get(claimName);
+        return lazyClaims != null ? lazyClaims.get(claimName) : claimsMap.get(claimName);
     }
 
     public boolean hasClaim(String claimName)
@@ -313,27 +350,27 @@ public class JwtClaims
 
     public void setNumericDateClaim(String claimName, NumericDate value)
     {
-        claimsMap.put(claimName, value != null ? value.getValue() : null);
+        claims().put(claimName, value != null ? value.getValue() : null);
     }
 
     public void setStringClaim(String claimName, String value)
     {
-        claimsMap.put(claimName, value);
+        claims().put(claimName, value);
     }
 
     public void setStringListClaim(String claimName, List<String> values)
     {
-        claimsMap.put(claimName, values);
+        claims().put(claimName, values);
     }
 
     public void setStringListClaim(String claimName, String... values)
     {
-        claimsMap.put(claimName, Arrays.asList(values));
+        claims().put(claimName, Arrays.asList(values));
     }
 
     public void setClaim(String claimName, Object value)
     {
-        claimsMap.put(claimName, value);
+        claims().put(claimName, value);
     }
 
     public boolean isClaimValueOfType(String claimName, Class type)
@@ -379,7 +416,7 @@ public class JwtClaims
     {
         omittedClaims = omittedClaims == null ? Collections.<String>emptySet() : omittedClaims;
         Map<String,List<Object>> flattenedClaims = new LinkedHashMap<>();
-        for (Map.Entry<String,Object> e : claimsMap.entrySet())
+        for (Map.Entry<String,Object> e : claims().entrySet())
         {
             final String key = e.getKey();
             if (!omittedClaims.contains(key))
@@ -431,7 +468,7 @@ public class JwtClaims
     public Map<String, Object> getClaimsMap(Set<String> omittedClaims)
     {
         omittedClaims = (omittedClaims != null) ? omittedClaims : Collections.<String>emptySet();
-        LinkedHashMap<String, Object>  claims = new LinkedHashMap<>(claimsMap);
+        LinkedHashMap<String, Object>  claims = new LinkedHashMap<>(claims());
         for (String omittedClaim : omittedClaims)
         {
             claims.remove(omittedClaim);
@@ -457,7 +494,26 @@ public class JwtClaims
 
     public String toJson()
     {
-        return JsonUtil.toJson(claimsMap);
+        return JsonUtil.toJson(claims());
+    }
+
+    /**
+     * Gets the UTF-8 encoding of {@link #toJson()}, written directly from the claims without building the string,
+     * which is handy as the payload of a JWS, with {@link org.jose4j.jws.JsonWebSignature#setPayloadBytes(byte[])}
+     * or {@link org.jose4j.jws.JwsProducer#produce(byte[])}.
+     * @return the claims as UTF-8 encoded JSON
+     */
+    public byte[] toJsonBytes()
+    {
+        JsonUtf8Writer writer = JsonUtf8Writer.acquire();
+        try
+        {
+            return writer.write(claims()).toByteArray();
+        }
+        finally
+        {
+            writer.release();
+        }
     }
 
     public String getRawJson()
@@ -468,6 +524,6 @@ public class JwtClaims
     @Override
     public String toString()
     {
-        return "JWT Claims Set:" + claimsMap;
+        return "JWT Claims Set:" + claims();
     }
 }
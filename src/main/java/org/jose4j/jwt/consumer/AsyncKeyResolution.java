@@ -0,0 +1,144 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwt.consumer;
+
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwx.JsonWebStructure;
+import org.jose4j.keys.resolvers.AsyncVerificationKeyResolver;
+import org.jose4j.keys.resolvers.VerificationKeyResolver;
+import org.jose4j.lang.UnresolvableKeyException;
+
+import java.security.Key;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The verification key resolution of one JWT being processed asynchronously. An {@link AsyncVerificationKeyResolver}
+ * that can't resolve a key without blocking has processing stopped with a {@link Pending} exception. The key is then
+ * resolved on the I/O executor and processing starts again from the top, this time getting the key that was resolved
+ * for the JWS at the same depth of nesting, which is the same JWS since it's the same JWT.
+ * Other resolvers are simply called.
+ */
+class AsyncKeyResolution implements VerificationKeyResolver
+{
+    private final AsyncKeyResolution root;
+    private final VerificationKeyResolver resolver;
+
+    private final Map<Integer, Key> keys = new HashMap<>();
+    private final Map<Integer, UnresolvableKeyException> failures = new HashMap<>();
+    private Pending pending;
+
+    AsyncKeyResolution(VerificationKeyResolver resolver)
+    {
+        this.root = this;
+        this.resolver = resolver;
+    }
+
+    private AsyncKeyResolution(AsyncKeyResolution root, VerificationKeyResolver resolver)
+    {
+        this.root = root;
+        this.resolver = resolver;
+    }
+
+    /**
+     * @param resolver a resolver chosen for the JWT, by its issuer
+     * @return a resolution that uses the given resolver but shares the state of this one
+     */
+    AsyncKeyResolution forResolver(VerificationKeyResolver resolver)
+    {
+        return new AsyncKeyResolution(root, resolver);
+    }
+
+    @Override
+    public Key resolveKey(JsonWebSignature jws, List<JsonWebStructure> nestingContext) throws UnresolvableKeyException
+    {
+        Integer depth = nestingContext.size();
+        if (root.failures.containsKey(depth))
+        {
+            throw root.failures.get(depth);
+        }
+        if (root.keys.containsKey(depth))
+        {
+            return root.keys.get(depth);
+        }
+
+        if (resolver instanceof AsyncVerificationKeyResolver)
+        {
+            AsyncVerificationKeyResolver asyncResolver = (AsyncVerificationKeyResolver) resolver;
+            Key key = asyncResolver.resolveKeyIfReady(jws, nestingContext);
+            if (key == null)
+            {
+                root.pending = new Pending(asyncResolver, jws, nestingContext);
+                throw root.pending;
+            }
+            return key;
+        }
+
+        return resolver.resolveKey(jws, nestingContext);
+    }
+
+    /**
+     * @return the key resolution that stopped the last attempt at processing the JWT or null, if there wasn't one
+     */
+    Pending takePending()
+    {
+        Pending p = root.pending;
+        root.pending = null;
+        return p;
+    }
+
+    void resolved(Pending pending, Key key)
+    {
+        root.keys.put(pending.nestingContext.size(), key);
+    }
+
+    void failed(Pending pending, UnresolvableKeyException e)
+    {
+        root.failures.put(pending.nestingContext.size(), e);
+    }
+
+    /**
+     * Thrown to stop processing when a key can't be resolved without blocking. It's an {@code UnresolvableKeyException}
+     * so it goes through the usual error handling, which doesn't remember it as a rejection.
+     */
+    static class Pending extends UnresolvableKeyException
+    {
+        private static final long serialVersionUID = 1L;
+
+        final transient AsyncVerificationKeyResolver resolver;
+        final transient JsonWebSignature jws;
+        final transient List<JsonWebStructure> nestingContext;
+
+        private Pending(AsyncVerificationKeyResolver resolver, JsonWebSignature jws, List<JsonWebStructure> nestingContext)
+        {
+            super("Resolving the verification key needs blocking I/O");
+            this.resolver = resolver;
+            this.jws = jws;
+            this.nestingContext = nestingContext;
+        }
+
+        /**
+         * Only used to stop processing, and never reported, so there's no need for the stack trace.
+         */
+        @Override
+        public synchronized Throwable fillInStackTrace()
+        {
+            return this;
+        }
+    }
+}
@@ -16,7 +16,6 @@
 
 package org.jose4j.jwt.consumer;
 
-import org.jose4j.jwt.JwtClaims;
 import org.jose4j.jwt.MalformedClaimException;
 
 import java.util.List;
@@ -30,6 +29,7 @@ public class AudValidator implements ErrorCodeValidator
     private static final Error MISSING_AUD = new Error(ErrorCodes.AUDIENCE_MISSING, "No Audience (aud) claim present.");
 
     private Set<String> acceptableAudiences;
+    private ClaimValueMatcher audienceMatcher;
     private boolean requireAudience;
 
     public AudValidator(Set<String> acceptableAudiences, boolean requireAudience)
@@ -38,31 +38,53 @@ public class AudValidator implements ErrorCodeValidator
         this.requireAudience = requireAudience;
     }
 
+    private AudValidator(ClaimValueMatcher audienceMatcher, boolean requireAudience)
+    {
+        this.audienceMatcher = audienceMatcher;
+        this.requireAudience = requireAudience;
+    }
+
+    /**
+     * @param audienceMatcher decides which audiences are acceptable, such as a {@link ClaimValueAllowList} for many
+     * or patterned audiences
+     * @param requireAudience true if the audience claim is required
+     * @return the validator
+     * @throws IllegalArgumentException if the matcher is null
+     */
+    public static AudValidator forMatcher(ClaimValueMatcher audienceMatcher, boolean requireAudience)
+    {
+        if (audienceMatcher == null)
+        {
+            throw new IllegalArgumentException("audienceMatcher cannot be null");
+        }
+        return new AudValidator(audienceMatcher, requireAudience);
+    }
+
     @Override
     public Error validate(JwtContext jwtContext) throws MalformedClaimException
     {
-        final JwtClaims jwtClaims = jwtContext.getJwtClaims();
-
-        if (!jwtClaims.hasAudience())
+        List<String> audiences = ClaimsSnapshot.of(jwtContext).getAudience();
+        if (audiences == null)
         {
             return requireAudience ? MISSING_AUD : null;
         }
 
-        List<String> audiences = jwtClaims.getAudience();
-
         boolean ok = false;
-        for (String audience : audiences)
+        for (int i = 0; i < audiences.size() && !ok; i++)
         {
-            if (acceptableAudiences.contains(audience))
-            {
-                ok = true;
-            }
+            ok = isAcceptable(audiences.get(i));
         }
 
         if (!ok)
         {
             StringBuilder sb = new StringBuilder();
             sb.append("Audience (aud) claim " ).append(audiences);
+            if (acceptableAudiences == null)
+            {
+                sb.append(" doesn't contain an acceptable identifier. Expected one of ").append(audienceMatcher).append(" as an aud value.");
+                return new Error(ErrorCodes.AUDIENCE_INVALID, sb.toString());
+            }
+
             if (acceptableAudiences.isEmpty())
             {
                 sb.append(" present in the JWT but no expected audience value(s) were provided to the JWT Consumer.");
@@ -87,4 +109,13 @@ public class AudValidator implements ErrorCodeValidator
 
         return null;
     }
+
+    private boolean isAcceptable(String audience)
+    {
+        if (acceptableAudiences != null)
+        {
+            return acceptableAudiences.contains(audience);
+        }
+        return audience != null && audienceMatcher.matches(audience);
+    }
 }
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwt.consumer;
+
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwx.JsonWebStructure;
+import org.jose4j.keys.resolvers.HeaderOnlyVerificationKeyResolver;
+import org.jose4j.keys.resolvers.VerificationKeyResolver;
+import org.jose4j.lang.UnresolvableKeyException;
+
+import java.security.Key;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Resolves the verification key for each distinct JWS header only once over the course of a batch, so
+ * JWTs with the same header (which covers their "alg" and "kid") share the same key resolution and the same key
+ * object, which also lets them share pooled verifiers. That's only done for resolvers that say, as a
+ * {@link HeaderOnlyVerificationKeyResolver}, that they pick the key based on nothing but the header. Nested JWSs,
+ * and all JWSs for other resolvers, go straight to the underlying resolver.
+ * When keys are resolved by issuer, each of the issuers' resolvers gets its own memo, via {@link #forResolver(VerificationKeyResolver)},
+ * so that JWTs from different issuers with the same header never share a key.
+ */
+class BatchVerificationKeyResolver implements VerificationKeyResolver
+{
+    private final VerificationKeyResolver resolver;
+    private final ConcurrentMap<String, Resolution> resolutions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<VerificationKeyResolver, BatchVerificationKeyResolver> routed = new ConcurrentHashMap<>();
+
+    BatchVerificationKeyResolver(VerificationKeyResolver resolver)
+    {
+        this.resolver = resolver;
+    }
+
+    @Override
+    public Key resolveKey(JsonWebSignature jws, List<JsonWebStructure> nestingContext) throws UnresolvableKeyException
+    {
+        String encodedHeader = jws.getHeaders().getEncodedHeader();
+        if (!nestingContext.isEmpty() || encodedHeader == null || !isHeaderOnly(resolver))
+        {
+            return resolver.resolveKey(jws, nestingContext);
+        }
+
+        Resolution resolution = resolutions.get(encodedHeader);
+        if (resolution == null)
+        {
+            Resolution newResolution = new Resolution();
+            resolution = resolutions.putIfAbsent(encodedHeader, newResolution);
+            if (resolution == null)
+            {
+                resolution = newResolution;
+            }
+        }
+
+        synchronized (resolution)
+        {
+            if (!resolution.done)
+            {
+                try
+                {
+                    resolution.key = resolver.resolveKey(jws, nestingContext);
+                }
+                catch (UnresolvableKeyException e)
+                {
+                    resolution.exception = e;
+                }
+                resolution.done = true;
+            }
+
+            if (resolution.exception != null)
+            {
+                throw resolution.exception;
+            }
+            return resolution.key;
+        }
+    }
+
+    private static boolean isHeaderOnly(VerificationKeyResolver resolver)
+    {
+        return resolver instanceof HeaderOnlyVerificationKeyResolver && ((HeaderOnlyVerificationKeyResolver) resolver).isHeaderOnly();
+    }
+
+    /**
+     * @param resolver a resolver chosen for a JWT, by its issuer
+     * @return a resolver that memoizes resolutions by the given resolver for the rest of the batch
+     */
+    BatchVerificationKeyResolver forResolver(VerificationKeyResolver resolver)
+    {
+        BatchVerificationKeyResolver batchResolver = routed.get(resolver);
+        if (batchResolver == null)
+        {
+            BatchVerificationKeyResolver newBatchResolver = new BatchVerificationKeyResolver(resolver);
+            batchResolver = routed.putIfAbsent(resolver, newBatchResolver);
+            if (batchResolver == null)
+            {
+                batchResolver = newBatchResolver;
+            }
+        }
+        return batchResolver;
+    }
+
+    int size()
+    {
+        return resolutions.size();
+    }
+
+    private static class Resolution
+    {
+        private boolean done;
+        private Key key;
+        private UnresolvableKeyException exception;
+    }
+}
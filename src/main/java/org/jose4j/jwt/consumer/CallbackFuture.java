@@ -0,0 +1,113 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwt.consumer;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A {@code Future} that's completed by the {@link JwtConsumerCallback} it also is, so that
+ * {@link JwtConsumer#processAsync(String, java.util.concurrent.Executor, java.util.concurrent.Executor)} can
+ * hand one back without a thread blocking on the processing. Cancelling only stops the result from being
+ * reported, as processing already under way isn't interrupted.
+ */
+class CallbackFuture implements Future<JwtContext>, JwtConsumerCallback
+{
+    private final CountDownLatch done = new CountDownLatch(1);
+    private boolean completed;
+    private boolean cancelled;
+    private JwtContext jwtContext;
+    private Throwable failure;
+
+    @Override
+    public void onSuccess(JwtContext jwtContext)
+    {
+        complete(jwtContext, null, false);
+    }
+
+    @Override
+    public void onFailure(Throwable t)
+    {
+        complete(null, t, false);
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning)
+    {
+        return complete(null, null, true);
+    }
+
+    private synchronized boolean complete(JwtContext jwtContext, Throwable failure, boolean cancelled)
+    {
+        if (completed)
+        {
+            return false;
+        }
+        this.jwtContext = jwtContext;
+        this.failure = failure;
+        this.cancelled = cancelled;
+        completed = true;
+        done.countDown();
+        return true;
+    }
+
+    @Override
+    public synchronized boolean isCancelled()
+    {
+        return cancelled;
+    }
+
+    @Override
+    public boolean isDone()
+    {
+        return done.getCount() == 0;
+    }
+
+    @Override
+    public JwtContext get() throws InterruptedException, ExecutionException
+    {
+        done.await();
+        return result();
+    }
+
+    @Override
+    public JwtContext get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException
+    {
+        if (!done.await(timeout, unit))
+        {
+            throw new TimeoutException();
+        }
+        return result();
+    }
+
+    private synchronized JwtContext result() throws ExecutionException
+    {
+        if (cancelled)
+        {
+            throw new CancellationException();
+        }
+        if (failure != null)
+        {
+            throw new ExecutionException(failure);
+        }
+        return jwtContext;
+    }
+}
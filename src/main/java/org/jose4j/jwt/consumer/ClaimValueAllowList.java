@@ -0,0 +1,285 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwt.consumer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A {@link ClaimValueMatcher} for large numbers of acceptable values, like the issuers or audiences of all the
+ * tenants of a multi-tenant service. A value is accepted if it's equal to one of the exact values, matches one of the
+ * templates or is accepted by one of the other matchers, which are checked in that order.
+ * <p>
+ * Exact values are held in a hash set. A template is a value with placeholders in curly braces, like
+ * {@code https://login.example.com/{tenant}/v2.0}, where each placeholder stands for one or more characters other
+ * than '/'. Templates are indexed in a trie by the literal text before their first placeholder, so only the templates
+ * whose prefix the value starts with are tried. Matching doesn't allocate.
+ * <p>
+ * An instance should be fully set up before it's used, after which it's safe to share between threads.
+ */
+public class ClaimValueAllowList implements ClaimValueMatcher
+{
+    private static final int MAX_VALUES_DESCRIBED = 10;
+
+    private final Set<String> values = new HashSet<>();
+    private final List<String> templates = new ArrayList<>();
+    private final TrieNode templateRoot = new TrieNode();
+    private final List<ClaimValueMatcher> matchers = new ArrayList<>();
+
+    /**
+     * @param values values that are accepted as is
+     * @return the same ClaimValueAllowList
+     */
+    public ClaimValueAllowList addValues(String... values)
+    {
+        return addValues(Arrays.asList(values));
+    }
+
+    /**
+     * @param values values that are accepted as is
+     * @return the same ClaimValueAllowList
+     */
+    public ClaimValueAllowList addValues(Collection<String> values)
+    {
+        this.values.addAll(values);
+        return this;
+    }
+
+    /**
+     * @param templates templates, such as {@code https://login.example.com/{tenant}/v2.0}, whose placeholders
+     * each match one or more characters other than '/'. A template without any placeholders is an exact value.
+     * @return the same ClaimValueAllowList
+     * @throws IllegalArgumentException if a template has an unbalanced or empty placeholder
+     */
+    public ClaimValueAllowList addTemplates(String... templates)
+    {
+        for (String template : templates)
+        {
+            String[] literals = parseTemplate(template);
+            if (literals.length == 1)
+            {
+                values.add(template);
+            }
+            else
+            {
+                templateRoot.add(literals, 0);
+                this.templates.add(template);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @param matcher another matcher, which is only consulted for values that none of the exact values or templates accept
+     * @return the same ClaimValueAllowList
+     */
+    public ClaimValueAllowList addMatcher(ClaimValueMatcher matcher)
+    {
+        matchers.add(matcher);
+        return this;
+    }
+
+    @Override
+    public boolean matches(String value)
+    {
+        if (value == null)
+        {
+            return false;
+        }
+
+        if (values.contains(value) || (!templates.isEmpty() && matchesTemplate(value)))
+        {
+            return true;
+        }
+
+        for (int i = 0; i < matchers.size(); i++)
+        {
+            if (matchers.get(i).matches(value))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return a description of the acceptable values that's short enough for an error message, even when there are many of them
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append('[');
+        int described = 0;
+        Iterator<String> it = values.iterator();
+        while (it.hasNext() && described < MAX_VALUES_DESCRIBED)
+        {
+            sb.append(described++ == 0 ? "" : ", ").append(it.next());
+        }
+        for (int i = 0; i < templates.size() && described < MAX_VALUES_DESCRIBED; i++)
+        {
+            sb.append(described++ == 0 ? "" : ", ").append(templates.get(i));
+        }
+
+        int more = values.size() + templates.size() - described;
+        if (more > 0)
+        {
+            sb.append(", and ").append(more).append(" more");
+        }
+        if (!matchers.isEmpty())
+        {
+            sb.append(described == 0 ? "" : ", ").append(matchers.size()).append(" other matcher(s)");
+        }
+        return sb.append(']').toString();
+    }
+
+    private boolean matchesTemplate(String value)
+    {
+        TrieNode node = templateRoot;
+        int length = value.length();
+        for (int i = 0; ; i++)
+        {
+            for (String[] literals : node.templates)
+            {
+                if (matchesPlaceholder(literals, 1, value, i))
+                {
+                    return true;
+                }
+            }
+
+            if (i == length)
+            {
+                return false;
+            }
+
+            node = node.child(value.charAt(i));
+            if (node == null)
+            {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Matches a placeholder starting at {@code pos}, followed by {@code literals[index]} and whatever comes after it.
+     * Backtracking is bounded as a placeholder can't run past a '/'.
+     */
+    private static boolean matchesPlaceholder(String[] literals, int index, String value, int pos)
+    {
+        String literal = literals[index];
+        boolean last = index == literals.length - 1;
+        int length = value.length();
+        for (int end = pos + 1; end <= length; end++)
+        {
+            if (value.charAt(end - 1) == '/')
+            {
+                return false;
+            }
+
+            if (value.regionMatches(end, literal, 0, literal.length()))
+            {
+                int next = end + literal.length();
+                if (last ? next == length : matchesPlaceholder(literals, index + 1, value, next))
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the literal text around the placeholders, so one more element than there are placeholders
+     */
+    private static String[] parseTemplate(String template)
+    {
+        List<String> literals = new ArrayList<>();
+        int pos = 0;
+        while (true)
+        {
+            int open = template.indexOf('{', pos);
+            int close = template.indexOf('}', pos);
+            if (open == -1)
+            {
+                if (close != -1)
+                {
+                    throw new IllegalArgumentException("Unbalanced '}' in template " + template);
+                }
+                literals.add(template.substring(pos));
+                return literals.toArray(new String[literals.size()]);
+            }
+
+            int nextOpen = template.indexOf('{', open + 1);
+            if (close < open + 2 || (nextOpen != -1 && nextOpen < close))
+            {
+                throw new IllegalArgumentException("Unbalanced or empty placeholder in template " + template);
+            }
+            literals.add(template.substring(pos, open));
+            pos = close + 1;
+        }
+    }
+
+    private static class TrieNode
+    {
+        private static final String[][] NO_TEMPLATES = new String[0][];
+        private static final TrieNode[] NO_CHILDREN = new TrieNode[0];
+
+        private char[] keys = new char[0];
+        private TrieNode[] children = NO_CHILDREN;
+        private String[][] templates = NO_TEMPLATES;
+
+        private void add(String[] literals, int depth)
+        {
+            String prefix = literals[0];
+            if (depth == prefix.length())
+            {
+                templates = Arrays.copyOf(templates, templates.length + 1);
+                templates[templates.length - 1] = literals;
+                return;
+            }
+
+            char c = prefix.charAt(depth);
+            int i = Arrays.binarySearch(keys, c);
+            if (i < 0)
+            {
+                i = -i - 1;
+                char[] newKeys = new char[keys.length + 1];
+                TrieNode[] newChildren = new TrieNode[children.length + 1];
+                System.arraycopy(keys, 0, newKeys, 0, i);
+                System.arraycopy(children, 0, newChildren, 0, i);
+                newKeys[i] = c;
+                newChildren[i] = new TrieNode();
+                System.arraycopy(keys, i, newKeys, i + 1, keys.length - i);
+                System.arraycopy(children, i, newChildren, i + 1, children.length - i);
+                keys = newKeys;
+                children = newChildren;
+            }
+            children[i].add(literals, depth + 1);
+        }
+
+        private TrieNode child(char c)
+        {
+            int i = Arrays.binarySearch(keys, c);
+            return i < 0 ? null : children[i];
+        }
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwt.consumer;
+
+/**
+ * Decides whether a string claim value, such as an issuer or one of the audiences of a JWT, is acceptable.
+ * Implementations need to be thread safe and shouldn't allocate per call, as they're used for every JWT a
+ * {@link JwtConsumer} processes. {@link ClaimValueAllowList} covers exact values and simple templates.
+ */
+public interface ClaimValueMatcher
+{
+    /**
+     * @param value the claim value, which is never null
+     * @return true if the value is acceptable
+     */
+    boolean matches(String value);
+}
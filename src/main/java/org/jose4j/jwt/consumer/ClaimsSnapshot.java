@@ -0,0 +1,161 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwt.consumer;
+
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwt.MalformedClaimException;
+import org.jose4j.jwt.NumericDate;
+
+import java.util.List;
+
+/**
+ * The registered claims of a JWT, each read from the {@link JwtClaims} and converted to its type at most once,
+ * along with a single evaluation time, for the built-in validators to share while a {@link ValidationPlan} runs.
+ * A claim that's malformed throws the same {@code MalformedClaimException} every time it's asked for.
+ */
+class ClaimsSnapshot
+{
+    private static final int ISS = 0;
+    private static final int SUB = 1;
+    private static final int AUD = 2;
+    private static final int JTI = 3;
+    private static final int EXP = 4;
+    private static final int NBF = 5;
+    private static final int IAT = 6;
+    private static final int CLAIMS = 7;
+
+    private final JwtClaims jwtClaims;
+    private final Object[] values = new Object[CLAIMS];
+    private final MalformedClaimException[] problems = new MalformedClaimException[CLAIMS];
+    private int read;
+    private NumericDate now;
+
+    ClaimsSnapshot(JwtClaims jwtClaims)
+    {
+        this.jwtClaims = jwtClaims;
+    }
+
+    /**
+     * @return the snapshot of the validation plan that's running on the context or, outside of one, a new snapshot
+     */
+    static ClaimsSnapshot of(JwtContext jwtContext)
+    {
+        ClaimsSnapshot snapshot = jwtContext.getClaimsSnapshot();
+        return (snapshot != null) ? snapshot : new ClaimsSnapshot(jwtContext.getJwtClaims());
+    }
+
+    String getIssuer() throws MalformedClaimException
+    {
+        return (String) get(ISS);
+    }
+
+    String getSubject() throws MalformedClaimException
+    {
+        return (String) get(SUB);
+    }
+
+    /**
+     * @return the audience values or null, if there's no aud claim
+     */
+    @SuppressWarnings("unchecked")
+    List<String> getAudience() throws MalformedClaimException
+    {
+        return (List<String>) get(AUD);
+    }
+
+    String getJwtId() throws MalformedClaimException
+    {
+        return (String) get(JTI);
+    }
+
+    NumericDate getExpirationTime() throws MalformedClaimException
+    {
+        return (NumericDate) get(EXP);
+    }
+
+    NumericDate getNotBefore() throws MalformedClaimException
+    {
+        return (NumericDate) get(NBF);
+    }
+
+    NumericDate getIssuedAt() throws MalformedClaimException
+    {
+        return (NumericDate) get(IAT);
+    }
+
+    /**
+     * @param staticEvaluationTime a fixed evaluation time or null, for the current time
+     * @return the evaluation time, with the current time only looked up once for the snapshot
+     */
+    NumericDate getEvaluationTime(NumericDate staticEvaluationTime)
+    {
+        if (staticEvaluationTime != null)
+        {
+            return staticEvaluationTime;
+        }
+
+        if (now == null)
+        {
+            now = NumericDate.now();
+        }
+        return now;
+    }
+
+    private Object get(int claim) throws MalformedClaimException
+    {
+        int bit = 1 << claim;
+        if ((read & bit) == 0)
+        {
+            try
+            {
+                values[claim] = read(claim);
+            }
+            catch (MalformedClaimException e)
+            {
+                problems[claim] = e;
+            }
+            read |= bit;
+        }
+
+        if (problems[claim] != null)
+        {
+            throw problems[claim];
+        }
+        return values[claim];
+    }
+
+    private Object read(int claim) throws MalformedClaimException
+    {
+        switch (claim)
+        {
+            case ISS:
+                return jwtClaims.getIssuer();
+            case SUB:
+                return jwtClaims.getSubject();
+            case AUD:
+                return jwtClaims.hasAudience() ? jwtClaims.getAudience() : null;
+            case JTI:
+                return jwtClaims.getJwtId();
+            case EXP:
+                return jwtClaims.getExpirationTime();
+            case NBF:
+                return jwtClaims.getNotBefore();
+            default:
+                return jwtClaims.getIssuedAt();
+        }
+    }
+}
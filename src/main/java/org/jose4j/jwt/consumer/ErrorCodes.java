@@ -168,4 +168,10 @@ public class ErrorCodes
      */
     public static final int ISSUED_AT_INVALID_PAST = 24;
 
+    /**
+     * The JWT ID "jti" claim identified a JWT that has already been used, when the <code>JwtConsumer</code>
+     * was set up with replay detection.
+     */
+    public static final int JWT_ID_REPLAYED = 25;
+
 }
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwt.consumer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, in-memory {@link JtiStore}. JWT IDs are spread over a number of independently locked shards so that
+ * concurrent JWTs rarely contend with each other. Each shard files its JWT IDs in a timing wheel of one second slots,
+ * by expiration time, and sweeps the slots that have come due as it's used. Expired IDs are removed
+ * a slot at a time as part of normal use, without ever scanning everything that's held.
+ * <p>
+ * At most {@code maxEntries} unexpired JWT IDs are held. Forgetting one early would let its JWT be replayed so,
+ * once that many are held, new JWT IDs can't be recorded and their JWTs are rejected until enough of the others expire.
+ * The bound should be sized for the expected rate of JWTs times their lifetime.
+ * <p>
+ * This class is thread safe. An instance only remembers what's been seen by the consumers in this JVM that share it.
+ */
+public class InMemoryJtiStore implements JtiStore
+{
+    public static final int DEFAULT_SHARDS = 32;
+
+    private static final long SLOT_MILLIS = 1000;
+    private static final int WHEEL_SLOTS = 4096;
+
+    private final Shard[] shards;
+
+    private final AtomicLong replays = new AtomicLong();
+    private final AtomicLong rejectedWhenFull = new AtomicLong();
+
+    /**
+     * @param maxEntries the maximum number of unexpired JWT IDs to hold
+     */
+    public InMemoryJtiStore(int maxEntries)
+    {
+        this(maxEntries, DEFAULT_SHARDS);
+    }
+
+    /**
+     * @param maxEntries the maximum number of unexpired JWT IDs to hold
+     * @param shards the number of independently locked shards, more of which reduces contention
+     */
+    public InMemoryJtiStore(int maxEntries, int shards)
+    {
+        if (maxEntries < 1 || shards < 1)
+        {
+            throw new IllegalArgumentException("maxEntries and shards must be at least 1 but were " + maxEntries + " and " + shards);
+        }
+
+        shards = Math.min(shards, maxEntries);
+        this.shards = new Shard[shards];
+        int maxEntriesPerShard = (maxEntries + shards - 1) / shards;
+        for (int i = 0; i < shards; i++)
+        {
+            this.shards[i] = new Shard(maxEntriesPerShard);
+        }
+    }
+
+    @Override
+    public boolean markUsed(String issuer, String jti, long expiresAtMillis)
+    {
+        String key = (issuer == null) ? "0:" + jti : issuer.length() + ":" + issuer + jti;
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        Shard shard = shards[(h & 0x7fffffff) % shards.length];
+
+        long now = System.currentTimeMillis();
+        if (expiresAtMillis <= now)
+        {
+            // already expired so there's no need to remember it but a replay of one that's still held is still a replay
+            return !shard.contains(key, now) || countReplay();
+        }
+
+        switch (shard.markUsed(key, expiresAtMillis, now))
+        {
+            case Shard.RECORDED:
+                return true;
+            case Shard.ALREADY_USED:
+                return countReplay();
+            default:
+                rejectedWhenFull.incrementAndGet();
+                throw new IllegalStateException("Unable to record more than " + shard.maxEntries * shards.length + " unexpired JWT IDs.");
+        }
+    }
+
+    private boolean countReplay()
+    {
+        replays.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Forgets all the JWT IDs.
+     */
+    public void clear()
+    {
+        for (Shard shard : shards)
+        {
+            shard.clear();
+        }
+    }
+
+    /**
+     * @return the number of JWT IDs held, which may include some that have expired but not yet been swept
+     */
+    public int size()
+    {
+        int size = 0;
+        for (Shard shard : shards)
+        {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    /**
+     * @return the number of times a JWT ID had already been used
+     */
+    public long getReplayCount()
+    {
+        return replays.get();
+    }
+
+    /**
+     * @return the number of times a JWT ID couldn't be recorded because the store was full
+     */
+    public long getRejectedWhenFullCount()
+    {
+        return rejectedWhenFull.get();
+    }
+
+    private static class Shard
+    {
+        private static final int RECORDED = 0;
+        private static final int ALREADY_USED = 1;
+        private static final int FULL = 2;
+
+        private final int maxEntries;
+        private final Map<String, Long> expirations = new HashMap<>();
+        private final List<List<String>> wheel = new ArrayList<>(WHEEL_SLOTS);
+        private long sweptThroughTick = -1;
+
+        private Shard(int maxEntries)
+        {
+            this.maxEntries = maxEntries;
+            for (int i = 0; i < WHEEL_SLOTS; i++)
+            {
+                wheel.add(new ArrayList<String>(0));
+            }
+        }
+
+        private synchronized boolean contains(String key, long now)
+        {
+            Long expiresAt = expirations.get(key);
+            return expiresAt != null && expiresAt > now;
+        }
+
+        private synchronized int markUsed(String key, long expiresAtMillis, long now)
+        {
+            sweep(now);
+
+            Long existing = expirations.get(key);
+            if (existing != null && existing > now)
+            {
+                return ALREADY_USED;
+            }
+
+            if (existing == null && expirations.size() >= maxEntries)
+            {
+                return FULL;
+            }
+
+            expirations.put(key, expiresAtMillis);
+            wheel.get(slot(expiresAtMillis)).add(key);
+            return RECORDED;
+        }
+
+        /**
+         * Sweeps each slot whose time has come since the last sweep, removing the IDs in it that have expired.
+         * IDs in a slot that aren't due yet, because they expire on a later turn of the wheel, stay put.
+         */
+        private void sweep(long now)
+        {
+            long tick = now / SLOT_MILLIS;
+            if (sweptThroughTick == -1)
+            {
+                sweptThroughTick = tick;
+                return;
+            }
+
+            long from = Math.max(sweptThroughTick + 1, tick - WHEEL_SLOTS + 1);
+            for (long t = from; t <= tick; t++)
+            {
+                int slot = (int) (t % WHEEL_SLOTS);
+                List<String> keys = wheel.get(slot);
+                for (Iterator<String> iterator = keys.iterator(); iterator.hasNext();)
+                {
+                    String key = iterator.next();
+                    Long expiresAt = expirations.get(key);
+                    if (expiresAt == null || slot(expiresAt) != slot)
+                    {
+                        // removed, or recorded again after expiring and now filed elsewhere
+                        iterator.remove();
+                    }
+                    else if (expiresAt <= now)
+                    {
+                        expirations.remove(key);
+                        iterator.remove();
+                    }
+                }
+
+                if (keys.isEmpty() && t != tick)
+                {
+                    // let a slot that filled up during a burst give its memory back
+                    wheel.set(slot, new ArrayList<String>(0));
+                }
+            }
+            sweptThroughTick = Math.max(sweptThroughTick, tick);
+        }
+
+        private synchronized void clear()
+        {
+            expirations.clear();
+            for (int i = 0; i < WHEEL_SLOTS; i++)
+            {
+                wheel.set(i, new ArrayList<String>(0));
+            }
+        }
+
+        private synchronized int size()
+        {
+            return expirations.size();
+        }
+
+        /**
+         * @return the slot for the tick after the expiration time, which is only swept once the time has passed
+         */
+        private static int slot(long expiresAtMillis)
+        {
+            return (int) ((expiresAtMillis / SLOT_MILLIS + 1) % WHEEL_SLOTS);
+        }
+    }
+}
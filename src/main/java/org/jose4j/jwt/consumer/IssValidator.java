@@ -28,6 +28,7 @@ import java.util.Set;
 public class IssValidator implements ErrorCodeValidator
 {
     private Set<String> expectedIssuers;
+    private ClaimValueMatcher issuerMatcher;
     private boolean requireIssuer;
 
     public IssValidator(String expectedIssuer, boolean requireIssuer)
@@ -49,17 +50,34 @@ public class IssValidator implements ErrorCodeValidator
         }
     }
 
+    private IssValidator(ClaimValueMatcher issuerMatcher, boolean requireIssuer)
+    {
+        this.requireIssuer = requireIssuer;
+        this.issuerMatcher = issuerMatcher;
+    }
+
+    /**
+     * @param issuerMatcher decides which issuers are acceptable, such as a {@link ClaimValueAllowList} for many
+     * or patterned issuers, {@code null} means that any value is acceptable
+     * @param requireIssuer true if the issuer claim is required
+     * @return the validator
+     */
+    public static IssValidator forMatcher(ClaimValueMatcher issuerMatcher, boolean requireIssuer)
+    {
+        return new IssValidator(issuerMatcher, requireIssuer);
+    }
+
     @Override
     public Error validate(JwtContext jwtContext) throws MalformedClaimException
     {
-        String issuer = jwtContext.getJwtClaims().getIssuer();
+        String issuer = ClaimsSnapshot.of(jwtContext).getIssuer();
 
         if (issuer == null)
         {
             return requireIssuer ? new Error(ErrorCodes.ISSUER_MISSING, "No Issuer (iss) claim present.") : null;
         }
 
-        if (expectedIssuers != null && !expectedIssuers.contains(issuer))
+        if ((expectedIssuers != null && !expectedIssuers.contains(issuer)) || (issuerMatcher != null && !issuerMatcher.matches(issuer)))
         {
             return new Error(ErrorCodes.ISSUER_INVALID, "Issuer (iss) claim value (" + issuer + ") doesn't match expected value of " + expectedValue());
         }
@@ -69,6 +87,10 @@ public class IssValidator implements ErrorCodeValidator
 
     private String expectedValue()
     {
+        if (expectedIssuers == null)
+        {
+            return "one of " + issuerMatcher;
+        }
         return expectedIssuers.size() == 1 ? expectedIssuers.iterator().next() : "one of " + expectedIssuers;
     }
 }
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwt.consumer;
+
+import org.jose4j.keys.resolvers.VerificationKeyResolver;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Routes verification key resolution by the issuer ("iss") claim of a JWT, so one {@link JwtConsumer} can
+ * verify JWTs from many issuers, like the tenants of a multi-tenant service, each with its own keys. Issuers are
+ * looked up in a hash map first and then the matchers, such as a {@link ClaimValueAllowList} with a template
+ * like {@code https://login.example.com/{tenant}/v2.0}, are tried in the order they were added. A JWT whose issuer
+ * doesn't have a resolver is rejected as its key can't be resolved.
+ * <p>
+ * The issuer is taken from the claims before the signature is verified, which is fine as it's covered by the
+ * signature that the key of the chosen issuer then has to verify. The issuer still has to be validated,
+ * with {@link JwtConsumerBuilder#setExpectedIssuerMatcher(boolean, ClaimValueMatcher)} or similar.
+ * <p>
+ * Set up with {@link JwtConsumerBuilder#setIssuerVerificationKeyResolvers(IssuerVerificationKeyResolvers)}.
+ * An instance should be fully set up before it's used, after which it's safe to share between threads.
+ */
+public class IssuerVerificationKeyResolvers
+{
+    private final Map<String, VerificationKeyResolver> byIssuer = new HashMap<>();
+    private final List<ClaimValueMatcher> matchers = new ArrayList<>();
+    private final List<VerificationKeyResolver> matcherResolvers = new ArrayList<>();
+
+    /**
+     * @param issuer the issuer
+     * @param resolver the resolver for the keys of the issuer
+     * @return the same IssuerVerificationKeyResolvers
+     */
+    public IssuerVerificationKeyResolvers add(String issuer, VerificationKeyResolver resolver)
+    {
+        byIssuer.put(issuer, resolver);
+        return this;
+    }
+
+    /**
+     * @param issuers matches the issuers that share the resolver
+     * @param resolver the resolver for the keys of the issuers
+     * @return the same IssuerVerificationKeyResolvers
+     */
+    public IssuerVerificationKeyResolvers add(ClaimValueMatcher issuers, VerificationKeyResolver resolver)
+    {
+        matchers.add(issuers);
+        matcherResolvers.add(resolver);
+        return this;
+    }
+
+    /**
+     * @param issuer the issuer or null
+     * @return the resolver for the issuer or null, if there isn't one
+     */
+    public VerificationKeyResolver getResolver(String issuer)
+    {
+        if (issuer == null)
+        {
+            return null;
+        }
+
+        VerificationKeyResolver resolver = byIssuer.get(issuer);
+        for (int i = 0; resolver == null && i < matchers.size(); i++)
+        {
+            if (matchers.get(i).matches(issuer))
+            {
+                resolver = matcherResolvers.get(i);
+            }
+        }
+        return resolver;
+    }
+}
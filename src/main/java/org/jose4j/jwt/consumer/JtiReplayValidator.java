@@ -0,0 +1,86 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwt.consumer;
+
+import org.jose4j.jwt.MalformedClaimException;
+import org.jose4j.jwt.NumericDate;
+import org.jose4j.lang.ExceptionHelp;
+
+/**
+ * Accepts each JWT ID ("jti") only once, using a {@link JtiStore} to remember the ones that have been used.
+ * A JWT's ID is remembered until its expiration time ("exp"), plus any allowed clock skew, after which
+ * the JWT would be rejected anyway. A JWT without an expiration time is rejected, with the
+ * {@link ErrorCodes#EXPIRATION_MISSING} error code, because its ID could never be forgotten and enough of them
+ * would fill the store, after which every new JWT would be rejected.
+ * <p>
+ * Set up with {@link JwtConsumerBuilder#setJtiReplayDetection(JtiStore)}, which has the {@link JwtConsumer} run this
+ * after all the other validators, and only if they all pass, so that an ID is only used up by a JWT that's accepted.
+ */
+public class JtiReplayValidator implements ErrorCodeValidator
+{
+    private static final Error MISSING_JTI = new Error(ErrorCodes.JWT_ID_MISSING, "The JWT ID (jti) claim is not present, which is needed to detect replay.");
+    private static final Error MISSING_EXP = new Error(ErrorCodes.EXPIRATION_MISSING, "The Expiration Time (exp) claim is not present, which is needed to know how long to remember the JWT ID (jti).");
+
+    private final JtiStore jtiStore;
+    private final long allowedClockSkewMillis;
+
+    public JtiReplayValidator(JtiStore jtiStore, int allowedClockSkewSeconds)
+    {
+        if (jtiStore == null)
+        {
+            throw new IllegalArgumentException("jtiStore cannot be null");
+        }
+        this.jtiStore = jtiStore;
+        this.allowedClockSkewMillis = allowedClockSkewSeconds * 1000L;
+    }
+
+    @Override
+    public Error validate(JwtContext jwtContext) throws MalformedClaimException
+    {
+        ClaimsSnapshot claims = ClaimsSnapshot.of(jwtContext);
+        String jti = claims.getJwtId();
+        if (jti == null)
+        {
+            return MISSING_JTI;
+        }
+
+        NumericDate exp = claims.getExpirationTime();
+        if (exp == null)
+        {
+            return MISSING_EXP;
+        }
+
+        long expiresAtMillis = Long.MAX_VALUE;
+        long expSeconds = exp.getValue();
+        if (expSeconds < (Long.MAX_VALUE - allowedClockSkewMillis) / 1000)
+        {
+            expiresAtMillis = expSeconds * 1000 + allowedClockSkewMillis;
+        }
+
+        boolean firstUse;
+        try
+        {
+            firstUse = jtiStore.markUsed(claims.getIssuer(), jti, expiresAtMillis);
+        }
+        catch (RuntimeException e)
+        {
+            return new Error(ErrorCodes.MISCELLANEOUS, "Unable to record the use of JWT ID (jti) " + jti + ": " + ExceptionHelp.toStringWithCauses(e));
+        }
+
+        return firstUse ? null : new Error(ErrorCodes.JWT_ID_REPLAYED, "The JWT ID (jti) " + jti + " has already been used.");
+    }
+}
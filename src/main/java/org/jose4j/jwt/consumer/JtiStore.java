@@ -0,0 +1,40 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwt.consumer;
+
+/**
+ * Remembers the JWT IDs ("jti") of JWTs that have been used, so that a {@link JwtConsumer} set up with
+ * {@link JwtConsumerBuilder#setJtiReplayDetection(JtiStore)} can accept each JWT only once.
+ * {@link InMemoryJtiStore} keeps them in memory. A store shared by a number of servers can be plugged in by
+ * implementing this interface.
+ * <p>
+ * Implementations need to be thread safe and recording a JWT ID needs to be atomic, so that when the same JWT is
+ * presented any number of times concurrently exactly one of them is accepted.
+ */
+public interface JtiStore
+{
+    /**
+     * Records the use of a JWT ID, unless it has already been used.
+     * @param issuer the issuer ("iss") of the JWT, which scopes the JWT ID, or null if it has none
+     * @param jti the JWT ID
+     * @param expiresAtMillis the time, in milliseconds since the epoch, after which the JWT can no longer be accepted
+     * and the record of its use can be forgotten, or {@code Long.MAX_VALUE} if it has to be remembered for as long as possible
+     * @return true if the JWT ID was recorded or false, if it had already been used
+     * @throws RuntimeException if the use can't be recorded, in which case the JWT will be rejected
+     */
+    boolean markUsed(String issuer, String jti, long expiresAtMillis);
+}
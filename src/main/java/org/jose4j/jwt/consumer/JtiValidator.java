@@ -35,7 +35,7 @@ public class JtiValidator implements ErrorCodeValidator
     @Override
     public Error validate(JwtContext jwtContext) throws MalformedClaimException
     {
-        String subject = jwtContext.getJwtClaims().getJwtId();
+        String subject = ClaimsSnapshot.of(jwtContext).getJwtId();
         return (subject == null && requireJti) ? MISSING_JTI : null;
     }
 }
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwt.consumer;
+
+/**
+ * The result of processing one JWT of a batch with {@link JwtConsumer#processBatch(java.util.List)},
+ * which holds either the {@code JwtContext} of a valid JWT or the {@code InvalidJwtException} that it was rejected with.
+ */
+public class JwtBatchResult
+{
+    private final String jwt;
+    private final JwtContext jwtContext;
+    private final InvalidJwtException exception;
+
+    JwtBatchResult(String jwt, JwtContext jwtContext)
+    {
+        this.jwt = jwt;
+        this.jwtContext = jwtContext;
+        this.exception = null;
+    }
+
+    JwtBatchResult(String jwt, InvalidJwtException exception)
+    {
+        this.jwt = jwt;
+        this.jwtContext = null;
+        this.exception = exception;
+    }
+
+    /**
+     * @return the JWT that was processed
+     */
+    public String getJwt()
+    {
+        return jwt;
+    }
+
+    /**
+     * @return true if the JWT was processed successfully
+     */
+    public boolean isValid()
+    {
+        return exception == null;
+    }
+
+    /**
+     * @return the context of the processed JWT or null, if it was rejected
+     */
+    public JwtContext getJwtContext()
+    {
+        return jwtContext;
+    }
+
+    /**
+     * @return the reason the JWT was rejected or null, if it was processed successfully
+     */
+    public InvalidJwtException getException()
+    {
+        return exception;
+    }
+
+    /**
+     * @return the context of the processed JWT
+     * @throws InvalidJwtException if the JWT was rejected
+     */
+    public JwtContext getJwtContextOrThrow() throws InvalidJwtException
+    {
+        if (exception != null)
+        {
+            throw exception;
+        }
+        return jwtContext;
+    }
+}
@@ -16,24 +16,37 @@
 
 package org.jose4j.jwt.consumer;
 
+import org.jose4j.instrumentation.InstrumentationRegistry;
+import org.jose4j.instrumentation.Operation;
+import org.jose4j.instrumentation.Outcome;
 import org.jose4j.jca.ProviderContext;
+import org.jose4j.jca.SignatureVerifierPool;
 import org.jose4j.jwa.AlgorithmConstraints;
 import org.jose4j.jwe.JsonWebEncryption;
 import org.jose4j.jws.JsonWebSignature;
 import org.jose4j.jwt.JwtClaims;
 import org.jose4j.jwt.MalformedClaimException;
+import org.jose4j.jwx.HeaderParameterNames;
 import org.jose4j.jwx.JsonWebStructure;
 import org.jose4j.keys.KeyPersuasion;
 import org.jose4j.keys.resolvers.DecryptionKeyResolver;
+import org.jose4j.keys.resolvers.KeyResolutionCallback;
 import org.jose4j.keys.resolvers.VerificationKeyResolver;
-import org.jose4j.lang.ExceptionHelp;
 import org.jose4j.lang.JoseException;
+import org.jose4j.lang.UnresolvableKeyException;
+import org.jose4j.mac.MacCache;
 
 import java.security.Key;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import static org.jose4j.jws.AlgorithmIdentifiers.NONE;
 import static org.jose4j.jwt.consumer.ErrorCodes.*;
@@ -43,10 +56,13 @@ import static org.jose4j.jwt.consumer.ErrorCodes.*;
  */
 public class JwtConsumer
 {
+    private static final int MIN_BATCH_CHUNK = 64;
+
     private VerificationKeyResolver verificationKeyResolver;
     private DecryptionKeyResolver decryptionKeyResolver;
 
-    private List<ErrorCodeValidator> validators;
+    private ValidationPlan validationPlan;
+    private IssuerVerificationKeyResolvers issuerVerificationKeyResolvers;
 
     private AlgorithmConstraints jwsAlgorithmConstraints;
     private AlgorithmConstraints jweAlgorithmConstraints;
@@ -58,6 +74,8 @@ public class JwtConsumer
 
     private boolean liberalContentTypeHandling;
 
+    private boolean lazyClaimsParsing;
+
     private boolean skipSignatureVerification;
 
     private boolean relaxVerificationKeyValidation;
@@ -67,11 +85,15 @@ public class JwtConsumer
     private boolean relaxDecryptionKeyValidation;
 
     private ProviderContext jwsProviderContext;
+    private volatile ProviderContext batchProviderContext;
     private ProviderContext jweProviderContext;
 
     private JwsCustomizer jwsCustomizer;
     private JweCustomizer jweCustomizer;
 
+    private VerifiedJwtCache verifiedJwtCache;
+    private RejectedJwtCache rejectedJwtCache;
+
     JwtConsumer()
     {
     }
@@ -101,9 +123,14 @@ public class JwtConsumer
         this.decryptionKeyResolver = decryptionKeyResolver;
     }
 
-    void setValidators(List<ErrorCodeValidator> validators)
+    void setIssuerVerificationKeyResolvers(IssuerVerificationKeyResolvers issuerVerificationKeyResolvers)
     {
-        this.validators = validators;
+        this.issuerVerificationKeyResolvers = issuerVerificationKeyResolvers;
+    }
+
+    void setValidationPlan(ValidationPlan validationPlan)
+    {
+        this.validationPlan = validationPlan;
     }
 
     void setRequireSignature(boolean requireSignature)
@@ -126,6 +153,11 @@ public class JwtConsumer
         this.liberalContentTypeHandling = liberalContentTypeHandling;
     }
 
+    void setLazyClaimsParsing(boolean lazyClaimsParsing)
+    {
+        this.lazyClaimsParsing = lazyClaimsParsing;
+    }
+
     void setSkipSignatureVerification(boolean skipSignatureVerification)
     {
         this.skipSignatureVerification = skipSignatureVerification;
@@ -166,12 +198,48 @@ public class JwtConsumer
         this.jweCustomizer = jweCustomizer;
     }
 
+    void setVerifiedJwtCache(VerifiedJwtCache verifiedJwtCache)
+    {
+        this.verifiedJwtCache = verifiedJwtCache;
+    }
+
+    /**
+     * Gets the cache of successfully processed JWTs, which can be used to look at its hit and miss counts.
+     * @return the cache or null, if this JwtConsumer wasn't built with one
+     * @see JwtConsumerBuilder#setVerifiedJwtCache(int, int)
+     */
+    public VerifiedJwtCache getVerifiedJwtCache()
+    {
+        return verifiedJwtCache;
+    }
+
+    void setRejectedJwtCache(RejectedJwtCache rejectedJwtCache)
+    {
+        this.rejectedJwtCache = rejectedJwtCache;
+    }
+
+    /**
+     * Gets the cache of recently rejected JWTs, which can be used to look at its hit count.
+     * @return the cache or null, if this JwtConsumer wasn't built with one
+     * @see JwtConsumerBuilder#setRejectedJwtCache(int, int)
+     */
+    public RejectedJwtCache getRejectedJwtCache()
+    {
+        return rejectedJwtCache;
+    }
+
     public JwtClaims processToClaims(String jwt) throws InvalidJwtException
     {
         return process(jwt).getJwtClaims();
     }
 
     public void processContext(JwtContext jwtContext) throws InvalidJwtException
+    {
+        processContext(jwtContext, verificationKeyResolver, jwsProviderContext);
+    }
+
+    private void processContext(JwtContext jwtContext, VerificationKeyResolver verificationKeyResolver, ProviderContext jwsProviderContext)
+            throws InvalidJwtException
     {
         boolean hasSignature = false;
         boolean hasEncryption = false;
@@ -210,7 +278,7 @@ public class JwtConsumer
 
                         if (!isNoneAlg  || !skipVerificationKeyResolutionOnNone)
                         {
-                            Key key = verificationKeyResolver.resolveKey(jws, nestingContext);
+                            Key key = resolveVerificationKey(routeByIssuer(verificationKeyResolver, jwtContext), jws, nestingContext);
                             jws.setKey(key);
                         }
 
@@ -304,7 +372,357 @@ public class JwtConsumer
         validate(jwtContext);
     }
 
+    /**
+     * Processes the JWT on the given executor, so that the calling thread doesn't wait on key resolution, which
+     * might involve network requests, or the cryptographic operations. It's the same as
+     * {@link #processAsync(String, Executor, Executor)} with the one executor used for both processing and
+     * key resolution I/O.
+     * @param jwt the JWT
+     * @param executor the executor to process it on
+     * @return a Future for the result of processing the JWT, which throws an {@code ExecutionException}
+     * with the {@code InvalidJwtException} as its cause if the JWT is rejected
+     */
+    public Future<JwtContext> processAsync(String jwt, Executor executor)
+    {
+        return processAsync(jwt, executor, executor);
+    }
+
+    /**
+     * Processes the JWT on the given executor, keeping blocking I/O for verification key resolution on the I/O
+     * executor, in the same way as {@link #processAsync(String, Executor, Executor, JwtConsumerCallback)}.
+     * @param jwt the JWT
+     * @param executor the executor to do the processing, which is mostly cryptographic operations, on
+     * @param ioExecutor the executor for key resolution that involves blocking I/O, like fetching a JWKS
+     * @return a Future for the result of processing the JWT, which throws an {@code ExecutionException}
+     * with the {@code InvalidJwtException} as its cause if the JWT is rejected. Cancelling it doesn't interrupt
+     * processing that's already under way.
+     */
+    public Future<JwtContext> processAsync(String jwt, Executor executor, Executor ioExecutor)
+    {
+        CallbackFuture future = new CallbackFuture();
+        processAsync(jwt, executor, ioExecutor, future);
+        return future;
+    }
+
+    /**
+     * Processes the JWT on the given executor and passes the result to the callback. This suits event loop based
+     * callers that can't block on a {@code Future}. It's the same as
+     * {@link #processAsync(String, Executor, Executor, JwtConsumerCallback)} with the one executor used for both
+     * processing and key resolution I/O.
+     * @param jwt the JWT
+     * @param executor the executor to process it on
+     * @param callback receives the result on the executor's thread
+     */
+    public void processAsync(String jwt, Executor executor, JwtConsumerCallback callback)
+    {
+        processAsync(jwt, executor, executor, callback);
+    }
+
+    /**
+     * Processes the JWT on the given executor and passes the result to the callback, keeping blocking I/O for
+     * verification key resolution off of that executor. When the verification key resolver is an
+     * {@link org.jose4j.keys.resolvers.AsyncVerificationKeyResolver}, such as the
+     * {@link org.jose4j.keys.resolvers.HttpsJwksVerificationKeyResolver}, and it can't resolve the key from what
+     * it already has, processing stops while the resolver gets the key on the I/O executor and then picks up again
+     * on the processing executor. Other verification key resolvers, and decryption key resolvers, are called on the
+     * processing executor as usual.
+     * @param jwt the JWT
+     * @param executor the executor to do the processing, which is mostly cryptographic operations, on
+     * @param ioExecutor the executor for key resolution that involves blocking I/O, like fetching a JWKS
+     * @param callback receives the result, on a thread of the processing executor, or on the calling thread if
+     * the executor rejects the task
+     */
+    public void processAsync(final String jwt, final Executor executor, final Executor ioExecutor,
+                             final JwtConsumerCallback callback)
+    {
+        final AsyncKeyResolution resolution = new AsyncKeyResolution(verificationKeyResolver);
+        Runnable attempt = new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                JwtContext jwtContext;
+                try
+                {
+                    jwtContext = process(jwt, resolution, jwsProviderContext);
+                }
+                catch (InvalidJwtException e)
+                {
+                    AsyncKeyResolution.Pending pending = resolution.takePending();
+                    if (pending == null)
+                    {
+                        callback.onFailure(e);
+                    }
+                    else
+                    {
+                        resolveThenRetry(pending);
+                    }
+                    return;
+                }
+                catch (Throwable t)
+                {
+                    callback.onFailure(t);
+                    return;
+                }
+                callback.onSuccess(jwtContext);
+            }
+
+            private void resolveThenRetry(final AsyncKeyResolution.Pending pending)
+            {
+                final Runnable retry = this;
+                KeyResolutionCallback keyCallback = new KeyResolutionCallback()
+                {
+                    @Override
+                    public void onResolved(Key key)
+                    {
+                        resolution.resolved(pending, key);
+                        execute(executor, retry, callback);
+                    }
+
+                    @Override
+                    public void onFailure(Throwable t)
+                    {
+                        if (t instanceof UnresolvableKeyException)
+                        {
+                            // retried so that it's reported, and remembered or not, the same way as when processing synchronously
+                            resolution.failed(pending, (UnresolvableKeyException) t);
+                            execute(executor, retry, callback);
+                        }
+                        else
+                        {
+                            callback.onFailure(t);
+                        }
+                    }
+                };
+
+                try
+                {
+                    pending.resolver.resolveKeyAsync(pending.jws, pending.nestingContext, ioExecutor, keyCallback);
+                }
+                catch (Throwable t)
+                {
+                    callback.onFailure(t);
+                }
+            }
+        };
+
+        execute(executor, attempt, callback);
+    }
+
+    private static void execute(Executor executor, Runnable task, JwtConsumerCallback callback)
+    {
+        try
+        {
+            executor.execute(task);
+        }
+        catch (Throwable t)
+        {
+            callback.onFailure(t);
+        }
+    }
+
+    /**
+     * Processes a batch of JWTs, with each one getting its own result so that invalid JWTs don't stop the rest from
+     * being processed. Over the course of the batch, the verification key is resolved only once for each distinct JWS
+     * header, which covers the "alg" and "kid", and the JWTs sharing a key also share initialized verifiers.
+     * Verifiers are pooled with a {@link org.jose4j.jca.SignatureVerifierPool} and {@link MacCache} that this
+     * consumer creates for its first batch and keeps using for every batch after it, unless a JWS
+     * {@code ProviderContext} was set on the builder, in which case its own pool and cache, if any, are used.
+     * <p>
+     * Keys are only resolved once per header for resolvers that are a
+     * {@link org.jose4j.keys.resolvers.HeaderOnlyVerificationKeyResolver} and say they select keys based only
+     * on the header of the JWS. Others, including the JWKS resolvers when they're set to disambiguate by verifying
+     * the signature, resolve the key for each JWT as usual.
+     * @param jwts the JWTs
+     * @return the results, in the same order as the JWTs
+     */
+    public List<JwtBatchResult> processBatch(List<String> jwts)
+    {
+        JwtBatchResult[] results = new JwtBatchResult[jwts.size()];
+        newBatch().process(jwts, 0, jwts.size(), results);
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Processes a batch of JWTs in the same way as {@link #processBatch(List)}, but spread across the threads of the
+     * given executor service, which could be a {@link java.util.concurrent.ForkJoinPool}. The calling thread
+     * waits for the whole batch to finish.
+     * @param jwts the JWTs
+     * @param executorService the executor service to process the JWTs on
+     * @return the results, in the same order as the JWTs
+     * @throws InterruptedException if interrupted while waiting for the batch to finish
+     */
+    public List<JwtBatchResult> processBatch(final List<String> jwts, ExecutorService executorService) throws InterruptedException
+    {
+        final int size = jwts.size();
+        final JwtBatchResult[] results = new JwtBatchResult[size];
+        final Batch batch = newBatch();
+
+        int chunks = Math.min(Runtime.getRuntime().availableProcessors() * 4, (size + MIN_BATCH_CHUNK - 1) / MIN_BATCH_CHUNK);
+        List<Callable<Void>> tasks = new ArrayList<>(chunks);
+        for (int i = 0; i < chunks; i++)
+        {
+            final int from = (int) ((long) size * i / chunks);
+            final int to = (int) ((long) size * (i + 1) / chunks);
+            tasks.add(new Callable<Void>()
+            {
+                @Override
+                public Void call()
+                {
+                    batch.process(jwts, from, to, results);
+                    return null;
+                }
+            });
+        }
+
+        for (Future<Void> future : executorService.invokeAll(tasks))
+        {
+            try
+            {
+                future.get();
+            }
+            catch (ExecutionException e)
+            {
+                Throwable cause = e.getCause();
+                if (cause instanceof Error)
+                {
+                    throw (Error) cause;
+                }
+                throw (RuntimeException) cause;
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private Batch newBatch()
+    {
+        ProviderContext providerContext = (jwsProviderContext != null) ? jwsProviderContext : getBatchProviderContext();
+        return new Batch(new BatchVerificationKeyResolver(verificationKeyResolver), providerContext);
+    }
+
+    /**
+     * Creates the pool and cache for batches once and keeps them for the life of the consumer. A new
+     * {@code MacCache} per batch would leave each batch's initialized Macs, and their keys, in the thread locals
+     * of pooled threads long after the batch is done, and nothing would be reused from one batch to the next.
+     */
+    private ProviderContext getBatchProviderContext()
+    {
+        ProviderContext providerContext = batchProviderContext;
+        if (providerContext == null)
+        {
+            synchronized (this)
+            {
+                providerContext = batchProviderContext;
+                if (providerContext == null)
+                {
+                    providerContext = new ProviderContext();
+                    providerContext.setSignatureVerifierPool(new SignatureVerifierPool());
+                    providerContext.setMacCache(new MacCache());
+                    batchProviderContext = providerContext;
+                }
+            }
+        }
+        return providerContext;
+    }
+
+    private class Batch
+    {
+        private final VerificationKeyResolver verificationKeyResolver;
+        private final ProviderContext jwsProviderContext;
+
+        private Batch(VerificationKeyResolver verificationKeyResolver, ProviderContext jwsProviderContext)
+        {
+            this.verificationKeyResolver = verificationKeyResolver;
+            this.jwsProviderContext = jwsProviderContext;
+        }
+
+        private void process(List<String> jwts, int from, int to, JwtBatchResult[] results)
+        {
+            for (int i = from; i < to; i++)
+            {
+                String jwt = jwts.get(i);
+                try
+                {
+                    results[i] = new JwtBatchResult(jwt, JwtConsumer.this.process(jwt, verificationKeyResolver, jwsProviderContext));
+                }
+                catch (InvalidJwtException e)
+                {
+                    results[i] = new JwtBatchResult(jwt, e);
+                }
+            }
+        }
+    }
+
     public JwtContext process(String jwt) throws InvalidJwtException
+    {
+        return process(jwt, verificationKeyResolver, jwsProviderContext);
+    }
+
+    private JwtContext process(String jwt, VerificationKeyResolver verificationKeyResolver, ProviderContext jwsProviderContext)
+            throws InvalidJwtException
+    {
+        if (verifiedJwtCache == null && rejectedJwtCache == null)
+        {
+            return parseAndProcess(jwt, verificationKeyResolver, jwsProviderContext);
+        }
+
+        JwtDigest digest = JwtDigest.of(jwt);
+        if (rejectedJwtCache != null)
+        {
+            rejectedJwtCache.check(digest, jwt);
+        }
+
+        try
+        {
+            return process(jwt, digest, verificationKeyResolver, jwsProviderContext);
+        }
+        catch (InvalidJwtException e)
+        {
+            if (rejectedJwtCache != null)
+            {
+                rejectedJwtCache.put(digest, e);
+            }
+            throw e;
+        }
+    }
+
+    private JwtContext process(String jwt, JwtDigest digest, VerificationKeyResolver verificationKeyResolver,
+                               ProviderContext jwsProviderContext) throws InvalidJwtException
+    {
+        if (verifiedJwtCache == null)
+        {
+            return parseAndProcess(jwt, verificationKeyResolver, jwsProviderContext);
+        }
+
+        JwtContext jwtContext = verifiedJwtCache.get(digest, jwt);
+        if (jwtContext != null)
+        {
+            try
+            {
+                validate(jwtContext);
+            }
+            catch (InvalidJwtException e)
+            {
+                verifiedJwtCache.remove(digest);
+                throw e;
+            }
+            return jwtContext;
+        }
+
+        jwtContext = parseAndProcess(jwt, verificationKeyResolver, jwsProviderContext);
+        verifiedJwtCache.put(digest, jwtContext);
+        return jwtContext;
+    }
+
+    private JwtContext parseAndProcess(String jwt, VerificationKeyResolver verificationKeyResolver, ProviderContext jwsProviderContext)
+            throws InvalidJwtException
+    {
+        JwtContext jwtContext = parse(jwt);
+        processContext(jwtContext, verificationKeyResolver, jwsProviderContext);
+        return jwtContext;
+    }
+
+    private JwtContext parse(String jwt) throws InvalidJwtException
     {
         String workingJwt = jwt;
         JwtClaims jwtClaims = null;
@@ -344,7 +762,7 @@ public class JwtConsumer
                     }
 
                     final List<JsonWebStructure> nestingContext = Collections.unmodifiableList(joseObjects);
-                    Key key = decryptionKeyResolver.resolveKey(jwe, nestingContext);
+                    Key key = resolveDecryptionKey(jwe, nestingContext);
                     jwe.setKey(key);
                     if (jweAlgorithmConstraints != null)
                     {
@@ -367,7 +785,7 @@ public class JwtConsumer
                 {
                     try
                     {
-                        jwtClaims = JwtClaims.parse(payload, jwtContext);
+                        jwtClaims = lazyClaimsParsing ? JwtClaims.parseLazily(payload, jwtContext) : JwtClaims.parse(payload, jwtContext);
                         jwtContext.setJwtClaims(jwtClaims);
                     }
                     catch (InvalidJwtException ije)
@@ -423,36 +841,81 @@ public class JwtConsumer
             }
         }
 
-        processContext(jwtContext);
         return jwtContext;
     }
 
-    void validate(JwtContext jwtCtx) throws InvalidJwtException
+    private VerificationKeyResolver routeByIssuer(VerificationKeyResolver verificationKeyResolver, JwtContext jwtContext)
+            throws UnresolvableKeyException
     {
-        List<ErrorCodeValidator.Error> issues = new ArrayList<>();
-        for (ErrorCodeValidator validator : validators)
+        if (issuerVerificationKeyResolvers == null)
         {
-            ErrorCodeValidator.Error error;
-            try
-            {
-                error = validator.validate(jwtCtx);
-            }
-            catch (MalformedClaimException e)
-            {
-                error = new ErrorCodeValidator.Error(MALFORMED_CLAIM, e.getMessage());
-            }
-            catch (Exception e)
-            {
-                String msg = "Unexpected exception thrown from validator " + validator.getClass().getName() + ": " + ExceptionHelp.toStringWithCausesAndAbbreviatedStack(e, this.getClass());
-                error = new ErrorCodeValidator.Error(MISCELLANEOUS, msg);
-            }
+            return verificationKeyResolver;
+        }
 
-            if (error != null)
-            {
-                issues.add(error);
-            }
+        String issuer;
+        try
+        {
+            JwtClaims jwtClaims = jwtContext.getJwtClaims();
+            issuer = (jwtClaims == null) ? null : jwtClaims.getIssuer();
+        }
+        catch (MalformedClaimException e)
+        {
+            throw new UnresolvableKeyException("Unable to route verification key resolution by issuer: " + e.getMessage(), e);
         }
 
+        VerificationKeyResolver resolver = issuerVerificationKeyResolvers.getResolver(issuer);
+        if (resolver == null)
+        {
+            throw new UnresolvableKeyException("No verification key resolver for the issuer (iss) " + issuer);
+        }
+
+        if (verificationKeyResolver instanceof BatchVerificationKeyResolver)
+        {
+            return ((BatchVerificationKeyResolver) verificationKeyResolver).forResolver(resolver);
+        }
+        if (verificationKeyResolver instanceof AsyncKeyResolution)
+        {
+            return ((AsyncKeyResolution) verificationKeyResolver).forResolver(resolver);
+        }
+        return resolver;
+    }
+
+    private Key resolveVerificationKey(VerificationKeyResolver verificationKeyResolver, JsonWebSignature jws,
+                                       List<JsonWebStructure> nestingContext) throws UnresolvableKeyException
+    {
+        long start = InstrumentationRegistry.start();
+        Outcome outcome = Outcome.ERROR;
+        try
+        {
+            Key key = verificationKeyResolver.resolveKey(jws, nestingContext);
+            outcome = Outcome.SUCCESS;
+            return key;
+        }
+        finally
+        {
+            InstrumentationRegistry.record(Operation.RESOLVE_KEY, jws.getHeaders(), HeaderParameterNames.KEY_ID, start, outcome);
+        }
+    }
+
+    private Key resolveDecryptionKey(JsonWebEncryption jwe, List<JsonWebStructure> nestingContext) throws UnresolvableKeyException
+    {
+        long start = InstrumentationRegistry.start();
+        Outcome outcome = Outcome.ERROR;
+        try
+        {
+            Key key = decryptionKeyResolver.resolveKey(jwe, nestingContext);
+            outcome = Outcome.SUCCESS;
+            return key;
+        }
+        finally
+        {
+            InstrumentationRegistry.record(Operation.RESOLVE_KEY, jwe.getHeaders(), HeaderParameterNames.KEY_ID, start, outcome);
+        }
+    }
+
+    void validate(JwtContext jwtCtx) throws InvalidJwtException
+    {
+        List<ErrorCodeValidator.Error> issues = validationPlan.validate(jwtCtx);
         if (!issues.isEmpty())
         {
             String msg = "JWT (claims->" + jwtCtx.getJwtClaims().getRawJson() + ") rejected due to invalid claims or other invalid content.";
@@ -68,6 +68,7 @@ import java.util.*;
 public class JwtConsumerBuilder
 {
     private VerificationKeyResolver verificationKeyResolver = new SimpleKeyResolver(null);
+    private IssuerVerificationKeyResolvers issuerVerificationKeyResolvers;
     private DecryptionKeyResolver decryptionKeyResolver = new SimpleKeyResolver(null);
 
     private AlgorithmConstraints jwsAlgorithmConstraints;
@@ -80,6 +81,7 @@ public class JwtConsumerBuilder
     private boolean requireSubject;
     private String expectedSubject;
     private boolean requireJti;
+    private JtiStore jtiStore;
     private NumericDateValidator dateClaimsValidator = new NumericDateValidator();
 
     private TypeValidator typeValidator;
@@ -101,15 +103,23 @@ public class JwtConsumerBuilder
 
     private boolean skipAllValidators = false;
     private boolean skipAllDefaultValidators = false;
+    private boolean failFastValidation = false;
 
     private boolean liberalContentTypeHandling;
 
+    private boolean lazyClaimsParsing;
+
     private ProviderContext jwsProviderContext;
     private ProviderContext jweProviderContext;
 
     private JwsCustomizer jwsCustomizer;
     private JweCustomizer jweCustomizer;
 
+    private int verifiedJwtCacheMaxEntries;
+    private int verifiedJwtCacheMaxTimeToLiveSeconds;
+    private int rejectedJwtCacheMaxEntries;
+    private int rejectedJwtCacheTimeToLiveSeconds;
+
     /**
      * Creates a new JwtConsumerBuilder, which is set up by default to build a JwtConsumer
      * that requires a signature and will validate the core JWT claims when they
@@ -176,6 +186,18 @@ public class JwtConsumerBuilder
         return this;
     }
 
+    /**
+     * Tells the JwtConsumer to parse the JWT Claims Set lazily, using {@link org.jose4j.jwt.JwtClaims#parseLazily(String, JwtContext)}.
+     * The claims JSON is still fully checked, including for duplicate member names, but claim values are
+     * only decoded when they're accessed, which saves work when just a few claims are looked at.
+     * @return the same JwtConsumerBuilder
+     */
+    public JwtConsumerBuilder setLazyClaimsParsing()
+    {
+        lazyClaimsParsing = true;
+        return this;
+    }
+
     /**
      * <p>
      * Skip signature verification.
@@ -185,7 +207,7 @@ public class JwtConsumerBuilder
      * in some contexts you might not know who issued the token without looking at the "iss" claim inside the JWT.
      * In such a case two JwtConsumers cab be used in a "two-pass" validation of sorts - the first JwtConsumer parses the JWT but
      * doesn't validate the signature or claims due to the use of methods like this one and the second JwtConsumers
-     * does the actual validation.
+     * does the actual validation. It can't be combined with {@link #setJtiReplayDetection(JtiStore)}.
      *
      * @return the same JwtConsumerBuilder
      */
@@ -319,6 +341,19 @@ public class JwtConsumerBuilder
         return this;
     }
 
+    /**
+     * Resolve the verification keys of JWTs by their issuer ("iss") claim, which lets one JwtConsumer
+     * verify JWTs from many issuers that each have their own keys. When set, it's used instead of the
+     * verification key or key resolver and a JWT from an issuer that doesn't have a resolver is rejected.
+     * @param issuerVerificationKeyResolvers the resolvers by issuer
+     * @return the same JwtConsumerBuilder
+     */
+    public JwtConsumerBuilder setIssuerVerificationKeyResolvers(IssuerVerificationKeyResolvers issuerVerificationKeyResolvers)
+    {
+        this.issuerVerificationKeyResolvers = issuerVerificationKeyResolvers;
+        return this;
+    }
+
     /**
      * Indicates that the JwtConsumer will not call the VerificationKeyResolver for a JWS using the
      * 'none' algorithm.
@@ -420,6 +455,21 @@ public class JwtConsumerBuilder
         return this;
     }
 
+    /**
+     * Set what audience values are acceptable when validating the audience ("aud") claim of a JWT, for when there are
+     * too many of them, or they follow too many patterns, to list with {@link #setExpectedAudience(boolean, String...)}.
+     * Audience validation will succeed, if the matcher accepts any one of the values of the "aud" claim in the JWT.
+     * @param requireAudienceClaim true, if an audience claim has to be present for validation to succeed. false, otherwise
+     * @param audienceMatcher decides which audiences are acceptable, such as a {@link ClaimValueAllowList}
+     * @return the same JwtConsumerBuilder
+     * @throws IllegalArgumentException if the matcher is null
+     */
+    public JwtConsumerBuilder setExpectedAudienceMatcher(boolean requireAudienceClaim, ClaimValueMatcher audienceMatcher)
+    {
+        audValidator = AudValidator.forMatcher(audienceMatcher, requireAudienceClaim);
+        return this;
+    }
+
     /**
      * Skip the default audience validation.
      * @return the same JwtConsumerBuilder
@@ -442,6 +492,19 @@ public class JwtConsumerBuilder
         return this;
     }
 
+    /**
+     * Indicates whether or not the issuer ("iss") claim is required and which issuers are acceptable, for when there are
+     * many of them or they follow a pattern, like {@code https://login.example.com/{tenant}/v2.0}.
+     * @param requireIssuer true if issuer claim is required, false otherwise
+     * @param issuerMatcher decides which issuers are acceptable, such as a {@link ClaimValueAllowList}, {@code null} means that any value is acceptable
+     * @return the same JwtConsumerBuilder
+     */
+    public JwtConsumerBuilder setExpectedIssuerMatcher(boolean requireIssuer, ClaimValueMatcher issuerMatcher)
+    {
+        issValidator = IssValidator.forMatcher(issuerMatcher, requireIssuer);
+        return this;
+    }
+
     /**
      * Indicates whether or not the issuer ("iss") claim is required and optionally what the expected value is.
      * @param requireIssuer true if issuer is required, false otherwise
@@ -499,6 +562,23 @@ public class JwtConsumerBuilder
         return this;
     }
 
+    /**
+     * Accept each JWT only once, by its <a href="http://tools.ietf.org/html/rfc7519#section-4.1.7">JWT ID ("jti") claim</a>,
+     * which is then required, along with the expiration time ("exp") claim so that no ID has to be kept forever. The JWT IDs of accepted JWTs are recorded in the given store until the JWTs expire and
+     * a JWT whose ID is already there is rejected with the {@link ErrorCodes#JWT_ID_REPLAYED} error code.
+     * The check is done after all the other validation, and only if it passes, so that a JWT ID is
+     * only used up by a JWT that's accepted. See {@link JtiReplayValidator} for more. Building a consumer that also
+     * has {@link #setSkipAllValidators()} fails with an {@code IllegalStateException}.
+     * @param jtiStore where to record the JWT IDs, such as an {@link InMemoryJtiStore}
+     * @return the same JwtConsumerBuilder
+     */
+    public JwtConsumerBuilder setJtiReplayDetection(JtiStore jtiStore)
+    {
+        this.jtiStore = jtiStore;
+        setRequireExpirationTime();
+        return setRequireJwtId();
+    }
+
     /**
      * Require that the JWT contain an <a href="http://tools.ietf.org/html/rfc7519#section-4.1.4">expiration time ("exp") claim</a>.
      * The expiration time is always checked when present (unless explicitly disabled) but
@@ -703,33 +783,111 @@ public class JwtConsumerBuilder
         return this;
     }
 
+    /**
+     * Stop validating the claims of a JWT at the first validator that fails, rather than running all of them and
+     * reporting every problem. When failing fast, the default validators run starting with the cheap date and issuer
+     * checks, rather than in their usual order of audience, issuer and then dates, and any custom validators run after
+     * them, so invalid JWTs are kept from reaching more expensive custom checks.
+     * The {@link InvalidJwtException} will only have the error details of the first failure.
+     * @return the same JwtConsumerBuilder
+     */
+    public JwtConsumerBuilder setFailFastValidation()
+    {
+        failFastValidation = true;
+        return this;
+    }
+
+    /**
+     * Enables caching of successfully processed JWTs so that processing the same JWT again doesn't need
+     * to resolve keys, verify signatures or decrypt. Entries are keyed by a digest of the JWT and expire at the earlier
+     * of the JWT's expiration time, less the allowed clock skew, and the given maximum time to live. All the validators are still run against
+     * a cached result each time it's used. A JWT in the cache will continue to be accepted without going back to
+     * the key resolver, so choose the time to live with key rotation and revocation in mind.
+     *
+     * @param maxEntries the maximum number of JWTs to cache, beyond which the least recently used ones are evicted
+     * @param maxTimeToLiveSeconds the maximum amount of time, in seconds, a JWT stays in the cache
+     * @return the same JwtConsumerBuilder
+     */
+    public JwtConsumerBuilder setVerifiedJwtCache(int maxEntries, int maxTimeToLiveSeconds)
+    {
+        if (maxEntries < 1 || maxTimeToLiveSeconds < 1)
+        {
+            throw new IllegalArgumentException("maxEntries and maxTimeToLiveSeconds must be at least 1 but were " + maxEntries + " and " + maxTimeToLiveSeconds);
+        }
+        verifiedJwtCacheMaxEntries = maxEntries;
+        verifiedJwtCacheMaxTimeToLiveSeconds = maxTimeToLiveSeconds;
+        return this;
+    }
+
+    /**
+     * Enables remembering recently rejected JWTs so that the same JWT is rejected again straight away, without any key
+     * resolution or cryptographic work, for a short time after it first failed. This helps to withstand floods of
+     * replayed forged or garbage tokens. Entries are keyed by a digest of the JWT and the exception thrown for a repeat
+     * has the same error details as the original. Only failures that can't clear up by themselves are remembered, so
+     * a JWT that isn't yet valid or whose key couldn't be resolved is tried again in full. See {@link RejectedJwtCache}.
+     *
+     * @param maxEntries the maximum number of rejected JWTs to remember, beyond which the least recently used ones are evicted
+     * @param timeToLiveSeconds how long, in seconds, a rejected JWT is remembered
+     * @return the same JwtConsumerBuilder
+     */
+    public JwtConsumerBuilder setRejectedJwtCache(int maxEntries, int timeToLiveSeconds)
+    {
+        if (maxEntries < 1 || timeToLiveSeconds < 1)
+        {
+            throw new IllegalArgumentException("maxEntries and timeToLiveSeconds must be at least 1 but were " + maxEntries + " and " + timeToLiveSeconds);
+        }
+        rejectedJwtCacheMaxEntries = maxEntries;
+        rejectedJwtCacheTimeToLiveSeconds = timeToLiveSeconds;
+        return this;
+    }
+
     /**
      * Create the JwtConsumer with the options provided to the builder.
      * @return the JwtConsumer
+     * @throws IllegalStateException if both {@link #setJtiReplayDetection(JtiStore)} and {@link #setSkipAllValidators()}
+     * were used, as a consumer can't skip validation and still accept each JWT only once
      */
     public JwtConsumer build()
     {
+        if (jtiStore != null && skipAllValidators)
+        {
+            throw new IllegalStateException("JWT ID (jti) replay detection can't be used with setSkipAllValidators().");
+        }
+
         List<ErrorCodeValidator> validators = new ArrayList<>();
         if (!skipAllValidators)
         {
             if (!skipAllDefaultValidators)
             {
-                if (!skipDefaultAudienceValidation)
+                if (issValidator == null)
+                {
+                    issValidator = new IssValidator(null, false);
+                }
+                if (!skipDefaultAudienceValidation && audValidator == null)
+                {
+                    audValidator = new AudValidator(Collections.<String>emptySet(), false);
+                }
+
+                // failing fast starts with the cheapest checks, otherwise the order (and so the order of the
+                // error details) stays the same as it's always been
+                if (failFastValidation)
                 {
-                    if (audValidator == null)
+                    validators.add(dateClaimsValidator);
+                    validators.add(issValidator);
+                    if (!skipDefaultAudienceValidation)
                     {
-                        audValidator = new AudValidator(Collections.<String>emptySet(), false);
+                        validators.add(audValidator);
                     }
-                    validators.add(audValidator);
                 }
-
-                if (issValidator == null)
+                else
                 {
-                    issValidator = new IssValidator(null, false);
+                    if (!skipDefaultAudienceValidation)
+                    {
+                        validators.add(audValidator);
+                    }
+                    validators.add(issValidator);
+                    validators.add(dateClaimsValidator);
                 }
-                validators.add(issValidator);
-
-                validators.add(dateClaimsValidator);
 
                 SubValidator subValidator = expectedSubject == null ? new SubValidator(requireSubject) : new SubValidator(expectedSubject);
                 validators.add(subValidator);
@@ -744,9 +902,16 @@ public class JwtConsumerBuilder
             validators.addAll(customValidators);
         }
 
+        JtiReplayValidator replayValidator = null;
+        if (jtiStore != null)
+        {
+            replayValidator = new JtiReplayValidator(jtiStore, dateClaimsValidator.getAllowedClockSkewSeconds());
+        }
+
         JwtConsumer jwtConsumer = new JwtConsumer();
-        jwtConsumer.setValidators(validators);
+        jwtConsumer.setValidationPlan(new ValidationPlan(validators, replayValidator, failFastValidation));
         jwtConsumer.setVerificationKeyResolver(verificationKeyResolver);
+        jwtConsumer.setIssuerVerificationKeyResolvers(issuerVerificationKeyResolvers);
         jwtConsumer.setDecryptionKeyResolver(decryptionKeyResolver);
 
         jwtConsumer.setJwsAlgorithmConstraints(jwsAlgorithmConstraints);
@@ -759,6 +924,8 @@ public class JwtConsumerBuilder
 
         jwtConsumer.setLiberalContentTypeHandling(liberalContentTypeHandling);
 
+        jwtConsumer.setLazyClaimsParsing(lazyClaimsParsing);
+
         jwtConsumer.setSkipSignatureVerification(skipSignatureVerification);
 
         jwtConsumer.setSkipVerificationKeyResolutionOnNone(skipVerificationKeyResolutionOnNone);
@@ -772,6 +939,17 @@ public class JwtConsumerBuilder
         jwtConsumer.setJwsProviderContext(jwsProviderContext);
         jwtConsumer.setJweProviderContext(jweProviderContext);
 
+        if (verifiedJwtCacheMaxEntries > 0)
+        {
+            jwtConsumer.setVerifiedJwtCache(new VerifiedJwtCache(verifiedJwtCacheMaxEntries, verifiedJwtCacheMaxTimeToLiveSeconds,
+                    dateClaimsValidator.getAllowedClockSkewSeconds()));
+        }
+
+        if (rejectedJwtCacheMaxEntries > 0)
+        {
+            jwtConsumer.setRejectedJwtCache(new RejectedJwtCache(rejectedJwtCacheMaxEntries, rejectedJwtCacheTimeToLiveSeconds));
+        }
+
         return jwtConsumer;
     }
 }
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwt.consumer;
+
+/**
+ * Receives the result of {@link JwtConsumer#processAsync(String, java.util.concurrent.Executor, JwtConsumerCallback)}
+ * and {@link JwtConsumer#processAsync(String, java.util.concurrent.Executor, java.util.concurrent.Executor, JwtConsumerCallback)}.
+ * Exactly one of the methods is called, usually on a thread of the executor that the JWT was processed on.
+ */
+public interface JwtConsumerCallback
+{
+    /**
+     * Called when the JWT was successfully processed.
+     * @param jwtContext the processed JWT
+     */
+    void onSuccess(JwtContext jwtContext);
+
+    /**
+     * Called when processing the JWT failed.
+     * @param t an {@link InvalidJwtException} if the JWT was rejected or, in the unlikely event of an unexpected
+     * problem, whatever was thrown, including an {@code Error} or the {@code RejectedExecutionException} from an
+     * executor that wouldn't take the task
+     */
+    void onFailure(Throwable t);
+}
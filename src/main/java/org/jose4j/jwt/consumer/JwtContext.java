@@ -29,6 +29,7 @@ public class JwtContext
     private String jwt;
     private JwtClaims jwtClaims;
     private List<JsonWebStructure> joseObjects;
+    private ClaimsSnapshot claimsSnapshot;
 
     public JwtContext(JwtClaims jwtClaims, List<JsonWebStructure> joseObjects)
     {
@@ -57,6 +58,19 @@ public class JwtContext
         this.jwtClaims = jwtClaims;
     }
 
+    /**
+     * @return the claims snapshot of the validation plan that's running on this context or null, if there isn't one running
+     */
+    ClaimsSnapshot getClaimsSnapshot()
+    {
+        return claimsSnapshot;
+    }
+
+    void setClaimsSnapshot(ClaimsSnapshot claimsSnapshot)
+    {
+        this.claimsSnapshot = claimsSnapshot;
+    }
+
     /**
      * All of the JOSE objects that comprise the JWT. When the JWT is nested,
      * the first item in the list is the inner most JOSE object.
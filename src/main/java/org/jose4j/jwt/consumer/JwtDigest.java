@@ -0,0 +1,56 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwt.consumer;
+
+import org.jose4j.lang.HashUtil;
+import org.jose4j.lang.StringUtil;
+
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+/**
+ * A SHA-256 digest of a JWT used as a cache key so that caches don't hold onto the tokens themselves.
+ */
+final class JwtDigest
+{
+    private final byte[] digest;
+    private final int hashCode;
+
+    private JwtDigest(byte[] digest)
+    {
+        this.digest = digest;
+        this.hashCode = Arrays.hashCode(digest);
+    }
+
+    static JwtDigest of(String jwt)
+    {
+        MessageDigest messageDigest = HashUtil.getMessageDigest(HashUtil.SHA_256);
+        return new JwtDigest(messageDigest.digest(StringUtil.getBytesUtf8(jwt)));
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        return (this == o) || (o instanceof JwtDigest && Arrays.equals(digest, ((JwtDigest) o).digest));
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return hashCode;
+    }
+}
@@ -16,7 +16,6 @@
 
 package org.jose4j.jwt.consumer;
 
-import org.jose4j.jwt.JwtClaims;
 import org.jose4j.jwt.MalformedClaimException;
 import org.jose4j.jwt.NumericDate;
 
@@ -68,6 +67,11 @@ public class NumericDateValidator implements ErrorCodeValidator
         this.allowedClockSkewSeconds = allowedClockSkewSeconds;
     }
 
+    int getAllowedClockSkewSeconds()
+    {
+        return allowedClockSkewSeconds;
+    }
+
     public void setMaxFutureValidityInMinutes(int maxFutureValidityInMinutes)
     {
         this.maxFutureValidityInMinutes = maxFutureValidityInMinutes;
@@ -86,10 +90,10 @@ public class NumericDateValidator implements ErrorCodeValidator
     @Override
     public Error validate(JwtContext jwtContext) throws MalformedClaimException
     {
-        JwtClaims jwtClaims = jwtContext.getJwtClaims();
-        NumericDate expirationTime = jwtClaims.getExpirationTime();
-        NumericDate issuedAt = jwtClaims.getIssuedAt();
-        NumericDate notBefore = jwtClaims.getNotBefore();
+        ClaimsSnapshot claims = ClaimsSnapshot.of(jwtContext);
+        NumericDate expirationTime = claims.getExpirationTime();
+        NumericDate issuedAt = claims.getIssuedAt();
+        NumericDate notBefore = claims.getNotBefore();
 
         if (requireExp && expirationTime == null)
         {
@@ -106,7 +110,7 @@ public class NumericDateValidator implements ErrorCodeValidator
             return MISSING_NBF;
         }
 
-        NumericDate evaluationTime = (staticEvaluationTime == null) ? NumericDate.now() : staticEvaluationTime;
+        NumericDate evaluationTime = claims.getEvaluationTime(staticEvaluationTime);
 
         if (expirationTime != null)
         {
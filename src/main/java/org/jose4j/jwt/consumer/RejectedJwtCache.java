@@ -0,0 +1,172 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwt.consumer;
+
+import org.jose4j.jwx.JsonWebStructure;
+import org.jose4j.lang.JoseException;
+import org.jose4j.lang.UnresolvableKeyException;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, short lived cache of JWTs that a {@link JwtConsumer} has rejected, which lets
+ * the same JWT be rejected again without any key resolution or cryptographic work. This blunts floods of
+ * replayed forged or garbage tokens that would otherwise each cost a full signature verification.
+ * Entries are keyed by a SHA-256 digest of the JWT and hold the error details of the original failure.
+ * <p>
+ * Only failures that won't go away by themselves are remembered, like a bad signature, a JWT that can't be parsed or
+ * an unacceptable issuer or audience. Failures that might clear up are not, which covers a JWT that isn't yet
+ * valid, a key that couldn't be resolved (during a JWKS outage, say, or before a new key has been fetched) and
+ * {@link ErrorCodes#MISCELLANEOUS} errors such as a validator throwing an exception. The exception to the last of those is a
+ * {@code MISCELLANEOUS} error caused by the JOSE object itself being unusable, which is how garbage input is reported.
+ * <p>
+ * Set up with {@link JwtConsumerBuilder#setRejectedJwtCache(int, int)}. The hit count can be used to
+ * detect floods of repeated invalid JWTs.
+ */
+public class RejectedJwtCache
+{
+    private final long timeToLiveMillis;
+    private final Map<JwtDigest, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    RejectedJwtCache(final int maxEntries, int timeToLiveSeconds)
+    {
+        if (maxEntries < 1 || timeToLiveSeconds < 1)
+        {
+            throw new IllegalArgumentException("maxEntries and timeToLiveSeconds must be at least 1 but were " + maxEntries + " and " + timeToLiveSeconds);
+        }
+
+        this.timeToLiveMillis = timeToLiveSeconds * 1000L;
+        this.entries = new LinkedHashMap<JwtDigest, Entry>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<JwtDigest, Entry> eldest)
+            {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Throws an {@code InvalidJwtException}, with the same error details as the original failure,
+     * if the JWT was recently rejected.
+     * @param digest the digest of the JWT
+     * @param jwt the JWT
+     * @throws InvalidJwtException if the JWT was recently rejected
+     */
+    void check(JwtDigest digest, String jwt) throws InvalidJwtException
+    {
+        Entry entry;
+        synchronized (entries)
+        {
+            entry = entries.get(digest);
+            if (entry != null && entry.expiresAt <= System.currentTimeMillis())
+            {
+                entries.remove(digest);
+                entry = null;
+            }
+        }
+
+        if (entry != null)
+        {
+            hits.incrementAndGet();
+            JwtContext jwtContext = new JwtContext(jwt, null, Collections.<JsonWebStructure>emptyList());
+            throw new InvalidJwtException("JWT rejected again based on an earlier failure: " + entry.message, entry.details, jwtContext);
+        }
+    }
+
+    void put(JwtDigest digest, InvalidJwtException e)
+    {
+        if (!isPermanent(e))
+        {
+            return;
+        }
+
+        Entry entry = new Entry(e.getOriginalMessage(), e.getErrorDetails(), System.currentTimeMillis() + timeToLiveMillis);
+        synchronized (entries)
+        {
+            entries.put(digest, entry);
+        }
+    }
+
+    static boolean isPermanent(InvalidJwtException e)
+    {
+        if (e.hasErrorCode(ErrorCodes.NOT_YET_VALID))
+        {
+            return false;
+        }
+
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause())
+        {
+            if (cause instanceof UnresolvableKeyException)
+            {
+                return false;
+            }
+        }
+
+        return !e.hasErrorCode(ErrorCodes.MISCELLANEOUS) || e.getCause() instanceof JoseException;
+    }
+
+    /**
+     * Removes all entries from the cache.
+     */
+    public void clear()
+    {
+        synchronized (entries)
+        {
+            entries.clear();
+        }
+    }
+
+    /**
+     * @return the number of entries currently in the cache, which may include some that have expired but not yet been removed
+     */
+    public int size()
+    {
+        synchronized (entries)
+        {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @return the number of times a JWT was rejected because it had been rejected recently
+     */
+    public long getHitCount()
+    {
+        return hits.get();
+    }
+
+    private static class Entry
+    {
+        private final String message;
+        private final List<ErrorCodeValidator.Error> details;
+        private final long expiresAt;
+
+        private Entry(String message, List<ErrorCodeValidator.Error> details, long expiresAt)
+        {
+            this.message = message;
+            this.details = details;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -20,7 +20,7 @@ import org.jose4j.jwe.JsonWebEncryption;
 import org.jose4j.jws.JsonWebSignature;
 import org.jose4j.jwx.JsonWebStructure;
 import org.jose4j.keys.resolvers.DecryptionKeyResolver;
-import org.jose4j.keys.resolvers.VerificationKeyResolver;
+import org.jose4j.keys.resolvers.HeaderOnlyVerificationKeyResolver;
 
 import java.security.Key;
 import java.util.List;
@@ -28,7 +28,7 @@ import java.util.List;
 /**
  *
  */
-class SimpleKeyResolver implements VerificationKeyResolver, DecryptionKeyResolver
+class SimpleKeyResolver implements HeaderOnlyVerificationKeyResolver, DecryptionKeyResolver
 {
     private Key key;
 
@@ -48,4 +48,10 @@ class SimpleKeyResolver implements VerificationKeyResolver, DecryptionKeyResolve
     {
         return key;
     }
+
+    @Override
+    public boolean isHeaderOnly()
+    {
+        return true;
+    }
 }
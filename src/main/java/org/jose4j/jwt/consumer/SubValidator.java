@@ -16,7 +16,6 @@
 
 package org.jose4j.jwt.consumer;
 
-import org.jose4j.jwt.JwtClaims;
 import org.jose4j.jwt.MalformedClaimException;
 
 /**
@@ -43,8 +42,7 @@ public class SubValidator implements ErrorCodeValidator
     @Override
     public Error validate(JwtContext jwtContext) throws MalformedClaimException
     {
-        JwtClaims jwtClaims = jwtContext.getJwtClaims();
-        String subject = jwtClaims.getSubject();
+        String subject = ClaimsSnapshot.of(jwtContext).getSubject();
         if (subject == null && requireSubject)
         {
             return MISSING_SUB;
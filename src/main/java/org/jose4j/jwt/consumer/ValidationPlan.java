@@ -0,0 +1,135 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwt.consumer;
+
+import org.jose4j.instrumentation.Instrumentation;
+import org.jose4j.instrumentation.InstrumentationRegistry;
+import org.jose4j.instrumentation.Operation;
+import org.jose4j.instrumentation.Outcome;
+import org.jose4j.jwt.MalformedClaimException;
+import org.jose4j.lang.ExceptionHelp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.jose4j.jwt.consumer.ErrorCodes.MALFORMED_CLAIM;
+import static org.jose4j.jwt.consumer.ErrorCodes.MISCELLANEOUS;
+
+/**
+ * The validators of a {@link JwtConsumer}, fixed in the order they run when the consumer is built. The
+ * built-in validators share a {@link ClaimsSnapshot} so each claim is only read and converted once per JWT.
+ * Normally every validator runs and all the errors are collected but, when failing fast, validation stops at the first error.
+ * A replay validator, which records the use of a JWT, runs last and only when everything else has passed.
+ */
+class ValidationPlan
+{
+    private final ErrorCodeValidator[] validators;
+    private final ErrorCodeValidator replayValidator;
+    private final boolean failFast;
+
+    ValidationPlan(List<ErrorCodeValidator> validators, ErrorCodeValidator replayValidator, boolean failFast)
+    {
+        this.validators = validators.toArray(new ErrorCodeValidator[validators.size()]);
+        this.replayValidator = replayValidator;
+        this.failFast = failFast;
+    }
+
+    /**
+     * @return the errors, which is an empty list if the JWT is valid
+     */
+    List<ErrorCodeValidator.Error> validate(JwtContext jwtCtx)
+    {
+        jwtCtx.setClaimsSnapshot(new ClaimsSnapshot(jwtCtx.getJwtClaims()));
+        try
+        {
+            List<ErrorCodeValidator.Error> issues = null;
+            for (ErrorCodeValidator validator : validators)
+            {
+                ErrorCodeValidator.Error error = run(validator, jwtCtx);
+                if (error != null)
+                {
+                    if (failFast)
+                    {
+                        return Collections.singletonList(error);
+                    }
+
+                    if (issues == null)
+                    {
+                        issues = new ArrayList<>();
+                    }
+                    issues.add(error);
+                }
+            }
+
+            if (issues != null)
+            {
+                return issues;
+            }
+
+            if (replayValidator != null)
+            {
+                ErrorCodeValidator.Error error = run(replayValidator, jwtCtx);
+                if (error != null)
+                {
+                    return Collections.singletonList(error);
+                }
+            }
+
+            return Collections.emptyList();
+        }
+        finally
+        {
+            jwtCtx.setClaimsSnapshot(null);
+        }
+    }
+
+    boolean isFailFast()
+    {
+        return failFast;
+    }
+
+    private ErrorCodeValidator.Error run(ErrorCodeValidator validator, JwtContext jwtCtx)
+    {
+        long start = InstrumentationRegistry.start();
+        Outcome outcome = Outcome.FAILURE;
+        ErrorCodeValidator.Error error;
+        try
+        {
+            error = validator.validate(jwtCtx);
+        }
+        catch (MalformedClaimException e)
+        {
+            error = new ErrorCodeValidator.Error(MALFORMED_CLAIM, e.getMessage());
+            outcome = Outcome.ERROR;
+        }
+        catch (Exception e)
+        {
+            String msg = "Unexpected exception thrown from validator " + validator.getClass().getName() + ": " + ExceptionHelp.toStringWithCausesAndAbbreviatedStack(e, JwtConsumer.class);
+            error = new ErrorCodeValidator.Error(MISCELLANEOUS, msg);
+            outcome = Outcome.ERROR;
+        }
+
+        if (error == null)
+        {
+            outcome = Outcome.SUCCESS;
+        }
+        InstrumentationRegistry.record(Operation.VALIDATE, null, validator.getClass().getName(), start, outcome,
+                error == null ? Instrumentation.NO_ERROR_CODE : error.getErrorCode());
+        return error;
+    }
+}
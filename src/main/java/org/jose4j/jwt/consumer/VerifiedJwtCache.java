@@ -0,0 +1,270 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwt.consumer;
+
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwt.MalformedClaimException;
+import org.jose4j.jwt.NumericDate;
+import org.jose4j.jwe.JsonWebEncryption;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwx.JsonWebStructure;
+import org.jose4j.lang.JoseException;
+
+import java.security.Key;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded cache of the results of successfully processing JWTs, which is used by a {@link JwtConsumer}
+ * to skip signature verification, decryption and key resolution when it sees the same JWT again.
+ * Entries are keyed by a SHA-256 digest of the JWT and expire at the earlier of the
+ * JWT's expiration time ("exp"), less the allowed clock skew, and the configured maximum time to live. Validators are
+ * still run on each hit so that time dependent checks, like those of the expiration and not before times, continue to be enforced.
+ * <p>
+ * Only what's needed to rebuild a result is kept, which is each JOSE object's compact serialization and key along
+ * with the plaintext of any JWE. Every hit gets its own new JOSE objects and claims, so callers can change them
+ * without affecting each other.
+ * <p>
+ * Note that a cached JWT will continue to be accepted for as long as it's in the cache even if the key that was used to
+ * verify it is no longer available from the key resolver, so the maximum time to live should reflect how quickly key
+ * rotation or revocation needs to take effect.
+ * <p>
+ * Set up with {@link JwtConsumerBuilder#setVerifiedJwtCache(int, int)}.
+ */
+public class VerifiedJwtCache
+{
+    private final long maxTimeToLiveMillis;
+    private final long clockSkewMillis;
+    private final Map<JwtDigest, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    VerifiedJwtCache(final int maxEntries, int maxTimeToLiveSeconds, int clockSkewSeconds)
+    {
+        if (maxEntries < 1 || maxTimeToLiveSeconds < 1)
+        {
+            throw new IllegalArgumentException("maxEntries and maxTimeToLiveSeconds must be at least 1 but were " + maxEntries + " and " + maxTimeToLiveSeconds);
+        }
+
+        this.maxTimeToLiveMillis = maxTimeToLiveSeconds * 1000L;
+        this.clockSkewMillis = clockSkewSeconds * 1000L;
+        this.entries = new LinkedHashMap<JwtDigest, Entry>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<JwtDigest, Entry> eldest)
+            {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Gets a new {@code JwtContext} for a previously processed JWT. The JOSE objects are rebuilt and the claims are
+     * parsed again from their JSON so that changes the caller makes to them don't affect other callers.
+     * @param digest the digest of the JWT
+     * @param jwt the JWT
+     * @return the context or null, if the JWT isn't in the cache
+     */
+    JwtContext get(JwtDigest digest, String jwt)
+    {
+        Entry entry;
+        synchronized (entries)
+        {
+            entry = entries.get(digest);
+            if (entry != null && entry.expiresAt <= System.currentTimeMillis())
+            {
+                entries.remove(digest);
+                entry = null;
+            }
+        }
+
+        if (entry == null)
+        {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        JwtContext jwtContext;
+        try
+        {
+            jwtContext = new JwtContext(jwt, null, entry.rebuildJoseObjects(jwt));
+            jwtContext.setJwtClaims(JwtClaims.parseLazily(entry.claimsJson, jwtContext));
+        }
+        catch (JoseException | InvalidJwtException e)
+        {
+            // can't happen as the same JWT was parsed when it was first processed
+            remove(digest);
+            misses.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+        return jwtContext;
+    }
+
+    void put(JwtDigest digest, JwtContext jwtContext)
+    {
+        JwtClaims jwtClaims = jwtContext.getJwtClaims();
+        String claimsJson = jwtClaims.getRawJson();
+        if (claimsJson == null)
+        {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        long expiresAt = now + maxTimeToLiveMillis;
+        try
+        {
+            NumericDate exp = jwtClaims.getExpirationTime();
+            if (exp != null)
+            {
+                expiresAt = Math.min(expiresAt, exp.getValueInMillis() - clockSkewMillis);
+            }
+        }
+        catch (MalformedClaimException e)
+        {
+            return;
+        }
+
+        if (expiresAt > now)
+        {
+            Entry entry;
+            try
+            {
+                entry = new Entry(claimsJson, jwtContext.getJoseObjects(), expiresAt);
+            }
+            catch (JoseException e)
+            {
+                return;
+            }
+
+            synchronized (entries)
+            {
+                entries.put(digest, entry);
+            }
+        }
+    }
+
+    void remove(JwtDigest digest)
+    {
+        synchronized (entries)
+        {
+            entries.remove(digest);
+        }
+    }
+
+    /**
+     * Removes all entries from the cache.
+     */
+    public void clear()
+    {
+        synchronized (entries)
+        {
+            entries.clear();
+        }
+    }
+
+    /**
+     * @return the number of entries currently in the cache, which may include some that have expired but not yet been removed
+     */
+    public int size()
+    {
+        synchronized (entries)
+        {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @return the number of times a JWT was found in the cache
+     */
+    public long getHitCount()
+    {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of times a JWT was not found in the cache
+     */
+    public long getMissCount()
+    {
+        return misses.get();
+    }
+
+    private static class Entry
+    {
+        private final String claimsJson;
+        private final Key[] keys;
+        private final byte[][] plaintexts;
+        private final long expiresAt;
+
+        /**
+         * @param joseObjects the JOSE objects, innermost first, all of which have already been verified or decrypted
+         */
+        private Entry(String claimsJson, List<JsonWebStructure> joseObjects, long expiresAt) throws JoseException
+        {
+            this.claimsJson = claimsJson;
+            this.expiresAt = expiresAt;
+
+            int size = joseObjects.size();
+            keys = new Key[size];
+            plaintexts = new byte[size][];
+            for (int i = 0; i < size; i++)
+            {
+                JsonWebStructure joseObject = joseObjects.get(i);
+                keys[i] = joseObject.getKey();
+                if (joseObject instanceof JsonWebEncryption)
+                {
+                    plaintexts[i] = ((JsonWebEncryption) joseObject).getPlaintextBytes().clone();
+                }
+            }
+        }
+
+        /**
+         * Parses new JOSE objects from the JWT, the outermost from the JWT itself and each of the others from the payload
+         * of the one around it, setting the plaintext of each JWE rather than decrypting it again.
+         * @return the JOSE objects, innermost first
+         */
+        private List<JsonWebStructure> rebuildJoseObjects(String jwt) throws JoseException
+        {
+            JsonWebStructure[] joseObjects = new JsonWebStructure[keys.length];
+            String compactSerialization = jwt;
+            for (int i = keys.length - 1; i >= 0; i--)
+            {
+                JsonWebStructure joseObject = JsonWebStructure.fromCompactSerialization(compactSerialization);
+                joseObject.setKey(keys[i]);
+                if (joseObject instanceof JsonWebEncryption)
+                {
+                    JsonWebEncryption jwe = (JsonWebEncryption) joseObject;
+                    jwe.setPlaintext(plaintexts[i].clone());
+                    compactSerialization = jwe.getPlaintextString();
+                }
+                else
+                {
+                    compactSerialization = ((JsonWebSignature) joseObject).getUnverifiedPayload();
+                }
+                joseObjects[i] = joseObject;
+            }
+            return Collections.unmodifiableList(Arrays.asList(joseObjects));
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwx;
+
+/**
+ * An immutable view of the period separated parts of a JOSE compact serialization.
+ * The parts are identified by their start and end offsets in the original string
+ * so that they can be decoded in place without first being copied into substrings.
+ * Instances are obtained from {@link CompactSerializer#tokenize(String)}.
+ */
+public class CompactSerializationParts
+{
+    private final String compactSerialization;
+    private final int[] starts;
+    private final int[] ends;
+    private final int count;
+
+    CompactSerializationParts(String compactSerialization, int[] starts, int[] ends, int count)
+    {
+        this.compactSerialization = compactSerialization;
+        this.starts = starts;
+        this.ends = ends;
+        this.count = count;
+    }
+
+    /**
+     * @return the compact serialization that these parts are a view of
+     */
+    public String getCompactSerialization()
+    {
+        return compactSerialization;
+    }
+
+    /**
+     * @return the number of parts
+     */
+    public int size()
+    {
+        return count;
+    }
+
+    /**
+     * @param index the index of the part
+     * @return the offset of the first character of the part in the compact serialization
+     */
+    public int start(int index)
+    {
+        checkIndex(index);
+        return starts[index];
+    }
+
+    /**
+     * @param index the index of the part
+     * @return the offset just past the last character of the part in the compact serialization
+     */
+    public int end(int index)
+    {
+        checkIndex(index);
+        return ends[index];
+    }
+
+    /**
+     * @param index the index of the part
+     * @return the number of characters in the part
+     */
+    public int length(int index)
+    {
+        checkIndex(index);
+        return ends[index] - starts[index];
+    }
+
+    public boolean isEmpty(int index)
+    {
+        return length(index) == 0;
+    }
+
+    /**
+     * Copies out the given part as its own string.
+     * @param index the index of the part
+     * @return the part as a string
+     */
+    public String get(int index)
+    {
+        checkIndex(index);
+        return compactSerialization.substring(starts[index], ends[index]);
+    }
+
+    /**
+     * @return a copy of all the parts as strings
+     */
+    public String[] toArray()
+    {
+        String[] parts = new String[count];
+        for (int i = 0; i < count; i++)
+        {
+            parts[i] = get(i);
+        }
+        return parts;
+    }
+
+    private void checkIndex(int index)
+    {
+        if (index < 0 || index >= count)
+        {
+            throw new IndexOutOfBoundsException("Part index " + index + " is out of bounds for " + count + " parts.");
+        }
+    }
+}
@@ -21,23 +21,72 @@ package org.jose4j.jwx;
 public class CompactSerializer
 {
     private static final String PERIOD_SEPARATOR = ".";
-    private static final String PERIOD_SEPARATOR_REGEX = "\\.";
+    private static final char PERIOD_SEPARATOR_CHAR = '.';
 
     private static final String EMPTY_STRING = "";
 
+    private static final int TYPICAL_MAX_PARTS = 5;
+
     public static String[] deserialize(String compactSerialization)
     {
-        String[] parts = compactSerialization.split(PERIOD_SEPARATOR_REGEX);
+        return tokenize(compactSerialization).toArray();
+    }
+
+    /**
+     * Finds the period separated parts of the given compact serialization in a single pass
+     * without copying any of them. The resulting parts are the same as those produced by
+     * {@link #deserialize(String)}.
+     * @param compactSerialization the compact serialization
+     * @return a view of the parts of the compact serialization
+     */
+    public static CompactSerializationParts tokenize(String compactSerialization)
+    {
+        int length = compactSerialization.length();
+        int[] starts = new int[TYPICAL_MAX_PARTS];
+        int[] ends = new int[TYPICAL_MAX_PARTS];
+        int count = 0;
+        int start = 0;
+        for (int i = 0; i <= length; i++)
+        {
+            if (i == length || compactSerialization.charAt(i) == PERIOD_SEPARATOR_CHAR)
+            {
+                if (count == starts.length)
+                {
+                    starts = grow(starts);
+                    ends = grow(ends);
+                }
+                starts[count] = start;
+                ends[count] = i;
+                count++;
+                start = i + 1;
+            }
+        }
 
-        if (compactSerialization.endsWith(PERIOD_SEPARATOR))
+        // keep the long-standing semantics of String.split, which drops trailing empty parts,
+        // followed by the addition of a single empty part when the input ends with a period
+        if (count > 1)
         {
-            String[] tempParts = new String[parts.length + 1];
-            System.arraycopy(parts, 0, tempParts, 0, parts.length);
-            tempParts[parts.length] = EMPTY_STRING;
-            parts = tempParts;
+            while (count > 0 && starts[count - 1] == ends[count - 1])
+            {
+                count--;
+            }
+
+            if (compactSerialization.charAt(length - 1) == PERIOD_SEPARATOR_CHAR)
+            {
+                starts[count] = length;
+                ends[count] = length;
+                count++;
+            }
         }
 
-        return parts;
+        return new CompactSerializationParts(compactSerialization, starts, ends, count);
+    }
+
+    private static int[] grow(int[] array)
+    {
+        int[] bigger = new int[array.length * 2];
+        System.arraycopy(array, 0, bigger, 0, array.length);
+        return bigger;
     }
 
     public static String serialize(String... parts)
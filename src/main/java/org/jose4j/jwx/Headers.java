@@ -17,6 +17,7 @@
 package org.jose4j.jwx;
 
 import org.jose4j.base64url.Base64Url;
+import org.jose4j.json.JsonUtf8Writer;
 import org.jose4j.json.JsonUtil;
 import org.jose4j.jwk.JsonWebKey;
 import org.jose4j.jwk.PublicJsonWebKey;
@@ -49,8 +50,24 @@ public class Headers
     {
         if (encodedHeader == null)
         {
-            String headerAsString = getFullHeaderAsJsonString();
-            encodedHeader = base64url.base64UrlEncodeUtf8ByteRepresentation(headerAsString);
+            if (header != null)
+            {
+                encodedHeader = base64url.base64UrlEncodeUtf8ByteRepresentation(header);
+            }
+            else
+            {
+                // straight from the map to UTF-8 to base64url without the JSON ever being a string
+                JsonUtf8Writer writer = JsonUtf8Writer.acquire();
+                try
+                {
+                    writer.write(headerMap);
+                    encodedHeader = base64url.base64UrlEncode(writer.getBuffer(), 0, writer.size());
+                }
+                finally
+                {
+                    writer.release();
+                }
+            }
         }
         return encodedHeader;
     }
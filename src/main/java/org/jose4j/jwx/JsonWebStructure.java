@@ -67,6 +67,18 @@ public abstract class JsonWebStructure
     abstract public String getCompactSerialization() throws JoseException;
     abstract protected void setCompactSerializationParts(String[] parts) throws JoseException;
 
+    /**
+     * Sets the parts of the compact serialization from a view over the original string. The default
+     * implementation copies the parts out into strings but subclasses can override to
+     * decode the parts in place.
+     * @param parts the parts of the compact serialization
+     * @throws JoseException if the parts aren't valid
+     */
+    protected void setCompactSerializationParts(CompactSerializationParts parts) throws JoseException
+    {
+        setCompactSerializationParts(parts.toArray());
+    }
+
     abstract public String getPayload() throws JoseException;
     abstract public void setPayload(String payload);
 
@@ -76,12 +88,12 @@ public abstract class JsonWebStructure
     public static JsonWebStructure fromCompactSerialization(String cs) throws JoseException
     {
         JsonWebStructure jsonWebObject;
-        String[] parts = CompactSerializer.deserialize(cs);
-        if (parts.length == JsonWebEncryption.COMPACT_SERIALIZATION_PARTS)
+        CompactSerializationParts parts = CompactSerializer.tokenize(cs);
+        if (parts.size() == JsonWebEncryption.COMPACT_SERIALIZATION_PARTS)
         {
             jsonWebObject = new JsonWebEncryption();
         }
-        else if (parts.length == JsonWebSignature.COMPACT_SERIALIZATION_PARTS)
+        else if (parts.size() == JsonWebSignature.COMPACT_SERIALIZATION_PARTS)
         {
             jsonWebObject = new JsonWebSignature();
         }
@@ -90,7 +102,7 @@ public abstract class JsonWebStructure
             throw new JoseException("Invalid JOSE Compact Serialization. Expecting either "
                     + JsonWebSignature.COMPACT_SERIALIZATION_PARTS + " or "
                     + JsonWebEncryption.COMPACT_SERIALIZATION_PARTS
-                    + " parts for JWS or JWE respectively but was " + parts.length + ".");
+                    + " parts for JWS or JWE respectively but was " + parts.size() + ".");
         }
 
         jsonWebObject.setCompactSerializationParts(parts);
@@ -100,7 +112,7 @@ public abstract class JsonWebStructure
 
     public void setCompactSerialization(String compactSerialization) throws JoseException
     {
-    	String[] parts = CompactSerializer.deserialize(compactSerialization);
+        CompactSerializationParts parts = CompactSerializer.tokenize(compactSerialization);
         setCompactSerializationParts(parts);
         rawCompactSerialization = compactSerialization;
     }
@@ -143,6 +155,14 @@ public abstract class JsonWebStructure
         }
     }
 
+    protected void checkNotEmptyPart(CompactSerializationParts parts, int index, String partName) throws JoseException
+    {
+        if (parts.isEmpty(index))
+        {
+            throw new JoseException("The "+ partName +" cannot be empty.");
+        }
+    }
+
     public String getHeader(String name)
     {
         return headers.getStringHeaderValue(name);
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.keys.resolvers;
+
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwx.JsonWebStructure;
+import org.jose4j.lang.UnresolvableKeyException;
+
+import java.security.Key;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * A {@link VerificationKeyResolver} that can tell when resolving a key would block, on a request to a JWKS endpoint
+ * for example, and do that part on a separate executor meant for I/O instead. This lets
+ * {@link org.jose4j.jwt.consumer.JwtConsumer#processAsync(String, Executor, Executor, org.jose4j.jwt.consumer.JwtConsumerCallback)}
+ * keep blocking I/O off the threads doing the cryptographic work.
+ */
+public interface AsyncVerificationKeyResolver extends VerificationKeyResolver
+{
+    /**
+     * Resolves the key, but only if that can be done without blocking.
+     * @param jws the JsonWebSignature that's about to be verified
+     * @param nestingContext a list of JOSE objects, if any, in which the JWS was nested
+     * @return the key or null, if resolving it needs blocking I/O and {@link #resolveKeyAsync} should be used instead
+     * @throws UnresolvableKeyException if no appropriate key can be found
+     */
+    Key resolveKeyIfReady(JsonWebSignature jws, List<JsonWebStructure> nestingContext) throws UnresolvableKeyException;
+
+    /**
+     * Resolves the key, doing any blocking I/O on the given executor, and passes the result to the callback.
+     * @param jws the JsonWebSignature that's about to be verified
+     * @param nestingContext a list of JOSE objects, if any, in which the JWS was nested
+     * @param ioExecutor the executor for blocking I/O
+     * @param callback receives the key or the reason it couldn't be resolved
+     */
+    void resolveKeyAsync(JsonWebSignature jws, List<JsonWebStructure> nestingContext, Executor ioExecutor, KeyResolutionCallback callback);
+}
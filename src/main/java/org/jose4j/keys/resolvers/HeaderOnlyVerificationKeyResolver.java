@@ -0,0 +1,31 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.keys.resolvers;
+
+/**
+ * A {@link VerificationKeyResolver} that can say whether the key it resolves depends only on the JWS header,
+ * in which case JWSs with the same header always get the same key and the resolution can be reused for them,
+ * as {@link org.jose4j.jwt.consumer.JwtConsumer#processBatch(java.util.List)} does.
+ */
+public interface HeaderOnlyVerificationKeyResolver extends VerificationKeyResolver
+{
+    /**
+     * @return true if the key is chosen based only on the JWS header, false if it might also depend on
+     * the payload, the signature, the nesting context or anything else that can differ between JWSs with the same header
+     */
+    boolean isHeaderOnly();
+}
@@ -17,6 +17,7 @@ package org.jose4j.keys.resolvers;
 
 import org.jose4j.jwk.HttpsJwks;
 import org.jose4j.jwk.JsonWebKey;
+import org.jose4j.jwk.JsonWebKeyIndex;
 import org.jose4j.jwk.VerificationJwkSelector;
 import org.jose4j.jws.JsonWebSignature;
 import org.jose4j.jwx.JsonWebStructure;
@@ -28,11 +29,13 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.security.Key;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
- *
+ * Resolves verification keys from the JWKs at an HTTPS JWKS endpoint. As an {@link AsyncVerificationKeyResolver},
+ * a key is resolved straight away when the cached JWKs have it and otherwise the JWKs are fetched on the I/O executor.
  */
-public class HttpsJwksVerificationKeyResolver implements VerificationKeyResolver
+public class HttpsJwksVerificationKeyResolver implements AsyncVerificationKeyResolver, HeaderOnlyVerificationKeyResolver
 {
     private static final Logger log = LoggerFactory.getLogger(HttpsJwksVerificationKeyResolver.class);
 
@@ -86,8 +89,68 @@ public class HttpsJwksVerificationKeyResolver implements VerificationKeyResolver
         return theChosenOne.getKey();
     }
 
+    @Override
+    public Key resolveKeyIfReady(JsonWebSignature jws, List<JsonWebStructure> nestingContext) throws UnresolvableKeyException
+    {
+        List<JsonWebKey> jsonWebKeys = httpsJkws.getCachedJsonWebKeys();
+        if (jsonWebKeys == null)
+        {
+            return null;
+        }
+
+        JsonWebKey theChosenOne;
+        try
+        {
+            theChosenOne = select(jws, jsonWebKeys);
+        }
+        catch (JoseException e)
+        {
+            throw new UnresolvableKeyException("Unable to find a suitable verification key for JWS w/ header " + jws.getHeaders().getFullHeaderAsJsonString() + " due to an unexpected exception (" + e + ")", e);
+        }
+
+        // when there's no suitable key the JWKs get refreshed, which has to be done on the I/O executor
+        return (theChosenOne == null) ? null : theChosenOne.getKey();
+    }
+
+    @Override
+    public void resolveKeyAsync(final JsonWebSignature jws, final List<JsonWebStructure> nestingContext, Executor ioExecutor, final KeyResolutionCallback callback)
+    {
+        ioExecutor.execute(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                Key key;
+                try
+                {
+                    key = resolveKey(jws, nestingContext);
+                }
+                catch (Throwable t)
+                {
+                    callback.onFailure(t);
+                    return;
+                }
+                callback.onResolved(key);
+            }
+        });
+    }
+
     protected JsonWebKey select(JsonWebSignature jws, List<JsonWebKey> jsonWebKeys) throws JoseException
     {
+        JsonWebKeyIndex index = httpsJkws.getJsonWebKeyIndex();
+        if (index.getJsonWebKeys() == jsonWebKeys)
+        {
+            // the keys are the current cached ones so the index of them can be used
+            if (disambiguateWithVerifySignature)
+            {
+                return verificationJwkSelector.selectWithVerifySignatureDisambiguate(jws, index);
+            }
+            else
+            {
+                return verificationJwkSelector.select(jws, index);
+            }
+        }
+
         if (disambiguateWithVerifySignature)
         {
             return verificationJwkSelector.selectWithVerifySignatureDisambiguate(jws, jsonWebKeys);
@@ -106,4 +169,13 @@ public class HttpsJwksVerificationKeyResolver implements VerificationKeyResolver
     {
         this.disambiguateWithVerifySignature = disambiguateWithVerifySignature;
     }
+
+    /**
+     * @return true unless signature verification is used to disambiguate, which makes the key depend on more than the header
+     */
+    @Override
+    public boolean isHeaderOnly()
+    {
+        return !disambiguateWithVerifySignature;
+    }
 }
@@ -18,6 +18,7 @@ package org.jose4j.keys.resolvers;
 import org.jose4j.jwe.JsonWebEncryption;
 import org.jose4j.jwk.DecryptionJwkSelector;
 import org.jose4j.jwk.JsonWebKey;
+import org.jose4j.jwk.JsonWebKeyIndex;
 import org.jose4j.jwk.PublicJsonWebKey;
 import org.jose4j.jwx.JsonWebStructure;
 import org.jose4j.lang.JoseException;
@@ -32,12 +33,25 @@ import java.util.List;
 public class JwksDecryptionKeyResolver implements DecryptionKeyResolver
 {
     private final List<JsonWebKey> jsonWebKeys;
+    private final JsonWebKeyIndex index;
     private final DecryptionJwkSelector selector = new DecryptionJwkSelector();
     boolean disambiguateWithAttemptDecrypt;
 
     public JwksDecryptionKeyResolver(List<JsonWebKey> jsonWebKeys)
     {
         this.jsonWebKeys = jsonWebKeys;
+        this.index = null;
+    }
+
+    /**
+     * Creates a resolver that selects keys using the given index, which is faster than going through all the keys
+     * when there are a lot of them.
+     * @param index the index of the keys
+     */
+    public JwksDecryptionKeyResolver(JsonWebKeyIndex index)
+    {
+        this.jsonWebKeys = index.getJsonWebKeys();
+        this.index = index;
     }
 
     @Override
@@ -46,7 +60,7 @@ public class JwksDecryptionKeyResolver implements DecryptionKeyResolver
         JsonWebKey selected;
         try
         {
-            List<JsonWebKey> selectedList = selector.selectList(jwe, this.jsonWebKeys);
+            List<JsonWebKey> selectedList = (index != null) ? selector.selectList(jwe, index) : selector.selectList(jwe, this.jsonWebKeys);
             if (selectedList.isEmpty())
             {
                 selected = null;
@@ -16,6 +16,7 @@
 package org.jose4j.keys.resolvers;
 
 import org.jose4j.jwk.JsonWebKey;
+import org.jose4j.jwk.JsonWebKeyIndex;
 import org.jose4j.jwk.VerificationJwkSelector;
 import org.jose4j.jws.JsonWebSignature;
 import org.jose4j.jwx.JsonWebStructure;
@@ -28,9 +29,10 @@ import java.util.List;
 /**
  *
  */
-public class JwksVerificationKeyResolver implements VerificationKeyResolver
+public class JwksVerificationKeyResolver implements HeaderOnlyVerificationKeyResolver
 {
     private List<JsonWebKey> jsonWebKeys;
+    private JsonWebKeyIndex index;
     private VerificationJwkSelector selector = new VerificationJwkSelector();
     private boolean disambiguateWithVerifySignature;
 
@@ -39,6 +41,17 @@ public class JwksVerificationKeyResolver implements VerificationKeyResolver
         this.jsonWebKeys = jsonWebKeys;
     }
 
+    /**
+     * Creates a resolver that selects keys using the given index, which is faster than going through all the keys
+     * when there are a lot of them.
+     * @param index the index of the keys
+     */
+    public JwksVerificationKeyResolver(JsonWebKeyIndex index)
+    {
+        this.jsonWebKeys = index.getJsonWebKeys();
+        this.index = index;
+    }
+
     @Override
     public Key resolveKey(JsonWebSignature jws, List<JsonWebStructure> nestingContext) throws UnresolvableKeyException
     {
@@ -47,11 +60,13 @@ public class JwksVerificationKeyResolver implements VerificationKeyResolver
         {
             if (disambiguateWithVerifySignature)
             {
-                selected = selector.selectWithVerifySignatureDisambiguate(jws, jsonWebKeys);
+                selected = (index != null)
+                        ? selector.selectWithVerifySignatureDisambiguate(jws, index)
+                        : selector.selectWithVerifySignatureDisambiguate(jws, jsonWebKeys);
             }
             else
             {
-                selected = selector.select(jws, jsonWebKeys);
+                selected = (index != null) ? selector.select(jws, index) : selector.select(jws, jsonWebKeys);
             }
         }
         catch (JoseException e)
@@ -81,4 +96,13 @@ public class JwksVerificationKeyResolver implements VerificationKeyResolver
     {
         this.disambiguateWithVerifySignature = disambiguateWithVerifySignature;
     }
+
+    /**
+     * @return true unless signature verification is used to disambiguate, which makes the key depend on more than the header
+     */
+    @Override
+    public boolean isHeaderOnly()
+    {
+        return !disambiguateWithVerifySignature;
+    }
 }
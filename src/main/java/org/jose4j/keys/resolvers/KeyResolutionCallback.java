@@ -0,0 +1,37 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.keys.resolvers;
+
+import java.security.Key;
+
+/**
+ * Receives the result of {@link AsyncVerificationKeyResolver#resolveKeyAsync}. Exactly one of the methods is called,
+ * on whatever thread the resolution finished on.
+ */
+public interface KeyResolutionCallback
+{
+    /**
+     * @param key the resolved key
+     */
+    void onResolved(Key key);
+
+    /**
+     * @param t usually an {@link org.jose4j.lang.UnresolvableKeyException} but possibly anything else that was thrown
+     * while resolving the key
+     */
+    void onFailure(Throwable t);
+}
@@ -36,7 +36,7 @@ import static org.jose4j.jwx.HeaderParameterNames.X509_CERTIFICATE_THUMBPRINT;
 /**
  *
  */
-public class X509VerificationKeyResolver implements VerificationKeyResolver
+public class X509VerificationKeyResolver implements HeaderOnlyVerificationKeyResolver
 {
     private static final Logger log = LoggerFactory.getLogger(X509VerificationKeyResolver.class);
 
@@ -147,4 +147,13 @@ public class X509VerificationKeyResolver implements VerificationKeyResolver
         sb.append(".");
         throw new UnresolvableKeyException(sb.toString());
     }
+
+    /**
+     * @return true unless all the certificates are tried when there's no thumbprint header, which makes the key depend on more than the header
+     */
+    @Override
+    public boolean isHeaderOnly()
+    {
+        return !tryAllOnNoThumbHeader;
+    }
 }
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.mac;
+
+import org.jose4j.lang.JoseException;
+
+import javax.crypto.Mac;
+import java.security.Key;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A per-thread cache of initialized {@link Mac} objects keyed by algorithm, provider and key.
+ * Getting a {@code Mac} from the JCA and initializing it with a key has a non-trivial cost, which
+ * can dominate when verifying lots of HMAC'd content with a small number of keys. Each thread
+ * holds at most {@code maxEntriesPerThread} initialized instances and evicts the least recently
+ * used one when that limit is reached.
+ * <p>
+ * A {@code Mac} obtained from this cache belongs to the calling thread and must only be used
+ * for a complete operation (through {@code doFinal}) on that thread before it's obtained again.
+ * It must not be handed off to other code that might hold onto it.
+ * <p>
+ * Caching is enabled by setting an instance of this class on a {@link org.jose4j.jca.ProviderContext}
+ * with {@link org.jose4j.jca.ProviderContext#setMacCache(MacCache)}. One instance can be shared by
+ * any number of {@code ProviderContext}s.
+ */
+public class MacCache
+{
+    public static final int DEFAULT_MAX_ENTRIES_PER_THREAD = 16;
+
+    private final int maxEntriesPerThread;
+
+    private final ThreadLocal<Map<CacheKey, Mac>> cache = new ThreadLocal<Map<CacheKey, Mac>>()
+    {
+        @Override
+        protected Map<CacheKey, Mac> initialValue()
+        {
+            return new LinkedHashMap<CacheKey, Mac>(maxEntriesPerThread, 0.75f, true)
+            {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<CacheKey, Mac> eldest)
+                {
+                    return size() > maxEntriesPerThread;
+                }
+            };
+        }
+    };
+
+    public MacCache()
+    {
+        this(DEFAULT_MAX_ENTRIES_PER_THREAD);
+    }
+
+    /**
+     * @param maxEntriesPerThread the maximum number of initialized {@code Mac} objects held for each thread
+     */
+    public MacCache(int maxEntriesPerThread)
+    {
+        if (maxEntriesPerThread < 1)
+        {
+            throw new IllegalArgumentException("maxEntriesPerThread must be at least 1 but was " + maxEntriesPerThread);
+        }
+        this.maxEntriesPerThread = maxEntriesPerThread;
+    }
+
+    /**
+     * Gets a {@code Mac} that's been initialized with the given key and is ready for use. A cached instance
+     * for the calling thread is returned when there is one, otherwise a new one is created and cached.
+     * @param algorithm the name of the MAC algorithm
+     * @param key the key
+     * @param provider the name of the JCA provider or null for the system configured providers
+     * @return an initialized {@code Mac}
+     * @throws JoseException if the Mac cannot be obtained or the key is not valid for it
+     */
+    public Mac getInitializedMac(String algorithm, Key key, String provider) throws JoseException
+    {
+        Map<CacheKey, Mac> macs = cache.get();
+        CacheKey cacheKey = new CacheKey(algorithm, provider, key);
+        Mac mac = macs.get(cacheKey);
+        if (mac == null)
+        {
+            mac = MacUtil.getInitializedMac(algorithm, key, provider);
+            macs.put(cacheKey, mac);
+        }
+        else
+        {
+            // make sure nothing is left over from a previous use that didn't get as far as doFinal
+            mac.reset();
+        }
+        return mac;
+    }
+
+    /**
+     * Removes all the cached {@code Mac} objects for the calling thread.
+     */
+    public void clear()
+    {
+        cache.remove();
+    }
+
+    /**
+     * @return the maximum number of initialized {@code Mac} objects held for each thread
+     */
+    public int getMaxEntriesPerThread()
+    {
+        return maxEntriesPerThread;
+    }
+
+    private static class CacheKey
+    {
+        private final String algorithm;
+        private final String provider;
+        private final Key key;
+        private final int hashCode;
+
+        private CacheKey(String algorithm, String provider, Key key)
+        {
+            this.algorithm = algorithm;
+            this.provider = provider;
+            this.key = key;
+
+            int h = algorithm.hashCode();
+            h = 31 * h + (provider == null ? 0 : provider.hashCode());
+            h = 31 * h + key.hashCode();
+            this.hashCode = h;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+
+            if (!(o instanceof CacheKey))
+            {
+                return false;
+            }
+
+            CacheKey that = (CacheKey) o;
+            return algorithm.equals(that.algorithm)
+                    && (provider == null ? that.provider == null : provider.equals(that.provider))
+                    && key.equals(that.key);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hashCode;
+        }
+    }
+}
@@ -44,6 +44,20 @@ public class MacUtil
         return /* of the */ mac;
     }
 
+    /**
+     * Gets an initialized Mac from the given cache or, when the cache is null, directly from the JCA.
+     * @param algorithm the name of the MAC algorithm
+     * @param key the key
+     * @param provider the name of the JCA provider or null for the system configured providers
+     * @param macCache the cache or null for no caching
+     * @return an initialized {@code Mac}
+     * @throws JoseException if the Mac cannot be obtained or the key is not valid for it
+     */
+    public static Mac getInitializedMac(String algorithm, Key key, String provider, MacCache macCache) throws JoseException
+    {
+        return (macCache == null) ? getInitializedMac(algorithm, key, provider) : macCache.getInitializedMac(algorithm, key, provider);
+    }
+
     public static Mac getMac(String algorithm) throws JoseException
     {
         return getMac(algorithm, null);
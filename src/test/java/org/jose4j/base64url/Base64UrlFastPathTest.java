@@ -0,0 +1,73 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.base64url;
+
+import org.jose4j.base64url.internal.apache.commons.codec.binary.Base64;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+
+/**
+ *
+ */
+public class Base64UrlFastPathTest
+{
+    private final Base64 codec = new Base64(-1, null, true);
+
+    @Test
+    public void sameAsGeneralPurposeCodec()
+    {
+        Random random = new Random(7);
+        for (int length = 0; length < 1100; length++)
+        {
+            byte[] bytes = new byte[length];
+            random.nextBytes(bytes);
+            String encoded = Base64UrlFastPath.encode(bytes);
+            assertThat(encoded, equalTo(codec.encodeToString(bytes)));
+            assertArrayEquals(bytes, Base64UrlFastPath.decode(encoded, 0, encoded.length()));
+
+            String framed = "xy." + encoded + ".z";
+            assertArrayEquals(bytes, new Base64Url().base64UrlDecode(framed, 3, encoded.length()));
+        }
+    }
+
+    @Test
+    public void danglingCharacterIgnoredLikeBefore()
+    {
+        for (String encoded : new String[] {"Q", "QUJDR", "QUJDRA", "QUJDREV"})
+        {
+            assertArrayEquals(codec.decode(encoded), Base64UrlFastPath.decode(encoded, 0, encoded.length()));
+        }
+    }
+
+    @Test
+    public void malformedInputsHandledLikeBefore()
+    {
+        String[] malformed = {"QUJD=", "QUJDRA==", "QU JD", "QU+/", "QU\nJD", "QUé", "QU*D", "ĀQUJD", "QU%JDRA"};
+        for (String encoded : malformed)
+        {
+            assertThat(Base64UrlFastPath.decode(encoded, 0, encoded.length()), nullValue());
+            assertArrayEquals(codec.decode(encoded), Base64Url.decode(encoded));
+            assertArrayEquals(codec.decode(encoded), new Base64Url().base64UrlDecode(encoded, 0, encoded.length()));
+        }
+    }
+}
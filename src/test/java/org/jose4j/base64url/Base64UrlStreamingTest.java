@@ -0,0 +1,230 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.base64url;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ *
+ */
+public class Base64UrlStreamingTest
+{
+    private final Random random = new Random(42);
+
+    @Test
+    public void encodeAndDecodeInPiecesToArrays()
+    {
+        for (int i = 0; i < 500; i++)
+        {
+            byte[] bytes = randomBytes(random.nextInt(300));
+            String expected = Base64Url.encode(bytes);
+
+            Base64UrlEncoder encoder = new Base64UrlEncoder();
+            byte[] encoded = new byte[Base64UrlEncoder.encodedLength(bytes.length)];
+            int split = random.nextInt(bytes.length + 1);
+            int written = encoder.encode(bytes, 0, split, encoded, 0);
+            written += encoder.encode(bytes, split, bytes.length - split, encoded, written);
+            written += encoder.finish(encoded, written);
+            assertThat(written, equalTo(expected.length()));
+            assertThat(new String(encoded, 0, written), equalTo(expected));
+
+            char[] chars = new char[Base64UrlEncoder.encodedLength(bytes.length)];
+            written = encoder.encode(bytes, 0, split, chars, 0);
+            written += encoder.encode(bytes, split, bytes.length - split, chars, written);
+            written += encoder.finish(chars, written);
+            assertThat(new String(chars, 0, written), equalTo(expected));
+
+            Base64UrlDecoder decoder = new Base64UrlDecoder();
+            byte[] decoded = new byte[bytes.length];
+            split = random.nextInt(encoded.length + 1);
+            int decodedLength = decoder.decode(encoded, 0, split, decoded, 0);
+            decodedLength += decoder.decode(expected, split, expected.length() - split, decoded, decodedLength);
+            decodedLength += decoder.finish(decoded, decodedLength);
+            assertThat(decodedLength, equalTo(bytes.length));
+            assertArrayEquals(bytes, decoded);
+            assertArrayEquals(Base64Url.decode(expected), decoded);
+        }
+    }
+
+    @Test
+    public void encodeAndDecodeByteBuffers()
+    {
+        for (boolean direct : new boolean[] {false, true})
+        {
+            for (int i = 0; i < 200; i++)
+            {
+                byte[] bytes = randomBytes(random.nextInt(5000));
+                String expected = Base64Url.encode(bytes);
+
+                ByteBuffer src = allocate(bytes.length, direct);
+                src.put(bytes).flip();
+                ByteBuffer encoded = allocate(expected.length(), direct);
+                Base64UrlEncoder encoder = new Base64UrlEncoder();
+                ByteBuffer window = allocate(4 + random.nextInt(64), direct);
+                while (src.hasRemaining())
+                {
+                    window.clear();
+                    encoder.encode(src, window);
+                    window.flip();
+                    encoded.put(window);
+                }
+                encoder.finish(encoded);
+                assertThat(encoded.remaining(), equalTo(0));
+                encoded.flip();
+
+                byte[] encodedBytes = new byte[encoded.remaining()];
+                encoded.duplicate().get(encodedBytes);
+                assertThat(new String(encodedBytes), equalTo(expected));
+
+                ByteBuffer decoded = allocate(bytes.length, direct);
+                Base64UrlDecoder decoder = new Base64UrlDecoder();
+                window = allocate(3 + random.nextInt(64), direct);
+                while (encoded.hasRemaining())
+                {
+                    window.clear();
+                    decoder.decode(encoded, window);
+                    window.flip();
+                    decoded.put(window);
+                }
+                decoder.finish(decoded);
+                assertThat(decoded.remaining(), equalTo(0));
+                decoded.flip();
+
+                byte[] decodedBytes = new byte[decoded.remaining()];
+                decoded.get(decodedBytes);
+                assertArrayEquals(bytes, decodedBytes);
+            }
+        }
+    }
+
+    @Test
+    public void streams() throws IOException
+    {
+        for (int i = 0; i < 50; i++)
+        {
+            byte[] bytes = randomBytes(random.nextInt(20000));
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            Base64UrlOutputStream out = new Base64UrlOutputStream(baos);
+            int offset = 0;
+            while (offset < bytes.length)
+            {
+                int length = Math.min(bytes.length - offset, random.nextInt(5000));
+                out.write(bytes, offset, length);
+                offset += length;
+            }
+            out.close();
+            String encoded = baos.toString("US-ASCII");
+            assertThat(encoded, equalTo(Base64Url.encode(bytes)));
+
+            InputStream in = new Base64UrlInputStream(new ByteArrayInputStream(encoded.getBytes("US-ASCII")));
+            ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1 + random.nextInt(3000)];
+            int read;
+            while ((read = in.read(buffer)) != -1)
+            {
+                decoded.write(buffer, 0, read);
+            }
+            assertArrayEquals(bytes, decoded.toByteArray());
+        }
+    }
+
+    @Test
+    public void rejectInvalidCharacters()
+    {
+        for (String encoded : new String[] {"YWJj=", "YW Jj", "YW+j", "YW/j", "YWéj", "YWJj\n"})
+        {
+            try
+            {
+                byte[] encodedBytes = encoded.getBytes("UTF-8");
+                new Base64UrlDecoder().decode(encodedBytes, 0, encodedBytes.length, new byte[16], 0);
+                fail("should have rejected " + encoded);
+            }
+            catch (IllegalArgumentException e)
+            {
+                // expected
+            }
+            catch (IOException e)
+            {
+                throw new IllegalStateException(e);
+            }
+
+            try
+            {
+                new Base64UrlDecoder().decode(encoded, 0, encoded.length(), new byte[16], 0);
+                fail("should have rejected " + encoded);
+            }
+            catch (IllegalArgumentException e)
+            {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void rejectSingleLeftOverCharacter() throws IOException
+    {
+        Base64UrlDecoder decoder = new Base64UrlDecoder();
+        byte[] dst = new byte[8];
+        assertThat(decoder.decode("YWJjZ", 0, 5, dst, 0), equalTo(3));
+        try
+        {
+            decoder.finish(dst, 3);
+            fail("should have rejected a dangling character");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+
+        InputStream in = new Base64UrlInputStream(new ByteArrayInputStream("YWJjZ".getBytes("US-ASCII")));
+        try
+        {
+            while (in.read() != -1)
+            {
+            }
+            fail("should have rejected a dangling character");
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+    }
+
+    private byte[] randomBytes(int length)
+    {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    private static ByteBuffer allocate(int capacity, boolean direct)
+    {
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+}
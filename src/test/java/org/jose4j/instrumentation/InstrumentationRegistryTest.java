@@ -0,0 +1,213 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.instrumentation;
+
+import org.jose4j.jwe.ContentEncryptionAlgorithmIdentifiers;
+import org.jose4j.jwe.JsonWebEncryption;
+import org.jose4j.jwe.KeyManagementAlgorithmIdentifiers;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwt.consumer.ErrorCodes;
+import org.jose4j.jwt.consumer.InvalidJwtException;
+import org.jose4j.jwt.consumer.JwtConsumer;
+import org.jose4j.jwt.consumer.JwtConsumerBuilder;
+import org.jose4j.keys.AesKey;
+import org.jose4j.keys.HmacKey;
+import org.jose4j.lang.ByteUtil;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class InstrumentationRegistryTest
+{
+    private final RecordingInstrumentation recorder = new RecordingInstrumentation();
+
+    @After
+    public void reset()
+    {
+        InstrumentationRegistry.setInstrumentation(null);
+    }
+
+    @Test
+    public void disabledByDefault()
+    {
+        assertSame(Instrumentation.NO_OP, InstrumentationRegistry.getInstrumentation());
+        assertFalse(InstrumentationRegistry.isEnabled());
+        assertEquals(InstrumentationRegistry.NOT_STARTED, InstrumentationRegistry.start());
+
+        InstrumentationRegistry.setInstrumentation(recorder);
+        assertTrue(InstrumentationRegistry.isEnabled());
+        InstrumentationRegistry.record(Operation.SIGN, "HS256", null, InstrumentationRegistry.NOT_STARTED, Outcome.SUCCESS, Instrumentation.NO_ERROR_CODE);
+        assertTrue(recorder.events.isEmpty());
+    }
+
+    @Test
+    public void signAndVerify() throws Exception
+    {
+        InstrumentationRegistry.setInstrumentation(recorder);
+        HmacKey key = new HmacKey(ByteUtil.randomBytes(32));
+
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setPayload("meh");
+        jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.HMAC_SHA256);
+        jws.setKeyIdHeaderValue("k1");
+        jws.setKey(key);
+        String cs = jws.getCompactSerialization();
+        recorder.assertEvent(0, Operation.SIGN, "HS256", "k1", Outcome.SUCCESS, Instrumentation.NO_ERROR_CODE);
+
+        jws = new JsonWebSignature();
+        jws.setCompactSerialization(cs);
+        jws.setKey(key);
+        assertTrue(jws.verifySignature());
+        recorder.assertEvent(1, Operation.VERIFY, "HS256", "k1", Outcome.SUCCESS, Instrumentation.NO_ERROR_CODE);
+
+        jws = new JsonWebSignature();
+        jws.setCompactSerialization(cs);
+        jws.setKey(new HmacKey(ByteUtil.randomBytes(32)));
+        assertFalse(jws.verifySignature());
+        recorder.assertEvent(2, Operation.VERIFY, "HS256", "k1", Outcome.FAILURE, Instrumentation.NO_ERROR_CODE);
+        assertEquals(3, recorder.events.size());
+    }
+
+    @Test
+    public void encryptAndDecrypt() throws Exception
+    {
+        InstrumentationRegistry.setInstrumentation(recorder);
+        AesKey key = new AesKey(ByteUtil.randomBytes(16));
+
+        JsonWebEncryption jwe = new JsonWebEncryption();
+        jwe.setPlaintext("meh");
+        jwe.setAlgorithmHeaderValue(KeyManagementAlgorithmIdentifiers.A128KW);
+        jwe.setEncryptionMethodHeaderParameter(ContentEncryptionAlgorithmIdentifiers.AES_128_CBC_HMAC_SHA_256);
+        jwe.setKey(key);
+        String cs = jwe.getCompactSerialization();
+        recorder.assertEvent(0, Operation.ENCRYPT, "A128KW", "A128CBC-HS256", Outcome.SUCCESS, Instrumentation.NO_ERROR_CODE);
+
+        jwe = new JsonWebEncryption();
+        jwe.setCompactSerialization(cs);
+        jwe.setKey(new AesKey(ByteUtil.randomBytes(16)));
+        try
+        {
+            jwe.getPlaintextString();
+            fail("shouldn't decrypt with the wrong key");
+        }
+        catch (Exception e)
+        {
+            // expected
+        }
+        recorder.assertEvent(1, Operation.DECRYPT, "A128KW", "A128CBC-HS256", Outcome.ERROR, Instrumentation.NO_ERROR_CODE);
+    }
+
+    @Test
+    public void consumerResolvesAndValidates() throws Exception
+    {
+        HmacKey key = new HmacKey(ByteUtil.randomBytes(32));
+        JwtClaims claims = new JwtClaims();
+        claims.setSubject("me");
+        claims.setAudience("you");
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setPayload(claims.toJson());
+        jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.HMAC_SHA256);
+        jws.setKeyIdHeaderValue("k2");
+        jws.setKey(key);
+        String jwt = jws.getCompactSerialization();
+
+        JwtConsumer consumer = new JwtConsumerBuilder()
+                .setVerificationKey(key)
+                .setExpectedAudience("someone else")
+                .build();
+
+        InstrumentationRegistry.setInstrumentation(recorder);
+        try
+        {
+            consumer.process(jwt);
+            fail("audience shouldn't be accepted");
+        }
+        catch (InvalidJwtException e)
+        {
+            assertTrue(e.hasErrorCode(ErrorCodes.AUDIENCE_INVALID));
+        }
+
+        recorder.assertEvent(0, Operation.RESOLVE_KEY, "HS256", "k2", Outcome.SUCCESS, Instrumentation.NO_ERROR_CODE);
+        recorder.assertEvent(1, Operation.VERIFY, "HS256", "k2", Outcome.SUCCESS, Instrumentation.NO_ERROR_CODE);
+
+        boolean sawAudienceFailure = false;
+        for (Event event : recorder.events.subList(2, recorder.events.size()))
+        {
+            assertEquals(Operation.VALIDATE, event.operation);
+            assertNull(event.algorithm);
+            assertNotNull(event.detail);
+            if (event.errorCode == ErrorCodes.AUDIENCE_INVALID)
+            {
+                assertEquals(Outcome.FAILURE, event.outcome);
+                sawAudienceFailure = true;
+            }
+        }
+        assertTrue(sawAudienceFailure);
+    }
+
+    static class Event
+    {
+        final Operation operation;
+        final String algorithm;
+        final String detail;
+        final long durationNanos;
+        final Outcome outcome;
+        final int errorCode;
+
+        Event(Operation operation, String algorithm, String detail, long durationNanos, Outcome outcome, int errorCode)
+        {
+            this.operation = operation;
+            this.algorithm = algorithm;
+            this.detail = detail;
+            this.durationNanos = durationNanos;
+            this.outcome = outcome;
+            this.errorCode = errorCode;
+        }
+    }
+
+    static class RecordingInstrumentation implements Instrumentation
+    {
+        final List<Event> events = Collections.synchronizedList(new ArrayList<Event>());
+
+        @Override
+        public void record(Operation operation, String algorithm, String detail, long durationNanos, Outcome outcome, int errorCode)
+        {
+            events.add(new Event(operation, algorithm, detail, durationNanos, outcome, errorCode));
+        }
+
+        void assertEvent(int index, Operation operation, String algorithm, String detail, Outcome outcome, int errorCode)
+        {
+            Event event = events.get(index);
+            assertEquals(operation, event.operation);
+            assertEquals(algorithm, event.algorithm);
+            assertEquals(detail, event.detail);
+            assertEquals(outcome, event.outcome);
+            assertEquals(errorCode, event.errorCode);
+            assertTrue(event.durationNanos >= 0);
+        }
+    }
+}
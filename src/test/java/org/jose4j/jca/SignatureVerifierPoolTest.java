@@ -0,0 +1,132 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jca;
+
+import org.jose4j.jwk.EcJwkGenerator;
+import org.jose4j.jwk.OctetKeyPairJsonWebKey;
+import org.jose4j.jwk.OkpJwkGenerator;
+import org.jose4j.jwk.PublicJsonWebKey;
+import org.jose4j.jwk.RsaJwkGenerator;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.keys.EdDsaKeyUtil;
+import org.jose4j.keys.EllipticCurves;
+import org.jose4j.lang.JoseException;
+import org.junit.Test;
+
+import java.security.PublicKey;
+import java.security.Signature;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class SignatureVerifierPoolTest
+{
+    @Test
+    public void rsaVerifiersReused() throws Exception
+    {
+        PublicJsonWebKey jwk = RsaJwkGenerator.generateJwk(2048);
+        checkPooledVerification(jwk, AlgorithmIdentifiers.RSA_USING_SHA256);
+        checkPooledVerification(jwk, AlgorithmIdentifiers.RSA_PSS_USING_SHA256);
+    }
+
+    @Test
+    public void ecdsaVerifiersReused() throws Exception
+    {
+        PublicJsonWebKey jwk = EcJwkGenerator.generateJwk(EllipticCurves.P256);
+        checkPooledVerification(jwk, AlgorithmIdentifiers.ECDSA_USING_P256_CURVE_AND_SHA256);
+    }
+
+    @Test
+    public void eddsaVerifiersReused() throws Exception
+    {
+        org.junit.Assume.assumeTrue(new EdDsaKeyUtil().isAvailable());
+        PublicJsonWebKey jwk = OkpJwkGenerator.generateJwk(OctetKeyPairJsonWebKey.SUBTYPE_ED25519);
+        checkPooledVerification(jwk, AlgorithmIdentifiers.EDDSA);
+    }
+
+    private void checkPooledVerification(PublicJsonWebKey jwk, String alg) throws JoseException
+    {
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setPayload("pool me");
+        jws.setAlgorithmHeaderValue(alg);
+        jws.setKey(jwk.getPrivateKey());
+        String cs = jws.getCompactSerialization();
+
+        jws = new JsonWebSignature();
+        jws.setPayload("something else");
+        jws.setAlgorithmHeaderValue(alg);
+        jws.setKey(jwk.getPrivateKey());
+        String[] parts = jws.getCompactSerialization().split("\\.");
+        String otherSignature = cs.substring(0, cs.lastIndexOf('.') + 1) + parts[2];
+
+        SignatureVerifierPool pool = new SignatureVerifierPool();
+        ProviderContext providerContext = new ProviderContext();
+        providerContext.setSignatureVerifierPool(pool);
+
+        int times = 5;
+        for (int i = 0; i < times; i++)
+        {
+            assertTrue(verify(cs, jwk.getPublicKey(), providerContext));
+            assertFalse(verify(otherSignature, jwk.getPublicKey(), providerContext));
+        }
+
+        assertEquals(1, pool.getMissCount());
+        assertEquals(times * 2 - 1, pool.getHitCount());
+    }
+
+    private boolean verify(String cs, PublicKey key, ProviderContext providerContext) throws JoseException
+    {
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setProviderContext(providerContext);
+        jws.setCompactSerialization(cs);
+        jws.setKey(key);
+        return jws.verifySignature();
+    }
+
+    @Test
+    public void boundedByKeysAndIdlePerKey() throws Exception
+    {
+        SignatureVerifierPool pool = new SignatureVerifierPool(2, 1);
+        Object alg = new Object();
+        PublicKey key1 = RsaJwkGenerator.generateJwk(2048).getPublicKey();
+        PublicKey key2 = EcJwkGenerator.generateJwk(EllipticCurves.P256).getPublicKey();
+        PublicKey key3 = EcJwkGenerator.generateJwk(EllipticCurves.P256).getPublicKey();
+
+        SignatureVerifierPool.PoolKey poolKey1 = new SignatureVerifierPool.PoolKey(alg, null, null, key1);
+        Signature s1 = Signature.getInstance("SHA256withRSA");
+        Signature s1b = Signature.getInstance("SHA256withRSA");
+        pool.release(poolKey1, s1);
+        pool.release(poolKey1, s1b);
+        assertSame(s1, pool.acquire(new SignatureVerifierPool.PoolKey(alg, null, null, key1)));
+        assertNull(pool.acquire(poolKey1));
+        assertNull(pool.acquire(new SignatureVerifierPool.PoolKey(alg, "SunRsaSign", null, key1)));
+        assertNull(pool.acquire(new SignatureVerifierPool.PoolKey(new Object(), null, null, key1)));
+
+        pool.release(poolKey1, s1);
+        pool.release(new SignatureVerifierPool.PoolKey(alg, null, null, key2), Signature.getInstance("SHA256withECDSA"));
+        pool.release(new SignatureVerifierPool.PoolKey(alg, null, null, key3), Signature.getInstance("SHA256withECDSA"));
+        assertEquals(1, pool.getEvictionCount());
+        assertNull(pool.acquire(poolKey1));
+        assertNotNull(pool.acquire(new SignatureVerifierPool.PoolKey(alg, null, null, key3)));
+
+        pool.clear();
+        assertNull(pool.acquire(new SignatureVerifierPool.PoolKey(alg, null, null, key2)));
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.json;
+
+import org.jose4j.json.internal.json_simple.parser.ContainerFactory;
+import org.jose4j.json.internal.json_simple.parser.JSONParser;
+import org.jose4j.lang.JoseException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the parser against the json-simple parser that it replaced
+ */
+public class JsonParserTest
+{
+    private static final ContainerFactory OLD_CONTAINER_FACTORY = new ContainerFactory()
+    {
+        public List creatArrayContainer()
+        {
+            return new ArrayList<Object>();
+        }
+
+        public Map createObjectContainer()
+        {
+            return new JsonUtil.DupeKeyDisallowingLinkedHashMap();
+        }
+    };
+
+    private static final String[] TOKENS = {
+            "{", "}", "[", "]", ",", ":", " ", "\n", "\t", "\r", "\f",
+            "\"alg\"", "\"kid\"", "\"a\"", "\"\"", "\"a\\u0041\\n\\\"\\/\\\\\"", "\"\\uD83D\\uDE00\"", "\"\u00e9\u4e2d\"",
+            "\"\\x\"", "\"\\u12G4\"", "\"tab\tand\nnewline\"",
+            "0", "-0", "01", "-12", "1.5", "1.5e3", "2E-2", "1e+7", "1.", "1.e5", "-", ".5", "1e", "1.5.3",
+            "9223372036854775807", "9223372036854775808", "-9223372036854775809", "123456789012345678901234567890",
+            "true", "false", "null", "tru", "nul", "True", "x", "'a'", "\u00e9",
+    };
+
+    private Outcome parseOld(String json)
+    {
+        try
+        {
+            return new Outcome(new JSONParser().parse(json, OLD_CONTAINER_FACTORY));
+        }
+        catch (Throwable t)
+        {
+            return new Outcome(t);
+        }
+    }
+
+    private Outcome parseNew(String json)
+    {
+        try
+        {
+            return new Outcome(new JsonParser(json).parse());
+        }
+        catch (JoseException | IllegalArgumentException e)
+        {
+            return new Outcome(e);
+        }
+    }
+
+    private void assertSameOutcome(String json)
+    {
+        Outcome expected = parseOld(json);
+        Outcome actual = parseNew(json);
+        if (expected.failure != null)
+        {
+            assertNotNull("old parser failed but new didn't on " + json + " (" + expected.failure + ")", actual.failure);
+        }
+        else
+        {
+            assertNull("new parser failed but old didn't on " + json + " " + actual.failure, actual.failure);
+            assertSameValue(json, expected.value, actual.value);
+        }
+    }
+
+    private void assertSameValue(String json, Object expected, Object actual)
+    {
+        if (expected == null)
+        {
+            assertNull(json, actual);
+            return;
+        }
+
+        assertNotNull(json, actual);
+        assertEquals(json, expected.getClass(), actual.getClass());
+        if (expected instanceof Map)
+        {
+            Map<?, ?> expectedMap = (Map<?, ?>) expected;
+            Map<?, ?> actualMap = (Map<?, ?>) actual;
+            assertEquals(json, new ArrayList<>(expectedMap.keySet()), new ArrayList<>(actualMap.keySet()));
+            for (Map.Entry<?, ?> e : expectedMap.entrySet())
+            {
+                assertSameValue(json, e.getValue(), actualMap.get(e.getKey()));
+            }
+        }
+        else if (expected instanceof List)
+        {
+            List<?> expectedList = (List<?>) expected;
+            List<?> actualList = (List<?>) actual;
+            assertEquals(json, expectedList.size(), actualList.size());
+            Iterator<?> it = actualList.iterator();
+            for (Object e : expectedList)
+            {
+                assertSameValue(json, e, it.next());
+            }
+        }
+        else
+        {
+            assertEquals(json, expected, actual);
+        }
+    }
+
+    @Test
+    public void sameAsOldParser()
+    {
+        String[] jsons = {
+                "{\"alg\":\"RS256\",\"kid\":\"k1\",\"typ\":\"JWT\"}",
+                "{\"iss\":\"https://example.com\",\"exp\":1300819380,\"aud\":[\"one\",\"two\"],\"nested\":{\"a\":[1,{\"b\":null}]}}",
+                " {\"a\" : 1 , \"b\" : [ ] , \"c\" : { } } ",
+                "[]", "[1,2,3]", "\"str\"", "123", "-1.5e-3", "true", "null", "",  "   ",
+                "{\"a\":1,\"a\":2}", "{\"a\":{\"b\":1,\"b\":2}}", "[{\"b\":1,\"b\":2}]",
+                "{,,\"a\":1,,}", "{\"a\" 1}", "{\"a\"::1}", "{\"a\":1 \"b\":2}", "[1 2,,3,]", "[,]",
+                "{\"a\"}", "{\"a\":}", "{1:2}", "{\"a\":1]", "[1}", "{\"a\":1}}", "[[]]]", "{}{}", "{} x",
+                "{\"a\":1.}", "{\"a\":-}", "{\"a\":1e}", "[1true]", "[truefalse]", "[nulll]",
+                "{\"a\":\"\\x\"}", "{\"a\":\"\\u12\"}", "{\"a\":\"\\u12G4\\\\\\\"\\\"}", "\"a\\", "{\"a\":\"unterminated", "{\"a\":\"b\"\f}",
+                "{\"x5t#S256\":\"v\",\"key_ops\":[\"sign\"],\"\\u0061lg\":\"HS256\"}",
+        };
+
+        for (String json : jsons)
+        {
+            assertSameOutcome(json);
+        }
+    }
+
+    @Test
+    public void randomTokensSameAsOldParser()
+    {
+        Random random = new Random(0x6a6f7365L);
+        for (int i = 0; i < 50000; i++)
+        {
+            StringBuilder sb = new StringBuilder();
+            int count = 1 + random.nextInt(12);
+            for (int j = 0; j < count; j++)
+            {
+                sb.append(TOKENS[random.nextInt(TOKENS.length)]);
+            }
+            assertSameOutcome(sb.toString());
+        }
+    }
+
+    @Test
+    public void randomDocumentsSameAsOldParser()
+    {
+        Random random = new Random(0x6a777473L);
+        for (int i = 0; i < 2000; i++)
+        {
+            Map<String, Object> map = randomObject(random, 0);
+            String json = JsonUtil.toJson(map);
+            assertSameOutcome(json);
+        }
+    }
+
+    private Map<String, Object> randomObject(Random random, int depth)
+    {
+        Map<String, Object> map = new LinkedHashMap<>();
+        int size = random.nextInt(6);
+        for (int i = 0; i < size; i++)
+        {
+            map.put(randomString(random), randomValue(random, depth + 1));
+        }
+        return map;
+    }
+
+    private Object randomValue(Random random, int depth)
+    {
+        switch (random.nextInt(depth > 3 ? 6 : 8))
+        {
+            case 0:
+                return randomString(random);
+            case 1:
+                return random.nextLong();
+            case 2:
+                return random.nextDouble() * Math.pow(10, random.nextInt(40) - 20);
+            case 3:
+                return random.nextBoolean();
+            case 4:
+                return null;
+            case 5:
+                return random.nextInt(1000);
+            case 6:
+                return randomObject(random, depth);
+            default:
+                List<Object> list = new ArrayList<>();
+                int size = random.nextInt(5);
+                for (int i = 0; i < size; i++)
+                {
+                    list.add(randomValue(random, depth + 1));
+                }
+                return list;
+        }
+    }
+
+    private String randomString(Random random)
+    {
+        char[] chars = new char[random.nextInt(10)];
+        for (int i = 0; i < chars.length; i++)
+        {
+            int kind = random.nextInt(10);
+            chars[i] = kind == 0 ? (char) random.nextInt(0x20) : kind == 1 ? (char) random.nextInt(0xFFFF) : (char) (0x20 + random.nextInt(0x5f));
+        }
+        return new String(chars);
+    }
+
+    @Test
+    public void deliberateDifferences()
+    {
+        // json-simple ignored an unterminated string at the very end of the input
+        assertNotNull(parseOld("{}\"abc").value);
+        assertNotNull(parseNew("{}\"abc").failure);
+    }
+
+    @Test
+    public void commonNamesInterned() throws JoseException
+    {
+        String json = new String("{\"alg\":\"ES256\",\"kid\":\"1\",\"exp\":1,\"x5t#S256\":\"t\",\"other\":1}".toCharArray());
+        Map<String, Object> map = JsonUtil.parseJson(json);
+        for (String name : Arrays.asList("alg", "kid", "exp", "x5t#S256"))
+        {
+            boolean found = false;
+            for (String key : map.keySet())
+            {
+                found |= key == name;
+            }
+            assertTrue(name, found);
+        }
+    }
+
+    @Test
+    public void deepNesting() throws JoseException
+    {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100000; i++)
+        {
+            sb.append("{\"a\":[");
+        }
+        for (int i = 0; i < 100000; i++)
+        {
+            sb.append("]}");
+        }
+        Map<String, Object> map = JsonUtil.parseJson(sb.toString());
+        assertEquals(1, map.size());
+    }
+
+    private static class Outcome
+    {
+        private final Object value;
+        private final Throwable failure;
+
+        private Outcome(Object value)
+        {
+            this.value = value;
+            this.failure = null;
+        }
+
+        private Outcome(Throwable failure)
+        {
+            this.value = null;
+            this.failure = failure;
+        }
+    }
+}
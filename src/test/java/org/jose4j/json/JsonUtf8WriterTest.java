@@ -0,0 +1,148 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.json;
+
+import org.jose4j.base64url.Base64Url;
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwx.Headers;
+import org.jose4j.lang.StringUtil;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+
+/**
+ *
+ */
+public class JsonUtf8WriterTest
+{
+    @Test
+    public void sameBytesAsToJson()
+    {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("alg", "ES256");
+        map.put("escapes", "q\"b\\s/\b\f\n\r\t");
+        map.put("controls", "\u0000\u0001\u001f\u007f\u0080\u009f");
+        map.put("punctuation", "  €⃿℀");
+        map.put("unicode", "ĵôsé ✓ 😀 日本");
+        map.put("unpaired", "a\ud83d b\ude00 \ud83d");
+        map.put("longs", Arrays.asList(0L, 7L, -1L, 1234567890123L, Long.MAX_VALUE, Long.MIN_VALUE));
+        map.put("ints", Arrays.asList(0, -42, Integer.MAX_VALUE, Integer.MIN_VALUE, (short) 3, (byte) -3));
+        map.put("doubles", Arrays.asList(1.5, -0.0, Double.NaN, Double.POSITIVE_INFINITY, 3.0f));
+        map.put("big", new BigInteger("123456789012345678901234567890"));
+        map.put("booleans", Arrays.asList(true, false));
+        map.put("null", null);
+        map.put("empty", Collections.emptyList());
+        map.put("emptyObject", Collections.emptyMap());
+        map.put("array", new String[] {"x", "y"});
+        map.put("longArray", new long[] {1, 2});
+        Map<String, Object> nested = new LinkedHashMap<>();
+        nested.put("n", Collections.singletonMap("deeper", Arrays.asList(null, "v", 1L)));
+        map.put("nested", nested);
+        map.put("other", new StringBuilder("sb\"x"));
+
+        byte[] expected = StringUtil.getBytesUtf8(JsonUtil.toJson(map));
+        assertArrayEquals(expected, new JsonUtf8Writer().write(map).toByteArray());
+
+        JsonUtf8Writer writer = JsonUtf8Writer.acquire();
+        try
+        {
+            assertArrayEquals(expected, writer.write(map).toByteArray());
+            writer.reset();
+            assertArrayEquals(expected, writer.write(map).toByteArray());
+        }
+        finally
+        {
+            writer.release();
+        }
+    }
+
+    @Test
+    public void growsFromSmallBuffer()
+    {
+        Map<String, Object> map = new LinkedHashMap<>();
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 2000; i++)
+        {
+            values.add("value é" + i);
+        }
+        map.put("values", values);
+        JsonUtf8Writer writer = new JsonUtf8Writer().write(map);
+        assertArrayEquals(StringUtil.getBytesUtf8(JsonUtil.toJson(map)), Arrays.copyOf(writer.getBuffer(), writer.size()));
+    }
+
+    @Test
+    public void threadWriterNotSharedWhileInUse()
+    {
+        JsonUtf8Writer outer = JsonUtf8Writer.acquire();
+        try
+        {
+            JsonUtf8Writer inner = JsonUtf8Writer.acquire();
+            assertThat(inner, not(sameInstance(outer)));
+            inner.release();
+        }
+        finally
+        {
+            outer.release();
+        }
+
+        JsonUtf8Writer again = JsonUtf8Writer.acquire();
+        assertThat(again, sameInstance(outer));
+        assertThat(again.size(), equalTo(0));
+        again.release();
+    }
+
+    @Test
+    public void encodedHeaderAndClaims() throws Exception
+    {
+        Headers headers = new Headers();
+        headers.setStringHeaderValue("alg", "RS256");
+        headers.setStringHeaderValue("kid", "ké y");
+        headers.setObjectHeaderValue("crit", Collections.singletonList("exp"));
+        String json = headers.getFullHeaderAsJsonString();
+        String encoded = Base64Url.encodeUtf8ByteRepresentation(json);
+
+        Headers fresh = new Headers();
+        fresh.setStringHeaderValue("alg", "RS256");
+        fresh.setStringHeaderValue("kid", "ké y");
+        fresh.setObjectHeaderValue("crit", Collections.singletonList("exp"));
+        assertThat(fresh.getEncodedHeader(), equalTo(encoded));
+        assertThat(fresh.getFullHeaderAsJsonString(), equalTo(json));
+
+        Headers formatted = new Headers();
+        formatted.setFullHeaderAsJsonString("{ \"alg\" : \"RS256\" }");
+        assertThat(formatted.getEncodedHeader(), equalTo(Base64Url.encodeUtf8ByteRepresentation("{ \"alg\" : \"RS256\" }")));
+
+        JwtClaims claims = new JwtClaims();
+        claims.setIssuer("https://é.example.com");
+        claims.setAudience("a", "b");
+        claims.setExpirationTimeMinutesInTheFuture(5);
+        claims.setClaim("nbf-ish", 1.25);
+        assertArrayEquals(StringUtil.getBytesUtf8(claims.toJson()), claims.toJsonBytes());
+    }
+}
@@ -59,6 +59,20 @@ public class JsonUtilTest
         Assert.assertEquals("value", map.get("key"));
     }
 
+    @Test
+    public void testParseJsonNull()
+    {
+        try
+        {
+            Map<String,?> map = JsonUtil.parseJson("null");
+            fail("parsing of null should fail but returned: " + map);
+        }
+        catch (JoseException e)
+        {
+            Assert.assertEquals("Parsing returned null", e.getMessage());
+        }
+    }
+
     @Test
     public void testParseJsonDisallowDupes()
     {
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.json;
+
+import org.jose4j.lang.JoseException;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class LazyJsonObjectTest
+{
+    @Test
+    public void sameValuesAsFullParse() throws JoseException
+    {
+        String[] jsons = {
+                "{}",
+                " { } ",
+                "{\"a\":\"b\"}",
+                "{\"iss\":\"https://example.com\",\"exp\":1300819380,\"aud\":[\"one\",\"two\"],\"sub\":\"me\"}",
+                "{\"n\":-0,\"d\":1.5,\"e\":1e3,\"E\":-2.5E-3,\"big\":123456789012345678901234567890,\"max\":9223372036854775807,\"min\":-9223372036854775808}",
+                "{\"t\":true,\"f\":false,\"nil\":null}",
+                "{\"esc\":\"a\\\"b\\\\c\\/d\\b\\f\\n\\r\\t\\u00e9\\u2028\",\"k\\u0065y\":1}",
+                "{\"nested\":{\"x\":{\"y\":[1,2,{\"z\":\"zz\"}]},\"y\":[]},\"arr\":[[],[{}],\"s\"]}",
+                "{\r\n\t\"ws\" :\n 1 ,\n \"ws2\"\t:\t\"v\"\r\n}",
+                "{\"unicode\":\"\u00e9\u4e2d\ud83d\ude00\"}",
+        };
+
+        for (String json : jsons)
+        {
+            LazyJsonObject lazy = LazyJsonObject.index(json);
+            assertNotNull(json, lazy);
+            Map<String, Object> expected = JsonUtil.parseJson(json);
+            assertEquals(json, expected.size(), lazy.size());
+            for (Map.Entry<String, Object> e : expected.entrySet())
+            {
+                assertTrue(lazy.containsKey(e.getKey()));
+                Object value = lazy.get(e.getKey());
+                assertEquals(json, e.getValue(), value);
+                if (value != null)
+                {
+                    assertEquals(json, e.getValue().getClass(), value.getClass());
+                }
+            }
+            Map<String, Object> map = lazy.toMap();
+            assertEquals(expected, map);
+            assertEquals(Arrays.asList(expected.keySet().toArray()), Arrays.asList(map.keySet().toArray()));
+        }
+    }
+
+    @Test
+    public void notIndexable() throws JoseException
+    {
+        String[] jsons = {
+                "",
+                "[]",
+                "\"str\"",
+                "{",
+                "{\"a\":}",
+                "{\"a\":1,}",
+                "{\"a\" 1}",
+                "{\"a\":1}x",
+                "{\"a\":1}{}",
+                "{\"a\":01}",
+                "{\"a\":1.}",
+                "{\"a\":.1}",
+                "{\"a\":1e}",
+                "{\"a\":tru}",
+                "{\"a\":\"\\x\"}",
+                "{\"a\":\"\\u12g4\"}",
+                "{\"a\":\"unterminated}",
+                "{\"a\":[1,2}",
+                "{\"a\":\"tab\tin string\"}",
+                "{a:1}",
+                "{\"a\":1,\"a\":2}",
+                "{\"a\":1,\"\\u0061\":2}",
+                "{\"a\":{\"b\":1,\"b\":2}}",
+                "{\"a\":[{\"b\":1,\"b\":2}]}",
+        };
+
+        for (String json : jsons)
+        {
+            assertNull(json, LazyJsonObject.index(json));
+        }
+    }
+
+    @Test
+    public void duplicatesRejectedByFullParseToo()
+    {
+        String[] jsons = {
+                "{\"a\":1,\"a\":2}",
+                "{\"a\":{\"b\":1,\"b\":2}}",
+                "{\"a\":[{\"b\":1,\"b\":2}]}",
+        };
+
+        for (String json : jsons)
+        {
+            try
+            {
+                JsonUtil.parseJson(json);
+                fail("should have failed on duplicate names " + json);
+            }
+            catch (JoseException e)
+            {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void valuesDecodedOnce() throws JoseException
+    {
+        LazyJsonObject lazy = LazyJsonObject.index("{\"aud\":[\"a\",\"b\"],\"obj\":{\"k\":\"v\"}}");
+        List aud = (List) lazy.get("aud");
+        assertSame(aud, lazy.get("aud"));
+        assertSame(aud, lazy.toMap().get("aud"));
+        assertSame(lazy.get("obj"), lazy.get("obj"));
+        assertNull(lazy.get("nope"));
+        assertFalse(lazy.containsKey("nope"));
+    }
+
+    @Test
+    public void deepNestingFallsBack() throws JoseException
+    {
+        StringBuilder sb = new StringBuilder("{\"a\":");
+        for (int i = 0; i < 1000; i++)
+        {
+            sb.append('[');
+        }
+        for (int i = 0; i < 1000; i++)
+        {
+            sb.append(']');
+        }
+        sb.append('}');
+        assertNull(LazyJsonObject.index(sb.toString()));
+    }
+}
@@ -19,15 +19,19 @@ package org.jose4j.jwe;
 import org.jose4j.base64url.Base64Url;
 import org.jose4j.jca.ProviderContextTest;
 import org.jose4j.jwx.Headers;
+import org.jose4j.keys.HmacKey;
 import org.jose4j.lang.ByteUtil;
+import org.jose4j.lang.IntegrityException;
 import org.jose4j.lang.JoseException;
 import org.jose4j.lang.StringUtil;
 import org.jose4j.lang.UncheckedJoseException;
+import org.jose4j.mac.MacUtil;
 import org.junit.Assert;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.slf4j.LoggerFactory;
 
+import javax.crypto.Mac;
 import java.util.Arrays;
 
 /**
@@ -110,6 +114,47 @@ public class Aes128CbcHmacSha256ContentEncryptionAlgorithmTest
         Assert.assertEquals(text, StringUtil.newStringUtf8(decrypt));
     }
 
+    @Test
+    public void testRoundTripAcrossChunkBoundaries() throws Exception
+    {
+        byte[] aad = StringUtil.getBytesUtf8("eyJhbGciOiJkaXIiLCJlbmMiOiJBMTI4Q0JDLUhTMjU2In0");
+        AesCbcHmacSha2ContentEncryptionAlgorithm.Aes128CbcHmacSha256 contentEncryptionAlg = new AesCbcHmacSha2ContentEncryptionAlgorithm.Aes128CbcHmacSha256();
+        byte[] cek = ByteUtil.randomBytes(contentEncryptionAlg.getContentEncryptionKeyDescriptor().getContentEncryptionKeyByteLength());
+        Headers headers = new Headers();
+
+        for (int length : new int[] {0, 1, 15, 16, 17, 16 * 1024 - 1, 16 * 1024, 16 * 1024 + 16, 3 * 16 * 1024 + 5, 200001})
+        {
+            byte[] plaintext = ByteUtil.randomBytes(length);
+            ContentEncryptionParts parts = contentEncryptionAlg.encrypt(plaintext, aad, cek, headers, null, ProviderContextTest.EMPTY_CONTEXT);
+            Assert.assertEquals(length + 16 - length % 16, parts.getCiphertext().length);
+
+            // the tag is still the truncated HMAC over AAD || IV || ciphertext || AL
+            Mac mac = MacUtil.getInitializedMac(MacUtil.HMAC_SHA256, new HmacKey(ByteUtil.leftHalf(cek)));
+            byte[] al = ByteUtil.getBytes((long) ByteUtil.bitLength(aad));
+            byte[] expectedTag = ByteUtil.subArray(mac.doFinal(ByteUtil.concat(aad, parts.getIv(), parts.getCiphertext(), al)), 0, 16);
+            Assert.assertArrayEquals("length " + length, expectedTag, parts.getAuthenticationTag());
+
+            byte[] decrypted = contentEncryptionAlg.decrypt(parts, aad, cek, headers, ProviderContextTest.EMPTY_CONTEXT);
+            Assert.assertArrayEquals(plaintext, decrypted);
+
+            byte[] ciphertext = parts.getCiphertext();
+            for (int index : new int[] {0, ciphertext.length / 2, ciphertext.length - 1})
+            {
+                byte[] tampered = ciphertext.clone();
+                tampered[index] ^= 1;
+                try
+                {
+                    contentEncryptionAlg.decrypt(new ContentEncryptionParts(parts.getIv(), tampered, parts.getAuthenticationTag()), aad, cek, headers, ProviderContextTest.EMPTY_CONTEXT);
+                    Assert.fail("tampered ciphertext at " + index + " of " + ciphertext.length + " should have failed");
+                }
+                catch (IntegrityException e)
+                {
+                    // expected
+                }
+            }
+        }
+    }
+
    @Ignore // don't run normally b/c it's slow and needs extra memory (for the actual bypass anyway)
    /*        i.e. in build ...
            <plugin>
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwe;
+
+import org.jose4j.keys.AesKey;
+import org.jose4j.keys.ExampleRsaJwksFromJwe;
+import org.jose4j.lang.ByteUtil;
+import org.jose4j.lang.JoseException;
+import org.jose4j.lang.StringUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.security.Key;
+
+/**
+ *
+ */
+public class JweStreamingTest
+{
+    private static final String[] ENCS = {
+            ContentEncryptionAlgorithmIdentifiers.AES_128_CBC_HMAC_SHA_256,
+            ContentEncryptionAlgorithmIdentifiers.AES_256_CBC_HMAC_SHA_512,
+            ContentEncryptionAlgorithmIdentifiers.AES_128_GCM,
+            ContentEncryptionAlgorithmIdentifiers.AES_256_GCM,
+    };
+
+    private static final int[] LENGTHS = {1, 15, 16, 17, 16 * 1024, 16 * 1024 + 16, 100003};
+
+    @Test
+    public void streamingEncryptThenRegularDecrypt() throws Exception
+    {
+        for (String enc : ENCS)
+        {
+            for (int length : LENGTHS)
+            {
+                byte[] plaintext = ByteUtil.randomBytes(length);
+                JsonWebEncryption jwe = newJwe(enc);
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                jwe.encrypt(new ByteArrayInputStream(plaintext), out);
+
+                JsonWebEncryption receiver = new JsonWebEncryption();
+                receiver.setCompactSerialization(StringUtil.newStringUsAscii(out.toByteArray()));
+                receiver.setKey(ExampleRsaJwksFromJwe.APPENDIX_A_1.getPrivateKey());
+                Assert.assertArrayEquals(enc + " " + length, plaintext, receiver.getPlaintextBytes());
+            }
+        }
+    }
+
+    @Test
+    public void regularEncryptThenStreamingDecrypt() throws Exception
+    {
+        for (String enc : ENCS)
+        {
+            for (int length : LENGTHS)
+            {
+                byte[] plaintext = ByteUtil.randomBytes(length);
+                JsonWebEncryption jwe = newJwe(enc);
+                jwe.setPlaintext(plaintext);
+                String compactSerialization = jwe.getCompactSerialization();
+
+                Assert.assertArrayEquals(enc + " " + length, plaintext, streamingDecrypt(compactSerialization));
+            }
+        }
+    }
+
+    @Test
+    public void channels() throws Exception
+    {
+        byte[] plaintext = StringUtil.getBytesUtf8("streamed over channels");
+        Key key = new AesKey(ByteUtil.randomBytes(32));
+        JsonWebEncryption jwe = new JsonWebEncryption();
+        jwe.setAlgorithmHeaderValue(KeyManagementAlgorithmIdentifiers.DIRECT);
+        jwe.setEncryptionMethodHeaderParameter(ContentEncryptionAlgorithmIdentifiers.AES_128_CBC_HMAC_SHA_256);
+        jwe.setKey(key);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        jwe.encrypt(Channels.newChannel(new ByteArrayInputStream(plaintext)), Channels.newChannel(out));
+
+        JsonWebEncryption receiver = new JsonWebEncryption();
+        receiver.setKey(key);
+        ByteArrayOutputStream decrypted = new ByteArrayOutputStream();
+        receiver.decrypt(Channels.newChannel(new ByteArrayInputStream(out.toByteArray())), Channels.newChannel(decrypted));
+        Assert.assertArrayEquals(plaintext, decrypted.toByteArray());
+        Assert.assertEquals(KeyManagementAlgorithmIdentifiers.DIRECT, receiver.getAlgorithmHeaderValue());
+    }
+
+    @Test
+    public void tamperedOrMalformed() throws Exception
+    {
+        for (String enc : ENCS)
+        {
+            JsonWebEncryption jwe = newJwe(enc);
+            jwe.setPlaintext(ByteUtil.randomBytes(40000));
+            String cs = jwe.getCompactSerialization();
+            String[] parts = cs.split("\\.");
+
+            char[] ciphertext = parts[3].toCharArray();
+            int middle = ciphertext.length / 2;
+            ciphertext[middle] = ciphertext[middle] == 'A' ? 'B' : 'A';
+            expectFailure(parts[0] + "." + parts[1] + "." + parts[2] + "." + new String(ciphertext) + "." + parts[4]);
+
+            String tag = parts[4];
+            expectFailure(parts[0] + "." + parts[1] + "." + parts[2] + "." + parts[3] + "." + (tag.charAt(0) == 'A' ? 'B' : 'A') + tag.substring(1));
+            expectFailure(parts[0] + "." + parts[1] + "." + parts[2] + "." + parts[3]);
+            expectFailure(cs + ".");
+            expectFailure(parts[0] + "." + parts[1] + "." + parts[2] + ".." + parts[4]);
+            expectFailure(parts[0] + "." + parts[1] + "." + parts[2] + "." + parts[3] + " ." + parts[4]);
+        }
+    }
+
+    @Test(expected = JoseException.class)
+    public void compressionNotSupported() throws Exception
+    {
+        JsonWebEncryption jwe = newJwe(ContentEncryptionAlgorithmIdentifiers.AES_128_GCM);
+        jwe.enableDefaultCompression();
+        jwe.encrypt(new ByteArrayInputStream(new byte[10]), new ByteArrayOutputStream());
+    }
+
+    private void expectFailure(String compactSerialization) throws Exception
+    {
+        try
+        {
+            streamingDecrypt(compactSerialization);
+            Assert.fail("should have failed " + compactSerialization);
+        }
+        catch (JoseException e)
+        {
+            // expected
+        }
+    }
+
+    private byte[] streamingDecrypt(String compactSerialization) throws Exception
+    {
+        JsonWebEncryption receiver = new JsonWebEncryption();
+        receiver.setKey(ExampleRsaJwksFromJwe.APPENDIX_A_1.getPrivateKey());
+        ByteArrayOutputStream decrypted = new ByteArrayOutputStream();
+        receiver.decrypt(new ByteArrayInputStream(StringUtil.getBytesAscii(compactSerialization)), decrypted);
+        return decrypted.toByteArray();
+    }
+
+    private JsonWebEncryption newJwe(String enc)
+    {
+        JsonWebEncryption jwe = new JsonWebEncryption();
+        jwe.setAlgorithmHeaderValue(KeyManagementAlgorithmIdentifiers.RSA_OAEP);
+        jwe.setEncryptionMethodHeaderParameter(enc);
+        jwe.setKey(ExampleRsaJwksFromJwe.APPENDIX_A_1.getPublicKey());
+        return jwe;
+    }
+}
@@ -15,8 +15,12 @@
  */
 package org.jose4j.jwk;
 
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
 import org.jose4j.http.Get;
 import org.jose4j.http.Response;
+import org.jose4j.http.SimpleGet;
 import org.jose4j.http.SimpleResponse;
 import org.jose4j.keys.X509Util;
 import org.junit.Ignore;
@@ -24,6 +28,9 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
 import java.security.cert.X509Certificate;
 import java.util.Collections;
 import java.util.HashMap;
@@ -33,10 +40,16 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  *
@@ -105,6 +118,195 @@ public class HttpsJwksTest
         }
     }
 
+    @Test
+    public void testBackgroundRefreshDelay() throws Exception
+    {
+        HttpsJwks httpsJwks = new HttpsJwks("https://example.com/jwks");
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try
+        {
+            httpsJwks.setSimpleHttpGet(new CountingGet());
+            httpsJwks.setBackgroundRefresh(scheduler, 0.2, 0.1);
+            assertThat(80000L, equalTo(httpsJwks.backgroundRefreshDelay(100000L, 0.0)));
+            assertThat(75000L, equalTo(httpsJwks.backgroundRefreshDelay(100000L, 0.5)));
+            assertThat(70000L, equalTo(httpsJwks.backgroundRefreshDelay(100000L, 1.0)));
+            assertThat(300L, equalTo(httpsJwks.backgroundRefreshDelay(100L, 0.5)));
+            httpsJwks.stopBackgroundRefresh();
+        }
+        finally
+        {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testBackgroundRefreshInvalidFractions() throws Exception
+    {
+        HttpsJwks httpsJwks = new HttpsJwks("https://example.com/jwks");
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try
+        {
+            double[][] invalid = {{0, 0}, {1, 0}, {0.5, 0.5}, {0.5, -0.1}, {-0.5, 0.1}};
+            for (double[] fractions : invalid)
+            {
+                try
+                {
+                    httpsJwks.setBackgroundRefresh(scheduler, fractions[0], fractions[1]);
+                    fail("should have rejected " + fractions[0] + " " + fractions[1]);
+                }
+                catch (IllegalArgumentException e)
+                {
+                    // expected
+                }
+            }
+        }
+        finally
+        {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testBackgroundRefreshBeforeExpiry() throws Exception
+    {
+        CountingGet get = new CountingGet();
+        HttpsJwks httpsJwks = new HttpsJwks("https://example.com/jwks");
+        httpsJwks.setSimpleHttpGet(get);
+        httpsJwks.setDefaultCacheDuration(1);
+
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try
+        {
+            httpsJwks.setBackgroundRefresh(scheduler, 0.5, 0.0);
+            long deadline = System.currentTimeMillis() + 10000;
+            while (get.count.get() < 3 && System.currentTimeMillis() < deadline)
+            {
+                Thread.sleep(50);
+            }
+            assertTrue(get.count.get() >= 3);
+
+            int count = get.count.get();
+            List<JsonWebKey> keys = httpsJwks.getJsonWebKeys();
+            assertThat(1, equalTo(keys.size()));
+            assertTrue(get.count.get() - count <= 1);  // at most a background refresh
+
+            httpsJwks.stopBackgroundRefresh();
+        }
+        finally
+        {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testBackgroundRefreshEnabledRightAfterLoad() throws Exception
+    {
+        CountingGet get = new CountingGet();
+        HttpsJwks httpsJwks = new HttpsJwks("https://example.com/jwks");
+        httpsJwks.setSimpleHttpGet(get);
+        httpsJwks.setDefaultCacheDuration(1);
+
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try
+        {
+            httpsJwks.getJsonWebKeys();
+            assertThat(1, equalTo(get.count.get()));
+
+            // the initial background refresh falls within the reprieve of that load but still has to schedule the next one
+            httpsJwks.setBackgroundRefresh(scheduler, 0.5, 0.0);
+            long deadline = System.currentTimeMillis() + 10000;
+            while (get.count.get() < 2 && System.currentTimeMillis() < deadline)
+            {
+                Thread.sleep(50);
+            }
+            assertTrue(get.count.get() >= 2);
+
+            httpsJwks.stopBackgroundRefresh();
+        }
+        finally
+        {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testConditionalRefreshKeepsParsedKeys() throws Exception
+    {
+        final AtomicInteger requests = new AtomicInteger();
+        final AtomicInteger notModified = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/jwks", new HttpHandler()
+        {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException
+            {
+                requests.incrementAndGet();
+                exchange.getResponseHeaders().add("ETag", "\"v1\"");
+                exchange.getResponseHeaders().add("Cache-Control", "max-age=120");
+                if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match")))
+                {
+                    notModified.incrementAndGet();
+                    exchange.sendResponseHeaders(304, -1);
+                }
+                else
+                {
+                    byte[] body = JWKS_JSON.getBytes(StandardCharsets.UTF_8);
+                    exchange.sendResponseHeaders(200, body.length);
+                    exchange.getResponseBody().write(body);
+                }
+                exchange.close();
+            }
+        });
+        server.start();
+        try
+        {
+            HttpsJwks httpsJwks = new HttpsJwks("http://127.0.0.1:" + server.getAddress().getPort() + "/jwks");
+            httpsJwks.setRefreshReprieveThreshold(0);
+            List<JsonWebKey> keys = httpsJwks.getJsonWebKeys();
+            assertThat(1, equalTo(keys.size()));
+            JsonWebKeyIndex index = httpsJwks.getJsonWebKeyIndex();
+
+            httpsJwks.refresh();
+            httpsJwks.refresh();
+            assertSame(index, httpsJwks.getJsonWebKeyIndex());
+            assertThat(3, equalTo(requests.get()));
+            assertThat(2, equalTo(notModified.get()));
+            assertSame(keys, httpsJwks.getJsonWebKeys());
+            assertSame(keys.get(0), httpsJwks.getJsonWebKeys().get(0));
+        }
+        finally
+        {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testUnconditionalWithoutValidators() throws Exception
+    {
+        CountingGet get = new CountingGet();
+        HttpsJwks httpsJwks = new HttpsJwks("https://example.com/jwks");
+        httpsJwks.setSimpleHttpGet(get);
+        httpsJwks.setRefreshReprieveThreshold(0);
+        List<JsonWebKey> keys = httpsJwks.getJsonWebKeys();
+        httpsJwks.refresh();
+        assertThat(2, equalTo(get.count.get()));
+        assertNotSame(keys, httpsJwks.getJsonWebKeys());
+    }
+
+    static final String JWKS_JSON = "{\"keys\":[{\"kty\":\"oct\",\"kid\":\"k1\",\"k\":\"Sq8rGLm4rEtzScmnSsY5r1n-AqBl_iBU8FxN80Uc0S0\"}]}";
+
+    static class CountingGet implements SimpleGet
+    {
+        final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public SimpleResponse get(String location)
+        {
+            count.incrementAndGet();
+            return new Response(200, "OK", Collections.<String, List<String>>emptyMap(), JWKS_JSON);
+        }
+    }
+
     // todo more tests
 
     @Test
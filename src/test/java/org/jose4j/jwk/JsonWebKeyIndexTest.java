@@ -0,0 +1,164 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwk;
+
+import org.jose4j.jwe.ContentEncryptionAlgorithmIdentifiers;
+import org.jose4j.jwe.JsonWebEncryption;
+import org.jose4j.jwe.KeyManagementAlgorithmIdentifiers;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.keys.EllipticCurves;
+import org.jose4j.lang.JoseException;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class JsonWebKeyIndexTest
+{
+    private static final String[] KIDS = {"k0", "k1", "k2", "k3", "k4", "k5", "k6", "k7", null};
+    private static final String[] USES = {Use.SIGNATURE, Use.ENCRYPTION, null};
+    private static final String[] THUMBS = {"t0", "t1", "t2", null, null};
+
+    private static List<JsonWebKey> keys;
+
+    @BeforeClass
+    public static void generateKeys() throws JoseException
+    {
+        List<JsonWebKey> baseKeys = new ArrayList<>();
+        baseKeys.add(RsaJwkGenerator.generateJwk(2048));
+        baseKeys.add(EcJwkGenerator.generateJwk(EllipticCurves.P256));
+        baseKeys.add(EcJwkGenerator.generateJwk(EllipticCurves.P384));
+        baseKeys.add(OctJwkGenerator.generateJwk(128));
+        baseKeys.add(OctJwkGenerator.generateJwk(256));
+
+        Random random = new Random(2017);
+        keys = new ArrayList<>();
+        for (int i = 0; i < 300; i++)
+        {
+            JsonWebKey base = baseKeys.get(random.nextInt(baseKeys.size()));
+            Map<String, Object> params = base.toParams(JsonWebKey.OutputControlLevel.INCLUDE_PRIVATE);
+            putIfNotNull(params, JsonWebKey.KEY_ID_PARAMETER, KIDS[random.nextInt(KIDS.length)]);
+            putIfNotNull(params, JsonWebKey.USE_PARAMETER, USES[random.nextInt(USES.length)]);
+            if (base instanceof PublicJsonWebKey)
+            {
+                putIfNotNull(params, PublicJsonWebKey.X509_THUMBPRINT_PARAMETER, THUMBS[random.nextInt(THUMBS.length)]);
+                putIfNotNull(params, PublicJsonWebKey.X509_SHA256_THUMBPRINT_PARAMETER, THUMBS[random.nextInt(THUMBS.length)]);
+            }
+            keys.add(JsonWebKey.Factory.newJwk(params));
+        }
+    }
+
+    private static void putIfNotNull(Map<String, Object> params, String name, String value)
+    {
+        if (value != null)
+        {
+            params.put(name, value);
+        }
+    }
+
+    @Test
+    public void sameVerificationKeysAsWithoutIndex() throws JoseException
+    {
+        JsonWebKeyIndex index = new JsonWebKeyIndex(keys);
+        assertSame(keys, index.getJsonWebKeys());
+
+        VerificationJwkSelector selector = new VerificationJwkSelector();
+        String[] algs = {AlgorithmIdentifiers.RSA_USING_SHA256, AlgorithmIdentifiers.RSA_PSS_USING_SHA256,
+                AlgorithmIdentifiers.ECDSA_USING_P256_CURVE_AND_SHA256, AlgorithmIdentifiers.ECDSA_USING_P384_CURVE_AND_SHA384,
+                AlgorithmIdentifiers.HMAC_SHA256};
+        String[] kids = {"k0", "k3", "k7", "nope", null};
+        String[] thumbs = {"t0", "t2", "nope", null};
+
+        int nonEmpty = 0;
+        for (String alg : algs)
+        {
+            for (String kid : kids)
+            {
+                for (String x5t : thumbs)
+                {
+                    for (String x5tS256 : thumbs)
+                    {
+                        JsonWebSignature jws = new JsonWebSignature();
+                        jws.setAlgorithmHeaderValue(alg);
+                        jws.setKeyIdHeaderValue(kid);
+                        jws.setX509CertSha1ThumbprintHeaderValue(x5t);
+                        jws.setX509CertSha256ThumbprintHeaderValue(x5tS256);
+
+                        List<JsonWebKey> expected = selector.selectList(jws, keys);
+                        List<JsonWebKey> actual = selector.selectList(jws, index);
+                        assertEquals(jws.getHeaders().getFullHeaderAsJsonString(), expected, actual);
+                        assertSame(selector.select(jws, keys), selector.select(jws, index));
+                        nonEmpty += expected.isEmpty() ? 0 : 1;
+                    }
+                }
+            }
+        }
+        assertTrue(nonEmpty > 100);
+    }
+
+    @Test
+    public void sameDecryptionKeysAsWithoutIndex() throws JoseException
+    {
+        JsonWebKeyIndex index = new JsonWebKeyIndex(keys);
+
+        DecryptionJwkSelector selector = new DecryptionJwkSelector();
+        String[] algs = {KeyManagementAlgorithmIdentifiers.RSA_OAEP, KeyManagementAlgorithmIdentifiers.ECDH_ES_A128KW,
+                KeyManagementAlgorithmIdentifiers.A128KW, KeyManagementAlgorithmIdentifiers.DIRECT};
+        String[] kids = {"k1", "k5", "nope", null};
+        String[] thumbs = {"t1", "nope", null};
+
+        int nonEmpty = 0;
+        for (String alg : algs)
+        {
+            for (String kid : kids)
+            {
+                for (String x5t : thumbs)
+                {
+                    JsonWebEncryption jwe = new JsonWebEncryption();
+                    jwe.setAlgorithmHeaderValue(alg);
+                    jwe.setEncryptionMethodHeaderParameter(ContentEncryptionAlgorithmIdentifiers.AES_128_CBC_HMAC_SHA_256);
+                    jwe.setKeyIdHeaderValue(kid);
+                    jwe.setX509CertSha1ThumbprintHeaderValue(x5t);
+
+                    List<JsonWebKey> expected = selector.selectList(jwe, keys);
+                    assertEquals(jwe.getHeaders().getFullHeaderAsJsonString(), expected, selector.selectList(jwe, index));
+                    nonEmpty += expected.isEmpty() ? 0 : 1;
+                }
+            }
+        }
+        assertTrue(nonEmpty > 20);
+    }
+
+    @Test
+    public void emptyIndex() throws JoseException
+    {
+        JsonWebKeyIndex index = new JsonWebKeyIndex(new ArrayList<JsonWebKey>());
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.RSA_USING_SHA256);
+        jws.setKeyIdHeaderValue("k0");
+        assertNull(new VerificationJwkSelector().select(jws, index));
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwk;
+
+import org.jose4j.keys.EllipticCurves;
+import org.jose4j.lang.JoseException;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class PublicKeyCacheTest
+{
+    @After
+    public void reset()
+    {
+        PublicKeyCache.setMaxEntries(PublicKeyCache.DEFAULT_MAX_ENTRIES);
+        PublicKeyCache.clear();
+    }
+
+    @Test
+    public void reusesPublicKeys() throws JoseException
+    {
+        PublicJsonWebKey[] generated = {RsaJwkGenerator.generateJwk(2048), EcJwkGenerator.generateJwk(EllipticCurves.P256)};
+        for (PublicJsonWebKey jwk : generated)
+        {
+            jwk.setKeyId("one");
+            String json = jwk.toJson();
+            long hits = PublicKeyCache.getHitCount();
+
+            JsonWebKey first = JsonWebKey.Factory.newJwk(json);
+            JsonWebKey second = JsonWebKey.Factory.newJwk(json);
+            assertNotSame(first, second);
+            assertSame(first.getKey(), second.getKey());
+            assertEquals(jwk.getKey(), first.getKey());
+            assertEquals(hits + 1, PublicKeyCache.getHitCount());
+
+            // other members don't matter
+            jwk.setKeyId("two");
+            JsonWebKey third = JsonWebKey.Factory.newJwk(jwk.toJson());
+            assertSame(first.getKey(), third.getKey());
+            assertEquals("two", third.getKeyId());
+        }
+    }
+
+    @Test
+    public void doesNotCachePrivateKeys() throws JoseException
+    {
+        PublicJsonWebKey jwk = RsaJwkGenerator.generateJwk(2048);
+        String json = jwk.toJson(JsonWebKey.OutputControlLevel.INCLUDE_PRIVATE);
+        int size = PublicKeyCache.size();
+
+        PublicJsonWebKey first = (PublicJsonWebKey) JsonWebKey.Factory.newJwk(json);
+        PublicJsonWebKey second = (PublicJsonWebKey) JsonWebKey.Factory.newJwk(json);
+        assertNotNull(first.getPrivateKey());
+        assertNotNull(second.getPrivateKey());
+        assertNotSame(first.getKey(), second.getKey());
+        assertEquals(size, PublicKeyCache.size());
+    }
+
+    @Test
+    public void disabled() throws JoseException
+    {
+        PublicKeyCache.setMaxEntries(0);
+        assertEquals(0, PublicKeyCache.size());
+        String json = EcJwkGenerator.generateJwk(EllipticCurves.P256).toJson();
+        JsonWebKey first = JsonWebKey.Factory.newJwk(json);
+        JsonWebKey second = JsonWebKey.Factory.newJwk(json);
+        assertNotSame(first.getKey(), second.getKey());
+        assertEquals(0, PublicKeyCache.size());
+    }
+
+    @Test
+    public void bounded() throws JoseException
+    {
+        PublicKeyCache.setMaxEntries(2);
+        for (int i = 0; i < 4; i++)
+        {
+            JsonWebKey.Factory.newJwk(EcJwkGenerator.generateJwk(EllipticCurves.P256).toJson());
+        }
+        assertEquals(2, PublicKeyCache.size());
+        PublicKeyCache.setMaxEntries(1);
+        assertEquals(1, PublicKeyCache.size());
+    }
+
+    @Test
+    public void cacheKeysAreUnambiguous()
+    {
+        assertNotEquals(PublicKeyCache.cacheKey(null, "RSA", "ab", "c"), PublicKeyCache.cacheKey(null, "RSA", "a", "bc"));
+        assertNotEquals(PublicKeyCache.cacheKey(null, "RSA", "a", "b"), PublicKeyCache.cacheKey("RSA", "a", "b"));
+        assertNotEquals(PublicKeyCache.cacheKey("SunEC", "EC", "x"), PublicKeyCache.cacheKey(null, "EC", "x"));
+        assertNull(PublicKeyCache.cacheKey(null, "RSA", null, "AQAB"));
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jws;
+
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwx.HeaderParameterNames;
+import org.jose4j.keys.ExampleEcKeysFromJws;
+import org.jose4j.keys.ExampleRsaKeyFromJws;
+import org.jose4j.keys.HmacKey;
+import org.jose4j.lang.JoseException;
+import org.junit.Test;
+
+import java.security.Key;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ *
+ */
+public class JwsProducerTest
+{
+    private static final HmacKey HMAC_KEY = new HmacKey(new byte[]{1, 0, 8, -17, 1, 33, 4, 14, 44, 120, 88, 99, 98, 91, 94, 78, 0, 1,
+            -17, 1, 34, 0, 120, 88, 99, 98, 91, 2, 0, 8, -111, 1, 3});
+
+    @Test
+    public void sameAsJsonWebSignatureForHmac() throws Exception
+    {
+        JsonWebSignature template = template(AlgorithmIdentifiers.HMAC_SHA256, HMAC_KEY);
+        JwsProducer producer = new JwsProducer(template);
+
+        for (String payload : new String[] {"", "a", "ab", "abc", "{\"sub\":\"Ω\",\"n\":1}"})
+        {
+            JsonWebSignature jws = template(AlgorithmIdentifiers.HMAC_SHA256, HMAC_KEY);
+            jws.setPayload(payload);
+            String expected = jws.getCompactSerialization();
+            assertThat(producer.produce(payload), equalTo(expected));
+            assertThat(producer.produce(payload), equalTo(expected));
+        }
+        assertThat(producer.getEncodedHeader(), equalTo(template.getHeaders().getEncodedHeader()));
+    }
+
+    @Test
+    public void producedJwtsVerify() throws Exception
+    {
+        JwtClaims claims = new JwtClaims();
+        claims.setIssuer("https://issuer.example.com");
+        claims.setSubject("subject");
+        claims.setExpirationTimeMinutesInTheFuture(10);
+
+        check(AlgorithmIdentifiers.RSA_USING_SHA256, ExampleRsaKeyFromJws.PRIVATE_KEY, ExampleRsaKeyFromJws.PUBLIC_KEY, claims);
+        check(AlgorithmIdentifiers.RSA_PSS_USING_SHA256, ExampleRsaKeyFromJws.PRIVATE_KEY, ExampleRsaKeyFromJws.PUBLIC_KEY, claims);
+        check(AlgorithmIdentifiers.ECDSA_USING_P256_CURVE_AND_SHA256, ExampleEcKeysFromJws.PRIVATE_256, ExampleEcKeysFromJws.PUBLIC_256, claims);
+        check(AlgorithmIdentifiers.HMAC_SHA512, new HmacKey(new byte[64]), new HmacKey(new byte[64]), claims);
+    }
+
+    @Test
+    public void concurrentUse() throws Exception
+    {
+        final JwsProducer producer = new JwsProducer(template(AlgorithmIdentifiers.ECDSA_USING_P256_CURVE_AND_SHA256, ExampleEcKeysFromJws.PRIVATE_256));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++)
+            {
+                final int thread = t;
+                futures.add(executor.submit(new Callable<List<String>>()
+                {
+                    @Override
+                    public List<String> call() throws Exception
+                    {
+                        List<String> produced = new ArrayList<>();
+                        for (int i = 0; i < 25; i++)
+                        {
+                            produced.add(producer.produce(thread + ":" + i));
+                        }
+                        return produced;
+                    }
+                }));
+            }
+
+            for (int t = 0; t < futures.size(); t++)
+            {
+                List<String> produced = futures.get(t).get();
+                for (int i = 0; i < produced.size(); i++)
+                {
+                    JsonWebSignature jws = new JsonWebSignature();
+                    jws.setCompactSerialization(produced.get(i));
+                    jws.setKey(ExampleEcKeysFromJws.PUBLIC_256);
+                    assertTrue(jws.verifySignature());
+                    assertThat(jws.getPayload(), equalTo(t + ":" + i));
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void badTemplates() throws Exception
+    {
+        JsonWebSignature template = template(AlgorithmIdentifiers.HMAC_SHA256, HMAC_KEY);
+        template.getHeaders().setObjectHeaderValue("b64", false);
+        template.setCriticalHeaderNames("b64");
+        expectFailure(template);
+
+        expectFailure(template(AlgorithmIdentifiers.RSA_USING_SHA256, HMAC_KEY));
+        expectFailure(template(AlgorithmIdentifiers.HMAC_SHA256, new HmacKey(new byte[8])));
+    }
+
+    private void expectFailure(JsonWebSignature template)
+    {
+        try
+        {
+            new JwsProducer(template);
+            fail("shouldn't have been able to create a producer from " + template.getHeaders().getFullHeaderAsJsonString());
+        }
+        catch (JoseException e)
+        {
+            // expected
+        }
+    }
+
+    private void check(String alg, Key signingKey, Key verificationKey, JwtClaims claims) throws Exception
+    {
+        JwsProducer producer = new JwsProducer(template(alg, signingKey));
+        assertThat(producer.getAlgorithmHeaderValue(), equalTo(alg));
+        for (int i = 0; i < 3; i++)
+        {
+            String jwt = producer.produce(claims.toJson());
+            JsonWebSignature jws = new JsonWebSignature();
+            jws.setCompactSerialization(jwt);
+            jws.setKey(verificationKey);
+            assertTrue(jws.verifySignature());
+            assertThat(jws.getHeader(HeaderParameterNames.KEY_ID), equalTo("k1"));
+            assertThat(JwtClaims.parse(jws.getPayload()).getSubject(), equalTo("subject"));
+        }
+    }
+
+    private static JsonWebSignature template(String alg, Key key)
+    {
+        JsonWebSignature template = new JsonWebSignature();
+        template.setAlgorithmHeaderValue(alg);
+        template.setKeyIdHeaderValue("k1");
+        template.setHeader(HeaderParameterNames.TYPE, "JWT");
+        template.setKey(key);
+        return template;
+    }
+}
@@ -72,6 +72,39 @@ public class MaintainEncodedPayloadAndHeaderTest
     }
 
 
+    @Test
+    public void signingInputFromCompactSerializationOnlyWhenUnchanged() throws Exception
+    {
+        String jwt = "eyJ0eXAiOiJKV1QiLA0KICJhbGciOiJIUzI1NiJ9." +
+                "eyJpc3MiOiJqb2UiLA0KICJleHAiOjEzMDA4MTkzODAsDQogImh0dHA6Ly9leGFtcGxlLmNvbS9pc19yb290Ijp0cnVlfQ." +
+                "dBjftJeZ4CVP-mB92K27uhbUJU1p1r_wW1gFWFOEjXk";
+        String jwk = "{\"kty\":\"oct\",\"k\":\"AyM1SysPpbyDfgZld3umj1qzKObwVMkoqQ-EstJQLr_T-1qS0gZH75aKtMN3Yj0iPS4hcgUuTwjAzZr1Z9CAow\"}";
+        JsonWebKey jsonWebKey = JsonWebKey.Factory.newJwk(jwk);
+
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setCompactSerialization(jwt);
+        jws.setKey(jsonWebKey.getKey());
+        assertThat(jws.verifySignature(), equalTo(true));
+
+        jws = new JsonWebSignature();
+        jws.setCompactSerialization(jwt);
+        jws.setHeader("kid", "changed");
+        jws.setKey(jsonWebKey.getKey());
+        assertThat(jws.verifySignature(), equalTo(false));
+
+        jws = new JsonWebSignature();
+        jws.setCompactSerialization(jwt);
+        jws.setPayload("changed");
+        jws.setKey(jsonWebKey.getKey());
+        assertThat(jws.verifySignature(), equalTo(false));
+
+        // non-ASCII characters are ignored by the decoder but still make the signature invalid
+        jws = new JsonWebSignature();
+        jws.setCompactSerialization(jwt.replace("J9.", "J9\u00e9."));
+        jws.setKey(jsonWebKey.getKey());
+        assertThat(jws.verifySignature(), equalTo(false));
+    }
+
     private void checkWithExtraStuffOnHeader(String jwt) throws JoseException
     {
         String jwk = "{\"kty\":\"oct\",\"k\":\"AyM1SysPpbyDfgZld3umj1qzKObwVMkoqQ-EstJQLr_T-1qS0gZH75aKtMN3Yj0iPS4hcgUuTwjAzZr1Z9CAow\"}";
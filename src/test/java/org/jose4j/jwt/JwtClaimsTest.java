@@ -616,4 +616,61 @@ public class JwtClaimsTest
         Assert.assertThat(NumericDate.fromSeconds(1430602060), equalTo(jcs.getIssuedAt()));
         Assert.assertThat(NumericDate.fromSeconds(1430602000), equalTo(jcs.getNotBefore()));
     }
+
+    @Test
+    public void testLazyParsing() throws InvalidJwtException, MalformedClaimException
+    {
+        String json = "{\"iss\":\"joe\",\"exp\":1300819380,\"aud\":[\"a\",\"b\"],\"sub\":\"me\",\"nested\":{\"x\":\"y\"}}";
+        JwtClaims lazy = JwtClaims.parseLazily(json, null);
+        JwtClaims eager = JwtClaims.parse(json);
+
+        Assert.assertThat("joe", equalTo(lazy.getIssuer()));
+        Assert.assertThat("me", equalTo(lazy.getSubject()));
+        Assert.assertThat(NumericDate.fromSeconds(1300819380), equalTo(lazy.getExpirationTime()));
+        Assert.assertThat(Arrays.asList("a", "b"), equalTo(lazy.getAudience()));
+        Assert.assertNull(lazy.getJwtId());
+        Assert.assertFalse(lazy.hasClaim("nope"));
+        Assert.assertEquals(json, lazy.getRawJson());
+        Assert.assertEquals(eager.getClaimsMap(), lazy.getClaimsMap());
+        Assert.assertEquals(eager.flattenClaims(), lazy.flattenClaims());
+        Assert.assertEquals(eager.toJson(), lazy.toJson());
+
+        lazy = JwtClaims.parseLazily(json, null);
+        lazy.setSubject("you");
+        lazy.unsetClaim("iss");
+        Assert.assertThat("you", equalTo(lazy.getSubject()));
+        Assert.assertNull(lazy.getIssuer());
+        Assert.assertThat(NumericDate.fromSeconds(1300819380), equalTo(lazy.getExpirationTime()));
+        Assert.assertEquals(4, lazy.getClaimNames().size());
+    }
+
+    @Test
+    public void testLazyParsingRejectsWhatEagerDoes() throws MalformedClaimException
+    {
+        String[] jsons = {"{\"sub\":\"a\",\"sub\":\"b\"}", "{\"x\":{\"y\":1,\"y\":2}}", "{\"sub\":\"a\"", "[\"sub\"]", "not json"};
+        for (String json : jsons)
+        {
+            try
+            {
+                JwtClaims.parseLazily(json, null);
+                Assert.fail("should have failed on " + json);
+            }
+            catch (InvalidJwtException e)
+            {
+                Assert.assertTrue(e.hasErrorCode(org.jose4j.jwt.consumer.ErrorCodes.JSON_INVALID));
+            }
+        }
+
+        // leniency of the full parser, like leading zeros, still applies when falling back to it
+        JwtClaims claims = null;
+        try
+        {
+            claims = JwtClaims.parseLazily("{\"exp\":01300819380}", null);
+        }
+        catch (InvalidJwtException e)
+        {
+            Assert.fail(e.toString());
+        }
+        Assert.assertThat(NumericDate.fromSeconds(1300819380), equalTo(claims.getExpirationTime()));
+    }
 }
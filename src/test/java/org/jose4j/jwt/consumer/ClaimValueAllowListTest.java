@@ -0,0 +1,116 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwt.consumer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class ClaimValueAllowListTest
+{
+    @Test
+    public void exactValues()
+    {
+        ClaimValueAllowList allowList = new ClaimValueAllowList();
+        for (int i = 0; i < 5000; i++)
+        {
+            allowList.addValues("https://tenant" + i + ".example.com");
+        }
+        assertTrue(allowList.matches("https://tenant0.example.com"));
+        assertTrue(allowList.matches("https://tenant4999.example.com"));
+        assertFalse(allowList.matches("https://tenant5000.example.com"));
+        assertFalse(allowList.matches(null));
+        assertTrue(allowList.toString().endsWith(", and 4990 more]"));
+    }
+
+    @Test
+    public void templates()
+    {
+        ClaimValueAllowList allowList = new ClaimValueAllowList()
+                .addTemplates("https://login.example.com/{tenant}/v2.0",
+                        "https://login.example.com/{tenant}/{version}/oauth",
+                        "https://{region}.sts.example.net/{tenant}",
+                        "urn:{a}{b}:end",
+                        "exact");
+
+        assertTrue(allowList.matches("https://login.example.com/abc-123/v2.0"));
+        assertFalse(allowList.matches("https://login.example.com//v2.0"));
+        assertFalse(allowList.matches("https://login.example.com/a/b/v2.0"));
+        assertFalse(allowList.matches("https://login.example.com/abc/v2.0/"));
+        assertFalse(allowList.matches("https://login.example.com/abc/v1.0"));
+        assertTrue(allowList.matches("https://login.example.com/abc/v1/oauth"));
+        assertTrue(allowList.matches("https://eu.sts.example.net/t1"));
+        assertFalse(allowList.matches("https://eu.sts.example.net/"));
+        assertFalse(allowList.matches("https://eu/x.sts.example.net/t1"));
+        assertTrue(allowList.matches("urn:xy:end"));
+        assertFalse(allowList.matches("urn:x:end"));
+        assertTrue(allowList.matches("exact"));
+        assertFalse(allowList.matches("https://login.example.com/"));
+        assertFalse(allowList.matches(""));
+    }
+
+    @Test
+    public void otherMatchers()
+    {
+        ClaimValueAllowList allowList = new ClaimValueAllowList().addValues("a").addMatcher(new ClaimValueMatcher()
+        {
+            @Override
+            public boolean matches(String value)
+            {
+                return value.startsWith("b");
+            }
+        });
+        assertTrue(allowList.matches("a"));
+        assertTrue(allowList.matches("bcd"));
+        assertFalse(allowList.matches("c"));
+    }
+
+    @Test
+    public void badTemplates()
+    {
+        String[] templates = {"https://x/{}", "https://x/{a", "https://x/a}", "https://x/{a{b}}"};
+        for (String template : templates)
+        {
+            try
+            {
+                new ClaimValueAllowList().addTemplates(template);
+                fail(template);
+            }
+            catch (IllegalArgumentException e)
+            {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void nullAudienceMatcherRejected()
+    {
+        try
+        {
+            new JwtConsumerBuilder().setExpectedAudienceMatcher(true, null);
+            fail("null matcher");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+}
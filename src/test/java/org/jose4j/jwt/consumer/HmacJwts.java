@@ -0,0 +1,80 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwt.consumer;
+
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwx.JsonWebStructure;
+import org.jose4j.keys.HmacKey;
+import org.jose4j.keys.resolvers.VerificationKeyResolver;
+import org.jose4j.lang.ByteUtil;
+import org.jose4j.lang.JoseException;
+
+import java.security.Key;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HS256 JWTs, and a resolver that counts key resolutions, for the consumer tests that need some quick JWTs to process.
+ */
+class HmacJwts
+{
+    static HmacKey newKey()
+    {
+        return new HmacKey(ByteUtil.randomBytes(32));
+    }
+
+    /**
+     * @param subject the subject
+     * @return claims with the subject that expire in 10 minutes
+     */
+    static JwtClaims claims(String subject)
+    {
+        JwtClaims claims = new JwtClaims();
+        claims.setSubject(subject);
+        claims.setExpirationTimeMinutesInTheFuture(10);
+        return claims;
+    }
+
+    static String sign(JwtClaims claims, Key key) throws JoseException
+    {
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setPayload(claims.toJson());
+        jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.HMAC_SHA256);
+        jws.setKey(key);
+        return jws.getCompactSerialization();
+    }
+
+    static class CountingResolver implements VerificationKeyResolver
+    {
+        final AtomicInteger count = new AtomicInteger();
+        private final Key key;
+
+        CountingResolver(Key key)
+        {
+            this.key = key;
+        }
+
+        @Override
+        public Key resolveKey(JsonWebSignature jws, List<JsonWebStructure> nestingContext)
+        {
+            count.incrementAndGet();
+            return key;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwt.consumer;
+
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwx.JsonWebStructure;
+import org.jose4j.keys.HmacKey;
+import org.jose4j.keys.resolvers.VerificationKeyResolver;
+import org.jose4j.lang.ByteUtil;
+import org.jose4j.lang.JoseException;
+import org.jose4j.lang.UnresolvableKeyException;
+import org.junit.Test;
+
+import java.security.Key;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class IssuerVerificationKeyResolversTest
+{
+    private final HmacKey fixedKey = new HmacKey(ByteUtil.randomBytes(32));
+    private final HmacKey tenantAKey = new HmacKey(ByteUtil.randomBytes(32));
+    private final HmacKey tenantBKey = new HmacKey(ByteUtil.randomBytes(32));
+
+    private static String jwt(String issuer, String audience, Key key) throws JoseException
+    {
+        JwtClaims claims = new JwtClaims();
+        claims.setIssuer(issuer);
+        claims.setAudience(audience);
+        claims.setExpirationTimeMinutesInTheFuture(10);
+
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setPayload(claims.toJson());
+        jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.HMAC_SHA256);
+        jws.setKeyIdHeaderValue("same");
+        jws.setKey(key);
+        return jws.getCompactSerialization();
+    }
+
+    private static VerificationKeyResolver resolver(final Key key)
+    {
+        return new VerificationKeyResolver()
+        {
+            @Override
+            public Key resolveKey(JsonWebSignature jws, List<JsonWebStructure> nestingContext) throws UnresolvableKeyException
+            {
+                return key;
+            }
+        };
+    }
+
+    private JwtConsumer consumer()
+    {
+        final HmacKey[] tenantKeys = {tenantAKey, tenantBKey};
+        IssuerVerificationKeyResolvers resolvers = new IssuerVerificationKeyResolvers()
+                .add("https://fixed.example.com", resolver(fixedKey))
+                .add(new ClaimValueAllowList().addTemplates("https://login.example.com/{tenant}/v2.0"), new VerificationKeyResolver()
+                {
+                    @Override
+                    public Key resolveKey(JsonWebSignature jws, List<JsonWebStructure> nestingContext) throws UnresolvableKeyException
+                    {
+                        // a stand-in for a per tenant JWKS, chosen by something other than the header
+                        return jws.getUnverifiedPayload().contains("/a/") ? tenantKeys[0] : tenantKeys[1];
+                    }
+                });
+
+        return new JwtConsumerBuilder()
+                .setIssuerVerificationKeyResolvers(resolvers)
+                .setExpectedIssuerMatcher(true, new ClaimValueAllowList()
+                        .addValues("https://fixed.example.com")
+                        .addTemplates("https://login.example.com/{tenant}/v2.0"))
+                .setExpectedAudienceMatcher(true, new ClaimValueAllowList().addTemplates("api://{tenant}"))
+                .build();
+    }
+
+    @Test
+    public void routesByIssuer() throws Exception
+    {
+        JwtConsumer consumer = consumer();
+        consumer.process(jwt("https://fixed.example.com", "api://x", fixedKey));
+        consumer.process(jwt("https://login.example.com/a/v2.0", "api://a", tenantAKey));
+        consumer.process(jwt("https://login.example.com/b/v2.0", "api://b", tenantBKey));
+
+        String[] rejected = {
+                jwt("https://fixed.example.com", "api://x", tenantAKey),
+                jwt("https://other.example.com", "api://x", fixedKey),
+                jwt("https://login.example.com/a/v2.0", "urn:nope", tenantAKey),
+        };
+        for (String jwt : rejected)
+        {
+            try
+            {
+                consumer.process(jwt);
+                fail("should have been rejected");
+            }
+            catch (InvalidJwtException e)
+            {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void batchDoesNotShareKeysAcrossIssuers() throws Exception
+    {
+        List<JwtBatchResult> results = consumer().processBatch(Arrays.asList(
+                jwt("https://fixed.example.com", "api://x", fixedKey),
+                jwt("https://login.example.com/a/v2.0", "api://a", tenantAKey),
+                jwt("https://fixed.example.com", "api://y", fixedKey),
+                jwt("https://other.example.com", "api://x", fixedKey)));
+
+        assertTrue(results.get(0).isValid());
+        assertTrue(results.get(1).isValid());
+        assertTrue(results.get(2).isValid());
+        assertFalse(results.get(3).isValid());
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwt.consumer;
+
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.keys.HmacKey;
+import org.jose4j.lang.JoseException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class JtiReplayDetectionTest
+{
+    private final HmacKey key = HmacJwts.newKey();
+
+    private String jwt(String jti, String issuer) throws JoseException
+    {
+        return jwt(jti, issuer, true);
+    }
+
+    private String jwt(String jti, String issuer, boolean withExp) throws JoseException
+    {
+        JwtClaims claims = new JwtClaims();
+        claims.setIssuer(issuer);
+        if (withExp)
+        {
+            claims.setExpirationTimeMinutesInTheFuture(10);
+        }
+        if (jti != null)
+        {
+            claims.setJwtId(jti);
+        }
+        return HmacJwts.sign(claims, key);
+    }
+
+    private JwtConsumerBuilder builder(JtiStore store)
+    {
+        return new JwtConsumerBuilder()
+                .setVerificationKey(key)
+                .setJtiReplayDetection(store);
+    }
+
+    @Test
+    public void secondUseRejected() throws Exception
+    {
+        InMemoryJtiStore store = new InMemoryJtiStore(1000);
+        JwtConsumer consumer = builder(store).build();
+
+        String jwt = jwt("abc", "https://a.example.com");
+        consumer.process(jwt);
+        try
+        {
+            consumer.process(jwt);
+            fail("replay should have been rejected");
+        }
+        catch (InvalidJwtException e)
+        {
+            assertTrue(e.hasErrorCode(ErrorCodes.JWT_ID_REPLAYED));
+        }
+
+        // the same jti from another issuer is a different JWT ID
+        consumer.process(jwt("abc", "https://b.example.com"));
+        assertEquals(1, store.getReplayCount());
+        assertEquals(2, store.size());
+
+        try
+        {
+            consumer.process(jwt(null, "https://a.example.com"));
+            fail("a JWT without a jti should have been rejected");
+        }
+        catch (InvalidJwtException e)
+        {
+            assertTrue(e.hasErrorCode(ErrorCodes.JWT_ID_MISSING));
+        }
+    }
+
+    @Test
+    public void idWithoutExpirationNotRecorded() throws Exception
+    {
+        InMemoryJtiStore store = new InMemoryJtiStore(1000);
+        JwtConsumer[] consumers = {builder(store).build(), builder(store).setSkipAllDefaultValidators().build()};
+        for (JwtConsumer consumer : consumers)
+        {
+            try
+            {
+                consumer.process(jwt("forever", "https://a.example.com", false));
+                fail("a JWT without an exp would have its ID kept forever");
+            }
+            catch (InvalidJwtException e)
+            {
+                assertTrue(e.hasErrorCode(ErrorCodes.EXPIRATION_MISSING));
+            }
+        }
+        assertEquals(0, store.size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void cannotSkipAllValidators()
+    {
+        builder(new InMemoryJtiStore(10)).setSkipAllValidators().build();
+    }
+
+    @Test
+    public void rejectedJwtDoesNotUseUpItsId() throws Exception
+    {
+        InMemoryJtiStore store = new InMemoryJtiStore(1000);
+        JwtConsumer strict = builder(store).setExpectedIssuer("https://other.example.com").build();
+        String jwt = jwt("xyz", "https://a.example.com");
+        try
+        {
+            strict.process(jwt);
+            fail("wrong issuer should have been rejected");
+        }
+        catch (InvalidJwtException e)
+        {
+            assertTrue(e.hasErrorCode(ErrorCodes.ISSUER_INVALID));
+            assertFalse(e.hasErrorCode(ErrorCodes.JWT_ID_REPLAYED));
+        }
+        assertEquals(0, store.size());
+
+        builder(store).build().process(jwt);
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    public void replayDetectedEvenWhenVerifiedJwtIsCached() throws Exception
+    {
+        JwtConsumer consumer = builder(new InMemoryJtiStore(10)).setVerifiedJwtCache(10, 60).build();
+        String jwt = jwt("cached", "https://a.example.com");
+        consumer.process(jwt);
+        try
+        {
+            consumer.process(jwt);
+            fail("replay should have been rejected");
+        }
+        catch (InvalidJwtException e)
+        {
+            assertTrue(e.hasErrorCode(ErrorCodes.JWT_ID_REPLAYED));
+        }
+    }
+
+    @Test
+    public void exactlyOneOfConcurrentUsesAccepted() throws Exception
+    {
+        final JwtConsumer consumer = builder(new InMemoryJtiStore(1000, 4)).build();
+        final String jwt = jwt("once", "https://a.example.com");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try
+        {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < 32; i++)
+            {
+                futures.add(executor.submit(new Callable<Boolean>()
+                {
+                    @Override
+                    public Boolean call()
+                    {
+                        try
+                        {
+                            consumer.process(jwt);
+                            return true;
+                        }
+                        catch (InvalidJwtException e)
+                        {
+                            return false;
+                        }
+                    }
+                }));
+            }
+
+            int accepted = 0;
+            for (Future<Boolean> future : futures)
+            {
+                accepted += future.get() ? 1 : 0;
+            }
+            assertEquals(1, accepted);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void fullStoreRejectsNewIds() throws Exception
+    {
+        InMemoryJtiStore store = new InMemoryJtiStore(2, 1);
+        JwtConsumer consumer = builder(store).build();
+        consumer.process(jwt("1", "https://a.example.com"));
+        consumer.process(jwt("2", "https://a.example.com"));
+        try
+        {
+            consumer.process(jwt("3", "https://a.example.com"));
+            fail("a full store can't record more so the JWT should have been rejected");
+        }
+        catch (InvalidJwtException e)
+        {
+            assertTrue(e.hasErrorCode(ErrorCodes.MISCELLANEOUS));
+        }
+        assertEquals(1, store.getRejectedWhenFullCount());
+    }
+
+    @Test
+    public void expiredIdsAreSweptAndCanBeUsedAgain() throws Exception
+    {
+        InMemoryJtiStore store = new InMemoryJtiStore(2, 1);
+        long now = System.currentTimeMillis();
+        assertTrue(store.markUsed("iss", "a", now + 100));
+        assertTrue(store.markUsed("iss", "b", now + 100));
+        assertFalse(store.markUsed("iss", "a", now + 100));
+        assertEquals(1, store.getReplayCount());
+
+        // wait for the slot after the one they expire in to come due
+        Thread.sleep(2100 - (now % 1000));
+
+        now = System.currentTimeMillis();
+        assertTrue(store.markUsed("iss", "c", now + 60000));
+        assertEquals(1, store.size());
+        assertTrue(store.markUsed("iss", "a", now + 60000));
+        assertFalse(store.markUsed("iss", "c", now + 60000));
+    }
+}
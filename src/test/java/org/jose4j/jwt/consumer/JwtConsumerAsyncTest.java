@@ -0,0 +1,299 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwt.consumer;
+
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwx.JsonWebStructure;
+import org.jose4j.keys.HmacKey;
+import org.jose4j.keys.resolvers.AsyncVerificationKeyResolver;
+import org.jose4j.keys.resolvers.KeyResolutionCallback;
+import org.jose4j.keys.resolvers.VerificationKeyResolver;
+import org.jose4j.lang.JoseException;
+import org.jose4j.lang.UnresolvableKeyException;
+import org.junit.After;
+import org.junit.Test;
+
+import java.security.Key;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class JwtConsumerAsyncTest
+{
+    private final HmacKey key = HmacJwts.newKey();
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @After
+    public void shutdown()
+    {
+        executor.shutdownNow();
+    }
+
+    private String jwt(HmacKey signingKey) throws JoseException
+    {
+        return HmacJwts.sign(HmacJwts.claims("async"), signingKey);
+    }
+
+    private JwtConsumer consumer()
+    {
+        return new JwtConsumerBuilder().setVerificationKey(key).setRequireExpirationTime().build();
+    }
+
+    @Test
+    public void future() throws Exception
+    {
+        Future<JwtContext> future = consumer().processAsync(jwt(key), executor);
+        assertEquals("async", future.get(10, TimeUnit.SECONDS).getJwtClaims().getSubject());
+
+        future = consumer().processAsync(jwt(HmacJwts.newKey()), executor);
+        try
+        {
+            future.get(10, TimeUnit.SECONDS);
+            fail("bad signature should have been rejected");
+        }
+        catch (ExecutionException e)
+        {
+            InvalidJwtException cause = (InvalidJwtException) e.getCause();
+            assertTrue(cause.hasErrorCode(ErrorCodes.SIGNATURE_INVALID));
+        }
+    }
+
+    @Test
+    public void callback() throws Exception
+    {
+        RecordingCallback callback = new RecordingCallback();
+        consumer().processAsync(jwt(key), executor, callback);
+        assertTrue(callback.done.await(10, TimeUnit.SECONDS));
+        assertNull(callback.failure.get());
+        assertEquals("async", callback.success.get().getJwtClaims().getSubject());
+        assertNotSame(Thread.currentThread(), callback.thread.get());
+
+        callback = new RecordingCallback();
+        consumer().processAsync(jwt(HmacJwts.newKey()), executor, callback);
+        assertTrue(callback.done.await(10, TimeUnit.SECONDS));
+        assertNull(callback.success.get());
+        assertTrue(((InvalidJwtException) callback.failure.get()).hasErrorCode(ErrorCodes.SIGNATURE_INVALID));
+    }
+
+    @Test
+    public void asyncKeyResolutionOnIoExecutor() throws Exception
+    {
+        ExecutorService ioExecutor = Executors.newSingleThreadExecutor();
+        try
+        {
+            NotReadyResolver resolver = new NotReadyResolver(key, null);
+            JwtConsumer consumer = new JwtConsumerBuilder().setVerificationKeyResolver(resolver).setRequireExpirationTime().build();
+
+            RecordingCallback callback = new RecordingCallback();
+            consumer.processAsync(jwt(key), executor, ioExecutor, callback);
+            assertTrue(callback.done.await(10, TimeUnit.SECONDS));
+            assertNull(callback.failure.get());
+            assertEquals("async", callback.success.get().getJwtClaims().getSubject());
+
+            Thread ioThread = ioExecutor.submit(new Callable<Thread>()
+            {
+                @Override
+                public Thread call()
+                {
+                    return Thread.currentThread();
+                }
+            }).get();
+            assertSame(ioThread, resolver.asyncThread.get());
+            assertNotSame(ioThread, callback.thread.get());
+            assertEquals(0, resolver.blockingCalls.get());
+
+            // once the key is there, it's used without going to the I/O executor
+            callback = new RecordingCallback();
+            consumer.processAsync(jwt(key), executor, ioExecutor, callback);
+            assertTrue(callback.done.await(10, TimeUnit.SECONDS));
+            assertNotNull(callback.success.get());
+            assertEquals(1, resolver.asyncCalls.get());
+        }
+        finally
+        {
+            ioExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void futureWithAsyncKeyResolution() throws Exception
+    {
+        ExecutorService ioExecutor = Executors.newSingleThreadExecutor();
+        try
+        {
+            NotReadyResolver resolver = new NotReadyResolver(key, null);
+            JwtConsumer consumer = new JwtConsumerBuilder().setVerificationKeyResolver(resolver).setRequireExpirationTime().build();
+
+            Future<JwtContext> future = consumer.processAsync(jwt(key), executor, ioExecutor);
+            assertEquals("async", future.get(10, TimeUnit.SECONDS).getJwtClaims().getSubject());
+            assertTrue(future.isDone());
+            assertFalse(future.cancel(true));
+            assertEquals(1, resolver.asyncCalls.get());
+            assertEquals(0, resolver.blockingCalls.get());
+
+            future = consumer.processAsync(jwt(HmacJwts.newKey()), executor, ioExecutor);
+            try
+            {
+                future.get(10, TimeUnit.SECONDS);
+                fail("bad signature should have been rejected");
+            }
+            catch (ExecutionException e)
+            {
+                assertTrue(((InvalidJwtException) e.getCause()).hasErrorCode(ErrorCodes.SIGNATURE_INVALID));
+            }
+        }
+        finally
+        {
+            ioExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void asyncKeyResolutionFailure() throws Exception
+    {
+        NotReadyResolver resolver = new NotReadyResolver(null, new UnresolvableKeyException("no such key"));
+        JwtConsumer consumer = new JwtConsumerBuilder().setVerificationKeyResolver(resolver).build();
+
+        RecordingCallback callback = new RecordingCallback();
+        consumer.processAsync(jwt(key), executor, executor, callback);
+        assertTrue(callback.done.await(10, TimeUnit.SECONDS));
+        assertNull(callback.success.get());
+        InvalidJwtException e = (InvalidJwtException) callback.failure.get();
+        assertTrue(e.getCause() instanceof UnresolvableKeyException);
+        assertEquals("no such key", e.getCause().getMessage());
+    }
+
+    @Test
+    public void errorGoesToCallback() throws Exception
+    {
+        final AssertionError error = new AssertionError("boom");
+        JwtConsumer consumer = new JwtConsumerBuilder().setVerificationKeyResolver(new VerificationKeyResolver()
+        {
+            @Override
+            public Key resolveKey(JsonWebSignature jws, List<JsonWebStructure> nestingContext)
+            {
+                throw error;
+            }
+        }).build();
+
+        RecordingCallback callback = new RecordingCallback();
+        consumer.processAsync(jwt(key), executor, callback);
+        assertTrue(callback.done.await(10, TimeUnit.SECONDS));
+        assertSame(error, callback.failure.get());
+    }
+
+    @Test
+    public void rejectedExecutionGoesToCallback() throws Exception
+    {
+        executor.shutdown();
+        RecordingCallback callback = new RecordingCallback();
+        consumer().processAsync(jwt(key), executor, callback);
+        assertTrue(callback.done.await(10, TimeUnit.SECONDS));
+        assertTrue(callback.failure.get() instanceof RejectedExecutionException);
+    }
+
+    static class NotReadyResolver implements AsyncVerificationKeyResolver
+    {
+        final Key key;
+        final UnresolvableKeyException failure;
+        volatile boolean ready;
+        final AtomicInteger asyncCalls = new AtomicInteger();
+        final AtomicInteger blockingCalls = new AtomicInteger();
+        final AtomicReference<Thread> asyncThread = new AtomicReference<>();
+
+        NotReadyResolver(Key key, UnresolvableKeyException failure)
+        {
+            this.key = key;
+            this.failure = failure;
+        }
+
+        @Override
+        public Key resolveKeyIfReady(JsonWebSignature jws, List<JsonWebStructure> nestingContext)
+        {
+            return ready ? key : null;
+        }
+
+        @Override
+        public void resolveKeyAsync(JsonWebSignature jws, List<JsonWebStructure> nestingContext, Executor ioExecutor,
+                                    final KeyResolutionCallback callback)
+        {
+            asyncCalls.incrementAndGet();
+            ioExecutor.execute(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    asyncThread.set(Thread.currentThread());
+                    if (failure != null)
+                    {
+                        callback.onFailure(failure);
+                    }
+                    else
+                    {
+                        ready = true;
+                        callback.onResolved(key);
+                    }
+                }
+            });
+        }
+
+        @Override
+        public Key resolveKey(JsonWebSignature jws, List<JsonWebStructure> nestingContext)
+        {
+            blockingCalls.incrementAndGet();
+            return key;
+        }
+    }
+
+    static class RecordingCallback implements JwtConsumerCallback
+    {
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicReference<JwtContext> success = new AtomicReference<>();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final AtomicReference<Thread> thread = new AtomicReference<>();
+
+        @Override
+        public void onSuccess(JwtContext jwtContext)
+        {
+            success.set(jwtContext);
+            thread.set(Thread.currentThread());
+            done.countDown();
+        }
+
+        @Override
+        public void onFailure(Throwable t)
+        {
+            failure.set(t);
+            thread.set(Thread.currentThread());
+            done.countDown();
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwt.consumer;
+
+import org.jose4j.jwk.JsonWebKey;
+import org.jose4j.jwk.RsaJsonWebKey;
+import org.jose4j.jwk.RsaJwkGenerator;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwx.JsonWebStructure;
+import org.jose4j.keys.resolvers.HeaderOnlyVerificationKeyResolver;
+import org.jose4j.keys.resolvers.JwksVerificationKeyResolver;
+import org.jose4j.lang.UnresolvableKeyException;
+import org.junit.Test;
+
+import java.security.Key;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class JwtConsumerBatchTest
+{
+    @Test
+    public void sequentialAndParallel() throws Exception
+    {
+        RsaJsonWebKey k1 = RsaJwkGenerator.generateJwk(2048);
+        k1.setKeyId("k1");
+        RsaJsonWebKey k2 = RsaJwkGenerator.generateJwk(2048);
+        k2.setKeyId("k2");
+        RsaJsonWebKey unknown = RsaJwkGenerator.generateJwk(2048);
+        unknown.setKeyId("unknown");
+
+        List<String> jwts = new ArrayList<>();
+        List<Boolean> expectedValid = new ArrayList<>();
+        for (int i = 0; i < 300; i++)
+        {
+            switch (i % 5)
+            {
+                case 0:
+                    jwts.add(jwt(k1, k1, "s" + i));
+                    expectedValid.add(true);
+                    break;
+                case 1:
+                    jwts.add(jwt(k2, k2, "s" + i));
+                    expectedValid.add(true);
+                    break;
+                case 2:
+                    jwts.add(jwt(k1, k2, "s" + i)); // signed with the wrong key
+                    expectedValid.add(false);
+                    break;
+                case 3:
+                    jwts.add(jwt(unknown, unknown, "s" + i));
+                    expectedValid.add(false);
+                    break;
+                default:
+                    jwts.add("not.a.jwt" + i);
+                    expectedValid.add(false);
+            }
+        }
+
+        CountingResolver resolver = new CountingResolver(k1, k2);
+        JwtConsumer consumer = new JwtConsumerBuilder().setVerificationKeyResolver(resolver).setRequireSubject().build();
+
+        List<JwtBatchResult> results = consumer.processBatch(jwts);
+        check(jwts, expectedValid, results);
+        assertEquals(3, resolver.count.get());
+
+        resolver.count.set(0);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            results = consumer.processBatch(jwts, pool);
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+        check(jwts, expectedValid, results);
+        assertEquals(3, resolver.count.get());
+    }
+
+    @Test
+    public void disambiguatedKeysNotShared() throws Exception
+    {
+        RsaJsonWebKey k1 = RsaJwkGenerator.generateJwk(2048);
+        RsaJsonWebKey k2 = RsaJwkGenerator.generateJwk(2048);
+
+        List<String> jwts = new ArrayList<>();
+        List<Boolean> expectedValid = new ArrayList<>();
+        for (int i = 0; i < 10; i++)
+        {
+            jwts.add(jwt(null, (i % 2 == 0) ? k1 : k2, "s" + i)); // no kid so the headers are all the same
+            expectedValid.add(true);
+        }
+
+        List<JsonWebKey> jwks = new ArrayList<JsonWebKey>(Arrays.asList(k1, k2));
+        JwksVerificationKeyResolver resolver = new JwksVerificationKeyResolver(jwks);
+        resolver.setDisambiguateWithVerifySignature(true);
+        JwtConsumer consumer = new JwtConsumerBuilder().setVerificationKeyResolver(resolver).setRequireSubject().build();
+
+        check(jwts, expectedValid, consumer.processBatch(jwts));
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            check(jwts, expectedValid, consumer.processBatch(jwts, pool));
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void empty() throws Exception
+    {
+        JwtConsumer consumer = new JwtConsumerBuilder().setSkipAllValidators().setDisableRequireSignature().setSkipSignatureVerification().build();
+        assertTrue(consumer.processBatch(new ArrayList<String>()).isEmpty());
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try
+        {
+            assertTrue(consumer.processBatch(new ArrayList<String>(), pool).isEmpty());
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    private void check(List<String> jwts, List<Boolean> expectedValid, List<JwtBatchResult> results) throws Exception
+    {
+        assertEquals(jwts.size(), results.size());
+        for (int i = 0; i < jwts.size(); i++)
+        {
+            JwtBatchResult result = results.get(i);
+            assertSame(jwts.get(i), result.getJwt());
+            assertEquals(i + " " + result.getException(), expectedValid.get(i), result.isValid());
+            if (result.isValid())
+            {
+                assertNull(result.getException());
+                assertEquals("s" + i, result.getJwtContextOrThrow().getJwtClaims().getSubject());
+            }
+            else
+            {
+                assertNull(result.getJwtContext());
+                assertNotNull(result.getException());
+            }
+        }
+    }
+
+    private String jwt(RsaJsonWebKey headerKey, RsaJsonWebKey signingKey, String subject) throws Exception
+    {
+        JwtClaims claims = new JwtClaims();
+        claims.setSubject(subject);
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setPayload(claims.toJson());
+        jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.RSA_USING_SHA256);
+        if (headerKey != null)
+        {
+            jws.setKeyIdHeaderValue(headerKey.getKeyId());
+        }
+        jws.setKey(signingKey.getPrivateKey());
+        return jws.getCompactSerialization();
+    }
+
+    static class CountingResolver implements HeaderOnlyVerificationKeyResolver
+    {
+        final AtomicInteger count = new AtomicInteger();
+        final RsaJsonWebKey[] keys;
+
+        CountingResolver(RsaJsonWebKey... keys)
+        {
+            this.keys = keys;
+        }
+
+        @Override
+        public Key resolveKey(JsonWebSignature jws, List<JsonWebStructure> nestingContext) throws UnresolvableKeyException
+        {
+            count.incrementAndGet();
+            for (RsaJsonWebKey key : keys)
+            {
+                if (key.getKeyId().equals(jws.getKeyIdHeaderValue()))
+                {
+                    return key.getPublicKey();
+                }
+            }
+            throw new UnresolvableKeyException("no key for " + jws.getKeyIdHeaderValue());
+        }
+
+        @Override
+        public boolean isHeaderOnly()
+        {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwt.consumer;
+
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwx.JsonWebStructure;
+import org.jose4j.keys.HmacKey;
+import org.jose4j.keys.resolvers.VerificationKeyResolver;
+import org.jose4j.lang.JoseException;
+import org.jose4j.lang.UnresolvableKeyException;
+import org.junit.Test;
+
+import java.security.Key;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class RejectedJwtCacheTest
+{
+    private final HmacKey key = HmacJwts.newKey();
+
+    private String badJwt(String subject) throws JoseException
+    {
+        return HmacJwts.sign(HmacJwts.claims(subject), HmacJwts.newKey());
+    }
+
+    @Test
+    public void repeatRejectedWithoutKeyResolution() throws Exception
+    {
+        String jwt = badJwt("me");
+        HmacJwts.CountingResolver resolver = new HmacJwts.CountingResolver(key);
+        JwtConsumer consumer = new JwtConsumerBuilder()
+                .setVerificationKeyResolver(resolver)
+                .setRejectedJwtCache(100, 30)
+                .build();
+
+        InvalidJwtException first = SimpleJwtConsumerTestHelp.expectProcessingFailure(jwt, consumer);
+        assertTrue(first.hasErrorCode(ErrorCodes.SIGNATURE_INVALID));
+
+        for (int i = 0; i < 3; i++)
+        {
+            InvalidJwtException e = SimpleJwtConsumerTestHelp.expectProcessingFailure(jwt, consumer);
+            assertTrue(e.hasErrorCode(ErrorCodes.SIGNATURE_INVALID));
+            assertEquals(jwt, e.getJwtContext().getJwt());
+        }
+
+        assertEquals(1, resolver.count.get());
+        RejectedJwtCache cache = consumer.getRejectedJwtCache();
+        assertEquals(3, cache.getHitCount());
+        assertEquals(1, cache.size());
+
+        cache.clear();
+        SimpleJwtConsumerTestHelp.expectProcessingFailure(jwt, consumer);
+        assertEquals(2, resolver.count.get());
+    }
+
+    @Test
+    public void worksWithVerifiedCache() throws Exception
+    {
+        String goodJwt = HmacJwts.sign(HmacJwts.claims("good"), key);
+        String badJwt = badJwt("bad");
+
+        HmacJwts.CountingResolver resolver = new HmacJwts.CountingResolver(key);
+        JwtConsumer consumer = new JwtConsumerBuilder()
+                .setVerificationKeyResolver(resolver)
+                .setVerifiedJwtCache(100, 300)
+                .setRejectedJwtCache(100, 30)
+                .build();
+
+        for (int i = 0; i < 3; i++)
+        {
+            assertEquals("good", consumer.process(goodJwt).getJwtClaims().getSubject());
+            SimpleJwtConsumerTestHelp.expectProcessingFailure(badJwt, consumer);
+        }
+
+        assertEquals(2, resolver.count.get());
+        assertEquals(1, consumer.getVerifiedJwtCache().size());
+        assertEquals(1, consumer.getRejectedJwtCache().size());
+    }
+
+    @Test
+    public void boundedSize() throws Exception
+    {
+        HmacJwts.CountingResolver resolver = new HmacJwts.CountingResolver(key);
+        JwtConsumer consumer = new JwtConsumerBuilder()
+                .setVerificationKeyResolver(resolver)
+                .setRejectedJwtCache(2, 30)
+                .build();
+
+        String[] jwts = new String[3];
+        for (int i = 0; i < jwts.length; i++)
+        {
+            jwts[i] = badJwt("s" + i);
+            SimpleJwtConsumerTestHelp.expectProcessingFailure(jwts[i], consumer);
+        }
+
+        assertEquals(2, consumer.getRejectedJwtCache().size());
+        SimpleJwtConsumerTestHelp.expectProcessingFailure(jwts[2], consumer);
+        assertEquals(3, resolver.count.get());
+        SimpleJwtConsumerTestHelp.expectProcessingFailure(jwts[0], consumer);
+        assertEquals(4, resolver.count.get());
+    }
+
+    @Test
+    public void garbageRemembered() throws Exception
+    {
+        JwtConsumer consumer = new JwtConsumerBuilder()
+                .setVerificationKey(key)
+                .setRejectedJwtCache(100, 30)
+                .build();
+
+        SimpleJwtConsumerTestHelp.expectProcessingFailure("not.a.jwt", consumer);
+        SimpleJwtConsumerTestHelp.expectProcessingFailure("not.a.jwt", consumer);
+        assertEquals(1, consumer.getRejectedJwtCache().getHitCount());
+    }
+
+    @Test
+    public void transientFailuresNotRemembered() throws Exception
+    {
+        JwtClaims claims = HmacJwts.claims("me");
+        claims.setNotBeforeMinutesInThePast(-10);
+        String notYetValid = HmacJwts.sign(claims, key);
+
+        JwtConsumer consumer = new JwtConsumerBuilder()
+                .setVerificationKey(key)
+                .setRejectedJwtCache(100, 30)
+                .build();
+        assertTrue(SimpleJwtConsumerTestHelp.expectProcessingFailure(notYetValid, consumer).hasErrorCode(ErrorCodes.NOT_YET_VALID));
+        assertEquals(0, consumer.getRejectedJwtCache().size());
+
+        final AtomicInteger calls = new AtomicInteger();
+        consumer = new JwtConsumerBuilder()
+                .setVerificationKeyResolver(new VerificationKeyResolver()
+                {
+                    @Override
+                    public Key resolveKey(JsonWebSignature jws, List<JsonWebStructure> nestingContext) throws UnresolvableKeyException
+                    {
+                        if (calls.incrementAndGet() == 1)
+                        {
+                            throw new UnresolvableKeyException("JWKS endpoint unavailable");
+                        }
+                        return key;
+                    }
+                })
+                .registerValidator(new ErrorCodeValidator()
+                {
+                    @Override
+                    public Error validate(JwtContext jwtContext)
+                    {
+                        if (calls.get() == 2)
+                        {
+                            throw new IllegalStateException("backend unavailable");
+                        }
+                        return null;
+                    }
+                })
+                .setRejectedJwtCache(100, 30)
+                .build();
+
+        claims.setNotBeforeMinutesInThePast(1);
+        String jwt = HmacJwts.sign(claims, key);
+        SimpleJwtConsumerTestHelp.expectProcessingFailure(jwt, consumer);
+        assertTrue(SimpleJwtConsumerTestHelp.expectProcessingFailure(jwt, consumer).hasErrorCode(ErrorCodes.MISCELLANEOUS));
+        consumer.process(jwt);
+        assertEquals(0, consumer.getRejectedJwtCache().size());
+        assertEquals(0, consumer.getRejectedJwtCache().getHitCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void badConfig()
+    {
+        new JwtConsumerBuilder().setRejectedJwtCache(10, 0);
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwt.consumer;
+
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwt.MalformedClaimException;
+import org.jose4j.jwt.NumericDate;
+import org.jose4j.jwx.JsonWebStructure;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class ValidationPlanTest
+{
+    private static JwtContext context(String claimsJson) throws InvalidJwtException
+    {
+        return new JwtContext(JwtClaims.parse(claimsJson), Collections.<JsonWebStructure>emptyList());
+    }
+
+    private static class CountingValidator implements ErrorCodeValidator
+    {
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public Error validate(JwtContext jwtContext) throws MalformedClaimException
+        {
+            calls.incrementAndGet();
+            return null;
+        }
+    }
+
+    @Test
+    public void failFastStopsBeforeCustomValidators() throws Exception
+    {
+        CountingValidator custom = new CountingValidator();
+        JwtConsumer consumer = new JwtConsumerBuilder()
+                .setSkipSignatureVerification()
+                .setRequireExpirationTime()
+                .setExpectedIssuer("https://issuer.example.com")
+                .registerValidator(custom)
+                .setFailFastValidation()
+                .build();
+
+        JwtContext ctx = context("{\"iss\":\"https://other.example.com\",\"exp\":1}");
+        try
+        {
+            consumer.validate(ctx);
+            fail("expired and wrong issuer");
+        }
+        catch (InvalidJwtException e)
+        {
+            List<ErrorCodeValidator.Error> details = e.getErrorDetails();
+            assertEquals(1, details.size());
+            assertTrue(e.hasExpired());
+        }
+        assertEquals(0, custom.calls.get());
+        assertNull(ctx.getClaimsSnapshot());
+    }
+
+    @Test
+    public void allErrorsCollectedByDefault() throws Exception
+    {
+        CountingValidator custom = new CountingValidator();
+        JwtConsumer consumer = new JwtConsumerBuilder()
+                .setSkipSignatureVerification()
+                .setRequireExpirationTime()
+                .setExpectedIssuer("https://issuer.example.com")
+                .registerValidator(custom)
+                .build();
+
+        try
+        {
+            consumer.validate(context("{\"iss\":\"https://other.example.com\",\"exp\":1}"));
+            fail("expired and wrong issuer");
+        }
+        catch (InvalidJwtException e)
+        {
+            List<ErrorCodeValidator.Error> details = e.getErrorDetails();
+            assertEquals(2, details.size());
+            // the issuer error comes before the expiration error, as it always has
+            assertEquals(ErrorCodes.ISSUER_INVALID, details.get(0).getErrorCode());
+            assertEquals(ErrorCodes.EXPIRED, details.get(1).getErrorCode());
+        }
+        assertEquals(1, custom.calls.get());
+    }
+
+    @Test
+    public void malformedClaimReportedByEachValidatorThatReadsIt() throws Exception
+    {
+        JwtConsumer consumer = new JwtConsumerBuilder()
+                .setSkipSignatureVerification()
+                .setJtiReplayDetection(new InMemoryJtiStore(10))
+                .build();
+
+        try
+        {
+            consumer.validate(context("{\"jti\":\"x\",\"exp\":\"soon\"}"));
+            fail("malformed exp");
+        }
+        catch (InvalidJwtException e)
+        {
+            assertTrue(e.hasErrorCode(ErrorCodes.MALFORMED_CLAIM));
+        }
+    }
+
+    @Test
+    public void snapshotReadsClaimsOnce() throws Exception
+    {
+        JwtClaims claims = JwtClaims.parse("{\"iss\":\"a\",\"sub\":\"b\",\"aud\":[\"c\",\"d\"],\"exp\":\"bad\",\"nbf\":5}");
+        ClaimsSnapshot snapshot = new ClaimsSnapshot(claims);
+        assertEquals("a", snapshot.getIssuer());
+        assertEquals("b", snapshot.getSubject());
+        assertEquals(2, snapshot.getAudience().size());
+        assertSame(snapshot.getAudience(), snapshot.getAudience());
+        assertNull(snapshot.getJwtId());
+        assertNull(snapshot.getIssuedAt());
+        assertEquals(NumericDate.fromSeconds(5), snapshot.getNotBefore());
+
+        MalformedClaimException first = null;
+        try
+        {
+            snapshot.getExpirationTime();
+            fail();
+        }
+        catch (MalformedClaimException e)
+        {
+            first = e;
+        }
+        try
+        {
+            snapshot.getExpirationTime();
+            fail();
+        }
+        catch (MalformedClaimException e)
+        {
+            assertSame(first, e);
+        }
+
+        NumericDate now = snapshot.getEvaluationTime(null);
+        assertSame(now, snapshot.getEvaluationTime(null));
+        NumericDate fixed = NumericDate.fromSeconds(10);
+        assertSame(fixed, snapshot.getEvaluationTime(fixed));
+
+        assertNull(new ClaimsSnapshot(JwtClaims.parse("{}")).getAudience());
+    }
+
+    @Test
+    public void standaloneValidatorReadsCurrentClaims() throws Exception
+    {
+        JwtContext ctx = context("{\"iss\":\"a\"}");
+        IssValidator validator = new IssValidator("b", true);
+        assertNotNull(validator.validate(ctx));
+        ctx.getJwtClaims().setIssuer("b");
+        assertNull(validator.validate(ctx));
+    }
+}
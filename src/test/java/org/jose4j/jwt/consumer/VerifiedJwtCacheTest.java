@@ -0,0 +1,246 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwt.consumer;
+
+import org.jose4j.jwe.ContentEncryptionAlgorithmIdentifiers;
+import org.jose4j.jwe.JsonWebEncryption;
+import org.jose4j.jwe.KeyManagementAlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwt.NumericDate;
+import org.jose4j.jwx.JsonWebStructure;
+import org.jose4j.keys.AesKey;
+import org.jose4j.keys.HmacKey;
+import org.jose4j.lang.ByteUtil;
+import org.jose4j.lang.JoseException;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class VerifiedJwtCacheTest
+{
+    private final HmacKey key = HmacJwts.newKey();
+
+    private String jwt(JwtClaims claims) throws JoseException
+    {
+        return HmacJwts.sign(claims, key);
+    }
+
+    @Test
+    public void hitSkipsKeyResolutionAndVerification() throws Exception
+    {
+        JwtClaims claims = new JwtClaims();
+        claims.setSubject("me");
+        claims.setIssuer("https://issuer.example.com");
+        claims.setExpirationTimeMinutesInTheFuture(10);
+        String jwt = jwt(claims);
+
+        HmacJwts.CountingResolver resolver = new HmacJwts.CountingResolver(key);
+        final AtomicBoolean reject = new AtomicBoolean();
+        JwtConsumer consumer = new JwtConsumerBuilder()
+                .setVerificationKeyResolver(resolver)
+                .setExpectedIssuer("https://issuer.example.com")
+                .setRequireExpirationTime()
+                .registerValidator(new ErrorCodeValidator()
+                {
+                    @Override
+                    public Error validate(JwtContext jwtContext)
+                    {
+                        return reject.get() ? new Error(ErrorCodes.MISCELLANEOUS, "nope") : null;
+                    }
+                })
+                .setVerifiedJwtCache(100, 300)
+                .build();
+
+        for (int i = 0; i < 5; i++)
+        {
+            JwtContext jwtContext = consumer.process(jwt);
+            assertEquals("me", jwtContext.getJwtClaims().getSubject());
+            assertEquals(jwt, jwtContext.getJwt());
+            assertEquals(1, jwtContext.getJoseObjects().size());
+            jwtContext.getJwtClaims().setSubject("changed by the caller");
+        }
+
+        assertEquals(1, resolver.count.get());
+        VerifiedJwtCache cache = consumer.getVerifiedJwtCache();
+        assertEquals(4, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.size());
+
+        // validators are still run for cached JWTs
+        reject.set(true);
+        InvalidJwtException e = SimpleJwtConsumerTestHelp.expectProcessingFailure(jwt, consumer);
+        assertTrue(e.hasErrorCode(ErrorCodes.MISCELLANEOUS));
+        assertEquals(0, cache.size());
+
+        reject.set(false);
+        consumer.process(jwt);
+        assertEquals(2, resolver.count.get());
+    }
+
+    @Test
+    public void badSignatureNotCached() throws Exception
+    {
+        JwtClaims claims = new JwtClaims();
+        claims.setSubject("me");
+        claims.setExpirationTimeMinutesInTheFuture(10);
+        String jwt = jwt(claims);
+        String badJwt = jwt.substring(0, jwt.lastIndexOf('.') + 1) + "bad" + jwt.substring(jwt.lastIndexOf('.') + 4);
+
+        JwtConsumer consumer = new JwtConsumerBuilder()
+                .setVerificationKey(key)
+                .setVerifiedJwtCache(100, 300)
+                .build();
+
+        for (int i = 0; i < 3; i++)
+        {
+            SimpleJwtConsumerTestHelp.expectProcessingFailure(badJwt, consumer);
+        }
+        assertEquals(0, consumer.getVerifiedJwtCache().size());
+        assertEquals(0, consumer.getVerifiedJwtCache().getHitCount());
+    }
+
+    @Test
+    public void expiredNotCached() throws Exception
+    {
+        JwtClaims claims = new JwtClaims();
+        claims.setSubject("me");
+        claims.setExpirationTime(NumericDate.fromSeconds(1300819380));
+        String jwt = jwt(claims);
+
+        HmacJwts.CountingResolver resolver = new HmacJwts.CountingResolver(key);
+        JwtConsumer consumer = new JwtConsumerBuilder()
+                .setVerificationKeyResolver(resolver)
+                .setEvaluationTime(NumericDate.fromSeconds(1300819372))
+                .setVerifiedJwtCache(100, 300)
+                .build();
+
+        consumer.process(jwt);
+        consumer.process(jwt);
+        assertEquals(2, resolver.count.get());
+        assertEquals(0, consumer.getVerifiedJwtCache().size());
+    }
+
+    @Test
+    public void boundedSize() throws Exception
+    {
+        HmacJwts.CountingResolver resolver = new HmacJwts.CountingResolver(key);
+        JwtConsumer consumer = new JwtConsumerBuilder()
+                .setVerificationKeyResolver(resolver)
+                .setVerifiedJwtCache(2, 300)
+                .build();
+
+        String[] jwts = new String[3];
+        for (int i = 0; i < jwts.length; i++)
+        {
+            JwtClaims claims = new JwtClaims();
+            claims.setSubject("s" + i);
+            claims.setExpirationTimeMinutesInTheFuture(10);
+            jwts[i] = jwt(claims);
+            consumer.process(jwts[i]);
+        }
+
+        assertEquals(2, consumer.getVerifiedJwtCache().size());
+        consumer.process(jwts[2]);
+        assertEquals(3, resolver.count.get());
+        consumer.process(jwts[0]);
+        assertEquals(4, resolver.count.get());
+    }
+
+    @Test
+    public void hitsGetTheirOwnJoseObjects() throws Exception
+    {
+        JwtClaims claims = new JwtClaims();
+        claims.setSubject("me");
+        claims.setExpirationTimeMinutesInTheFuture(10);
+
+        AesKey encryptionKey = new AesKey(ByteUtil.randomBytes(32));
+        JsonWebEncryption outer = new JsonWebEncryption();
+        outer.setAlgorithmHeaderValue(KeyManagementAlgorithmIdentifiers.DIRECT);
+        outer.setEncryptionMethodHeaderParameter(ContentEncryptionAlgorithmIdentifiers.AES_128_CBC_HMAC_SHA_256);
+        outer.setContentTypeHeaderValue("JWT");
+        outer.setPayload(jwt(claims));
+        outer.setKey(encryptionKey);
+        String jwt = outer.getCompactSerialization();
+
+        HmacJwts.CountingResolver resolver = new HmacJwts.CountingResolver(key);
+        JwtConsumer consumer = new JwtConsumerBuilder()
+                .setVerificationKeyResolver(resolver)
+                .setDecryptionKey(encryptionKey)
+                .setVerifiedJwtCache(100, 300)
+                .build();
+
+        JwtContext first = consumer.process(jwt);
+        JwtContext second = consumer.process(jwt);
+        JwtContext third = consumer.process(jwt);
+        assertEquals(1, resolver.count.get());
+        assertEquals(2, consumer.getVerifiedJwtCache().getHitCount());
+
+        List<JsonWebStructure> secondObjects = second.getJoseObjects();
+        List<JsonWebStructure> thirdObjects = third.getJoseObjects();
+        assertEquals(2, secondObjects.size());
+        for (int i = 0; i < secondObjects.size(); i++)
+        {
+            assertNotSame(first.getJoseObjects().get(i), secondObjects.get(i));
+            assertNotSame(secondObjects.get(i), thirdObjects.get(i));
+        }
+
+        JsonWebSignature jws = (JsonWebSignature) secondObjects.get(0);
+        assertTrue(jws.verifySignature());
+        jws.setKey(HmacJwts.newKey());
+        assertFalse(jws.verifySignature());
+        assertTrue(((JsonWebSignature) thirdObjects.get(0)).verifySignature());
+
+        JsonWebEncryption jwe = (JsonWebEncryption) secondObjects.get(1);
+        assertEquals(((JsonWebEncryption) thirdObjects.get(1)).getPayload(), jwe.getPayload());
+        jwe.getPlaintextBytes()[0] = 0;
+        assertEquals(((JsonWebEncryption) first.getJoseObjects().get(1)).getPayload(), ((JsonWebEncryption) consumer.process(jwt).getJoseObjects().get(1)).getPayload());
+    }
+
+    @Test
+    public void notCachedWithinClockSkewOfExpiration() throws Exception
+    {
+        JwtClaims claims = new JwtClaims();
+        claims.setSubject("me");
+        claims.setExpirationTime(NumericDate.fromMilliseconds(System.currentTimeMillis() + 30000));
+        String jwt = jwt(claims);
+
+        HmacJwts.CountingResolver resolver = new HmacJwts.CountingResolver(key);
+        JwtConsumer consumer = new JwtConsumerBuilder()
+                .setVerificationKeyResolver(resolver)
+                .setAllowedClockSkewInSeconds(60)
+                .setVerifiedJwtCache(100, 300)
+                .build();
+
+        consumer.process(jwt);
+        consumer.process(jwt);
+        assertEquals(2, resolver.count.get());
+        assertEquals(0, consumer.getVerifiedJwtCache().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void badConfig()
+    {
+        new JwtConsumerBuilder().setVerifiedJwtCache(0, 10);
+    }
+}
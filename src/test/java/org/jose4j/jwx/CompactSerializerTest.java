@@ -82,6 +82,67 @@ public class CompactSerializerTest extends TestCase
         assertEquals(i, parts.length);
     }
 
+    public void testDeserializeMultipleTrailingPeriods() throws JoseException
+    {
+        String cs = "one.two..";
+        String[] parts = CompactSerializer.deserialize(cs);
+        int i = 0;
+        assertEquals("one", parts[i++]);
+        assertEquals("two", parts[i++]);
+        assertEquals("", parts[i++]);
+        assertEquals(i, parts.length);
+    }
+
+    public void testDeserializeEdges() throws JoseException
+    {
+        assertEquals(1, CompactSerializer.deserialize("").length);
+        assertEquals("", CompactSerializer.deserialize("")[0]);
+        assertEquals(1, CompactSerializer.deserialize(".").length);
+        assertEquals("", CompactSerializer.deserialize(".")[0]);
+        assertEquals(1, CompactSerializer.deserialize("...").length);
+
+        String[] parts = CompactSerializer.deserialize(".one");
+        assertEquals(2, parts.length);
+        assertEquals("", parts[0]);
+        assertEquals("one", parts[1]);
+    }
+
+    public void testTokenize() throws JoseException
+    {
+        String cs = "one..three.four.five";
+        CompactSerializationParts parts = CompactSerializer.tokenize(cs);
+        assertEquals(5, parts.size());
+        assertSame(cs, parts.getCompactSerialization());
+        assertEquals(0, parts.start(0));
+        assertEquals(3, parts.end(0));
+        assertTrue(parts.isEmpty(1));
+        assertEquals(4, parts.start(1));
+        assertEquals(5, parts.start(2));
+        assertEquals(5, parts.length(2));
+        assertEquals("three", parts.get(2));
+        assertEquals("five", parts.get(4));
+        assertEquals(cs.length(), parts.end(4));
+
+        try
+        {
+            parts.get(5);
+            fail("should have thrown");
+        }
+        catch (IndexOutOfBoundsException e)
+        {
+            // expected
+        }
+    }
+
+    public void testTokenizeManyParts() throws JoseException
+    {
+        String cs = "a.b.c.d.e.f.g.h.i.j.k.l";
+        CompactSerializationParts parts = CompactSerializer.tokenize(cs);
+        assertEquals(12, parts.size());
+        assertEquals("l", parts.get(11));
+        assertEquals(cs, CompactSerializer.serialize(parts.toArray()));
+    }
+
     public void testSerialize1() throws JoseException
     {
         String cs = CompactSerializer.serialize("one", "two", "three");
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.mac;
+
+import org.jose4j.jca.ProviderContext;
+import org.jose4j.jwe.ContentEncryptionAlgorithmIdentifiers;
+import org.jose4j.jwe.JsonWebEncryption;
+import org.jose4j.jwe.KeyManagementAlgorithmIdentifiers;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.keys.AesKey;
+import org.jose4j.keys.HmacKey;
+import org.jose4j.lang.ByteUtil;
+import org.junit.Test;
+
+import javax.crypto.Mac;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class MacCacheTest
+{
+    @Test
+    public void sameMacForSameKeyOnSameThread() throws Exception
+    {
+        MacCache macCache = new MacCache();
+        byte[] rawKey = ByteUtil.randomBytes(32);
+        Mac mac1 = macCache.getInitializedMac(MacUtil.HMAC_SHA256, new HmacKey(rawKey), null);
+        byte[] first = mac1.doFinal(new byte[] {1, 2, 3});
+        Mac mac2 = macCache.getInitializedMac(MacUtil.HMAC_SHA256, new HmacKey(rawKey.clone()), null);
+        assertSame(mac1, mac2);
+        assertArrayEquals(first, mac2.doFinal(new byte[]{1, 2, 3}));
+
+        Mac mac3 = macCache.getInitializedMac(MacUtil.HMAC_SHA384, new HmacKey(rawKey), null);
+        assertNotSame(mac1, mac3);
+        Mac mac4 = macCache.getInitializedMac(MacUtil.HMAC_SHA256, new HmacKey(ByteUtil.randomBytes(32)), null);
+        assertNotSame(mac1, mac4);
+
+        macCache.clear();
+        assertNotSame(mac1, macCache.getInitializedMac(MacUtil.HMAC_SHA256, new HmacKey(rawKey), null));
+    }
+
+    @Test
+    public void partiallyUsedMacIsReset() throws Exception
+    {
+        MacCache macCache = new MacCache();
+        HmacKey key = new HmacKey(ByteUtil.randomBytes(32));
+        Mac mac = macCache.getInitializedMac(MacUtil.HMAC_SHA256, key, null);
+        byte[] expected = mac.doFinal(new byte[] {9});
+        mac.update(new byte[] {7, 7, 7});
+        mac = macCache.getInitializedMac(MacUtil.HMAC_SHA256, key, null);
+        assertArrayEquals(expected, mac.doFinal(new byte[] {9}));
+    }
+
+    @Test
+    public void leastRecentlyUsedIsEvicted() throws Exception
+    {
+        MacCache macCache = new MacCache(2);
+        HmacKey key1 = new HmacKey(ByteUtil.randomBytes(32));
+        HmacKey key2 = new HmacKey(ByteUtil.randomBytes(32));
+        HmacKey key3 = new HmacKey(ByteUtil.randomBytes(32));
+        Mac mac1 = macCache.getInitializedMac(MacUtil.HMAC_SHA256, key1, null);
+        Mac mac2 = macCache.getInitializedMac(MacUtil.HMAC_SHA256, key2, null);
+        assertSame(mac1, macCache.getInitializedMac(MacUtil.HMAC_SHA256, key1, null));
+        macCache.getInitializedMac(MacUtil.HMAC_SHA256, key3, null);
+        assertSame(mac1, macCache.getInitializedMac(MacUtil.HMAC_SHA256, key1, null));
+        assertNotSame(mac2, macCache.getInitializedMac(MacUtil.HMAC_SHA256, key2, null));
+    }
+
+    @Test
+    public void differentThreadsGetDifferentMacs() throws Exception
+    {
+        final MacCache macCache = new MacCache();
+        final HmacKey key = new HmacKey(ByteUtil.randomBytes(32));
+        Mac mac = macCache.getInitializedMac(MacUtil.HMAC_SHA256, key, null);
+        final AtomicReference<Mac> other = new AtomicReference<>();
+        Thread thread = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    other.set(macCache.getInitializedMac(MacUtil.HMAC_SHA256, key, null));
+                }
+                catch (Exception e)
+                {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+        thread.start();
+        thread.join();
+        assertNotNull(other.get());
+        assertNotSame(mac, other.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void badSize()
+    {
+        new MacCache(0);
+    }
+
+    @Test
+    public void jwsAndJweWithMacCache() throws Exception
+    {
+        ProviderContext providerContext = new ProviderContext();
+        providerContext.setMacCache(new MacCache());
+
+        HmacKey key = new HmacKey(ByteUtil.randomBytes(32));
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setPayload("meh");
+        jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.HMAC_SHA256);
+        jws.setKey(key);
+        String cs = jws.getCompactSerialization();
+
+        for (int i = 0; i < 3; i++)
+        {
+            jws = new JsonWebSignature();
+            jws.setProviderContext(providerContext);
+            jws.setCompactSerialization(cs);
+            jws.setKey(key);
+            assertTrue(jws.verifySignature());
+
+            jws = new JsonWebSignature();
+            jws.setProviderContext(providerContext);
+            jws.setCompactSerialization(cs.substring(0, cs.length() - 2) + (cs.endsWith("AA") ? "BB" : "AA"));
+            jws.setKey(key);
+            assertFalse(jws.verifySignature());
+        }
+
+        AesKey cek = new AesKey(ByteUtil.randomBytes(32));
+        for (int i = 0; i < 3; i++)
+        {
+            JsonWebEncryption jwe = new JsonWebEncryption();
+            jwe.setProviderContext(providerContext);
+            jwe.setPlaintext("plaintext " + i);
+            jwe.setAlgorithmHeaderValue(KeyManagementAlgorithmIdentifiers.DIRECT);
+            jwe.setEncryptionMethodHeaderParameter(ContentEncryptionAlgorithmIdentifiers.AES_128_CBC_HMAC_SHA_256);
+            jwe.setKey(cek);
+            String jweCs = jwe.getCompactSerialization();
+
+            jwe = new JsonWebEncryption();
+            jwe.setProviderContext(providerContext);
+            jwe.setCompactSerialization(jweCs);
+            jwe.setKey(cek);
+            assertEquals("plaintext " + i, jwe.getPlaintextString());
+        }
+    }
+}